@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+# Compara o armazenamento das transações no H2 (JPA) com o journal mapeado em memória
+# (src/test/java/com/organizadorfinancas/benchmark/ArmazenamentoTransacoesBenchmark.java).
+#
+# Uso: scripts/benchmark-armazenamento.sh [argumentos do JMH]
+#   ex.: scripts/benchmark-armazenamento.sh -p transacoes=200000 -wi 3 -i 3
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -q -B test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath-benchmark.txt
+java -cp "target/test-classes:target/classes:$(cat target/classpath-benchmark.txt)" \
+    org.openjdk.jmh.Main ArmazenamentoTransacoesBenchmark "$@"
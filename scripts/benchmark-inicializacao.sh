@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+# Mede o tempo até a primeira requisição respondida e a memória residente (RSS)
+# de cada variante de inicialização da aplicação.
+#
+# Uso: scripts/benchmark-inicializacao.sh [variante...]
+#   jvm     - jar executável comum
+#   aot     - jar processado com AOT (mvn -Pnative package) rodando na JVM com -Dspring.aot.enabled=true
+#   native  - executável nativo GraalVM (mvn -Pnative native:compile)
+#   cds     - jar extraído com arquivo AppCDS de treino (scripts/cds-treino.sh)
+#   crac    - restauração de checkpoint CRaC (scripts/crac-checkpoint.sh, mesma PORTA)
+#
+# Variáveis: REPETICOES (padrão 5), PORTA (padrão 8080), URL (padrão /api/categorias)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+REPETICOES=${REPETICOES:-5}
+PORTA=${PORTA:-8080}
+URL=${URL:-/api/categorias}
+JAR=target/organizador-financas-1.0.0.jar
+NATIVO=target/organizador-financas
+
+comando() {
+    case "$1" in
+        jvm)    echo "java -jar $JAR --server.port=$PORTA" ;;
+        aot)    echo "java -Dspring.aot.enabled=true -jar $JAR --server.port=$PORTA" ;;
+        native) echo "$NATIVO --server.port=$PORTA" ;;
+        # -Xshare:on falha em vez de ignorar silenciosamente um arquivo CDS incompatível
+        cds)    echo "java -Xshare:on -XX:SharedArchiveFile=target/cds/organizador-financas.jsa -jar target/cds/organizador-financas.jar --server.port=$PORTA" ;;
+        # A porta e os argumentos ficam gravados no checkpoint
+        crac)   echo "java -XX:CRaCRestoreFrom=target/crac" ;;
+        *)      echo "Variante desconhecida: $1" >&2; exit 1 ;;
+    esac
+}
+
+agora_ms() {
+    date +%s%3N
+}
+
+medir() {
+    local variante=$1
+    local cmd
+    cmd=$(comando "$variante")
+
+    if curl -s "http://localhost:$PORTA" > /dev/null; then
+        echo "Porta $PORTA já está em uso" >&2
+        exit 1
+    fi
+
+    local inicio fim pid rss
+    inicio=$(agora_ms)
+    $cmd > "target/benchmark-$variante.log" 2>&1 &
+    pid=$!
+
+    until curl -sf "http://localhost:$PORTA$URL" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "A variante $variante terminou antes de responder (ver target/benchmark-$variante.log)" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    fim=$(agora_ms)
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$((fim - inicio)) $((rss / 1024))"
+}
+
+VARIANTES=("$@")
+if [ ${#VARIANTES[@]} -eq 0 ]; then
+    VARIANTES=(jvm aot native)
+fi
+
+printf "%-8s %12s %12s %10s\n" "variante" "primeira(ms)" "mediana(ms)" "RSS(MB)"
+for variante in "${VARIANTES[@]}"; do
+    tempos=()
+    rss_total=0
+    for _ in $(seq 1 "$REPETICOES"); do
+        read -r tempo rss < <(medir "$variante")
+        tempos+=("$tempo")
+        rss_total=$((rss_total + rss))
+    done
+    mediana=$(printf "%s\n" "${tempos[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    printf "%-8s %12s %12s %10s\n" "$variante" "${tempos[0]}" "$mediana" "$((rss_total / REPETICOES))"
+done
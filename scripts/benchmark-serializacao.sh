@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# Executa os micro-benchmarks JMH (src/test/java/com/organizadorfinancas/benchmark).
+#
+# Uso: scripts/benchmark-serializacao.sh [argumentos do JMH]
+#   ex.: scripts/benchmark-serializacao.sh -p transacoes=500 -f 1 -wi 3 -i 3
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -q -B test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath-benchmark.txt
+java -cp "target/test-classes:target/classes:$(cat target/classpath-benchmark.txt)" \
+    org.openjdk.jmh.Main SerializacaoJsonBenchmark "$@"
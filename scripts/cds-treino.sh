@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Gera o arquivo de Class Data Sharing (AppCDS) da aplicação a partir de uma execução de treino.
+#
+# O CDS não lê classes de jars aninhados, então o jar executável é extraído em
+# target/cds/: lib/ com as dependências e organizador-financas.jar com as classes
+# da aplicação e um Class-Path no manifesto. A execução de treino sobe a aplicação
+# com -XX:ArchiveClassesAtExit, exercita os endpoints e encerra; a JVM grava o
+# arquivo organizador-financas.jsa na saída.
+#
+# Uso: scripts/cds-treino.sh   (depois de mvn package)
+#   java -XX:SharedArchiveFile=target/cds/organizador-financas.jsa -jar target/cds/organizador-financas.jar
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORTA=${PORTA:-8080}
+JAR=target/organizador-financas-1.0.0.jar
+DESTINO=target/cds
+
+rm -rf "$DESTINO"
+mkdir -p "$DESTINO/extraido"
+(cd "$DESTINO/extraido" && jar xf "../../../$JAR")
+mv "$DESTINO/extraido/BOOT-INF/lib" "$DESTINO/lib"
+
+# Manifesto limita linhas a 72 bytes: um jar por linha de continuação
+{
+    echo "Main-Class: $(awk -F': ' '/^Start-Class/ {print $2}' "$DESTINO/extraido/META-INF/MANIFEST.MF" | tr -d '\r')"
+    (cd "$DESTINO" && ls lib/*.jar | sort | sed '1s/^/Class-Path: /; 2,$s/^/  /')
+} > "$DESTINO/MANIFEST.MF"
+jar --create --file "$DESTINO/organizador-financas.jar" --manifest "$DESTINO/MANIFEST.MF" \
+    -C "$DESTINO/extraido/BOOT-INF/classes" .
+rm -rf "$DESTINO/extraido" "$DESTINO/MANIFEST.MF"
+
+java -XX:ArchiveClassesAtExit="$DESTINO/organizador-financas.jsa" \
+    -jar "$DESTINO/organizador-financas.jar" --server.port="$PORTA" \
+    --organizador.admissao.capacidade-balde=1000000 --organizador.admissao.recarga-por-segundo=1000000 \
+    > "$DESTINO/treino.log" 2>&1 &
+PID=$!
+trap 'kill "$PID" 2> /dev/null || true' EXIT
+
+until curl -sf "http://localhost:$PORTA/api/categorias" > /dev/null; do
+    if ! kill -0 "$PID" 2> /dev/null; then
+        echo "A execução de treino terminou antes de responder (ver $DESTINO/treino.log)" >&2
+        exit 1
+    fi
+    sleep 0.1
+done
+
+scripts/exercitar-endpoints.sh "http://localhost:$PORTA"
+
+kill "$PID"
+wait "$PID" 2> /dev/null || true
+
+if [ ! -f "$DESTINO/organizador-financas.jsa" ]; then
+    echo "Arquivo CDS não foi gerado (ver $DESTINO/treino.log)" >&2
+    exit 1
+fi
+echo "Arquivo CDS gerado: $DESTINO/organizador-financas.jsa ($(du -h "$DESTINO/organizador-financas.jsa" | cut -f1))"
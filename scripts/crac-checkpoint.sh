@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Gera um checkpoint CRaC (Coordinated Restore at Checkpoint) da aplicação já aquecida.
+#
+# Requer uma JDK com suporte a CRaC (ex.: Azul Zulu 17 CRaC) e a dependência org.crac
+# no classpath, com a qual o Spring Boot para o Tomcat (libera o socket) e suspende o
+# pool Hikari (fecha as conexões) antes do checkpoint, reabrindo ambos na restauração.
+# O perfil "crac" mantém o banco H2 em memória vivo sem conexões abertas.
+#
+# Uso: scripts/crac-checkpoint.sh   (depois de mvn package)
+#   java -XX:CRaCRestoreFrom=target/crac
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORTA=${PORTA:-8080}
+JAR=target/organizador-financas-1.0.0.jar
+DESTINO=target/crac
+
+if ! java -XX:CRaCCheckpointTo=/tmp -version > /dev/null 2>&1; then
+    echo "A JDK atual não suporta CRaC ($(java -version 2>&1 | head -1))" >&2
+    exit 1
+fi
+
+rm -rf "$DESTINO"
+mkdir -p "$DESTINO"
+
+java -XX:CRaCCheckpointTo="$DESTINO" -Dspring.profiles.active=crac \
+    -jar "$JAR" --server.port="$PORTA" > target/crac-checkpoint.log 2>&1 &
+PID=$!
+trap 'kill "$PID" 2> /dev/null || true' EXIT
+
+until curl -sf "http://localhost:$PORTA/api/categorias" > /dev/null; do
+    if ! kill -0 "$PID" 2> /dev/null; then
+        echo "A aplicação terminou antes de responder (ver target/crac-checkpoint.log)" >&2
+        exit 1
+    fi
+    sleep 0.1
+done
+
+# Aquecimento: classes carregadas, caches preenchidos e código compilado pelo JIT entram no checkpoint
+scripts/exercitar-endpoints.sh "http://localhost:$PORTA" 50
+
+jcmd "$PID" JDK.checkpoint > /dev/null
+wait "$PID" 2> /dev/null || true
+
+if [ -z "$(ls -A "$DESTINO")" ]; then
+    echo "Checkpoint não foi gerado (ver target/crac-checkpoint.log)" >&2
+    exit 1
+fi
+echo "Checkpoint gerado em $DESTINO ($(du -sh "$DESTINO" | cut -f1))"
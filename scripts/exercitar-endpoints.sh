@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Exercita os endpoints de TransacaoController e CategoriaController.
+# Usado como carga de treino do arquivo CDS e de aquecimento antes do checkpoint CRaC.
+#
+# Uso: scripts/exercitar-endpoints.sh [base-url] [rodadas]
+set -euo pipefail
+
+BASE=${1:-http://localhost:8080}
+RODADAS=${2:-20}
+
+# Respostas de erro também exercitam o tratamento de exceções; 429 (controle de admissão) é repetido após o Retry-After
+get() {
+    curl -s --retry 10 -o /dev/null "$BASE$1"
+}
+
+for _ in $(seq 1 "$RODADAS"); do
+    get /api/categorias
+    get /api/categorias/1
+    get /api/categorias/tipo/DESPESA_ESSENCIAL
+    get /api/categorias/essencial/true
+    get /api/categorias/renda-fixa
+    get /api/categorias/renda-variavel
+    get /api/categorias/despesas-essenciais
+    get /api/categorias/despesas-superfluas
+    get /api/categorias/gastos-invisiveis
+
+    get /api/transacoes
+    get /api/transacoes/1
+    get /api/transacoes/despesas
+    get /api/transacoes/receitas
+    get /api/transacoes/recorrentes
+    get /api/transacoes/superfluos
+    get /api/transacoes/parceladas
+    get "/api/transacoes/periodo?dataInicio=2024-01-01&dataFim=2030-12-31"
+    get /api/transacoes/categoria/1
+    get /api/transacoes/resumo/despesas
+    get /api/transacoes/resumo/receitas
+    get /api/transacoes/resumo/recorrentes
+    get /api/transacoes/resumo/essenciais
+    get /api/transacoes/resumo/superfluas
+    get /api/transacoes/resumo/saldo
+    get "/api/transacoes/resumo/por-categoria?tipo=DESPESA"
+done
+
+# Ciclo de escrita: cria, altera e remove uma transação (exercita validação e desserialização)
+ID=$(curl -sf --retry 10 -X POST "$BASE/api/transacoes" -H 'Content-Type: application/json' \
+    -d '{"descricao":"Treino","valor":10.50,"data":"2024-01-15","tipo":"DESPESA","recorrente":false,"parcelas":1,"parcelaAtual":1,"categoria":{"id":1}}' \
+    | sed -E 's/^\{"id":([0-9]+).*/\1/')
+curl -sf --retry 10 -X PUT "$BASE/api/transacoes/$ID" -H 'Content-Type: application/json' \
+    -d '{"descricao":"Treino alterado","valor":11.00,"data":"2024-01-15","tipo":"DESPESA","recorrente":false,"parcelas":1,"parcelaAtual":1,"categoria":{"id":1}}' > /dev/null
+curl -sf --retry 10 -X DELETE "$BASE/api/transacoes/$ID" > /dev/null
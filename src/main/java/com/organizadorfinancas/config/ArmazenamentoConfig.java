@@ -0,0 +1,66 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.JournalTransacoes;
+import com.organizadorfinancas.repository.TransacaoRepositoryJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Troca o armazenamento das transações do banco pelo {@link JournalTransacoes} quando
+ * {@code organizador.armazenamento.transacoes=journal}. As categorias e os demais dados continuam no banco.
+ */
+@Configuration
+@ConditionalOnProperty(name = "organizador.armazenamento.transacoes", havingValue = "journal")
+public class ArmazenamentoConfig {
+
+    @Value("${organizador.armazenamento.diretorio:}")
+    private String diretorio;
+
+    @Value("${organizador.armazenamento.sincronizacao-ms:1000}")
+    private long sincronizacaoMs;
+
+    @Value("${organizador.armazenamento.compactacao-desperdicio:0.5}")
+    private double compactacaoDesperdicio;
+
+    @Value("${organizador.armazenamento.compactacao-segundos:300}")
+    private long compactacaoSegundos;
+
+    @Bean(destroyMethod = "close")
+    public JournalTransacoes journalTransacoes(Environment environment) {
+        // Ingestão e carga sintética gravam as transações por JDBC direto na tabela
+        if (environment.getProperty("organizador.ingestao.habilitada", Boolean.class, false)) {
+            throw new IllegalStateException("organizador.ingestao.habilitada não é suportada com organizador.armazenamento.transacoes=journal");
+        }
+        if (Arrays.asList(environment.getActiveProfiles()).contains("dataset")) {
+            throw new IllegalStateException("O perfil dataset não é suportado com organizador.armazenamento.transacoes=journal");
+        }
+        // Sem diretório, o journal vive num diretório temporário apagado ao encerrar, como o banco em memória
+        boolean temporario = diretorio.isBlank();
+        Path caminho;
+        try {
+            caminho = temporario ? Files.createTempDirectory("journal-transacoes") : Path.of(diretorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new JournalTransacoes(caminho, temporario, sincronizacaoMs, compactacaoDesperdicio, compactacaoSegundos);
+    }
+
+    @Bean
+    @Primary
+    public ArmazenamentoTransacoes transacaoRepositoryJournal(JournalTransacoes journalTransacoes,
+                                                              CategoriaRepository categoriaRepository) {
+        return new TransacaoRepositoryJournal(journalTransacoes, categoriaRepository);
+    }
+}
@@ -0,0 +1,59 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.service.EstatisticasCategorias;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+@Configuration
+@Profile("dataset")
+public class CargaDadosSinteticos {
+
+    @Value("${organizador.dataset.usuarios:1000}")
+    private int usuarios;
+
+    @Value("${organizador.dataset.meses:24}")
+    private int meses;
+
+    @Value("${organizador.dataset.semente:42}")
+    private long semente;
+
+    @Value("${organizador.dataset.tamanho-lote:5000}")
+    private int tamanhoLote;
+
+    @Value("${organizador.dataset.paralelismo:0}")
+    private int paralelismo;
+
+    @Bean
+    CommandLineRunner carregarDadosSinteticos(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                              EstatisticasCategorias estatisticasCategorias) {
+        return args -> {
+            Long existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transacoes", Long.class);
+            if (existentes != null && existentes > 0) {
+                System.out.println("=== DADOS EXISTENTES PRESERVADOS: " + existentes + " transações ===");
+                return;
+            }
+
+            int threads = paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors();
+            GeradorDadosSinteticos gerador = new GeradorDadosSinteticos(jdbcTemplate, semente, tamanhoLote, threads);
+            LocalDate inicio = LocalDate.now().withDayOfMonth(1).minusMonths(meses - 1L);
+
+            GeradorDadosSinteticos.Resultado resultado = gerador.gerar(usuarios, inicio, meses);
+            // A carga usa JDBC direto, fora do controle do Hibernate: descarta entidades e consultas em cache
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+            estatisticasCategorias.recalcularTodas();
+
+            System.out.println("=== DADOS SINTÉTICOS CARREGADOS ===");
+            System.out.println("Usuários: " + usuarios + " | Meses: " + meses + " | Semente: " + semente);
+            System.out.println("Categorias: " + resultado.categorias());
+            System.out.println("Transações: " + resultado.transacoes() + " em " + resultado.duracaoMs() + " ms");
+        };
+    }
+}
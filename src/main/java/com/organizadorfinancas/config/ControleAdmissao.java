@@ -0,0 +1,232 @@
+package com.organizadorfinancas.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Controle de admissão da API: um balde de fichas por cliente (custo por classe de endpoint;
+ * a ingestão tem um balde próprio, dimensionado para escritores de alta frequência) e um limite de concorrência por classe, ajustado pela latência medida (aumento aditivo
+ * enquanto a latência média fica abaixo do alvo, redução multiplicativa acima dele, no máximo
+ * uma por janela: só requisições iniciadas depois da última redução podem reduzir de novo).
+ * Requisições fora do limite são rejeitadas antes de chegar ao banco.
+ */
+public class ControleAdmissao {
+
+    public enum ClasseEndpoint {
+        CRUD(1),
+        LISTAGEM(2),
+        AGREGADO(5),
+        // Exclusões, alterações e mesclagens que percorrem lotes inteiros de transações
+        LOTE(10),
+        // Aceitação pela ingestão assíncrona: consome do balde de ingestão do cliente, não do balde comum
+        INGESTAO(1);
+
+        private final int custo;
+
+        ClasseEndpoint(int custo) {
+            this.custo = custo;
+        }
+
+        public int getCusto() {
+            return custo;
+        }
+    }
+
+    public record Parametros(double capacidadeBalde, double recargaPorSegundo,
+                             double capacidadeBaldeIngestao, double recargaIngestaoPorSegundo,
+                             int limiteInicial, int limiteMinimo, int limiteMaximo,
+                             Map<ClasseEndpoint, Long> latenciaAlvoMs) {
+    }
+
+    public record Decisao(boolean admitida, String motivo, long retryAfterSegundos) {
+
+        static final Decisao ADMITIDA = new Decisao(true, null, 0);
+    }
+
+    private static final int MAXIMO_CLIENTES = 10_000;
+    private static final double PESO_LATENCIA = 0.2;
+    private static final double FATOR_REDUCAO = 0.9;
+
+    private final Parametros parametros;
+    private final LongSupplier relogioNanos;
+    private final Map<String, Balde> baldes = new ConcurrentHashMap<>();
+    private final Map<String, Balde> baldesIngestao = new ConcurrentHashMap<>();
+    private final Map<ClasseEndpoint, Limitador> limitadores = new EnumMap<>(ClasseEndpoint.class);
+    private final Map<ClasseEndpoint, Counter> rejeicoesTaxa = new EnumMap<>(ClasseEndpoint.class);
+    private final Map<ClasseEndpoint, Counter> rejeicoesConcorrencia = new EnumMap<>(ClasseEndpoint.class);
+
+    public ControleAdmissao(Parametros parametros, LongSupplier relogioNanos) {
+        this.parametros = parametros;
+        this.relogioNanos = relogioNanos;
+        for (ClasseEndpoint classe : ClasseEndpoint.values()) {
+            limitadores.put(classe, new Limitador(parametros.latenciaAlvoMs().get(classe)));
+        }
+    }
+
+    public void registrarMetricas(MeterRegistry registry) {
+        for (ClasseEndpoint classe : ClasseEndpoint.values()) {
+            Limitador limitador = limitadores.get(classe);
+            String tag = classe.name().toLowerCase();
+            Gauge.builder("organizador.admissao.limite", limitador, l -> l.limite)
+                    .tag("classe", tag).register(registry);
+            Gauge.builder("organizador.admissao.em-andamento", limitador, l -> l.emAndamento.get())
+                    .tag("classe", tag).register(registry);
+            rejeicoesTaxa.put(classe, Counter.builder("organizador.admissao.rejeicoes")
+                    .tag("classe", tag).tag("motivo", "taxa").register(registry));
+            rejeicoesConcorrencia.put(classe, Counter.builder("organizador.admissao.rejeicoes")
+                    .tag("classe", tag).tag("motivo", "concorrencia").register(registry));
+        }
+    }
+
+    /**
+     * Tenta admitir a requisição. Se admitida, o chamador deve chamar {@link #concluir} ao final.
+     */
+    public Decisao admitir(String cliente, ClasseEndpoint classe) {
+        long agora = relogioNanos.getAsLong();
+        boolean ingestao = classe == ClasseEndpoint.INGESTAO;
+        Map<String, Balde> doCliente = ingestao ? baldesIngestao : baldes;
+        Balde balde = doCliente.get(cliente);
+        if (balde == null) {
+            if (doCliente.size() >= MAXIMO_CLIENTES) {
+                descartarBaldesCheios(doCliente, agora);
+            }
+            balde = doCliente.computeIfAbsent(cliente, c -> ingestao
+                    ? new Balde(parametros.capacidadeBaldeIngestao(), parametros.recargaIngestaoPorSegundo(), agora)
+                    : new Balde(parametros.capacidadeBalde(), parametros.recargaPorSegundo(), agora));
+        }
+
+        double falta = balde.consumir(classe.getCusto(), agora);
+        if (falta > 0) {
+            incrementar(rejeicoesTaxa, classe);
+            return new Decisao(false, "Limite de requisições do cliente excedido",
+                    (long) Math.ceil(falta / balde.recargaPorSegundo));
+        }
+
+        if (!limitadores.get(classe).entrar()) {
+            balde.devolver(classe.getCusto());
+            incrementar(rejeicoesConcorrencia, classe);
+            return new Decisao(false, "Serviço sobrecarregado", 1);
+        }
+        return Decisao.ADMITIDA;
+    }
+
+    public void concluir(ClasseEndpoint classe, long inicioNanos) {
+        long agora = relogioNanos.getAsLong();
+        limitadores.get(classe).sair((agora - inicioNanos) / 1_000_000.0, inicioNanos, agora);
+    }
+
+    public double getLimite(ClasseEndpoint classe) {
+        return limitadores.get(classe).limite;
+    }
+
+    public int getEmAndamento(ClasseEndpoint classe) {
+        return limitadores.get(classe).emAndamento.get();
+    }
+
+    private void incrementar(Map<ClasseEndpoint, Counter> contadores, ClasseEndpoint classe) {
+        Counter contador = contadores.get(classe);
+        if (contador != null) {
+            contador.increment();
+        }
+    }
+
+    // Um balde cheio equivale a um cliente sem histórico: pode ser recriado sem perda
+    private static void descartarBaldesCheios(Map<String, Balde> doCliente, long agora) {
+        doCliente.values().removeIf(balde -> balde.cheio(agora));
+    }
+
+    private static final class Balde {
+
+        private final double capacidade;
+        private final double recargaPorSegundo;
+        private double fichas;
+        private long atualizadoEm;
+
+        Balde(double capacidade, double recargaPorSegundo, long agora) {
+            this.capacidade = capacidade;
+            this.recargaPorSegundo = recargaPorSegundo;
+            this.fichas = capacidade;
+            this.atualizadoEm = agora;
+        }
+
+        /** Consome as fichas e retorna 0, ou retorna quantas fichas faltam. */
+        synchronized double consumir(int custo, long agora) {
+            recarregar(agora);
+            if (fichas < custo) {
+                return custo - fichas;
+            }
+            fichas -= custo;
+            return 0;
+        }
+
+        synchronized void devolver(int custo) {
+            fichas = Math.min(capacidade, fichas + custo);
+        }
+
+        synchronized boolean cheio(long agora) {
+            recarregar(agora);
+            return fichas >= capacidade;
+        }
+
+        private void recarregar(long agora) {
+            double decorrido = (agora - atualizadoEm) / 1_000_000_000.0;
+            if (decorrido > 0) {
+                fichas = Math.min(capacidade, fichas + decorrido * recargaPorSegundo);
+                atualizadoEm = agora;
+            }
+        }
+    }
+
+    private final class Limitador {
+
+        private final long latenciaAlvoMs;
+        private final AtomicInteger emAndamento = new AtomicInteger();
+        private volatile double limite = parametros.limiteInicial();
+        private double latenciaMediaMs;
+        private boolean reduzido;
+        private long reduzidoEm;
+
+        Limitador(long latenciaAlvoMs) {
+            this.latenciaAlvoMs = latenciaAlvoMs;
+        }
+
+        boolean entrar() {
+            while (true) {
+                int atual = emAndamento.get();
+                if (atual >= (int) limite) {
+                    return false;
+                }
+                if (emAndamento.compareAndSet(atual, atual + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void sair(double latenciaMs, long inicioNanos, long agora) {
+            emAndamento.decrementAndGet();
+            synchronized (this) {
+                latenciaMediaMs = latenciaMediaMs == 0
+                        ? latenciaMs
+                        : latenciaMediaMs + PESO_LATENCIA * (latenciaMs - latenciaMediaMs);
+                if (latenciaMediaMs > latenciaAlvoMs) {
+                    // Uma redução por janela: quem já estava em andamento na última redução foi admitido
+                    // sob o limite anterior e não pede outra
+                    if (!reduzido || inicioNanos - reduzidoEm > 0) {
+                        limite = Math.max(parametros.limiteMinimo(), limite * FATOR_REDUCAO);
+                        reduzido = true;
+                        reduzidoEm = agora;
+                    }
+                } else {
+                    limite = Math.min(parametros.limiteMaximo(), limite + 1 / limite);
+                }
+            }
+        }
+    }
+}
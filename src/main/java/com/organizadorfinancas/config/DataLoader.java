@@ -4,23 +4,33 @@ import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.model.TipoTransacao;
 import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
 import com.organizadorfinancas.repository.CategoriaRepository;
-import com.organizadorfinancas.repository.TransacaoRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Configuration
+@Profile("!dataset & !test")
 public class DataLoader {
     
     @Bean
     CommandLineRunner initDatabase(CategoriaRepository categoriaRepository, 
-                                 TransacaoRepository transacaoRepository) {
+                                 ArmazenamentoTransacoes transacaoRepository) {
         return args -> {
             
+            // No modo persistente os dados já existem no arquivo do banco
+            if (categoriaRepository.count() > 0) {
+                System.out.println("=== DADOS EXISTENTES PRESERVADOS ===");
+                System.out.println("Categorias: " + categoriaRepository.count());
+                System.out.println("Transações: " + transacaoRepository.count());
+                return;
+            }
+            
             // Categorias de Renda
             Categoria salario = new Categoria("Salário", true, TipoCategoria.RENDA_FIXA);
             Categoria freelancer = new Categoria("Freelancer", false, TipoCategoria.RENDA_VARIAVEL);
@@ -0,0 +1,169 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.config.ControleAdmissao.ClasseEndpoint;
+import com.organizadorfinancas.config.ControleAdmissao.Decisao;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aplica o {@link ControleAdmissao} às requisições de /api, respondendo 429 com Retry-After
+ * quando a requisição é rejeitada. A vaga de uma requisição assíncrona só é devolvida quando
+ * a resposta termina, e a latência medida inclui todo o envio.
+ */
+public class FiltroAdmissao extends OncePerRequestFilter {
+
+    private final ControleAdmissao controleAdmissao;
+    private final String cabecalhoCliente;
+
+    public FiltroAdmissao(ControleAdmissao controleAdmissao, String cabecalhoCliente) {
+        this.controleAdmissao = controleAdmissao;
+        this.cabecalhoCliente = cabecalhoCliente;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ClasseEndpoint classe = classificar(request);
+        Decisao decisao = controleAdmissao.admitir(cliente(request), classe);
+        if (!decisao.admitida()) {
+            rejeitar(request, response, decisao);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean assincrona = false;
+        try {
+            filterChain.doFilter(request, response);
+            assincrona = request.isAsyncStarted();
+        } finally {
+            // Respostas assíncronas (StreamingResponseBody, NDJSON) ocupam a vaga até o fim do envio
+            if (assincrona) {
+                request.getAsyncContext().addListener(new Liberacao(classe, inicio));
+            } else {
+                controleAdmissao.concluir(classe, inicio);
+            }
+        }
+    }
+
+    /** Devolve a vaga de uma requisição assíncrona uma única vez, ao terminar, falhar ou expirar. */
+    private final class Liberacao implements AsyncListener {
+
+        private final ClasseEndpoint classe;
+        private final long inicio;
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        private Liberacao(ClasseEndpoint classe, long inicio) {
+            this.classe = classe;
+            this.inicio = inicio;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        // Um novo ciclo assíncrono na mesma requisição descarta os ouvintes do anterior
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar() {
+            if (liberada.compareAndSet(false, true)) {
+                controleAdmissao.concluir(classe, inicio);
+            }
+        }
+    }
+
+    static ClasseEndpoint classificar(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if ("POST".equals(request.getMethod()) && ingestao(uri)) {
+            return ClasseEndpoint.INGESTAO;
+        }
+        if (emLote(request.getMethod(), uri)) {
+            return ClasseEndpoint.LOTE;
+        }
+        if (uri.contains("/resumo/")) {
+            return ClasseEndpoint.AGREGADO;
+        }
+        if ("GET".equals(request.getMethod()) && !terminaComId(uri)) {
+            return ClasseEndpoint.LISTAGEM;
+        }
+        return ClasseEndpoint.CRUD;
+    }
+
+    private static boolean ingestao(String uri) {
+        return "/api/transacoes/ingestao".equals(uri) || "/api/transacoes/ingestao/".equals(uri);
+    }
+
+    // DELETE e PATCH de transações por filtro, exclusão de categoria (com as transações) e mesclagem
+    private static boolean emLote(String metodo, String uri) {
+        if ("/api/transacoes".equals(uri) || "/api/transacoes/".equals(uri)) {
+            return "DELETE".equals(metodo) || "PATCH".equals(metodo);
+        }
+        if (uri.startsWith("/api/categorias/")) {
+            return "DELETE".equals(metodo) && terminaComId(uri) || "POST".equals(metodo) && uri.contains("/mesclar/");
+        }
+        return false;
+    }
+
+    private static boolean terminaComId(String uri) {
+        int barra = uri.lastIndexOf('/');
+        if (barra == uri.length() - 1) {
+            return false;
+        }
+        for (int i = barra + 1; i < uri.length(); i++) {
+            if (!Character.isDigit(uri.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String cliente(HttpServletRequest request) {
+        if (cabecalhoCliente != null && !cabecalhoCliente.isBlank()) {
+            String valor = request.getHeader(cabecalhoCliente);
+            if (valor != null && !valor.isBlank()) {
+                int virgula = valor.indexOf(',');
+                return (virgula < 0 ? valor : valor.substring(0, virgula)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void rejeitar(HttpServletRequest request, HttpServletResponse response, Decisao decisao) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decisao.retryAfterSegundos()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\""
+                + decisao.motivo() + "\",\"path\":\"uri=" + request.getRequestURI().replace("\"", "") + "\"}");
+    }
+}
@@ -0,0 +1,300 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gera massa de dados sintética e determinística para testes de capacidade.
+ * Cada "usuário" é um perfil financeiro próprio (salário, aluguel, assinaturas, hábitos)
+ * derivado da semente, de modo que a mesma semente produz sempre os mesmos dados,
+ * independentemente do paralelismo usado na carga.
+ */
+public class GeradorDadosSinteticos {
+
+    private static final String INSERT_CATEGORIA =
+            "INSERT INTO categorias (nome, essencial, tipo) VALUES (?, ?, ?)";
+
+    private static final String INSERT_TRANSACAO =
+            "INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id, observacoes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Multiplicador sazonal de consumo por mês (janeiro = índice 0)
+    private static final double[] SAZONALIDADE = {
+        1.10, 0.95, 1.00, 0.95, 1.00, 1.00, 1.10, 1.00, 0.95, 1.00, 1.15, 1.35
+    };
+
+    private static final String[] STREAMINGS = {"Netflix", "Spotify", "Disney+", "Prime Video", "HBO Max"};
+    private static final String[] SUPERMERCADOS = {"Supermercado Semanal", "Mercado do Bairro", "Atacadão", "Hortifruti"};
+    private static final String[] RESTAURANTES = {"Jantar Restaurante", "Almoço Executivo", "Pizzaria", "Hamburgueria", "Delivery iFood"};
+    private static final String[] CAFES = {"Café da Manhã", "Café Padaria", "Cafeteria", "Café Expresso"};
+    private static final String[] PEQUENAS_COMPRAS = {"Lanche", "Farmácia", "Banca de Jornal", "Doces", "Água Mineral"};
+    private static final String[] COMPRAS_PARCELADAS = {"Notebook Novo", "Celular", "Geladeira", "Sofá", "Televisão", "Bicicleta"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long semente;
+    private final int tamanhoLote;
+    private final int paralelismo;
+
+    public GeradorDadosSinteticos(JdbcTemplate jdbcTemplate, long semente, int tamanhoLote, int paralelismo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.semente = semente;
+        this.tamanhoLote = tamanhoLote;
+        this.paralelismo = Math.max(1, paralelismo);
+    }
+
+    public Resultado gerar(int usuarios, LocalDate inicio, int meses) {
+        long inicioNanos = System.nanoTime();
+        Map<String, Long> categorias = garantirCategorias();
+
+        AtomicLong transacoes = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            int usuariosPorTarefa = Math.max(1, (usuarios + paralelismo - 1) / paralelismo);
+            for (int primeiro = 0; primeiro < usuarios; primeiro += usuariosPorTarefa) {
+                int de = primeiro;
+                int ate = Math.min(usuarios, primeiro + usuariosPorTarefa);
+                tarefas.add(executor.submit(() -> transacoes.addAndGet(gerarUsuarios(de, ate, inicio, meses, categorias))));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Geração de dados interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao gerar dados sintéticos", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long duracaoMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+        return new Resultado(categorias.size(), transacoes.get(), duracaoMs);
+    }
+
+    private Map<String, Long> garantirCategorias() {
+        Object[][] definicoes = {
+            {"Salário", true, TipoCategoria.RENDA_FIXA},
+            {"Freelancer", false, TipoCategoria.RENDA_VARIAVEL},
+            {"Investimentos", false, TipoCategoria.RENDA_VARIAVEL},
+            {"Aluguel", true, TipoCategoria.DESPESA_ESSENCIAL},
+            {"Alimentação", true, TipoCategoria.DESPESA_ESSENCIAL},
+            {"Transporte", true, TipoCategoria.DESPESA_ESSENCIAL},
+            {"Saúde", true, TipoCategoria.DESPESA_ESSENCIAL},
+            {"Contas (Água/Luz/Telefone)", true, TipoCategoria.DESPESA_ESSENCIAL},
+            {"Streaming", false, TipoCategoria.DESPESA_SUPERFLUA},
+            {"Restaurantes", false, TipoCategoria.DESPESA_SUPERFLUA},
+            {"Compras", false, TipoCategoria.DESPESA_SUPERFLUA},
+            {"Viagens", false, TipoCategoria.DESPESA_SUPERFLUA},
+            {"Café", false, TipoCategoria.GASTO_INVISIVEL},
+            {"Taxi/Uber", false, TipoCategoria.GASTO_INVISIVEL},
+            {"Pequenas Compras", false, TipoCategoria.GASTO_INVISIVEL},
+            {"Reserva de Emergência", true, TipoCategoria.INVESTIMENTO}
+        };
+
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] definicao : definicoes) {
+            String nome = (String) definicao[0];
+            List<Long> existentes = jdbcTemplate.queryForList(
+                    "SELECT id FROM categorias WHERE nome = ?", Long.class, nome);
+            if (existentes.isEmpty()) {
+                jdbcTemplate.update(INSERT_CATEGORIA, nome, definicao[1], ((TipoCategoria) definicao[2]).name());
+                existentes = jdbcTemplate.queryForList(
+                        "SELECT id FROM categorias WHERE nome = ?", Long.class, nome);
+            }
+            ids.put(nome, existentes.get(0));
+        }
+        return ids;
+    }
+
+    private long gerarUsuarios(int de, int ate, LocalDate inicio, int meses, Map<String, Long> categorias) {
+        List<Linha> lote = new ArrayList<>(tamanhoLote);
+        long total = 0;
+        for (int usuario = de; usuario < ate; usuario++) {
+            // Um gerador por usuário mantém o resultado determinístico sob qualquer paralelismo
+            SplittableRandom random = new SplittableRandom(semente * 0x9E3779B97F4A7C15L + usuario);
+            Perfil perfil = new Perfil(random);
+            for (int mes = 0; mes < meses; mes++) {
+                LocalDate inicioMes = inicio.withDayOfMonth(1).plusMonths(mes);
+                gerarMes(perfil, random, inicioMes, categorias, lote);
+                if (lote.size() >= tamanhoLote) {
+                    total += gravar(lote);
+                }
+            }
+        }
+        total += gravar(lote);
+        return total;
+    }
+
+    private void gerarMes(Perfil perfil, SplittableRandom random, LocalDate inicioMes,
+                          Map<String, Long> categorias, List<Linha> lote) {
+        double sazonal = SAZONALIDADE[inicioMes.getMonthValue() - 1];
+        int diasNoMes = inicioMes.lengthOfMonth();
+
+        // Receitas
+        lote.add(new Linha("Salário", perfil.salario, inicioMes.withDayOfMonth(5), TipoTransacao.RECEITA, true, categorias.get("Salário")));
+        if (inicioMes.getMonthValue() == 12) {
+            lote.add(new Linha("13º Salário", perfil.salario, inicioMes.withDayOfMonth(20), TipoTransacao.RECEITA, false, categorias.get("Salário")));
+        }
+        if (random.nextDouble() < perfil.chanceFreelancer) {
+            lote.add(new Linha("Projeto Freelancer", valor(random, 400, 4000), dia(random, inicioMes, diasNoMes), TipoTransacao.RECEITA, false, categorias.get("Freelancer")));
+        }
+        if (random.nextDouble() < 0.2) {
+            lote.add(new Linha("Rendimentos", valor(random, 20, 600), inicioMes.withDayOfMonth(Math.min(28, diasNoMes)), TipoTransacao.RECEITA, false, categorias.get("Investimentos")));
+        }
+
+        // Despesas essenciais recorrentes
+        lote.add(new Linha("Aluguel", perfil.aluguel, inicioMes.withDayOfMonth(1), TipoTransacao.DESPESA, true, categorias.get("Aluguel")));
+        lote.add(new Linha("Plano de Saúde", perfil.planoSaude, inicioMes.withDayOfMonth(10), TipoTransacao.DESPESA, true, categorias.get("Saúde")));
+        // Conta de luz mais alta no verão
+        double verao = (inicioMes.getMonthValue() <= 3 || inicioMes.getMonthValue() == 12) ? 1.3 : 1.0;
+        lote.add(new Linha("Conta de Luz", escala(valor(random, 90, 260), verao), inicioMes.withDayOfMonth(8), TipoTransacao.DESPESA, true, categorias.get("Contas (Água/Luz/Telefone)")));
+        lote.add(new Linha("Conta de Água", valor(random, 40, 120), inicioMes.withDayOfMonth(12), TipoTransacao.DESPESA, true, categorias.get("Contas (Água/Luz/Telefone)")));
+        lote.add(new Linha("Telefone/Internet", perfil.internet, inicioMes.withDayOfMonth(15), TipoTransacao.DESPESA, true, categorias.get("Contas (Água/Luz/Telefone)")));
+        if (perfil.reserva != null) {
+            lote.add(new Linha("Aporte Reserva", perfil.reserva, inicioMes.withDayOfMonth(6), TipoTransacao.DESPESA, true, categorias.get("Reserva de Emergência")));
+        }
+
+        // Assinaturas
+        for (int i = 0; i < perfil.assinaturas; i++) {
+            lote.add(new Linha(STREAMINGS[(perfil.primeiraAssinatura + i) % STREAMINGS.length], valor(random, 19.90, 55.90),
+                    inicioMes.withDayOfMonth(1 + (i * 7) % 28), TipoTransacao.DESPESA, true, categorias.get("Streaming")));
+        }
+
+        // Alimentação e transporte
+        for (int semana = 0; semana < 4; semana++) {
+            lote.add(new Linha(escolher(random, SUPERMERCADOS), escala(valor(random, 120, 450), sazonal),
+                    inicioMes.withDayOfMonth(Math.min(diasNoMes, 1 + semana * 7 + random.nextInt(7))), TipoTransacao.DESPESA, false, categorias.get("Alimentação")));
+        }
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            lote.add(new Linha("Combustível", valor(random, 80, 250), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Transporte")));
+        }
+
+        // Supérfluos com sazonalidade
+        for (int i = (int) Math.round((2 + random.nextInt(5)) * sazonal); i > 0; i--) {
+            lote.add(new Linha(escolher(random, RESTAURANTES), valor(random, 35, 220), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Restaurantes")));
+        }
+        if (random.nextDouble() < 0.5 * sazonal) {
+            lote.add(new Linha("Roupas", valor(random, 80, 600), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Compras")));
+        }
+        if ((inicioMes.getMonthValue() == 1 || inicioMes.getMonthValue() == 7) && random.nextDouble() < 0.4) {
+            lote.add(new Linha("Viagem de Férias", valor(random, 1500, 8000), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Viagens")));
+        }
+        if (random.nextDouble() < 0.12) {
+            Linha parcelada = new Linha(escolher(random, COMPRAS_PARCELADAS), valor(random, 900, 7000), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Compras"));
+            parcelada.parcelas = 2 + random.nextInt(11);
+            lote.add(parcelada);
+        }
+
+        // Gastos invisíveis: pequenos e frequentes
+        for (int i = perfil.cafesPorMes + random.nextInt(5); i > 0; i--) {
+            lote.add(new Linha(escolher(random, CAFES), valor(random, 4.5, 22), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Café")));
+        }
+        for (int i = perfil.corridasPorMes + random.nextInt(4); i > 0; i--) {
+            lote.add(new Linha("Corrida Uber", valor(random, 9, 48), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Taxi/Uber")));
+        }
+        for (int i = 3 + random.nextInt(10); i > 0; i--) {
+            lote.add(new Linha(escolher(random, PEQUENAS_COMPRAS), valor(random, 3, 35), dia(random, inicioMes, diasNoMes), TipoTransacao.DESPESA, false, categorias.get("Pequenas Compras")));
+        }
+    }
+
+    private int gravar(List<Linha> lote) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACAO, lote, tamanhoLote, (ps, linha) -> {
+            ps.setString(1, linha.descricao);
+            ps.setBigDecimal(2, linha.valor);
+            ps.setDate(3, Date.valueOf(linha.data));
+            ps.setString(4, linha.tipo.name());
+            ps.setBoolean(5, linha.recorrente);
+            ps.setInt(6, linha.parcelas);
+            ps.setInt(7, 1);
+            ps.setLong(8, linha.categoriaId);
+            ps.setString(9, null);
+        });
+        int gravadas = lote.size();
+        lote.clear();
+        return gravadas;
+    }
+
+    private static BigDecimal valor(SplittableRandom random, double minimo, double maximo) {
+        return BigDecimal.valueOf(Math.round((minimo + random.nextDouble() * (maximo - minimo)) * 100), 2);
+    }
+
+    private static BigDecimal escala(BigDecimal valor, double fator) {
+        return BigDecimal.valueOf(Math.round(valor.doubleValue() * fator * 100), 2);
+    }
+
+    private static LocalDate dia(SplittableRandom random, LocalDate inicioMes, int diasNoMes) {
+        return inicioMes.withDayOfMonth(1 + random.nextInt(diasNoMes));
+    }
+
+    private static String escolher(SplittableRandom random, String[] opcoes) {
+        return opcoes[random.nextInt(opcoes.length)];
+    }
+
+    private static final class Perfil {
+        final BigDecimal salario;
+        final BigDecimal aluguel;
+        final BigDecimal planoSaude;
+        final BigDecimal internet;
+        final BigDecimal reserva;
+        final double chanceFreelancer;
+        final int assinaturas;
+        final int primeiraAssinatura;
+        final int cafesPorMes;
+        final int corridasPorMes;
+
+        Perfil(SplittableRandom random) {
+            double base = 1800 + Math.pow(random.nextDouble(), 2) * 14000;
+            this.salario = BigDecimal.valueOf(Math.round(base * 100), 2);
+            this.aluguel = BigDecimal.valueOf(Math.round(base * (0.2 + random.nextDouble() * 0.15) * 100), 2);
+            this.planoSaude = valor(random, 150, 700);
+            this.internet = valor(random, 80, 200);
+            this.reserva = random.nextDouble() < 0.4 ? BigDecimal.valueOf(Math.round(base * 0.1 * 100), 2) : null;
+            this.chanceFreelancer = random.nextDouble() * 0.4;
+            this.assinaturas = random.nextInt(4);
+            this.primeiraAssinatura = random.nextInt(STREAMINGS.length);
+            this.cafesPorMes = random.nextInt(25);
+            this.corridasPorMes = random.nextInt(12);
+        }
+    }
+
+    private static final class Linha {
+        final String descricao;
+        final BigDecimal valor;
+        final LocalDate data;
+        final TipoTransacao tipo;
+        final boolean recorrente;
+        final long categoriaId;
+        int parcelas = 1;
+
+        Linha(String descricao, BigDecimal valor, LocalDate data, TipoTransacao tipo, boolean recorrente, Long categoriaId) {
+            this.descricao = descricao;
+            this.valor = valor;
+            this.data = data;
+            this.tipo = tipo;
+            this.recorrente = recorrente;
+            this.categoriaId = categoriaId;
+        }
+    }
+
+    public record Resultado(int categorias, long transacoes, long duracaoMs) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.service.CoalescedorConsultas;
+import com.organizadorfinancas.service.IngestaoTransacoes;
+import com.organizadorfinancas.service.JournalIngestao;
+import com.organizadorfinancas.service.OuvinteEscritas;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "organizador.ingestao.habilitada", havingValue = "true")
+public class IngestaoConfig {
+
+    public static final String CABECALHO_SEQUENCIA = "X-Ingestao-Sequencia";
+
+    @Value("${organizador.ingestao.diretorio:./data/ingestao}")
+    private String diretorio;
+
+    @Value("${organizador.ingestao.tamanho-segmento-mb:64}")
+    private long tamanhoSegmentoMb;
+
+    @Value("${organizador.ingestao.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${organizador.ingestao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${organizador.ingestao.intervalo-ms:50}")
+    private long intervaloMs;
+
+    @Value("${organizador.ingestao.espera-leitura-ms:2000}")
+    private long esperaLeituraMs;
+
+    @Bean(destroyMethod = "close")
+    public IngestaoTransacoes ingestaoTransacoes(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                 CategoriaRepository categoriaRepository, EntityManagerFactory entityManagerFactory,
+                                                 CoalescedorConsultas coalescedorConsultas,
+                                                 List<OuvinteEscritas> ouvintes) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        IngestaoTransacoes ingestao = new IngestaoTransacoes(
+                new JournalIngestao(Path.of(diretorio), tamanhoSegmentoMb * 1024 * 1024),
+                jdbcTemplate, new TransactionTemplate(transactionManager), categoriaRepository,
+                lote -> ouvintes.forEach(ouvinte -> ouvinte.registrarInclusoes(lote)),
+                // Os lotes são gravados via JDBC: consultas em cache e agregações em andamento ficam desatualizadas
+                () -> {
+                    sessionFactory.getCache().evictQueryRegions();
+                    coalescedorConsultas.invalidar();
+                },
+                capacidade, tamanhoLote, intervaloMs);
+        ingestao.iniciar();
+        return ingestao;
+    }
+
+    /**
+     * Leituras com o cabeçalho X-Ingestao-Sequencia aguardam até que a sequência esteja gravada
+     * no banco, para que o cliente enxergue as transações que enviou pela ingestão.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> leituraConsistenteFilter(IngestaoTransacoes ingestaoTransacoes) {
+        OncePerRequestFilter filtro = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                String sequencia = request.getHeader(CABECALHO_SEQUENCIA);
+                if (sequencia != null && "GET".equals(request.getMethod())) {
+                    try {
+                        if (!ingestaoTransacoes.aguardarAplicacao(Long.parseLong(sequencia.trim()), esperaLeituraMs)) {
+                            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                            return;
+                        }
+                    } catch (NumberFormatException e) {
+                        response.sendError(HttpStatus.BAD_REQUEST.value(), "Cabeçalho " + CABECALHO_SEQUENCIA + " inválido");
+                        return;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                        return;
+                    }
+                }
+                filterChain.doFilter(request, response);
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registro = new FilterRegistrationBean<>(filtro);
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
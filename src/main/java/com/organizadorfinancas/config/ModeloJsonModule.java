@@ -0,0 +1,501 @@
+package com.organizadorfinancas.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Serializadores e desserializadores escritos à mão para {@link Transacao} e {@link Categoria}.
+ * Produzem o mesmo JSON dos serializadores por reflexão, sem introspecção de beans:
+ * nomes de campos e valores dos enums ficam pré-codificados, cada categoria é codificada
+ * uma única vez por resposta e {@code BigDecimal}/{@code LocalDate} são escritos direto
+ * no gerador, sem {@code String} intermediária.
+ */
+public class ModeloJsonModule extends SimpleModule {
+
+    public ModeloJsonModule() {
+        super("ModeloJsonModule");
+        addSerializer(Transacao.class, new TransacaoSerializer());
+        addSerializer(Categoria.class, new CategoriaSerializer());
+        addDeserializer(Transacao.class, new TransacaoDeserializer());
+        addDeserializer(Categoria.class, new CategoriaDeserializer());
+    }
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString DESCRICAO = new SerializedString("descricao");
+    private static final SerializedString VALOR = new SerializedString("valor");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString TIPO = new SerializedString("tipo");
+    private static final SerializedString RECORRENTE = new SerializedString("recorrente");
+    private static final SerializedString PARCELAS = new SerializedString("parcelas");
+    private static final SerializedString PARCELA_ATUAL = new SerializedString("parcelaAtual");
+    private static final SerializedString CATEGORIA = new SerializedString("categoria");
+    private static final SerializedString OBSERVACOES = new SerializedString("observacoes");
+    private static final SerializedString VERSAO = new SerializedString("versao");
+    private static final SerializedString VALOR_MENSAL = new SerializedString("valorMensal");
+    private static final SerializedString NOME = new SerializedString("nome");
+    private static final SerializedString ESSENCIAL = new SerializedString("essencial");
+    private static final SerializedString ESTATISTICAS = new SerializedString("estatisticas");
+    private static final SerializedString QUANTIDADE = new SerializedString("quantidade");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString TOTAL_MES_ATUAL = new SerializedString("totalMesAtual");
+    private static final SerializedString ULTIMA_TRANSACAO = new SerializedString("ultimaTransacao");
+
+    private static final Map<TipoTransacao, SerializedString> TIPOS_TRANSACAO = codificar(TipoTransacao.class);
+    private static final Map<TipoCategoria, SerializedString> TIPOS_CATEGORIA = codificar(TipoCategoria.class);
+    private static final Map<String, TipoTransacao> TIPOS_TRANSACAO_POR_NOME = indexar(TipoTransacao.class);
+    private static final Map<String, TipoCategoria> TIPOS_CATEGORIA_POR_NOME = indexar(TipoCategoria.class);
+
+    /** Atributo por chamada com as categorias já codificadas na resposta corrente. */
+    private static final Object CATEGORIAS_CODIFICADAS = new Object();
+
+    private static <E extends Enum<E>> Map<E, SerializedString> codificar(Class<E> tipo) {
+        Map<E, SerializedString> codificados = new EnumMap<>(tipo);
+        for (E valor : tipo.getEnumConstants()) {
+            codificados.put(valor, new SerializedString(valor.name()));
+        }
+        return codificados;
+    }
+
+    private static <E extends Enum<E>> Map<String, E> indexar(Class<E> tipo) {
+        Map<String, E> porNome = new HashMap<>();
+        for (E valor : tipo.getEnumConstants()) {
+            porNome.put(valor.name(), valor);
+        }
+        return porNome;
+    }
+
+    static class TransacaoSerializer extends StdSerializer<Transacao> {
+
+        TransacaoSerializer() {
+            super(Transacao.class);
+        }
+
+        @Override
+        public void serialize(Transacao transacao, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(transacao);
+            gen.writeFieldName(ID);
+            escreverLong(transacao.getId(), gen);
+            gen.writeFieldName(DESCRICAO);
+            gen.writeString(transacao.getDescricao());
+            gen.writeFieldName(VALOR);
+            escreverDecimal(transacao.getValor(), gen);
+            gen.writeFieldName(DATA);
+            escreverData(transacao.getData(), gen, provider);
+            gen.writeFieldName(TIPO);
+            escreverEnum(transacao.getTipo(), TIPOS_TRANSACAO, gen);
+            gen.writeFieldName(RECORRENTE);
+            escreverBoolean(transacao.getRecorrente(), gen);
+            gen.writeFieldName(PARCELAS);
+            escreverInteger(transacao.getParcelas(), gen);
+            gen.writeFieldName(PARCELA_ATUAL);
+            escreverInteger(transacao.getParcelaAtual(), gen);
+            gen.writeFieldName(CATEGORIA);
+            escreverCategoria(transacao.getCategoria(), gen, provider);
+            gen.writeFieldName(OBSERVACOES);
+            gen.writeString(transacao.getObservacoes());
+            gen.writeFieldName(VERSAO);
+            escreverLong(transacao.getVersao(), gen);
+            gen.writeFieldName(VALOR_MENSAL);
+            escreverDecimal(transacao.getValorMensal(), gen);
+            gen.writeEndObject();
+        }
+
+        /**
+         * Numa lista de transações a mesma instância de categoria se repete (o contexto de
+         * persistência garante uma instância por id); ela é codificada uma vez e copiada
+         * como valor bruto nas demais ocorrências.
+         */
+        private void escreverCategoria(Categoria categoria, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (categoria == null) {
+                gen.writeNull();
+                return;
+            }
+            if (!(gen instanceof JsonGeneratorImpl) || gen.getPrettyPrinter() != null) {
+                CategoriaSerializer.escrever(categoria, gen, provider);
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Map<Categoria, char[]> codificadas = (Map<Categoria, char[]>) provider.getAttribute(CATEGORIAS_CODIFICADAS);
+            if (codificadas == null) {
+                codificadas = new IdentityHashMap<>();
+                provider.setAttribute(CATEGORIAS_CODIFICADAS, codificadas);
+            }
+            char[] json = codificadas.computeIfAbsent(categoria, CategoriaSerializer::codificar);
+            gen.writeRawValue(json, 0, json.length);
+        }
+    }
+
+    static class CategoriaSerializer extends StdSerializer<Categoria> {
+
+        CategoriaSerializer() {
+            super(Categoria.class);
+        }
+
+        @Override
+        public void serialize(Categoria categoria, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            escrever(categoria, gen, provider);
+        }
+
+        static void escrever(Categoria categoria, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(categoria);
+            gen.writeFieldName(ID);
+            escreverLong(categoria.getId(), gen);
+            gen.writeFieldName(NOME);
+            gen.writeString(categoria.getNome());
+            gen.writeFieldName(ESSENCIAL);
+            escreverBoolean(categoria.getEssencial(), gen);
+            gen.writeFieldName(TIPO);
+            escreverEnum(categoria.getTipo(), TIPOS_CATEGORIA, gen);
+            gen.writeFieldName(VERSAO);
+            escreverLong(categoria.getVersao(), gen);
+            // Só presente na listagem de categorias; a categoria embutida na transação não tem
+            EstatisticaCategoria estatisticas = categoria.getEstatisticas();
+            if (estatisticas != null) {
+                gen.writeFieldName(ESTATISTICAS);
+                gen.writeStartObject(estatisticas);
+                gen.writeFieldName(QUANTIDADE);
+                escreverLong(estatisticas.getQuantidade(), gen);
+                gen.writeFieldName(TOTAL);
+                escreverDecimal(estatisticas.getTotal(), gen);
+                gen.writeFieldName(TOTAL_MES_ATUAL);
+                escreverDecimal(estatisticas.getTotalMes(), gen);
+                gen.writeFieldName(ULTIMA_TRANSACAO);
+                escreverData(estatisticas.getUltimaTransacao(), gen, provider);
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+
+        static char[] codificar(Categoria categoria) {
+            StringBuilder json = new StringBuilder(96);
+            json.append("{\"id\":").append(categoria.getId());
+            json.append(",\"nome\":");
+            if (categoria.getNome() == null) {
+                json.append("null");
+            } else {
+                json.append('"').append(JsonStringEncoder.getInstance().quoteAsString(categoria.getNome())).append('"');
+            }
+            json.append(",\"essencial\":").append(categoria.getEssencial());
+            json.append(",\"tipo\":");
+            if (categoria.getTipo() == null) {
+                json.append("null");
+            } else {
+                json.append('"').append(categoria.getTipo().name()).append('"');
+            }
+            json.append(",\"versao\":").append(categoria.getVersao());
+            json.append('}');
+            char[] codificada = new char[json.length()];
+            json.getChars(0, json.length(), codificada, 0);
+            return codificada;
+        }
+    }
+
+    static class TransacaoDeserializer extends StdDeserializer<Transacao> {
+
+        TransacaoDeserializer() {
+            super(Transacao.class);
+        }
+
+        @Override
+        public Transacao deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String campo = primeiroCampo(p, ctxt, Transacao.class);
+            Transacao transacao = new Transacao();
+            for (; campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> transacao.setId(lerLong(p, ctxt));
+                    case "descricao" -> transacao.setDescricao(lerString(p, ctxt));
+                    case "valor" -> transacao.setValor(lerDecimal(p, ctxt));
+                    case "data" -> transacao.setData(lerData(p, ctxt));
+                    case "tipo" -> transacao.setTipo(lerEnum(p, ctxt, TipoTransacao.class, TIPOS_TRANSACAO_POR_NOME));
+                    case "recorrente" -> transacao.setRecorrente(lerBoolean(p, ctxt));
+                    case "parcelas" -> transacao.setParcelas(lerInteger(p, ctxt));
+                    case "parcelaAtual" -> transacao.setParcelaAtual(lerInteger(p, ctxt));
+                    case "categoria" -> transacao.setCategoria(
+                            p.hasToken(JsonToken.VALUE_NULL) ? null : CategoriaDeserializer.ler(p, ctxt));
+                    case "observacoes" -> transacao.setObservacoes(lerString(p, ctxt));
+                    case "versao" -> transacao.setVersao(lerLong(p, ctxt));
+                    default -> p.skipChildren();
+                }
+            }
+            return transacao;
+        }
+    }
+
+    static class CategoriaDeserializer extends StdDeserializer<Categoria> {
+
+        CategoriaDeserializer() {
+            super(Categoria.class);
+        }
+
+        @Override
+        public Categoria deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return ler(p, ctxt);
+        }
+
+        static Categoria ler(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String campo = primeiroCampo(p, ctxt, Categoria.class);
+            Categoria categoria = new Categoria();
+            for (; campo != null; campo = p.nextFieldName()) {
+                p.nextToken();
+                switch (campo) {
+                    case "id" -> categoria.setId(lerLong(p, ctxt));
+                    case "nome" -> categoria.setNome(lerString(p, ctxt));
+                    case "essencial" -> categoria.setEssencial(lerBoolean(p, ctxt));
+                    case "tipo" -> categoria.setTipo(lerEnum(p, ctxt, TipoCategoria.class, TIPOS_CATEGORIA_POR_NOME));
+                    case "versao" -> categoria.setVersao(lerLong(p, ctxt));
+                    default -> p.skipChildren();
+                }
+            }
+            return categoria;
+        }
+    }
+
+    // Escrita
+
+    private static void escreverLong(Long valor, JsonGenerator gen) throws IOException {
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(valor.longValue());
+        }
+    }
+
+    private static void escreverInteger(Integer valor, JsonGenerator gen) throws IOException {
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(valor.intValue());
+        }
+    }
+
+    private static void escreverBoolean(Boolean valor, JsonGenerator gen) throws IOException {
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(valor);
+        }
+    }
+
+    private static <E extends Enum<E>> void escreverEnum(E valor, Map<E, SerializedString> codificados, JsonGenerator gen) throws IOException {
+        if (valor == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(codificados.get(valor));
+        }
+    }
+
+    /**
+     * Valores monetários (escala pequena, até 18 dígitos) são formatados a partir do valor
+     * não escalado; os demais seguem pelo caminho padrão do Jackson.
+     */
+    static void escreverDecimal(BigDecimal valor, JsonGenerator gen) throws IOException {
+        if (valor == null) {
+            gen.writeNull();
+            return;
+        }
+        int escala = valor.scale();
+        if (escala < 0 || escala > 18 || valor.precision() > 18) {
+            gen.writeNumber(valor);
+            return;
+        }
+        long restante = valor.unscaledValue().longValue();
+        boolean negativo = restante < 0;
+        if (negativo) {
+            restante = -restante;
+        }
+        char[] digitos = new char[21];
+        int inicio = digitos.length;
+        for (int i = 0; i < escala; i++) {
+            digitos[--inicio] = (char) ('0' + restante % 10);
+            restante /= 10;
+        }
+        if (escala > 0) {
+            digitos[--inicio] = '.';
+        }
+        do {
+            digitos[--inicio] = (char) ('0' + restante % 10);
+            restante /= 10;
+        } while (restante != 0);
+        if (negativo) {
+            digitos[--inicio] = '-';
+        }
+        gen.writeNumber(digitos, inicio, digitos.length - inicio);
+    }
+
+    /** Segue {@link SerializationFeature#WRITE_DATES_AS_TIMESTAMPS} como o serializador do JavaTimeModule. */
+    static void escreverData(LocalDate data, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (data == null) {
+            gen.writeNull();
+            return;
+        }
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            gen.writeStartArray();
+            gen.writeNumber(data.getYear());
+            gen.writeNumber(data.getMonthValue());
+            gen.writeNumber(data.getDayOfMonth());
+            gen.writeEndArray();
+            return;
+        }
+        int ano = data.getYear();
+        if (ano < 0 || ano > 9999) {
+            gen.writeString(data.toString());
+            return;
+        }
+        char[] iso = new char[10];
+        doisDigitos(iso, 0, ano / 100);
+        doisDigitos(iso, 2, ano % 100);
+        iso[4] = '-';
+        doisDigitos(iso, 5, data.getMonthValue());
+        iso[7] = '-';
+        doisDigitos(iso, 8, data.getDayOfMonth());
+        gen.writeString(iso, 0, iso.length);
+    }
+
+    private static void doisDigitos(char[] destino, int posicao, int valor) {
+        destino[posicao] = (char) ('0' + valor / 10);
+        destino[posicao + 1] = (char) ('0' + valor % 10);
+    }
+
+    // Leitura: caminho direto para o token esperado; os demais casos (coerções, nulos) ficam com os desserializadores padrão
+
+    private static String primeiroCampo(JsonParser p, DeserializationContext ctxt, Class<?> tipo) throws IOException {
+        if (p.isExpectedStartObjectToken()) {
+            return p.nextFieldName();
+        }
+        if (p.hasToken(JsonToken.FIELD_NAME)) {
+            return p.currentName();
+        }
+        if (p.hasToken(JsonToken.END_OBJECT)) {
+            return null;
+        }
+        return (String) ctxt.handleUnexpectedToken(tipo, p);
+    }
+
+    private static Long lerLong(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return p.getLongValue();
+        }
+        return ctxt.readValue(p, Long.class);
+    }
+
+    private static Integer lerInteger(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return p.getIntValue();
+        }
+        return ctxt.readValue(p, Integer.class);
+    }
+
+    private static Boolean lerBoolean(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_TRUE)) {
+            return Boolean.TRUE;
+        }
+        if (p.hasToken(JsonToken.VALUE_FALSE)) {
+            return Boolean.FALSE;
+        }
+        return ctxt.readValue(p, Boolean.class);
+    }
+
+    private static String lerString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            return p.getText();
+        }
+        return ctxt.readValue(p, String.class);
+    }
+
+    private static BigDecimal lerDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT) || p.hasToken(JsonToken.VALUE_NUMBER_FLOAT)) {
+            return p.getDecimalValue();
+        }
+        return ctxt.readValue(p, BigDecimal.class);
+    }
+
+    private static LocalDate lerData(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == 10) {
+            String texto = p.getText();
+            try {
+                return LocalDate.parse(texto);
+            } catch (DateTimeParseException e) {
+                throw ctxt.weirdStringException(texto, LocalDate.class, e.getMessage());
+            }
+        }
+        if (p.isExpectedStartArrayToken()
+                && p.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+            int ano = p.getIntValue();
+            if (p.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                int mes = p.getIntValue();
+                if (p.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                    int dia = p.getIntValue();
+                    if (p.nextToken() == JsonToken.END_ARRAY) {
+                        try {
+                            return LocalDate.of(ano, mes, dia);
+                        } catch (DateTimeException e) {
+                            throw ctxt.weirdNumberException(dia, LocalDate.class, e.getMessage());
+                        }
+                    }
+                }
+            }
+            return (LocalDate) ctxt.handleUnexpectedToken(LocalDate.class, p);
+        }
+        return ctxt.readValue(p, LocalDate.class);
+    }
+
+    private static <E extends Enum<E>> E lerEnum(JsonParser p, DeserializationContext ctxt, Class<E> tipo,
+                                                 Map<String, E> porNome) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NULL)) {
+            return null;
+        }
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            E valor = porNome.get(p.getText());
+            if (valor != null) {
+                return valor;
+            }
+            throw ctxt.weirdStringException(p.getText(), tipo,
+                    "não é um dos valores aceitos: " + porNome.keySet());
+        }
+        return ctxt.readValue(p, tipo);
+    }
+}
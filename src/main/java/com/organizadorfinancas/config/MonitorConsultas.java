@@ -0,0 +1,116 @@
+package com.organizadorfinancas.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Registra as instruções SQL emitidas pelo Hibernate em cada requisição,
+ * agrupadas pelo SQL normalizado, e sinaliza padrões repetidos (ex.: N+1 selects).
+ */
+public class MonitorConsultas implements StatementInspector {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorConsultas.class);
+
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern LITERAL_NUMERO = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern LISTA_IN = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private static final int MAXIMO_RELATORIOS = 100;
+
+    private final transient ThreadLocal<Map<String, Integer>> requisicaoAtual = new ThreadLocal<>();
+    private final transient Map<String, LongAdder> totaisPorInstrucao = new ConcurrentHashMap<>();
+    private final transient Deque<RelatorioRequisicao> relatorios = new ArrayDeque<>();
+    private final int limiteRepeticoes;
+
+    public MonitorConsultas(int limiteRepeticoes) {
+        this.limiteRepeticoes = limiteRepeticoes;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String normalizado = normalizar(sql);
+        totaisPorInstrucao.computeIfAbsent(normalizado, chave -> new LongAdder()).increment();
+        Map<String, Integer> contagem = requisicaoAtual.get();
+        if (contagem != null) {
+            contagem.merge(normalizado, 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    public void iniciarRequisicao() {
+        requisicaoAtual.set(new LinkedHashMap<>());
+    }
+
+    public RelatorioRequisicao finalizarRequisicao(String metodo, String uri, long duracaoMs) {
+        Map<String, Integer> contagem = requisicaoAtual.get();
+        requisicaoAtual.remove();
+        if (contagem == null || contagem.isEmpty()) {
+            return null;
+        }
+
+        int total = 0;
+        List<String> repetidas = new ArrayList<>();
+        for (Map.Entry<String, Integer> entrada : contagem.entrySet()) {
+            total += entrada.getValue();
+            if (entrada.getValue() >= limiteRepeticoes) {
+                repetidas.add(entrada.getValue() + "x " + entrada.getKey());
+            }
+        }
+
+        RelatorioRequisicao relatorio = new RelatorioRequisicao(metodo, uri, duracaoMs, total, Map.copyOf(contagem), repetidas);
+        if (!repetidas.isEmpty()) {
+            log.warn("Possível N+1 em {} {}: {} instruções em {} ms, repetidas: {}", metodo, uri, total, duracaoMs, repetidas);
+        }
+        synchronized (relatorios) {
+            if (relatorios.size() == MAXIMO_RELATORIOS) {
+                relatorios.removeFirst();
+            }
+            relatorios.addLast(relatorio);
+        }
+        return relatorio;
+    }
+
+    public List<RelatorioRequisicao> getRelatorios() {
+        synchronized (relatorios) {
+            return new ArrayList<>(relatorios);
+        }
+    }
+
+    public Map<String, Long> getTotaisPorInstrucao() {
+        Map<String, Long> totais = new LinkedHashMap<>();
+        totaisPorInstrucao.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entrada -> totais.put(entrada.getKey(), entrada.getValue().sum()));
+        return totais;
+    }
+
+    public void limpar() {
+        totaisPorInstrucao.clear();
+        synchronized (relatorios) {
+            relatorios.clear();
+        }
+    }
+
+    public static String normalizar(String sql) {
+        String normalizado = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        normalizado = LITERAL_NUMERO.matcher(normalizado).replaceAll("?");
+        normalizado = LISTA_IN.matcher(normalizado).replaceAll("(?...)");
+        return ESPACOS.matcher(normalizado).replaceAll(" ").trim();
+    }
+
+    public record RelatorioRequisicao(String metodo, String uri, long duracaoMs, int totalInstrucoes,
+                                      Map<String, Integer> instrucoes, List<String> padroesRepetidos) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.organizadorfinancas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Configuration
+public class MonitorConsultasConfig {
+
+    @Value("${organizador.sql.limite-lenta-ms:200}")
+    private long limiteLentaMs;
+
+    @Value("${organizador.sql.limite-repeticoes:10}")
+    private int limiteRepeticoes;
+
+    @Bean
+    public MonitorConsultas monitorConsultas() {
+        return new MonitorConsultas(limiteRepeticoes);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer monitorConsultasHibernateCustomizer(MonitorConsultas monitorConsultas) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, monitorConsultas);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // Consultas acima do limite são registradas em org.hibernate.SQL_SLOW e em Statistics#getSlowQueries
+            properties.put(AvailableSettings.LOG_SLOW_QUERY, limiteLentaMs);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> monitorConsultasFilter(MonitorConsultas monitorConsultas) {
+        OncePerRequestFilter filtro = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                long inicio = System.nanoTime();
+                monitorConsultas.iniciarRequisicao();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    monitorConsultas.finalizarRequisicao(request.getMethod(), request.getRequestURI(),
+                            (System.nanoTime() - inicio) / 1_000_000);
+                }
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registro = new FilterRegistrationBean<>(filtro);
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
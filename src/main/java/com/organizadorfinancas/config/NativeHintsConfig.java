@@ -0,0 +1,53 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import com.organizadorfinancas.model.FaixaDistribuicao;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Dicas de reflexão e recursos para a compilação AOT e a imagem nativa (GraalVM).
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.OrganizadorRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class OrganizadorRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Entidades e enums serializados pelo Jackson e lidos pelo Hibernate
+            for (Class<?> tipo : new Class<?>[] {Transacao.class, Categoria.class, EstatisticaCategoria.class,
+                    Orcamento.class, FaixaDistribuicao.class, FaixaDistribuicao.Chave.class,
+                    TipoTransacao.class, TipoCategoria.class}) {
+                hints.reflection().registerType(tipo,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS,
+                        MemberCategory.DECLARED_FIELDS);
+            }
+
+            // Classes instanciadas por nome (provedor JCache do cache de segundo nível e driver JDBC)
+            for (String tipo : new String[] {
+                    "org.ehcache.jsr107.EhcacheCachingProvider",
+                    "org.hibernate.cache.jcache.internal.JCacheRegionFactory",
+                    "org.h2.Driver"}) {
+                hints.reflection().registerTypeIfPresent(classLoader, tipo,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            hints.resources().registerPattern("ehcache.xml");
+            hints.resources().registerPattern("ehcache-*.xsd");
+            // Swagger UI servido a partir do webjar
+            hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/*");
+            hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/**/*");
+        }
+    }
+}
@@ -4,10 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.TimeZone;
 
 @Configuration
@@ -34,4 +36,14 @@ public class ResponseConfig implements WebMvcConfigurer {
         converter.setObjectMapper(mapper);
         return converter;
     }
+
+    // Com @EnableWebMvc os conversores padrão do Spring MVC são usados; registra neles os serializadores do modelo
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter jackson) {
+                jackson.getObjectMapper().registerModule(new ModeloJsonModule());
+            }
+        }
+    }
 }
@@ -1,24 +1,91 @@
 package com.organizadorfinancas.config;
 
+import com.organizadorfinancas.config.ControleAdmissao.ClasseEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
+
+    @Value("${organizador.admissao.capacidade-balde:100}")
+    private double capacidadeBalde;
+
+    @Value("${organizador.admissao.recarga-por-segundo:50}")
+    private double recargaPorSegundo;
+
+    @Value("${organizador.admissao.capacidade-balde-ingestao:2000}")
+    private double capacidadeBaldeIngestao;
+
+    @Value("${organizador.admissao.recarga-ingestao-por-segundo:1000}")
+    private double recargaIngestaoPorSegundo;
+
+    @Value("${organizador.admissao.limite-inicial:20}")
+    private int limiteInicial;
+
+    @Value("${organizador.admissao.limite-minimo:2}")
+    private int limiteMinimo;
+
+    @Value("${organizador.admissao.limite-maximo:200}")
+    private int limiteMaximo;
+
+    @Value("${organizador.admissao.latencia-alvo-ms.crud:100}")
+    private long latenciaAlvoCrud;
+
+    @Value("${organizador.admissao.latencia-alvo-ms.listagem:300}")
+    private long latenciaAlvoListagem;
+
+    @Value("${organizador.admissao.latencia-alvo-ms.agregado:500}")
+    private long latenciaAlvoAgregado;
+
+    @Value("${organizador.admissao.latencia-alvo-ms.lote:5000}")
+    private long latenciaAlvoLote;
+
+    @Value("${organizador.admissao.latencia-alvo-ms.ingestao:200}")
+    private long latenciaAlvoIngestao;
+
+    @Value("${organizador.admissao.cabecalho-cliente:}")
+    private String cabecalhoCliente;
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ControleAdmissao controleAdmissao) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            // /admin apaga e recarrega o banco: só o usuário spring.security.user, com o papel ADMIN, por HTTP Basic
             .authorizeHttpRequests(authz -> authz
+                .requestMatchers("/admin/**").hasRole("ADMIN")
                 .anyRequest().permitAll()
             )
-            .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()));
+            .httpBasic(Customizer.withDefaults())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()))
+            .addFilterBefore(new FiltroAdmissao(controleAdmissao, cabecalhoCliente), AuthorizationFilter.class);
         
         return http.build();
     }
+
+    @Bean
+    public ControleAdmissao controleAdmissao(MeterRegistry meterRegistry) {
+        ControleAdmissao controleAdmissao = new ControleAdmissao(new ControleAdmissao.Parametros(
+                capacidadeBalde, recargaPorSegundo, capacidadeBaldeIngestao, recargaIngestaoPorSegundo,
+                limiteInicial, limiteMinimo, limiteMaximo,
+                Map.of(ClasseEndpoint.CRUD, latenciaAlvoCrud,
+                        ClasseEndpoint.LISTAGEM, latenciaAlvoListagem,
+                        ClasseEndpoint.AGREGADO, latenciaAlvoAgregado,
+                        ClasseEndpoint.LOTE, latenciaAlvoLote,
+                        ClasseEndpoint.INGESTAO, latenciaAlvoIngestao)),
+                System::nanoTime);
+        controleAdmissao.registrarMetricas(meterRegistry);
+        return controleAdmissao;
+    }
 }
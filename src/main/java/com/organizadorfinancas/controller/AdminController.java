@@ -0,0 +1,155 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.config.MonitorConsultas;
+import com.organizadorfinancas.dto.ResumoBackup;
+import com.organizadorfinancas.dto.SegmentoArquivado;
+import com.organizadorfinancas.service.ArquivoFrio;
+import com.organizadorfinancas.service.BackupDados;
+import com.organizadorfinancas.service.BackupGrandeDemaisException;
+import com.organizadorfinancas.service.DiagnosticoSqlService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/admin")
+@Tag(name = "Administração", description = "Endpoints de diagnóstico e operação")
+public class AdminController {
+
+    @Autowired
+    private DiagnosticoSqlService diagnosticoSqlService;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private BackupDados backupDados;
+
+    @GetMapping("/sql")
+    @Operation(summary = "Diagnóstico de SQL", description = "Retorna consultas lentas com plano de execução, instruções mais frequentes e contagem por requisição")
+    public ResponseEntity<Map<String, Object>> getDiagnosticoSql() {
+        return ResponseEntity.ok(diagnosticoSqlService.getDiagnostico());
+    }
+
+    @GetMapping("/sql/repeticoes")
+    @Operation(summary = "Padrões repetidos", description = "Retorna requisições com instruções repetidas, como N+1 selects")
+    public ResponseEntity<List<MonitorConsultas.RelatorioRequisicao>> getPadroesRepetidos() {
+        return ResponseEntity.ok(diagnosticoSqlService.getRequisicoesComPadroesRepetidos());
+    }
+
+    @DeleteMapping("/sql")
+    @Operation(summary = "Limpar diagnóstico de SQL", description = "Zera as estatísticas acumuladas")
+    public ResponseEntity<Void> limparDiagnosticoSql() {
+        diagnosticoSqlService.limpar();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/arquivo")
+    @Operation(summary = "Segmentos arquivados", description = "Lista os arquivos da camada fria com período, quantidade de transações e tamanho")
+    public ResponseEntity<List<SegmentoArquivado>> listarSegmentos() {
+        return ResponseEntity.ok(arquivoFrio.listarSegmentos());
+    }
+
+    @PostMapping("/arquivo/{ano}")
+    @Operation(summary = "Arquivar ano", description = "Move as transações de um ano fechado do banco para um segmento comprimido somente leitura")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Segmento gravado"),
+        @ApiResponse(responseCode = "204", description = "O ano não tem transações no banco"),
+        @ApiResponse(responseCode = "400", description = "Ano ainda não fechado ou camada fria desabilitada")
+    })
+    public ResponseEntity<SegmentoArquivado> arquivar(@Parameter(description = "Ano a arquivar") @PathVariable int ano) {
+        return arquivoFrio.arquivar(ano)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/backup")
+    @Operation(summary = "Gerar backup", description = "Grava um backup binário de categorias, orçamentos e transações; "
+            + "o arquivo fica disponível em GET /admin/backup/{nome}")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Backup gravado"),
+        @ApiResponse(responseCode = "400", description = "Transações no journal, fora do banco")
+    })
+    public ResponseEntity<ResumoBackup> gerarBackup() {
+        ResumoBackup resumo = backupDados.gerar().resumo();
+        return ResponseEntity.created(URI.create("/admin/backup/" + resumo.arquivo())).body(resumo);
+    }
+
+    @GetMapping("/backup/{nome}")
+    @Operation(summary = "Baixar backup", description = "Envia um backup já gravado, sem gerar outro")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Arquivo do backup"),
+        @ApiResponse(responseCode = "400", description = "Nome que não é de um backup"),
+        @ApiResponse(responseCode = "404", description = "Backup inexistente ou já apagado")
+    })
+    public void baixarBackup(@Parameter(description = "Nome devolvido pela geração") @PathVariable String nome,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> arquivo = backupDados.localizar(nome);
+        if (arquivo.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long tamanho = Files.size(arquivo.get());
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(nome).build().toString());
+        response.setContentLengthLong(tamanho);
+        enviar(arquivo.get(), tamanho, request, response);
+    }
+
+    @PostMapping(value = "/restore", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Restaurar backup", description = "Confere o arquivo enviado e substitui todo o conteúdo do banco pelo dele")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Backup restaurado"),
+        @ApiResponse(responseCode = "400", description = "Arquivo corrompido ou de outra versão; o banco não é alterado"),
+        @ApiResponse(responseCode = "413", description = "Arquivo maior que organizador.backup.tamanho-maximo-mb")
+    })
+    public ResponseEntity<ResumoBackup> restaurarBackup(HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(backupDados.restaurar(request.getInputStream(), request.getContentLengthLong()));
+        } catch (BackupGrandeDemaisException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+    }
+
+    // Com sendfile o Tomcat copia o arquivo para o socket depois que o método retorna, sem passar pelo heap;
+    // fora dele, transferTo entrega o arquivo ao canal da resposta
+    private static void enviar(Path arquivo, long tamanho, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", arquivo.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", tamanho);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+            for (long enviado = 0; enviado < tamanho; ) {
+                enviado += canal.transferTo(enviado, tamanho - enviado, saida);
+            }
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.organizadorfinancas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organizadorfinancas.dto.AtualizacaoCategoria;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.dto.ProgressoLote;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.service.CategoriaService;
@@ -11,19 +16,33 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/categorias")
 @Tag(name = "Categorias", description = "API para gerenciamento de categorias financeiras")
 public class CategoriaController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     @Autowired
     private CategoriaService categoriaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     @GetMapping
     @Operation(summary = "Listar todas as categorias", description = "Retorna uma lista de todas as categorias cadastradas")
@@ -68,16 +87,35 @@ public class CategoriaController {
     })
     public ResponseEntity<Categoria> update(@Parameter(description = "ID da categoria") @PathVariable Long id, 
                                            @Valid @RequestBody Categoria categoria) {
-        if (!categoriaService.findById(id).isPresent()) {
+        Optional<Categoria> existente = categoriaService.findById(id);
+        if (!existente.isPresent()) {
             return ResponseEntity.notFound().build();
         }
         categoria.setId(id);
+        if (categoria.getVersao() == null) {
+            categoria.setVersao(existente.get().getVersao());
+        }
         Categoria updatedCategoria = categoriaService.save(categoria);
         return ResponseEntity.ok(updatedCategoria);
     }
     
+    @PatchMapping("/{id}")
+    @Operation(summary = "Atualizar campos da categoria", description = "Altera apenas os campos informados, desde que a versão informada seja a atual. A nova versão é retornada no cabeçalho ETag")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Categoria atualizada com sucesso"),
+        @ApiResponse(responseCode = "404", description = "Categoria não encontrada"),
+        @ApiResponse(responseCode = "409", description = "Categoria alterada por outra requisição"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos")
+    })
+    public ResponseEntity<Void> patch(@Parameter(description = "ID da categoria") @PathVariable Long id,
+                                      @Valid @RequestBody AtualizacaoCategoria atualizacao) {
+        return categoriaService.atualizarParcial(id, atualizacao)
+                .map(versao -> ResponseEntity.noContent().eTag(String.valueOf(versao)).<Void>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @DeleteMapping("/{id}")
-    @Operation(summary = "Excluir categoria", description = "Exclui uma categoria do sistema")
+    @Operation(summary = "Excluir categoria", description = "Exclui a categoria e suas transações em lotes, sem carregá-las")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Categoria excluída com sucesso"),
         @ApiResponse(responseCode = "404", description = "Categoria não encontrada")
@@ -90,6 +128,60 @@ public class CategoriaController {
         return ResponseEntity.noContent().build();
     }
     
+    @DeleteMapping(value = "/{id}", produces = NDJSON)
+    @Operation(summary = "Excluir categoria com progresso", description = "Como a exclusão simples, transmitindo uma linha JSON por lote concluído")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Progresso transmitido até a conclusão"),
+        @ApiResponse(responseCode = "404", description = "Categoria não encontrada")
+    })
+    public ResponseEntity<StreamingResponseBody> deleteByIdComProgresso(@Parameter(description = "ID da categoria") @PathVariable Long id) {
+        if (!categoriaService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return transmitirProgresso(progresso -> categoriaService.excluirComTransacoes(id, progresso));
+    }
+    
+    @PostMapping("/{id}/mesclar/{destinoId}")
+    @Operation(summary = "Mesclar categorias", description = "Move em lotes as transações da categoria para a categoria de destino e exclui a categoria de origem")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quantidade de transações movidas"),
+        @ApiResponse(responseCode = "404", description = "Categoria de origem ou destino não encontrada"),
+        @ApiResponse(responseCode = "400", description = "Origem e destino iguais")
+    })
+    public ResponseEntity<ResultadoLote> mesclar(@Parameter(description = "ID da categoria de origem") @PathVariable Long id,
+                                                 @Parameter(description = "ID da categoria de destino") @PathVariable Long destinoId) {
+        if (!categoriaService.findById(id).isPresent() || !categoriaService.findById(destinoId).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(categoriaService.mesclar(id, destinoId, progresso -> {}));
+    }
+    
+    @PostMapping(value = "/{id}/mesclar/{destinoId}", produces = NDJSON)
+    @Operation(summary = "Mesclar categorias com progresso", description = "Como a mesclagem simples, transmitindo uma linha JSON por lote concluído")
+    public ResponseEntity<StreamingResponseBody> mesclarComProgresso(@Parameter(description = "ID da categoria de origem") @PathVariable Long id,
+                                                                     @Parameter(description = "ID da categoria de destino") @PathVariable Long destinoId) {
+        if (!categoriaService.findById(id).isPresent() || !categoriaService.findById(destinoId).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return transmitirProgresso(progresso -> categoriaService.mesclar(id, destinoId, progresso));
+    }
+    
+    @GetMapping("/{id}/distribuicao")
+    @Operation(summary = "Distribuição dos valores", description = "Percentis 50, 90 e 99 e histograma dos valores das transações da categoria no período; com valor, o percentual das transações abaixo dele")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Distribuição do período"),
+        @ApiResponse(responseCode = "400", description = "Período ou valor inválido"),
+        @ApiResponse(responseCode = "404", description = "Categoria não encontrada")
+    })
+    public ResponseEntity<DistribuicaoValores> distribuicao(@Parameter(description = "ID da categoria") @PathVariable Long id,
+            @Parameter(description = "Mês inicial (AAAA-MM), padrão igual ao final") @RequestParam(required = false) YearMonth inicio,
+            @Parameter(description = "Mês final (AAAA-MM), padrão o mês atual") @RequestParam(required = false) YearMonth fim,
+            @Parameter(description = "Valor a comparar com a distribuição") @RequestParam(required = false) BigDecimal valor) {
+        return categoriaService.distribuicao(id, inicio, fim, valor)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/tipo/{tipo}")
     @Operation(summary = "Buscar categorias por tipo", description = "Retorna categorias filtradas por tipo (RENDA_FIXA, RENDA_VARIAVEL, etc.)")
     public ResponseEntity<List<Categoria>> findByTipo(@Parameter(description = "Tipo da categoria") @PathVariable TipoCategoria tipo) {
@@ -133,4 +225,31 @@ public class CategoriaController {
     public ResponseEntity<List<Categoria>> findGastosInvisiveis() {
         return ResponseEntity.ok(categoriaService.findGastosInvisiveis());
     }
+    
+    // Uma linha por lote concluído e uma final com "concluido": true; uma falha no meio vira uma linha com "erro".
+    // Se o cliente desconecta, as linhas seguintes são descartadas, mas a operação vai até o fim
+    private ResponseEntity<StreamingResponseBody> transmitirProgresso(Function<Consumer<ResultadoLote>, ResultadoLote> operacao) {
+        StreamingResponseBody corpo = saida -> {
+            AtomicBoolean desconectado = new AtomicBoolean();
+            Consumer<Object> escrever = linha -> {
+                if (desconectado.get()) {
+                    return;
+                }
+                try {
+                    saida.write(objectMapper.writeValueAsBytes(linha));
+                    saida.write('\n');
+                    saida.flush();
+                } catch (IOException e) {
+                    desconectado.set(true);
+                }
+            };
+            try {
+                ResultadoLote resultado = operacao.apply(progresso -> escrever.accept(ProgressoLote.parcial(progresso)));
+                escrever.accept(ProgressoLote.concluido(resultado));
+            } catch (RuntimeException e) {
+                escrever.accept(Map.of("erro", String.valueOf(e.getMessage())));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(corpo);
+    }
 }
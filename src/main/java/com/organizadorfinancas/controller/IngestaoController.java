@@ -0,0 +1,77 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.config.IngestaoConfig;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.service.IngestaoSaturadaException;
+import com.organizadorfinancas.service.IngestaoTransacoes;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/transacoes/ingestao")
+@ConditionalOnProperty(name = "organizador.ingestao.habilitada", havingValue = "true")
+@Tag(name = "Ingestão", description = "Gravação assíncrona de transações em lote")
+public class IngestaoController {
+
+    @Autowired
+    private IngestaoTransacoes ingestaoTransacoes;
+
+    @PostMapping
+    @Operation(summary = "Enviar transação", description = "Grava a transação no journal e a agenda para gravação em lote. " +
+            "A sequência retornada pode ser enviada no cabeçalho X-Ingestao-Sequencia das leituras seguintes para enxergá-la")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Transação aceita e durável"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos"),
+        @ApiResponse(responseCode = "503", description = "Buffer de ingestão cheio")
+    })
+    public ResponseEntity<Map<String, Object>> aceitar(@Valid @RequestBody Transacao transacao) {
+        try {
+            long sequencia = ingestaoTransacoes.aceitar(transacao);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(IngestaoConfig.CABECALHO_SEQUENCIA, String.valueOf(sequencia))
+                    .body(Map.of("sequencia", sequencia));
+        } catch (IngestaoSaturadaException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/estado")
+    @Operation(summary = "Estado da ingestão", description = "Últimas sequências aceita, durável e aplicada no banco, e transações pendentes")
+    public ResponseEntity<IngestaoTransacoes.Estado> getEstado() {
+        return ResponseEntity.ok(ingestaoTransacoes.getEstado());
+    }
+
+    @GetMapping("/rejeitadas")
+    @Operation(summary = "Transações rejeitadas", description = "Transações aceitas que o banco recusou ao gravar " +
+            "(ex.: categoria excluída depois do envio), com a sequência devolvida no envio e o motivo")
+    public ResponseEntity<List<IngestaoTransacoes.Rejeitada>> getRejeitadas() {
+        return ResponseEntity.ok(ingestaoTransacoes.rejeitadas());
+    }
+
+    @DeleteMapping("/rejeitadas/{sequencia}")
+    @Operation(summary = "Descartar rejeitada", description = "Remove da lista uma transação rejeitada já tratada pelo cliente")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Rejeitada descartada"),
+        @ApiResponse(responseCode = "404", description = "Sequência não está entre as rejeitadas")
+    })
+    public ResponseEntity<Void> descartarRejeitada(@Parameter(description = "Sequência devolvida no envio") @PathVariable long sequencia) {
+        return ingestaoTransacoes.descartarRejeitada(sequencia)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
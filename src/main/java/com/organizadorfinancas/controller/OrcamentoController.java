@@ -0,0 +1,94 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.dto.AlertaOrcamento;
+import com.organizadorfinancas.dto.StatusOrcamento;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.service.OrcamentoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/orcamentos")
+@Tag(name = "Orçamentos", description = "API para limites mensais de despesas por categoria ou tipo de categoria")
+public class OrcamentoController {
+
+    @Autowired
+    private OrcamentoService orcamentoService;
+
+    @GetMapping
+    @Operation(summary = "Listar orçamentos", description = "Retorna todos os orçamentos cadastrados")
+    @ApiResponse(responseCode = "200", description = "Lista de orçamentos retornada com sucesso")
+    public ResponseEntity<List<Orcamento>> findAll() {
+        return ResponseEntity.ok(orcamentoService.findAll());
+    }
+
+    @PostMapping
+    @Operation(summary = "Criar orçamento", description = "Cria um limite mensal para uma categoria ({\"categoria\": {\"id\": 1}}) ou para um tipo de categoria ({\"tipoCategoria\": \"DESPESA_SUPERFLUA\"})")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Orçamento criado com sucesso"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos")
+    })
+    public ResponseEntity<Orcamento> create(@Valid @RequestBody Orcamento orcamento) {
+        orcamento.setId(null);
+        return ResponseEntity.status(HttpStatus.CREATED).body(orcamentoService.save(orcamento));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Atualizar orçamento", description = "Atualiza os dados de um orçamento existente")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orçamento atualizado com sucesso"),
+        @ApiResponse(responseCode = "404", description = "Orçamento não encontrado"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos")
+    })
+    public ResponseEntity<Orcamento> update(@Parameter(description = "ID do orçamento") @PathVariable Long id,
+                                            @Valid @RequestBody Orcamento orcamento) {
+        if (!orcamentoService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        orcamento.setId(id);
+        return ResponseEntity.ok(orcamentoService.save(orcamento));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Excluir orçamento", description = "Remove um orçamento")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Orçamento excluído com sucesso"),
+        @ApiResponse(responseCode = "404", description = "Orçamento não encontrado")
+    })
+    public ResponseEntity<Void> deleteById(@Parameter(description = "ID do orçamento") @PathVariable Long id) {
+        if (!orcamentoService.findById(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        orcamentoService.deleteById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Status dos orçamentos", description = "Gasto, disponível e percentual de cada orçamento no mês, calculados em memória sem consultar o banco")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retornado com sucesso"),
+        @ApiResponse(responseCode = "400", description = "Mês fora da janela mantida em memória")
+    })
+    public ResponseEntity<List<StatusOrcamento>> status(@Parameter(description = "Mês no formato AAAA-MM (padrão: mês atual)")
+                                                        @RequestParam(required = false) YearMonth mes) {
+        return ResponseEntity.ok(orcamentoService.status(mes != null ? mes : YearMonth.now()));
+    }
+
+    @GetMapping("/alertas")
+    @Operation(summary = "Alertas de estouro", description = "Últimos orçamentos estourados, do mais recente para o mais antigo")
+    @ApiResponse(responseCode = "200", description = "Alertas retornados com sucesso")
+    public ResponseEntity<List<AlertaOrcamento>> alertas() {
+        return ResponseEntity.ok(orcamentoService.alertas());
+    }
+}
@@ -0,0 +1,86 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.dto.EstadoRelatorio;
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import com.organizadorfinancas.service.FilaRelatorios;
+import com.organizadorfinancas.service.FilaRelatoriosCheiaException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/relatorios")
+@Tag(name = "Relatórios", description = "Relatórios mensais e anuais calculados em segundo plano")
+public class RelatorioController {
+
+    @Autowired
+    private FilaRelatorios filaRelatorios;
+
+    @PostMapping
+    @Operation(summary = "Pedir relatório", description = "Agenda um relatório mensal ({\"periodo\": \"MENSAL\", \"ano\": 2026, \"mes\": 2}) " +
+            "ou anual ({\"periodo\": \"ANUAL\", \"ano\": 2026}), com prioridade ALTA, NORMAL ou BAIXA. Um pedido igual a outro " +
+            "em andamento, ou a um relatório pronto sem escritas desde então, recebe o mesmo trabalho")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Trabalho agendado ou reaproveitado; o cabeçalho Location aponta para a situação"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos"),
+        @ApiResponse(responseCode = "503", description = "Fila de relatórios cheia")
+    })
+    public ResponseEntity<?> enviar(@Valid @RequestBody PedidoRelatorio pedido) {
+        try {
+            EstadoRelatorio estado = filaRelatorios.enviar(pedido);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/relatorios/" + estado.id()))
+                    .body(estado);
+        } catch (FilaRelatoriosCheiaException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Situação do relatório", description = "PENDENTE, EXECUTANDO, CONCLUIDO ou FALHOU, com os instantes de cada etapa")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Situação do trabalho"),
+        @ApiResponse(responseCode = "404", description = "Trabalho não encontrado ou expirado")
+    })
+    public ResponseEntity<EstadoRelatorio> estado(@Parameter(description = "ID do trabalho") @PathVariable String id) {
+        return filaRelatorios.estado(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/resultado")
+    @Operation(summary = "Baixar relatório", description = "Retorna o relatório pronto; antes disso, a situação do trabalho")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Relatório"),
+        @ApiResponse(responseCode = "202", description = "Ainda em andamento"),
+        @ApiResponse(responseCode = "404", description = "Trabalho não encontrado ou expirado"),
+        @ApiResponse(responseCode = "409", description = "O trabalho falhou")
+    })
+    public ResponseEntity<?> resultado(@Parameter(description = "ID do trabalho") @PathVariable String id) {
+        Optional<Relatorio> relatorio = filaRelatorios.resultado(id);
+        if (relatorio.isPresent()) {
+            return ResponseEntity.ok(relatorio.get());
+        }
+        Optional<EstadoRelatorio> estado = filaRelatorios.estado(id);
+        if (estado.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        HttpStatus status = estado.get().situacao() == EstadoRelatorio.Situacao.FALHOU ? HttpStatus.CONFLICT : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(estado.get());
+    }
+}
@@ -1,5 +1,12 @@
 package com.organizadorfinancas.controller;
 
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AnaliseGastosInvisiveis;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.Transacao;
 import com.organizadorfinancas.model.TipoTransacao;
 import com.organizadorfinancas.service.TransacaoService;
@@ -9,6 +16,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -68,14 +76,33 @@ public class TransacaoController {
     })
     public ResponseEntity<Transacao> update(@Parameter(description = "ID da transação") @PathVariable Long id, 
                                            @Valid @RequestBody Transacao transacao) {
-        if (!transacaoService.findById(id).isPresent()) {
+        Optional<Transacao> existente = transacaoService.findById(id);
+        if (!existente.isPresent()) {
             return ResponseEntity.notFound().build();
         }
         transacao.setId(id);
+        if (transacao.getVersao() == null) {
+            transacao.setVersao(existente.get().getVersao());
+        }
         Transacao updatedTransacao = transacaoService.save(transacao);
         return ResponseEntity.ok(updatedTransacao);
     }
     
+    @PatchMapping("/{id}")
+    @Operation(summary = "Atualizar campos da transação", description = "Altera apenas os campos informados, desde que a versão informada seja a atual. A nova versão é retornada no cabeçalho ETag")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Transação atualizada com sucesso"),
+        @ApiResponse(responseCode = "404", description = "Transação não encontrada"),
+        @ApiResponse(responseCode = "409", description = "Transação alterada por outra requisição"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos")
+    })
+    public ResponseEntity<Void> patch(@Parameter(description = "ID da transação") @PathVariable Long id,
+                                      @Valid @RequestBody AtualizacaoTransacao atualizacao) {
+        return transacaoService.atualizarParcial(id, atualizacao)
+                .map(versao -> ResponseEntity.noContent().eTag(String.valueOf(versao)).<Void>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @DeleteMapping("/{id}")
     @Operation(summary = "Excluir transação", description = "Exclui uma transação do sistema")
     @ApiResponses(value = {
@@ -83,11 +110,30 @@ public class TransacaoController {
         @ApiResponse(responseCode = "404", description = "Transação não encontrada")
     })
     public ResponseEntity<Void> deleteById(@Parameter(description = "ID da transação") @PathVariable Long id) {
-        if (!transacaoService.findById(id).isPresent()) {
-            return ResponseEntity.notFound().build();
-        }
-        transacaoService.deleteById(id);
-        return ResponseEntity.noContent().build();
+        return transacaoService.deleteById(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+    
+    @DeleteMapping
+    @Operation(summary = "Excluir transações por filtro", description = "Exclui em lotes todas as transações do filtro (período, categoria, tipo, trecho da descrição). Ao menos um critério é obrigatório")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quantidade de transações excluídas"),
+        @ApiResponse(responseCode = "400", description = "Filtro vazio ou inválido")
+    })
+    public ResponseEntity<ResultadoLote> excluirPorFiltro(@ParameterObject FiltroTransacoes filtro) {
+        return ResponseEntity.ok(transacaoService.excluirPorFiltro(filtro));
+    }
+    
+    @PatchMapping
+    @Operation(summary = "Alterar transações por filtro", description = "Aplica categoria, tipo ou recorrência em lotes a todas as transações do filtro. Ao menos um critério é obrigatório")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Quantidade de transações alteradas"),
+        @ApiResponse(responseCode = "400", description = "Filtro vazio, alteração vazia ou categoria inexistente")
+    })
+    public ResponseEntity<ResultadoLote> alterarPorFiltro(@ParameterObject FiltroTransacoes filtro,
+                                                          @RequestBody AlteracaoEmLote alteracao) {
+        return ResponseEntity.ok(transacaoService.alterarPorFiltro(filtro, alteracao));
     }
     
     @GetMapping("/despesas")
@@ -109,9 +155,22 @@ public class TransacaoController {
     }
     
     @GetMapping("/superfluos")
-    @Operation(summary = "Listar gastos supérfluos", description = "Retorna todas as despesas supérfluas")
-    public ResponseEntity<List<Transacao>> findGastosSuperfluos() {
-        return ResponseEntity.ok(transacaoService.findGastosSuperfluos());
+    @Operation(summary = "Listar gastos supérfluos", description = "Retorna as despesas supérfluas do maior para o menor valor; com limite, só as primeiras")
+    public ResponseEntity<List<Transacao>> findGastosSuperfluos(
+            @Parameter(description = "Quantidade máxima de transações") @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(limite == null ? transacaoService.findGastosSuperfluos()
+                : transacaoService.findGastosSuperfluos(limite));
+    }
+    
+    @GetMapping("/maiores")
+    @Operation(summary = "Maiores transações", description = "As k transações de maior valor do filtro (período, categoria, tipo, trecho da descrição); sem tipo, só despesas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transações do maior para o menor valor"),
+        @ApiResponse(responseCode = "400", description = "Quantidade fora do limite ou período inválido")
+    })
+    public ResponseEntity<List<Transacao>> findMaiores(@ParameterObject FiltroTransacoes filtro,
+            @Parameter(description = "Quantidade de transações") @RequestParam(defaultValue = "10") int k) {
+        return ResponseEntity.ok(transacaoService.findMaiores(filtro, k));
     }
     
     @GetMapping("/parceladas")
@@ -136,6 +195,13 @@ public class TransacaoController {
         return ResponseEntity.ok(transacoes);
     }
     
+    @GetMapping("/gastos-invisiveis")
+    @Operation(summary = "Gastos invisíveis", description = "Despesas pequenas e frequentes das últimas semanas, por categoria e por descrição, calculadas em memória a cada gravação")
+    public ResponseEntity<AnaliseGastosInvisiveis> analisarGastosInvisiveis(
+            @Parameter(description = "Incluir também os padrões não sinalizados") @RequestParam(defaultValue = "false") boolean todos) {
+        return ResponseEntity.ok(transacaoService.analisarGastosInvisiveis(todos));
+    }
+    
     @GetMapping("/resumo/despesas")
     @Operation(summary = "Total de despesas do mês", description = "Retorna o valor total de despesas do mês atual")
     public ResponseEntity<BigDecimal> getTotalDespesas() {
@@ -148,6 +214,19 @@ public class TransacaoController {
         return ResponseEntity.ok(transacaoService.getTotalReceitas());
     }
     
+    @GetMapping("/resumo/periodo")
+    @Operation(summary = "Total do período", description = "Total de receitas ou despesas entre duas datas quaisquer, lido de um índice de somas por dia em memória")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Total do período"),
+        @ApiResponse(responseCode = "400", description = "Data inicial posterior à data final")
+    })
+    public ResponseEntity<BigDecimal> getTotalPorPeriodo(
+            @Parameter(description = "Tipo da transação") @RequestParam(defaultValue = "DESPESA") TipoTransacao tipo,
+            @Parameter(description = "Data inicial (AAAA-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Data final (AAAA-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
+        return ResponseEntity.ok(transacaoService.getTotalPorPeriodo(tipo, dataInicio, dataFim));
+    }
+    
     @GetMapping("/resumo/recorrentes")
     @Operation(summary = "Total de gastos recorrentes", description = "Retorna o valor total de gastos recorrentes")
     public ResponseEntity<BigDecimal> getTotalGastosRecorrentes() {
@@ -172,6 +251,41 @@ public class TransacaoController {
         return ResponseEntity.ok(transacaoService.getSaldoMensal());
     }
     
+    @GetMapping("/resumo/saldo-acumulado")
+    @Operation(summary = "Saldo acumulado", description = "Saldo acumulado (receitas - despesas desde a primeira transação) no fechamento de cada dia, semana, mês ou ano do período")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Série do saldo, do primeiro ao último fechamento"),
+        @ApiResponse(responseCode = "400", description = "Período inválido ou com pontos demais para a granularidade")
+    })
+    public ResponseEntity<List<PontoSaldo>> getSaldoAcumulado(
+            @Parameter(description = "Data inicial (AAAA-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Data final (AAAA-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            @Parameter(description = "Período de cada ponto") @RequestParam(defaultValue = "MES") PontoSaldo.Granularidade granularidade) {
+        return ResponseEntity.ok(transacaoService.getSaldoAcumulado(dataInicio, dataFim, granularidade));
+    }
+    
+    @GetMapping("/resumo/top-categorias")
+    @Operation(summary = "Categorias mais caras", description = "As k categorias de maior total no filtro; sem tipo, só despesas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Categorias do maior para o menor total"),
+        @ApiResponse(responseCode = "400", description = "Quantidade fora do limite ou período inválido")
+    })
+    public ResponseEntity<List<ItemRanking>> findCategoriasMaisCaras(@ParameterObject FiltroTransacoes filtro,
+            @Parameter(description = "Quantidade de categorias") @RequestParam(defaultValue = "10") int k) {
+        return ResponseEntity.ok(transacaoService.findCategoriasMaisCaras(filtro, k));
+    }
+    
+    @GetMapping("/resumo/top-descricoes")
+    @Operation(summary = "Descrições mais frequentes", description = "As k descrições que mais se repetem no filtro, sem diferenciar maiúsculas; sem tipo, só despesas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Descrições da mais para a menos frequente"),
+        @ApiResponse(responseCode = "400", description = "Quantidade fora do limite ou período inválido")
+    })
+    public ResponseEntity<List<ItemRanking>> findDescricoesMaisFrequentes(@ParameterObject FiltroTransacoes filtro,
+            @Parameter(description = "Quantidade de descrições") @RequestParam(defaultValue = "10") int k) {
+        return ResponseEntity.ok(transacaoService.findDescricoesMaisFrequentes(filtro, k));
+    }
+    
     @GetMapping("/resumo/por-categoria")
     @Operation(summary = "Totais por categoria", description = "Retorna o total agrupado por categoria")
     public ResponseEntity<List<Object[]>> getTotaisPorCategoria(
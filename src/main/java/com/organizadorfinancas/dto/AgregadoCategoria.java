@@ -0,0 +1,7 @@
+package com.organizadorfinancas.dto;
+
+import java.math.BigDecimal;
+
+/** Quantidade, total e total no mês corrente de um conjunto de transações de uma categoria, e o maior id entre elas. */
+public record AgregadoCategoria(Long categoriaId, Long quantidade, BigDecimal total, BigDecimal totalMes, Long idMaximo) {
+}
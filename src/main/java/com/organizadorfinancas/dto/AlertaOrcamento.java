@@ -0,0 +1,11 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoCategoria;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Registrado quando uma escrita leva o gasto do mês acima do limite de um orçamento. */
+public record AlertaOrcamento(Long orcamentoId, Long categoriaId, TipoCategoria tipoCategoria, String mes,
+                              BigDecimal limite, BigDecimal gasto, LocalDateTime instante) {
+}
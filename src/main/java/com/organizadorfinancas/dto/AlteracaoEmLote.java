@@ -0,0 +1,14 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoTransacao;
+
+/** Campos aplicados a todas as transações do filtro; campos nulos ficam como estão. */
+public record AlteracaoEmLote(
+        Long categoriaId,
+        TipoTransacao tipo,
+        Boolean recorrente) {
+
+    public boolean vazia() {
+        return categoriaId == null && tipo == null && recorrente == null;
+    }
+}
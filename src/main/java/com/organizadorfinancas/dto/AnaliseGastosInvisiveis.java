@@ -0,0 +1,7 @@
+package com.organizadorfinancas.dto;
+
+import java.util.List;
+
+/** Padrões de gasto das últimas {@code semanas} semanas, do maior gasto semanal para o menor. */
+public record AnaliseGastosInvisiveis(int semanas, List<PadraoGasto> categorias, List<PadraoGasto> descricoes) {
+}
@@ -0,0 +1,25 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoCategoria;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Alteração parcial de uma categoria: campos nulos ficam como estão.
+ * A {@code versao} é a lida pelo cliente; se a categoria mudou desde então, a alteração é recusada.
+ */
+public record AtualizacaoCategoria(
+        @NotNull(message = "Versão é obrigatória")
+        Long versao,
+
+        @Pattern(regexp = ".*\\S.*", message = "Nome da categoria não pode ser vazio")
+        String nome,
+
+        Boolean essencial,
+
+        TipoCategoria tipo) {
+
+    public boolean vazia() {
+        return nome == null && essencial == null && tipo == null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Alteração parcial de uma transação: campos nulos ficam como estão.
+ * A {@code versao} é a lida pelo cliente; se a transação mudou desde então, a alteração é recusada.
+ */
+public record AtualizacaoTransacao(
+        @NotNull(message = "Versão é obrigatória")
+        Long versao,
+
+        @Pattern(regexp = ".*\\S.*", message = "Descrição não pode ser vazia")
+        String descricao,
+
+        @Positive(message = "Valor deve ser positivo")
+        BigDecimal valor,
+
+        LocalDate data,
+
+        TipoTransacao tipo,
+
+        Boolean recorrente,
+
+        @Positive(message = "Parcelas deve ser positivo")
+        Integer parcelas,
+
+        @Positive(message = "Parcela atual deve ser positiva")
+        Integer parcelaAtual,
+
+        Long categoriaId,
+
+        @Size(max = 500, message = "Observações devem ter no máximo 500 caracteres")
+        String observacoes) {
+
+    public boolean vazia() {
+        return descricao == null && valor == null && data == null && tipo == null && recorrente == null
+                && parcelas == null && parcelaAtual == null && categoriaId == null && observacoes == null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.organizadorfinancas.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Distribuição dos valores das transações de uma categoria entre os meses {@code inicio} e {@code fim}
+ * ({@code AAAA-MM}). Percentis com erro relativo de até 1%; {@code percentilValor} é o percentual das
+ * transações abaixo de {@code valor}, quando informado.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DistribuicaoValores(Long categoriaId, String inicio, String fim, long quantidade,
+                                  BigDecimal p50, BigDecimal p90, BigDecimal p99,
+                                  BigDecimal valor, Double percentilValor, List<Barra> histograma) {
+
+    /** Transações com valor em {@code (de, ate]}. */
+    public record Barra(BigDecimal de, BigDecimal ate, long quantidade) {
+    }
+}
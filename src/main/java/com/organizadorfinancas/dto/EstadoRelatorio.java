@@ -0,0 +1,12 @@
+package com.organizadorfinancas.dto;
+
+import java.time.Instant;
+
+/** Situação de um trabalho de relatório; {@code erro} só aparece quando ele falhou. */
+public record EstadoRelatorio(String id, PedidoRelatorio pedido, Situacao situacao, Instant criadoEm,
+                              Instant iniciadoEm, Instant concluidoEm, String erro) {
+
+    public enum Situacao {
+        PENDENTE, EXECUTANDO, CONCLUIDO, FALHOU
+    }
+}
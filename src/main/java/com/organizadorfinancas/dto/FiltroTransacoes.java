@@ -0,0 +1,27 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filtro das operações em lote. Campos nulos não restringem; {@code descricao}
+ * casa com qualquer descrição que contenha o texto, sem diferenciar maiúsculas.
+ */
+public record FiltroTransacoes(
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dataInicio,
+
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate dataFim,
+
+        Long categoriaId,
+        TipoTransacao tipo,
+        String descricao) {
+
+    public boolean vazio() {
+        return dataInicio == null && dataFim == null && categoriaId == null && tipo == null
+                && (descricao == null || descricao.isBlank());
+    }
+}
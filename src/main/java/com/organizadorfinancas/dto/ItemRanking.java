@@ -0,0 +1,10 @@
+package com.organizadorfinancas.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/** Uma posição de ranking: a categoria (id e nome) ou a descrição, com quantidade e total das transações. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ItemRanking(Long categoriaId, String nome, Long quantidade, BigDecimal total) {
+}
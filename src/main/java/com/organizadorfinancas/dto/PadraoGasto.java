@@ -0,0 +1,15 @@
+package com.organizadorfinancas.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/**
+ * Despesas de uma categoria ou de uma descrição normalizada na janela analisada. {@code sinalizado} marca
+ * gastos pequenos e frequentes: ticket mediano até o limite e frequência semanal acima do mínimo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PadraoGasto(Long categoriaId, String descricao, long quantidade, BigDecimal frequenciaSemanal,
+                          BigDecimal ticketMediano, BigDecimal gastoSemanal, BigDecimal projecaoMensal,
+                          boolean sinalizado) {
+}
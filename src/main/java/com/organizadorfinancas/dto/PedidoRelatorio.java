@@ -0,0 +1,65 @@
+package com.organizadorfinancas.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Pedido de relatório mensal ({@code mes} de 1 a 12) ou anual (sem {@code mes}). A prioridade só ordena a
+ * fila: pedidos do mesmo período com prioridades diferentes são o mesmo relatório.
+ */
+public record PedidoRelatorio(
+        @NotNull(message = "Período é obrigatório")
+        Periodo periodo,
+
+        @NotNull(message = "Ano é obrigatório")
+        @Min(value = 1900, message = "Ano inválido")
+        @Max(value = 9999, message = "Ano inválido")
+        Integer ano,
+
+        @Min(value = 1, message = "Mês deve ser de 1 a 12")
+        @Max(value = 12, message = "Mês deve ser de 1 a 12")
+        Integer mes,
+
+        Prioridade prioridade) {
+
+    public enum Periodo {
+        MENSAL, ANUAL
+    }
+
+    /** Ordem de atendimento na fila; dentro da mesma prioridade, a ordem de chegada. */
+    public enum Prioridade {
+        ALTA, NORMAL, BAIXA
+    }
+
+    public PedidoRelatorio {
+        if (prioridade == null) {
+            prioridade = Prioridade.NORMAL;
+        }
+    }
+
+    public void validar() {
+        if (periodo == Periodo.MENSAL && mes == null) {
+            throw new IllegalArgumentException("Relatório mensal exige o mês");
+        }
+        if (periodo == Periodo.ANUAL && mes != null) {
+            throw new IllegalArgumentException("Relatório anual não aceita mês");
+        }
+    }
+
+    /** O mesmo pedido com a prioridade padrão: identifica o relatório. */
+    public PedidoRelatorio semPrioridade() {
+        return new PedidoRelatorio(periodo, ano, mes, Prioridade.NORMAL);
+    }
+
+    public LocalDate inicio() {
+        return periodo == Periodo.MENSAL ? YearMonth.of(ano, mes).atDay(1) : LocalDate.of(ano, 1, 1);
+    }
+
+    public LocalDate fim() {
+        return periodo == Periodo.MENSAL ? YearMonth.of(ano, mes).atEndOfMonth() : LocalDate.of(ano, 12, 31);
+    }
+}
@@ -0,0 +1,25 @@
+package com.organizadorfinancas.dto;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/** Saldo acumulado (todas as receitas menos todas as despesas até {@code data}, inclusive) no fim de um período. */
+public record PontoSaldo(LocalDate data, BigDecimal saldo) {
+
+    /** Tamanho do período de cada ponto da série; semanas terminam no domingo. */
+    public enum Granularidade {
+        DIA, SEMANA, MES, ANO;
+
+        /** Último dia do período que contém {@code dia}. */
+        public LocalDate fechamento(LocalDate dia) {
+            return switch (this) {
+                case DIA -> dia;
+                case SEMANA -> dia.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+                case MES -> dia.with(TemporalAdjusters.lastDayOfMonth());
+                case ANO -> dia.with(TemporalAdjusters.lastDayOfYear());
+            };
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.organizadorfinancas.dto;
+
+/** Linha do progresso transmitido em {@code application/x-ndjson}: acumulado até o último lote concluído. */
+public record ProgressoLote(long afetadas, int lotes, boolean concluido) {
+
+    public static ProgressoLote parcial(ResultadoLote resultado) {
+        return new ProgressoLote(resultado.afetadas(), resultado.lotes(), false);
+    }
+
+    public static ProgressoLote concluido(ResultadoLote resultado) {
+        return new ProgressoLote(resultado.afetadas(), resultado.lotes(), true);
+    }
+}
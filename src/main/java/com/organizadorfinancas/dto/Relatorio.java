@@ -0,0 +1,38 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Relatório de um mês ou ano: totais, participação de cada categoria, despesas essenciais e supérfluas mês a
+ * mês ({@code tendencia}; no relatório mensal, os meses anteriores também entram) e parcelas em aberto no fim
+ * do período.
+ */
+public record Relatorio(PedidoRelatorio.Periodo periodo, LocalDate inicio, LocalDate fim, Instant geradoEm,
+                        BigDecimal receitas, BigDecimal despesas, BigDecimal saldo,
+                        List<TotalCategoria> porCategoria, List<TendenciaMensal> tendencia,
+                        ExposicaoParcelas parcelas) {
+
+    /** Total de uma categoria no período; o percentual é sobre as receitas ou as despesas, conforme o tipo. */
+    public record TotalCategoria(Long categoriaId, String categoria, TipoCategoria tipoCategoria, boolean essencial,
+                                 TipoTransacao tipo, long quantidade, BigDecimal total, BigDecimal percentual) {
+    }
+
+    /** Despesas do mês ({@code AAAA-MM}) em categorias essenciais e supérfluas. */
+    public record TendenciaMensal(String mes, BigDecimal essenciais, BigDecimal superfluas,
+                                  BigDecimal percentualSuperfluo) {
+    }
+
+    /**
+     * Despesas parceladas com parcelas a vencer depois do período: quantas compras, quantas parcelas, o valor que
+     * falta pagar e quanto elas pesam por mês.
+     */
+    public record ExposicaoParcelas(long compras, long parcelasRestantes, BigDecimal valorRestante,
+                                    BigDecimal compromissoMensal) {
+    }
+}
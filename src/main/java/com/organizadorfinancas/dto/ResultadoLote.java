@@ -0,0 +1,5 @@
+package com.organizadorfinancas.dto;
+
+/** Total de transações afetadas por uma operação em lote e quantos comandos foram executados. */
+public record ResultadoLote(long afetadas, int lotes) {
+}
@@ -0,0 +1,7 @@
+package com.organizadorfinancas.dto;
+
+import java.time.Instant;
+
+/** Um backup gerado ou restaurado: arquivo (vazio na restauração), instante da geração, quantidades e tamanho em bytes. */
+public record ResumoBackup(String arquivo, Instant geradoEm, long categorias, long orcamentos, long transacoes, long bytes) {
+}
@@ -0,0 +1,7 @@
+package com.organizadorfinancas.dto;
+
+import java.time.LocalDate;
+
+/** Um arquivo de transações arquivadas: nome, datas da primeira e da última transação, quantidade e tamanho em bytes. */
+public record SegmentoArquivado(String arquivo, LocalDate dataInicial, LocalDate dataFinal, int transacoes, long bytes) {
+}
@@ -0,0 +1,11 @@
+package com.organizadorfinancas.dto;
+
+import com.organizadorfinancas.model.TipoCategoria;
+
+import java.math.BigDecimal;
+
+/** Gasto de um orçamento no mês ({@code AAAA-MM}) frente ao limite. */
+public record StatusOrcamento(Long orcamentoId, Long categoriaId, String categoria, TipoCategoria tipoCategoria,
+                              String mes, BigDecimal limite, BigDecimal gasto, BigDecimal disponivel,
+                              BigDecimal percentual, boolean estourado) {
+}
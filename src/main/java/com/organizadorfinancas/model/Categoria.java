@@ -1,12 +1,18 @@
 package com.organizadorfinancas.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.List;
 
 @Entity
 @Table(name = "categorias")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Categoria {
     
     @Id
@@ -24,10 +30,19 @@ public class Categoria {
     @Column(nullable = false)
     private TipoCategoria tipo;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+    
     @JsonIgnore
     @OneToMany(mappedBy = "categoria", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transacao> transacoes;
     
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private EstatisticaCategoria estatisticas;
+    
     public Categoria() {}
     
     public Categoria(String nome, Boolean essencial, TipoCategoria tipo) {
@@ -68,6 +83,14 @@ public class Categoria {
         this.tipo = tipo;
     }
     
+    public Long getVersao() {
+        return versao;
+    }
+    
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+    
     public List<Transacao> getTransacoes() {
         return transacoes;
     }
@@ -75,4 +98,12 @@ public class Categoria {
     public void setTransacoes(List<Transacao> transacoes) {
         this.transacoes = transacoes;
     }
+    
+    public EstatisticaCategoria getEstatisticas() {
+        return estatisticas;
+    }
+    
+    public void setEstatisticas(EstatisticaCategoria estatisticas) {
+        this.estatisticas = estatisticas;
+    }
 }
@@ -0,0 +1,98 @@
+package com.organizadorfinancas.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Contadores das transações de uma categoria, atualizados na mesma transação de cada escrita.
+ * O total do mês vale para {@code mesReferencia} (AAAAMM); ao virar o mês ele é recalculado.
+ */
+@Entity
+@Table(name = "estatisticas_categoria")
+public class EstatisticaCategoria {
+
+    @Id
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private Long quantidade;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private Integer mesReferencia;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalMes;
+
+    private LocalDate ultimaTransacao;
+
+    public EstatisticaCategoria() {}
+
+    public EstatisticaCategoria(Long categoriaId, Long quantidade, BigDecimal total, Integer mesReferencia,
+                                BigDecimal totalMes, LocalDate ultimaTransacao) {
+        this.categoriaId = categoriaId;
+        this.quantidade = quantidade;
+        this.total = total;
+        this.mesReferencia = mesReferencia;
+        this.totalMes = totalMes;
+        this.ultimaTransacao = ultimaTransacao;
+    }
+
+    public static int mes(YearMonth mes) {
+        return mes.getYear() * 100 + mes.getMonthValue();
+    }
+
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public void setCategoriaId(Long categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+
+    public Long getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(Long quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public Integer getMesReferencia() {
+        return mesReferencia;
+    }
+
+    public void setMesReferencia(Integer mesReferencia) {
+        this.mesReferencia = mesReferencia;
+    }
+
+    public BigDecimal getTotalMes() {
+        return totalMes;
+    }
+
+    public void setTotalMes(BigDecimal totalMes) {
+        this.totalMes = totalMes;
+    }
+
+    public LocalDate getUltimaTransacao() {
+        return ultimaTransacao;
+    }
+
+    public void setUltimaTransacao(LocalDate ultimaTransacao) {
+        this.ultimaTransacao = ultimaTransacao;
+    }
+}
@@ -0,0 +1,87 @@
+package com.organizadorfinancas.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Quantidade de transações de uma categoria num mês ({@code AAAAMM}) cujo valor cai numa faixa
+ * do esboço de quantis. Só as faixas ocupadas têm linha; somar as linhas de vários meses
+ * dá o esboço do período.
+ */
+@Entity
+@IdClass(FaixaDistribuicao.Chave.class)
+@Table(name = "faixas_distribuicao", indexes = {
+    @Index(name = "idx_faixas_distribuicao_categoria_mes", columnList = "categoria_id, mes")
+})
+public class FaixaDistribuicao {
+
+    @Id
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Id
+    private Integer mes;
+
+    @Id
+    private Integer faixa;
+
+    @Column(nullable = false)
+    private Long quantidade;
+
+    public FaixaDistribuicao() {}
+
+    public FaixaDistribuicao(Long categoriaId, Integer mes, Integer faixa, Long quantidade) {
+        this.categoriaId = categoriaId;
+        this.mes = mes;
+        this.faixa = faixa;
+        this.quantidade = quantidade;
+    }
+
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public Integer getMes() {
+        return mes;
+    }
+
+    public Integer getFaixa() {
+        return faixa;
+    }
+
+    public Long getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(Long quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public static class Chave implements Serializable {
+
+        private Long categoriaId;
+        private Integer mes;
+        private Integer faixa;
+
+        public Chave() {}
+
+        public Chave(Long categoriaId, Integer mes, Integer faixa) {
+            this.categoriaId = categoriaId;
+            this.mes = mes;
+            this.faixa = faixa;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave outra && Objects.equals(categoriaId, outra.categoriaId)
+                    && Objects.equals(mes, outra.mes) && Objects.equals(faixa, outra.faixa);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoriaId, mes, faixa);
+        }
+    }
+}
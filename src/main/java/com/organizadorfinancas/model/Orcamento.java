@@ -0,0 +1,71 @@
+package com.organizadorfinancas.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/** Limite mensal de despesas de uma categoria ou de todas as categorias de um tipo. */
+@Entity
+@Table(name = "orcamentos")
+public class Orcamento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "categoria_id")
+    @JsonIgnoreProperties({"transacoes"})
+    private Categoria categoria;
+
+    @Enumerated(EnumType.STRING)
+    private TipoCategoria tipoCategoria;
+
+    @NotNull(message = "Limite mensal é obrigatório")
+    @Positive(message = "Limite mensal deve ser positivo")
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal limiteMensal;
+
+    public Orcamento() {}
+
+    public Orcamento(Categoria categoria, TipoCategoria tipoCategoria, BigDecimal limiteMensal) {
+        this.categoria = categoria;
+        this.tipoCategoria = tipoCategoria;
+        this.limiteMensal = limiteMensal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Categoria getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(Categoria categoria) {
+        this.categoria = categoria;
+    }
+
+    public TipoCategoria getTipoCategoria() {
+        return tipoCategoria;
+    }
+
+    public void setTipoCategoria(TipoCategoria tipoCategoria) {
+        this.tipoCategoria = tipoCategoria;
+    }
+
+    public BigDecimal getLimiteMensal() {
+        return limiteMensal;
+    }
+
+    public void setLimiteMensal(BigDecimal limiteMensal) {
+        this.limiteMensal = limiteMensal;
+    }
+}
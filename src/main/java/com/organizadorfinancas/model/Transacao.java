@@ -4,12 +4,17 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "transacoes")
+@Table(name = "transacoes", indexes = {
+    @Index(name = "idx_transacoes_categoria_data", columnList = "categoria_id, data"),
+    @Index(name = "idx_transacoes_tipo_valor", columnList = "tipo, valor"),
+    @Index(name = "idx_transacoes_tipo_data", columnList = "tipo, data")
+})
 public class Transacao {
     
     @Id
@@ -50,6 +55,11 @@ public class Transacao {
     @Column(length = 500)
     private String observacoes;
     
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long versao;
+    
     public Transacao() {}
     
     public Transacao(String descricao, BigDecimal valor, LocalDate data, 
@@ -144,6 +154,14 @@ public class Transacao {
         this.observacoes = observacoes;
     }
     
+    public Long getVersao() {
+        return versao;
+    }
+    
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+    
     public BigDecimal getValorMensal() {
         if (parcelas > 1) {
             return valor.divide(BigDecimal.valueOf(parcelas), 2, java.math.RoundingMode.HALF_UP);
@@ -0,0 +1,105 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * As operações sobre transações de que os serviços precisam, e só elas. Implementado pelo
+ * {@link TransacaoRepository} (JPA) e pelo {@link TransacaoRepositoryJournal}; os serviços dependem
+ * desta interface, e não do {@code JpaRepository} inteiro, para que os dois motores sejam intercambiáveis.
+ *
+ * As linhas {@code Object[]} e as somas seguem as consultas JPQL do {@link TransacaoRepository}:
+ * somas sem transações são nulas e os valores têm duas casas.
+ */
+public interface ArmazenamentoTransacoes extends TransacaoRepositoryCustom {
+
+    /** Inclui (sem id) ou altera a transação, conferindo a versão; devolve a mesma instância com id e versão. */
+    <S extends Transacao> S save(S transacao);
+
+    <S extends Transacao> List<S> saveAll(Iterable<S> transacoes);
+
+    Optional<Transacao> findById(Long id);
+
+    boolean existsById(Long id);
+
+    List<Transacao> findAll();
+
+    long count();
+
+    void deleteById(Long id);
+
+    List<Transacao> findByTipo(TipoTransacao tipo);
+
+    List<Transacao> findByCategoriaId(Long categoriaId);
+
+    List<Transacao> findByDataBetween(LocalDate dataInicio, LocalDate dataFim);
+
+    List<Transacao> findGastosRecorrentes();
+
+    List<Transacao> findGastosSuperfluos();
+
+    List<Transacao> findGastosSuperfluos(Limit limite);
+
+    List<Transacao> findDespesasParceladas();
+
+    BigDecimal sumByTipoAndPeriodo(TipoTransacao tipo, LocalDate dataInicio, LocalDate dataFim);
+
+    BigDecimal sumByTipoAndRecorrente(TipoTransacao tipo);
+
+    BigDecimal sumByEssencialAndTipo(Boolean essencial, TipoTransacao tipo);
+
+    /** Linhas {@code (nome da categoria, total)} do tipo, do maior total para o menor. */
+    List<Object[]> findTotalPorCategoria(TipoTransacao tipo);
+
+    /** Linhas {@code (categoriaId, ano, mês, total)} do tipo a partir de {@code dataInicio}. */
+    List<Object[]> sumPorCategoriaEMes(TipoTransacao tipo, LocalDate dataInicio);
+
+    /** Linhas {@code (categoriaId, tipo, ano, mês, quantidade, total)} do período. */
+    List<Object[]> sumPorCategoriaTipoEMes(LocalDate dataInicio, LocalDate dataFim);
+
+    /**
+     * Despesas parceladas até {@code dataFim} que ainda têm parcelas depois do mês dela, contando uma parcela por
+     * mês a partir da atual: linhas {@code (valor, parcelas, parcelaAtual, data)}.
+     */
+    List<Object[]> findParcelasEmAberto(LocalDate dataFim);
+
+    /** Linhas {@code (tipo, data, soma, quantidade)}. */
+    List<Object[]> sumPorTipoEData();
+
+    /** Linhas {@code (data, receitas menos despesas)} até {@code dataFim}, em ordem de data. */
+    List<Object[]> sumSaldoPorDataAte(LocalDate dataFim);
+
+    /** Linhas {@code (categoriaId, quantidade, total, total entre inicio e fim, última data)} das categorias informadas. */
+    List<Object[]> agregarPorCategorias(Collection<Long> categoriaIds, LocalDate inicio, LocalDate fim);
+
+    /** Linhas {@code (categoriaId, última data)} das categorias informadas. */
+    List<Object[]> findUltimaDataPorCategoria(Collection<Long> categoriaIds);
+
+    /** Linhas {@code (categoriaId, total)} do período. */
+    List<Object[]> sumPorCategoriaNoPeriodo(LocalDate inicio, LocalDate fim);
+
+    /** Linhas {@code (categoriaId, mes AAAAMM, valor, quantidade)} das categorias informadas. */
+    List<Object[]> agruparPorCategoriaMesEValor(Collection<Long> categoriaIds);
+
+    /** Linhas {@code (categoriaId, quantidade)}. */
+    List<Object[]> countPorCategoria();
+
+    /** Linhas {@code (categoriaId, descricao, valor, data)} do tipo a partir de {@code dataInicio}. */
+    List<Object[]> findLancamentosDesde(TipoTransacao tipo, LocalDate dataInicio);
+
+    /** Transações do período travadas para escrita, para o arquivamento ler e excluir as mesmas linhas. */
+    List<Transacao> findParaArquivar(LocalDate dataInicio, LocalDate dataFim);
+
+    List<Long> findIdsEntre(LocalDate dataInicio, LocalDate dataFim);
+
+    int excluirPorIds(Collection<Long> ids);
+
+    LocalDate findPrimeiraData();
+}
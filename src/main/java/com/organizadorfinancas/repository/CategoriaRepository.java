@@ -2,30 +2,56 @@ package com.organizadorfinancas.repository;
 
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+public interface CategoriaRepository extends JpaRepository<Categoria, Long>, CategoriaRepositoryCustom {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Categoria> findByTipo(TipoCategoria tipo);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Categoria> findByEssencial(Boolean essencial);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Categoria> findByTipoAndEssencial(TipoCategoria tipo, Boolean essencial);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Categoria> findByNome(String nome);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT c FROM Categoria c WHERE c.tipo IN :tipos")
     List<Categoria> findByTipoIn(List<TipoCategoria> tipos);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(c) FROM Categoria c WHERE c.essencial = true")
     Long countCategoriasEssenciais();
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(c) FROM Categoria c WHERE c.essencial = false")
     Long countCategoriasSuperfluas();
+    
+    /** Trava a linha da categoria para escrita até o fim da transação. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Categoria c WHERE c.id = :id")
+    Optional<Categoria> travarPorId(@Param("id") Long id);
+    
+    /** Exclui só a linha da categoria, sem carregar nem cascatear a coleção de transações. */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Categoria c WHERE c.id = :id")
+    int excluirPorId(@Param("id") Long id);
 }
@@ -0,0 +1,13 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AtualizacaoCategoria;
+
+public interface CategoriaRepositoryCustom {
+
+    /**
+     * Aplica a alteração parcial em um único {@code UPDATE ... WHERE id = ? AND versao = ?},
+     * sem carregar a entidade. Retorna a quantidade de linhas alteradas (0 se a categoria
+     * não existe ou está em outra versão).
+     */
+    int atualizarParcial(Long id, AtualizacaoCategoria atualizacao);
+}
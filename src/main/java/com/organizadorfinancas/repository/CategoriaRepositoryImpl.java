@@ -0,0 +1,38 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AtualizacaoCategoria;
+import com.organizadorfinancas.model.Categoria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+class CategoriaRepositoryImpl implements CategoriaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int atualizarParcial(Long id, AtualizacaoCategoria atualizacao) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Categoria> update = cb.createCriteriaUpdate(Categoria.class);
+        Root<Categoria> c = update.from(Categoria.class);
+
+        if (atualizacao.nome() != null) {
+            update.set(c.get("nome"), atualizacao.nome());
+        }
+        if (atualizacao.essencial() != null) {
+            update.set(c.get("essencial"), atualizacao.essencial());
+        }
+        if (atualizacao.tipo() != null) {
+            update.set(c.get("tipo"), atualizacao.tipo());
+        }
+        update.set(c.<Long>get("versao"), cb.sum(c.get("versao"), 1L));
+        update.where(cb.equal(c.get("id"), id), cb.equal(c.get("versao"), atualizacao.versao()));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
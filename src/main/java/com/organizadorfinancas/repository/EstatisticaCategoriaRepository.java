@@ -0,0 +1,46 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface EstatisticaCategoriaRepository extends JpaRepository<EstatisticaCategoria, Long> {
+
+    /** Soma as diferenças aos contadores; a do mês só vale se a linha ainda está no mês informado. */
+    @Modifying
+    @Query("UPDATE EstatisticaCategoria e SET e.quantidade = e.quantidade + :quantidade, e.total = e.total + :total, " +
+           "e.totalMes = CASE WHEN e.mesReferencia = :mes THEN e.totalMes + :totalMes ELSE e.totalMes END " +
+           "WHERE e.categoriaId = :categoriaId")
+    int acumular(@Param("categoriaId") Long categoriaId, @Param("quantidade") long quantidade,
+                 @Param("total") BigDecimal total, @Param("mes") int mes, @Param("totalMes") BigDecimal totalMes);
+
+    @Modifying
+    @Query("UPDATE EstatisticaCategoria e SET e.ultimaTransacao = :data " +
+           "WHERE e.categoriaId = :categoriaId AND (e.ultimaTransacao IS NULL OR e.ultimaTransacao < :data)")
+    int avancarUltimaTransacao(@Param("categoriaId") Long categoriaId, @Param("data") LocalDate data);
+
+    @Modifying
+    @Query("UPDATE EstatisticaCategoria e SET e.ultimaTransacao = :data WHERE e.categoriaId = :categoriaId")
+    int definirUltimaTransacao(@Param("categoriaId") Long categoriaId, @Param("data") LocalDate data);
+
+    /** Passa a linha para o mês informado com o total do mês já calculado; não faz nada se ela já está nele. */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE EstatisticaCategoria e SET e.mesReferencia = :mes, e.totalMes = :totalMes " +
+           "WHERE e.categoriaId = :categoriaId AND e.mesReferencia <> :mes")
+    int virarMes(@Param("categoriaId") Long categoriaId, @Param("mes") int mes, @Param("totalMes") BigDecimal totalMes);
+
+    @Query("SELECT c.id FROM Categoria c WHERE c.id NOT IN (SELECT e.categoriaId FROM EstatisticaCategoria e)")
+    List<Long> findCategoriasSemEstatistica();
+
+    @Modifying
+    @Query("DELETE FROM EstatisticaCategoria e WHERE e.categoriaId = :categoriaId")
+    int excluirPorCategoria(@Param("categoriaId") Long categoriaId);
+}
@@ -0,0 +1,49 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.FaixaDistribuicao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FaixaDistribuicaoRepository extends JpaRepository<FaixaDistribuicao, FaixaDistribuicao.Chave> {
+
+    /** Soma {@code quantidade} (positiva) à faixa, criando a linha se ainda não existe, num único comando. */
+    @Modifying
+    @Query(value = "MERGE INTO faixas_distribuicao d USING (SELECT CAST(:categoriaId AS BIGINT) AS categoria_id, " +
+                   "CAST(:mes AS INTEGER) AS mes, CAST(:faixa AS INTEGER) AS faixa, CAST(:quantidade AS BIGINT) AS quantidade) s " +
+                   "ON d.categoria_id = s.categoria_id AND d.mes = s.mes AND d.faixa = s.faixa " +
+                   "WHEN MATCHED THEN UPDATE SET quantidade = d.quantidade + s.quantidade " +
+                   "WHEN NOT MATCHED THEN INSERT (categoria_id, mes, faixa, quantidade) " +
+                   "VALUES (s.categoria_id, s.mes, s.faixa, s.quantidade)", nativeQuery = true)
+    int somar(@Param("categoriaId") Long categoriaId, @Param("mes") int mes, @Param("faixa") int faixa,
+              @Param("quantidade") long quantidade);
+
+    @Modifying
+    @Query("UPDATE FaixaDistribuicao d SET d.quantidade = d.quantidade - :quantidade " +
+           "WHERE d.categoriaId = :categoriaId AND d.mes = :mes AND d.faixa = :faixa")
+    int subtrair(@Param("categoriaId") Long categoriaId, @Param("mes") int mes, @Param("faixa") int faixa,
+                 @Param("quantidade") long quantidade);
+
+    @Modifying
+    @Query("DELETE FROM FaixaDistribuicao d WHERE d.categoriaId = :categoriaId AND d.mes = :mes AND d.quantidade <= 0")
+    int excluirVazias(@Param("categoriaId") Long categoriaId, @Param("mes") int mes);
+
+    /** Esboço do período: as faixas de todos os meses somadas, em ordem de faixa. */
+    @Query("SELECT d.faixa, SUM(d.quantidade) FROM FaixaDistribuicao d " +
+           "WHERE d.categoriaId = :categoriaId AND d.mes BETWEEN :inicio AND :fim " +
+           "GROUP BY d.faixa ORDER BY d.faixa")
+    List<Object[]> somarFaixas(@Param("categoriaId") Long categoriaId, @Param("inicio") int inicio, @Param("fim") int fim);
+
+    @Query("SELECT d.categoriaId, SUM(d.quantidade) FROM FaixaDistribuicao d GROUP BY d.categoriaId")
+    List<Object[]> contarPorCategoria();
+
+    @Modifying
+    @Query("DELETE FROM FaixaDistribuicao d WHERE d.categoriaId IN :categoriaIds")
+    int excluirPorCategorias(@Param("categoriaIds") Collection<Long> categoriaIds);
+}
@@ -0,0 +1,1031 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Motor de armazenamento das transações num journal binário só de acréscimo, mapeado em memória. Cada
+ * inclusão, alteração ou exclusão acrescenta um registro de largura fixa ({@value #TAMANHO_REGISTRO} bytes)
+ * ao arquivo {@code .registros}; descrição e observações vão para o arquivo {@code .textos}, referenciadas
+ * pelo registro. Nada é reescrito no lugar: a versão válida de cada transação é a última gravada.
+ *
+ * Em memória ficam o índice id → posição do último registro (um {@code long[]} indexado pelo id) e os
+ * índices secundários por data e por categoria e data, que atendem consultas por período e por categoria
+ * sem percorrer o arquivo. Na abertura o journal é lido do início para montar os índices; um registro
+ * incompleto no fim (crc inválido) encerra a leitura e é descartado.
+ *
+ * Registros substituídos e exclusões viram desperdício; quando ele passa de {@code limiteDesperdicio}, uma
+ * compactação em segundo plano copia as transações vivas para uma nova geração de arquivos, sem bloquear
+ * leituras nem escritas durante a cópia, e troca de geração ao final.
+ */
+public class JournalTransacoes implements Closeable {
+
+    /** Uma transação como gravada no journal: valor em centavos, data em dias desde a época e categoria pelo id. */
+    public record Registro(long id, String descricao, long centavos, int dia, TipoTransacao tipo, boolean recorrente,
+                           int parcelas, int parcelaAtual, long categoriaId, String observacoes, long versao) {
+
+        public LocalDate data() {
+            return LocalDate.ofEpochDay(dia);
+        }
+
+        public BigDecimal valor() {
+            return BigDecimal.valueOf(centavos, 2);
+        }
+
+        public Registro comId(long novoId) {
+            return new Registro(novoId, descricao, centavos, dia, tipo, recorrente, parcelas, parcelaAtual,
+                    categoriaId, observacoes, versao);
+        }
+    }
+
+    public static final int TAMANHO_REGISTRO = 80;
+    /** Limite de bytes UTF-8 de descrição e observações somadas. */
+    public static final int MAXIMO_TEXTO = 64 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(JournalTransacoes.class);
+
+    private static final int MAGIA = 0x4F46544A; // "OFTJ"
+    private static final int VERSAO_FORMATO = 1;
+    private static final byte FIM = 0;
+    private static final byte GRAVACAO = 1;
+    private static final byte EXCLUSAO = 2;
+    private static final int REGISTROS_POR_REGIAO = 1 << 18;
+    private static final int TAMANHO_REGIAO_TEXTOS = 1 << 24;
+    private static final long MINIMO_PARA_COMPACTAR = 10_000;
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    // Chave dos índices secundários: (dia + deslocamento) nos 23 bits altos, id nos 40 baixos, em ordem de data e id
+    private static final int BITS_ID = 40;
+    private static final long DESLOCAMENTO_DIA = 1L << 22;
+    private static final long MAXIMO_ID = (1L << BITS_ID) - 1;
+
+    private static final Pattern ARQUIVO = Pattern.compile("transacoes-(\\d+)\\.(registros|textos)");
+
+    // Deslocamentos dos campos no registro
+    private static final int OPERACAO = 0;
+    private static final int TIPO = 1;
+    private static final int RECORRENTE = 2;
+    private static final int DIA = 4;
+    private static final int ID = 8;
+    private static final int VERSAO = 16;
+    private static final int CENTAVOS = 24;
+    private static final int CATEGORIA = 32;
+    private static final int PARCELAS = 40;
+    private static final int PARCELA_ATUAL = 44;
+    private static final int TEXTO = 48;
+    private static final int BYTES_DESCRICAO = 56;
+    private static final int BYTES_OBSERVACOES = 60;
+    private static final int CRC_TEXTO = 64;
+    private static final int CRC = 76;
+
+    private final Path diretorio;
+    private final boolean temporario;
+    private final long sincronizacaoMs;
+    private final double limiteDesperdicio;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Object compactacao = new Object();
+    private final NavigableSet<Long> porData = new TreeSet<>();
+    private final Map<Long, NavigableSet<Long>> porCategoria = new HashMap<>();
+    private final ScheduledExecutorService agendador;
+
+    private Geracao atual;
+    private long proximoId = 1;
+    private long vivos;
+
+    /**
+     * Abre (ou cria) o journal em {@code diretorio}. Com {@code sincronizacaoMs} zero cada escrita é levada ao
+     * disco antes de retornar; acima de zero, os arquivos são sincronizados nesse intervalo. A compactação é
+     * avaliada a cada {@code compactacaoSegundos}. Um journal {@code temporario} é apagado no {@link #close()}.
+     */
+    public JournalTransacoes(Path diretorio, boolean temporario, long sincronizacaoMs, double limiteDesperdicio,
+                             long compactacaoSegundos) {
+        this.diretorio = diretorio;
+        this.temporario = temporario;
+        this.sincronizacaoMs = sincronizacaoMs;
+        this.limiteDesperdicio = limiteDesperdicio;
+        try {
+            Files.createDirectories(diretorio);
+            abrir();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o journal de transações em " + diretorio, e);
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-transacoes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (sincronizacaoMs > 0) {
+            agendador.scheduleWithFixedDelay(this::sincronizarAgendado, sincronizacaoMs, sincronizacaoMs, TimeUnit.MILLISECONDS);
+        }
+        if (compactacaoSegundos > 0) {
+            agendador.scheduleWithFixedDelay(this::compactarAgendado, compactacaoSegundos, compactacaoSegundos, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Grava uma transação nova com o próximo id; o id do registro informado é ignorado. */
+    public Registro inserir(Registro registro) {
+        Registro gravado;
+        trava.writeLock().lock();
+        try {
+            gravado = registro.comId(proximoId);
+            acrescentar(gravado);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        sincronizarSeNecessario();
+        return gravado;
+    }
+
+    /**
+     * Aplica {@code alteracao} ao registro atual do id, numa única operação: o registro devolvido por ela (com
+     * o mesmo id) é acrescentado. Vazio se o id não existe ou se a alteração devolveu {@code null}.
+     */
+    public Optional<Registro> alterar(long id, UnaryOperator<Registro> alteracao) {
+        Registro gravado = null;
+        trava.writeLock().lock();
+        try {
+            Registro anterior = lerSemTrava(id);
+            if (anterior != null) {
+                Registro novo = alteracao.apply(anterior);
+                if (novo != null) {
+                    gravado = novo.comId(id);
+                    acrescentar(gravado);
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (gravado != null) {
+            sincronizarSeNecessario();
+        }
+        return Optional.ofNullable(gravado);
+    }
+
+    /** Exclui a transação e devolve o último registro dela, ou vazio se ela não existe. */
+    public Optional<Registro> excluir(long id) {
+        Registro anterior;
+        trava.writeLock().lock();
+        try {
+            anterior = lerSemTrava(id);
+            if (anterior != null) {
+                acrescentarExclusao(anterior);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (anterior != null) {
+            sincronizarSeNecessario();
+        }
+        return Optional.ofNullable(anterior);
+    }
+
+    /**
+     * Aplica {@code alteracao} a todas as transações com id entre {@code idInicial} e {@code idFinal} que atendem
+     * o filtro, numa única aquisição da trava; {@code alteracao} nula exclui. Devolve os registros anteriores.
+     */
+    public List<Registro> alterarTodos(long idInicial, long idFinal, Predicate<Linha> filtro, UnaryOperator<Registro> alteracao) {
+        List<Registro> anteriores = new ArrayList<>();
+        trava.writeLock().lock();
+        try {
+            Linha linha = new Linha();
+            long ultimo = Math.min(idFinal, proximoId - 1);
+            for (long id = Math.max(idInicial, 1); id <= ultimo; id++) {
+                long ordinal = atual.ordinal(id);
+                if (ordinal == 0) {
+                    continue;
+                }
+                linha.posicionar(atual, ordinal);
+                if (filtro.test(linha)) {
+                    anteriores.add(linha.registro());
+                }
+            }
+            for (Registro anterior : anteriores) {
+                if (alteracao == null) {
+                    acrescentarExclusao(anterior);
+                } else {
+                    acrescentar(alteracao.apply(anterior).comId(anterior.id()));
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (!anteriores.isEmpty()) {
+            sincronizarSeNecessario();
+        }
+        return anteriores;
+    }
+
+    /** Volta o id ao registro informado ({@code null}: a transação deixa de existir). Usado para desfazer escritas. */
+    public void restaurar(long id, Registro registro) {
+        trava.writeLock().lock();
+        try {
+            if (registro != null) {
+                acrescentar(registro.comId(id));
+            } else {
+                Registro existente = lerSemTrava(id);
+                if (existente != null) {
+                    acrescentarExclusao(existente);
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        sincronizarSeNecessario();
+    }
+
+    public Optional<Registro> ler(long id) {
+        trava.readLock().lock();
+        try {
+            return Optional.ofNullable(lerSemTrava(id));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    public boolean existe(long id) {
+        trava.readLock().lock();
+        try {
+            return id > 0 && id < proximoId && atual.ordinal(id) != 0;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    public long quantidade() {
+        trava.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Menor data entre as transações, ou {@code null} sem transações. */
+    public LocalDate primeiraData() {
+        trava.readLock().lock();
+        try {
+            return porData.isEmpty() ? null : LocalDate.ofEpochDay(dia(porData.first()));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Data da transação mais recente da categoria, ou {@code null} se ela não tem transações. */
+    public LocalDate ultimaData(long categoriaId) {
+        trava.readLock().lock();
+        try {
+            NavigableSet<Long> chaves = porCategoria.get(categoriaId);
+            return chaves == null ? null : LocalDate.ofEpochDay(dia(chaves.last()));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Quantidade de transações de cada categoria que tem alguma, lida do tamanho do índice por categoria. */
+    public Map<Long, Long> quantidadePorCategoria() {
+        trava.readLock().lock();
+        try {
+            Map<Long, Long> quantidades = new HashMap<>();
+            porCategoria.forEach((categoriaId, chaves) -> quantidades.put(categoriaId, (long) chaves.size()));
+            return quantidades;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visita as transações em ordem de id a partir de {@code idInicial}, até o visitante devolver {@code false}.
+     * A {@link Linha} só vale durante a visita.
+     */
+    public void percorrer(long idInicial, Predicate<Linha> visitante) {
+        trava.readLock().lock();
+        try {
+            Linha linha = new Linha();
+            for (long id = Math.max(idInicial, 1); id < proximoId; id++) {
+                long ordinal = atual.ordinal(id);
+                if (ordinal != 0) {
+                    linha.posicionar(atual, ordinal);
+                    if (!visitante.test(linha)) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Visita as transações entre {@code inicio} e {@code fim} (nulos não limitam) em ordem de data e id pelo índice de datas. */
+    public void percorrerPorData(LocalDate inicio, LocalDate fim, boolean decrescente, Predicate<Linha> visitante) {
+        trava.readLock().lock();
+        try {
+            visitar(intervalo(porData, inicio, fim, decrescente), visitante);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Visita as transações da categoria entre {@code inicio} e {@code fim} (nulos não limitam), em ordem de data e id. */
+    public void percorrerPorCategoria(long categoriaId, LocalDate inicio, LocalDate fim, Predicate<Linha> visitante) {
+        trava.readLock().lock();
+        try {
+            NavigableSet<Long> chaves = porCategoria.get(categoriaId);
+            if (chaves != null) {
+                visitar(intervalo(chaves, inicio, fim, false), visitante);
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Fração dos registros gravados que já não vale (substituídos ou excluídos). */
+    public double desperdicio() {
+        trava.readLock().lock();
+        try {
+            long gravados = atual.fimRegistros - 1;
+            return gravados == 0 ? 0 : 1 - (double) vivos / gravados;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Registros no arquivo atual, contando os substituídos e as exclusões. */
+    public long registrosGravados() {
+        trava.readLock().lock();
+        try {
+            return atual.fimRegistros - 1;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /** Leva ao disco os textos e depois os registros gravados desde a última sincronização. */
+    public void sincronizar() {
+        trava.readLock().lock();
+        try {
+            atual.textos.sincronizar();
+            atual.registros.sincronizar();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia as transações vivas para uma nova geração de arquivos e passa a usá-la. Leituras e escritas
+     * continuam durante a cópia; as escritas feitas nesse meio tempo são repassadas à nova geração, já com
+     * a trava exclusiva, antes da troca.
+     */
+    public void compactar() {
+        synchronized (compactacao) {
+            Geracao antiga;
+            long fimCopiado;
+            long[] vivosNaCopia;
+            long idLimite;
+            trava.readLock().lock();
+            try {
+                antiga = atual;
+                fimCopiado = antiga.fimRegistros;
+                idLimite = proximoId;
+                vivosNaCopia = Arrays.copyOf(antiga.posicoes, (int) Math.min(idLimite, antiga.posicoes.length));
+            } finally {
+                trava.readLock().unlock();
+            }
+
+            Geracao nova = null;
+            try {
+                nova = Geracao.criar(diretorio, antiga.numero + 1);
+                // Os registros até fimCopiado não mudam mais: só são acrescentados outros depois deles
+                for (long id = 1; id < vivosNaCopia.length; id++) {
+                    if (vivosNaCopia[(int) id] != 0) {
+                        nova.copiar(antiga, vivosNaCopia[(int) id]);
+                    }
+                }
+                trava.writeLock().lock();
+                try {
+                    for (long ordinal = fimCopiado; ordinal < antiga.fimRegistros; ordinal++) {
+                        nova.copiar(antiga, ordinal);
+                    }
+                    nova.gravarCabecalho(proximoId);
+                    nova.textos.sincronizar();
+                    nova.registros.sincronizar();
+                    nova.publicar();
+                    atual = nova;
+                } finally {
+                    trava.writeLock().unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                if (nova != null) {
+                    nova.descartar();
+                }
+                if (e instanceof IOException io) {
+                    throw new UncheckedIOException("Falha ao compactar o journal de transações", io);
+                }
+                throw (RuntimeException) e;
+            }
+            log.info("Journal de transações compactado na geração {}: {} registros, antes {}", nova.numero,
+                    nova.fimRegistros - 1, antiga.fimRegistros - 1);
+            antiga.descartar();
+        }
+    }
+
+    @Override
+    public void close() {
+        agendador.shutdownNow();
+        synchronized (compactacao) {
+            trava.writeLock().lock();
+            try {
+                if (temporario) {
+                    atual.descartar();
+                    Files.deleteIfExists(diretorio);
+                } else {
+                    atual.textos.sincronizar();
+                    atual.registros.sincronizar();
+                    atual.fechar();
+                }
+            } catch (IOException e) {
+                log.warn("Falha ao fechar o journal de transações", e);
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+    }
+
+    private void abrir() throws IOException {
+        Map<Integer, Integer> arquivosPorGeracao = new HashMap<>();
+        List<Path> temporarios = new ArrayList<>();
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            for (Path arquivo : listagem.toList()) {
+                Matcher nome = ARQUIVO.matcher(arquivo.getFileName().toString());
+                if (nome.matches()) {
+                    arquivosPorGeracao.merge(Integer.parseInt(nome.group(1)), 1, Integer::sum);
+                } else if (arquivo.getFileName().toString().endsWith(".tmp")) {
+                    temporarios.add(arquivo);
+                }
+            }
+        }
+        for (Path temporarioInterrompido : temporarios) {
+            Files.delete(temporarioInterrompido);
+        }
+        // A geração mais nova com os dois arquivos publicados; as outras são restos de compactações
+        int numero = arquivosPorGeracao.entrySet().stream()
+                .filter(e -> e.getValue() == 2)
+                .mapToInt(Map.Entry::getKey)
+                .max().orElse(0);
+        for (int outra : arquivosPorGeracao.keySet()) {
+            if (outra != numero) {
+                Files.deleteIfExists(Geracao.caminho(diretorio, outra, "registros"));
+                Files.deleteIfExists(Geracao.caminho(diretorio, outra, "textos"));
+            }
+        }
+        if (numero == 0) {
+            atual = Geracao.criar(diretorio, 1);
+            atual.gravarCabecalho(1);
+            atual.textos.sincronizar();
+            atual.registros.sincronizar();
+            atual.publicar();
+            return;
+        }
+        atual = Geracao.abrir(diretorio, numero);
+        recuperar();
+    }
+
+    // Lê o journal do início montando os índices; para no primeiro registro vazio ou inválido
+    private void recuperar() {
+        ByteBuffer cabecalho = atual.registros.regiao(0).duplicate();
+        if (cabecalho.getInt(0) != MAGIA || cabecalho.getInt(4) != VERSAO_FORMATO) {
+            throw new IllegalStateException("Arquivo não é um journal de transações: " + atual.arquivoRegistros);
+        }
+        proximoId = Math.max(1, cabecalho.getLong(8));
+        Linha linha = new Linha();
+        long ordinal = 1;
+        long fimTextos = 0;
+        while (ordinal < atual.registros.capacidade() / TAMANHO_REGISTRO) {
+            ByteBuffer regiao = atual.registros.regiao(ordinal * TAMANHO_REGISTRO);
+            int base = atual.registros.deslocamento(ordinal * TAMANHO_REGISTRO);
+            byte operacao = regiao.get(base + OPERACAO);
+            if (operacao == FIM) {
+                break;
+            }
+            if (!registroIntegro(regiao, base) || (operacao == GRAVACAO && !textoIntegro(atual, regiao, base))) {
+                log.warn("Journal de transações: registro {} incompleto descartado", ordinal);
+                break;
+            }
+            long id = regiao.getLong(base + ID);
+            long anterior = atual.ordinal(id);
+            if (anterior != 0) {
+                linha.posicionar(atual, anterior);
+                desindexar(id, linha.dia(), linha.categoriaId());
+            }
+            if (operacao == GRAVACAO) {
+                atual.definir(id, ordinal);
+                indexar(id, regiao.getInt(base + DIA), regiao.getLong(base + CATEGORIA));
+                long texto = regiao.getLong(base + TEXTO);
+                fimTextos = Math.max(fimTextos, texto + regiao.getInt(base + BYTES_DESCRICAO)
+                        + Math.max(0, regiao.getInt(base + BYTES_OBSERVACOES)));
+            } else {
+                atual.definir(id, 0);
+            }
+            proximoId = Math.max(proximoId, id + 1);
+            ordinal++;
+        }
+        atual.fimRegistros = ordinal;
+        atual.fimTextos = fimTextos;
+        // Restos de um registro incompleto não podem reaparecer depois das próximas escritas
+        for (long resto = ordinal; resto < atual.registros.capacidade() / TAMANHO_REGISTRO; resto++) {
+            ByteBuffer regiao = atual.registros.regiao(resto * TAMANHO_REGISTRO);
+            int base = atual.registros.deslocamento(resto * TAMANHO_REGISTRO);
+            if (regiao.get(base + OPERACAO) == FIM) {
+                break;
+            }
+            regiao.put(base, new byte[TAMANHO_REGISTRO]);
+        }
+        vivos = porData.size();
+        log.info("Journal de transações aberto: {} transações, {} registros", vivos, ordinal - 1);
+    }
+
+    private Registro lerSemTrava(long id) {
+        if (id <= 0 || id >= proximoId) {
+            return null;
+        }
+        long ordinal = atual.ordinal(id);
+        if (ordinal == 0) {
+            return null;
+        }
+        Linha linha = new Linha();
+        linha.posicionar(atual, ordinal);
+        return linha.registro();
+    }
+
+    private void acrescentar(Registro registro) {
+        if (registro.id() <= 0 || registro.id() > MAXIMO_ID) {
+            throw new IllegalArgumentException("Id fora do intervalo do journal: " + registro.id());
+        }
+        if (registro.dia() < -DESLOCAMENTO_DIA || registro.dia() >= DESLOCAMENTO_DIA) {
+            throw new IllegalArgumentException("Data fora do intervalo do journal: " + registro.data());
+        }
+        byte[] descricao = registro.descricao().getBytes(StandardCharsets.UTF_8);
+        byte[] observacoes = registro.observacoes() != null ? registro.observacoes().getBytes(StandardCharsets.UTF_8) : null;
+        int tamanhoTexto = descricao.length + (observacoes != null ? observacoes.length : 0);
+        if (tamanhoTexto > MAXIMO_TEXTO) {
+            throw new IllegalArgumentException("Descrição e observações passam de " + MAXIMO_TEXTO + " bytes");
+        }
+        long texto = atual.acrescentarTexto(descricao, observacoes);
+        CRC32C crcTexto = new CRC32C();
+        crcTexto.update(descricao);
+        if (observacoes != null) {
+            crcTexto.update(observacoes);
+        }
+
+        ByteBuffer campos = ByteBuffer.allocate(TAMANHO_REGISTRO);
+        campos.put(OPERACAO, GRAVACAO)
+                .put(TIPO, (byte) registro.tipo().ordinal())
+                .put(RECORRENTE, (byte) (registro.recorrente() ? 1 : 0))
+                .putInt(DIA, registro.dia())
+                .putLong(ID, registro.id())
+                .putLong(VERSAO, registro.versao())
+                .putLong(CENTAVOS, registro.centavos())
+                .putLong(CATEGORIA, registro.categoriaId())
+                .putInt(PARCELAS, registro.parcelas())
+                .putInt(PARCELA_ATUAL, registro.parcelaAtual())
+                .putLong(TEXTO, texto)
+                .putInt(BYTES_DESCRICAO, descricao.length)
+                .putInt(BYTES_OBSERVACOES, observacoes != null ? observacoes.length : -1)
+                .putInt(CRC_TEXTO, (int) crcTexto.getValue());
+
+        long anterior = atual.ordinal(registro.id());
+        if (anterior != 0) {
+            Linha linha = new Linha();
+            linha.posicionar(atual, anterior);
+            desindexar(registro.id(), linha.dia(), linha.categoriaId());
+        } else {
+            vivos++;
+        }
+        atual.definir(registro.id(), atual.acrescentarRegistro(campos));
+        indexar(registro.id(), registro.dia(), registro.categoriaId());
+        proximoId = Math.max(proximoId, registro.id() + 1);
+    }
+
+    private void acrescentarExclusao(Registro registro) {
+        ByteBuffer campos = ByteBuffer.allocate(TAMANHO_REGISTRO);
+        campos.put(OPERACAO, EXCLUSAO).putLong(ID, registro.id());
+        atual.acrescentarRegistro(campos);
+        atual.definir(registro.id(), 0);
+        desindexar(registro.id(), registro.dia(), registro.categoriaId());
+        vivos--;
+    }
+
+    private void indexar(long id, int dia, long categoriaId) {
+        long chave = chave(dia, id);
+        porData.add(chave);
+        porCategoria.computeIfAbsent(categoriaId, c -> new TreeSet<>()).add(chave);
+    }
+
+    private void desindexar(long id, int dia, long categoriaId) {
+        long chave = chave(dia, id);
+        porData.remove(chave);
+        NavigableSet<Long> daCategoria = porCategoria.get(categoriaId);
+        if (daCategoria != null) {
+            daCategoria.remove(chave);
+            if (daCategoria.isEmpty()) {
+                porCategoria.remove(categoriaId);
+            }
+        }
+    }
+
+    private void visitar(Iterable<Long> chaves, Predicate<Linha> visitante) {
+        Linha linha = new Linha();
+        for (long chave : chaves) {
+            linha.posicionar(atual, atual.ordinal(chave & MAXIMO_ID));
+            if (!visitante.test(linha)) {
+                return;
+            }
+        }
+    }
+
+    private void sincronizarSeNecessario() {
+        if (sincronizacaoMs == 0) {
+            sincronizar();
+        }
+    }
+
+    private void sincronizarAgendado() {
+        try {
+            sincronizar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao sincronizar o journal de transações", e);
+        }
+    }
+
+    private void compactarAgendado() {
+        try {
+            if (registrosGravados() > MINIMO_PARA_COMPACTAR && desperdicio() >= limiteDesperdicio) {
+                compactar();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha na compactação do journal de transações", e);
+        }
+    }
+
+    private static Iterable<Long> intervalo(NavigableSet<Long> chaves, LocalDate inicio, LocalDate fim, boolean decrescente) {
+        long de = inicio != null ? chave((int) inicio.toEpochDay(), 0) : Long.MIN_VALUE;
+        long ate = fim != null ? chave((int) fim.toEpochDay(), MAXIMO_ID) : Long.MAX_VALUE;
+        if (de > ate) {
+            return Collections.emptyList();
+        }
+        NavigableSet<Long> faixa = chaves.subSet(de, true, ate, true);
+        return decrescente ? faixa.descendingSet() : faixa;
+    }
+
+    private static long chave(int dia, long id) {
+        return ((dia + DESLOCAMENTO_DIA) << BITS_ID) | id;
+    }
+
+    private static int dia(long chave) {
+        return (int) ((chave >>> BITS_ID) - DESLOCAMENTO_DIA);
+    }
+
+    private static boolean registroIntegro(ByteBuffer regiao, int base) {
+        CRC32C crc = new CRC32C();
+        crc.update(regiao.slice(base, CRC));
+        return (int) crc.getValue() == regiao.getInt(base + CRC);
+    }
+
+    private static boolean textoIntegro(Geracao geracao, ByteBuffer regiao, int base) {
+        long texto = regiao.getLong(base + TEXTO);
+        int tamanho = regiao.getInt(base + BYTES_DESCRICAO) + Math.max(0, regiao.getInt(base + BYTES_OBSERVACOES));
+        if (texto < 0 || tamanho < 0 || texto + tamanho > geracao.textos.capacidade()
+                || geracao.textos.deslocamento(texto) + tamanho > TAMANHO_REGIAO_TEXTOS) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(geracao.textos.regiao(texto).slice(geracao.textos.deslocamento(texto), tamanho));
+        return (int) crc.getValue() == regiao.getInt(base + CRC_TEXTO);
+    }
+
+    /**
+     * Uma transação do journal lida direto do arquivo mapeado, sem montar objetos: os campos numéricos
+     * custam uma leitura cada e os textos só são decodificados quando pedidos.
+     */
+    public static final class Linha {
+
+        private Geracao geracao;
+        private ByteBuffer regiao;
+        private int base;
+
+        private Linha() {
+        }
+
+        private void posicionar(Geracao geracao, long ordinal) {
+            long posicao = ordinal * TAMANHO_REGISTRO;
+            this.geracao = geracao;
+            this.regiao = geracao.registros.regiao(posicao);
+            this.base = geracao.registros.deslocamento(posicao);
+        }
+
+        public long id() {
+            return regiao.getLong(base + ID);
+        }
+
+        public long versao() {
+            return regiao.getLong(base + VERSAO);
+        }
+
+        public long centavos() {
+            return regiao.getLong(base + CENTAVOS);
+        }
+
+        public BigDecimal valor() {
+            return BigDecimal.valueOf(centavos(), 2);
+        }
+
+        public int dia() {
+            return regiao.getInt(base + DIA);
+        }
+
+        public LocalDate data() {
+            return LocalDate.ofEpochDay(dia());
+        }
+
+        public TipoTransacao tipo() {
+            return TIPOS[regiao.get(base + TIPO)];
+        }
+
+        public boolean recorrente() {
+            return regiao.get(base + RECORRENTE) != 0;
+        }
+
+        public int parcelas() {
+            return regiao.getInt(base + PARCELAS);
+        }
+
+        public int parcelaAtual() {
+            return regiao.getInt(base + PARCELA_ATUAL);
+        }
+
+        public long categoriaId() {
+            return regiao.getLong(base + CATEGORIA);
+        }
+
+        public String descricao() {
+            return geracao.lerTexto(regiao.getLong(base + TEXTO), regiao.getInt(base + BYTES_DESCRICAO));
+        }
+
+        public String observacoes() {
+            int tamanho = regiao.getInt(base + BYTES_OBSERVACOES);
+            return tamanho < 0 ? null
+                    : geracao.lerTexto(regiao.getLong(base + TEXTO) + regiao.getInt(base + BYTES_DESCRICAO), tamanho);
+        }
+
+        public Registro registro() {
+            return new Registro(id(), descricao(), centavos(), dia(), tipo(), recorrente(), parcelas(), parcelaAtual(),
+                    categoriaId(), observacoes(), versao());
+        }
+    }
+
+    /** Um par de arquivos {@code transacoes-N.registros} e {@code transacoes-N.textos} e o índice id → registro dele. */
+    private static final class Geracao {
+
+        private final int numero;
+        private final Path arquivoRegistros;
+        private final Path arquivoTextos;
+        private final ArquivoMapeado registros;
+        private final ArquivoMapeado textos;
+        private final boolean nova;
+        // Registro atual de cada id (0: não existe); o registro 0 é o cabeçalho
+        private long[] posicoes = new long[1024];
+        private long fimRegistros = 1;
+        private long fimTextos;
+
+        private Geracao(int numero, Path arquivoRegistros, Path arquivoTextos, boolean nova) throws IOException {
+            this.numero = numero;
+            this.arquivoRegistros = arquivoRegistros;
+            this.arquivoTextos = arquivoTextos;
+            this.nova = nova;
+            this.registros = new ArquivoMapeado(arquivoRegistros, REGISTROS_POR_REGIAO * TAMANHO_REGISTRO);
+            this.textos = new ArquivoMapeado(arquivoTextos, TAMANHO_REGIAO_TEXTOS);
+        }
+
+        static Path caminho(Path diretorio, int numero, String extensao) {
+            return diretorio.resolve("transacoes-" + numero + "." + extensao);
+        }
+
+        /** Cria a geração em arquivos temporários; {@link #publicar()} lhes dá os nomes definitivos. */
+        static Geracao criar(Path diretorio, int numero) throws IOException {
+            Path registros = caminho(diretorio, numero, "registros.tmp");
+            Path textos = caminho(diretorio, numero, "textos.tmp");
+            Files.deleteIfExists(registros);
+            Files.deleteIfExists(textos);
+            return new Geracao(numero, registros, textos, true);
+        }
+
+        static Geracao abrir(Path diretorio, int numero) throws IOException {
+            return new Geracao(numero, caminho(diretorio, numero, "registros"), caminho(diretorio, numero, "textos"), false);
+        }
+
+        long ordinal(long id) {
+            return id < posicoes.length ? posicoes[(int) id] : 0;
+        }
+
+        void definir(long id, long ordinal) {
+            if (id >= posicoes.length) {
+                posicoes = Arrays.copyOf(posicoes, (int) Math.max(id + 1, Math.min((long) posicoes.length * 2, Integer.MAX_VALUE - 8)));
+            }
+            posicoes[(int) id] = ordinal;
+        }
+
+        void gravarCabecalho(long proximoId) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_REGISTRO)
+                    .putInt(0, MAGIA).putInt(4, VERSAO_FORMATO).putLong(8, proximoId);
+            registros.garantir(TAMANHO_REGISTRO);
+            registros.regiao(0).put(0, cabecalho, 0, TAMANHO_REGISTRO);
+            registros.marcar(0);
+        }
+
+        long acrescentarRegistro(ByteBuffer campos) {
+            CRC32C crc = new CRC32C();
+            crc.update(campos.slice(0, CRC));
+            campos.putInt(CRC, (int) crc.getValue());
+            long ordinal = fimRegistros++;
+            long posicao = ordinal * TAMANHO_REGISTRO;
+            registros.garantir(posicao + TAMANHO_REGISTRO);
+            registros.regiao(posicao).put(registros.deslocamento(posicao), campos, 0, TAMANHO_REGISTRO);
+            registros.marcar(posicao);
+            return ordinal;
+        }
+
+        // Descrição e observações ficam juntas e nunca atravessam o limite de uma região
+        long acrescentarTexto(byte[] descricao, byte[] observacoes) {
+            int tamanho = descricao.length + (observacoes != null ? observacoes.length : 0);
+            long posicao = fimTextos;
+            if (textos.deslocamento(posicao) + tamanho > TAMANHO_REGIAO_TEXTOS) {
+                posicao = (posicao / TAMANHO_REGIAO_TEXTOS + 1) * TAMANHO_REGIAO_TEXTOS;
+            }
+            textos.garantir(posicao + tamanho);
+            ByteBuffer regiao = textos.regiao(posicao);
+            int base = textos.deslocamento(posicao);
+            regiao.put(base, descricao);
+            if (observacoes != null) {
+                regiao.put(base + descricao.length, observacoes);
+            }
+            textos.marcar(posicao);
+            fimTextos = posicao + tamanho;
+            return posicao;
+        }
+
+        String lerTexto(long posicao, int tamanho) {
+            byte[] bytes = new byte[tamanho];
+            textos.regiao(posicao).get(textos.deslocamento(posicao), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Acrescenta a esta geração o registro de outra, com os textos; exclusões só valem se o id já foi copiado
+        void copiar(Geracao origem, long ordinal) {
+            long posicao = ordinal * TAMANHO_REGISTRO;
+            ByteBuffer regiao = origem.registros.regiao(posicao);
+            int base = origem.registros.deslocamento(posicao);
+            long id = regiao.getLong(base + ID);
+            ByteBuffer campos = ByteBuffer.allocate(TAMANHO_REGISTRO);
+            campos.put(0, regiao, base, TAMANHO_REGISTRO);
+            if (regiao.get(base + OPERACAO) == EXCLUSAO) {
+                if (ordinal(id) != 0) {
+                    acrescentarRegistro(campos);
+                    definir(id, 0);
+                }
+                return;
+            }
+            int bytesDescricao = regiao.getInt(base + BYTES_DESCRICAO);
+            int bytesObservacoes = regiao.getInt(base + BYTES_OBSERVACOES);
+            long texto = regiao.getLong(base + TEXTO);
+            byte[] descricao = new byte[bytesDescricao];
+            origem.textos.regiao(texto).get(origem.textos.deslocamento(texto), descricao);
+            byte[] observacoes = null;
+            if (bytesObservacoes >= 0) {
+                observacoes = new byte[bytesObservacoes];
+                long posicaoObservacoes = texto + bytesDescricao;
+                origem.textos.regiao(posicaoObservacoes).get(origem.textos.deslocamento(posicaoObservacoes), observacoes);
+            }
+            campos.putLong(TEXTO, acrescentarTexto(descricao, observacoes));
+            definir(id, acrescentarRegistro(campos));
+        }
+
+        /** Renomeia os temporários: primeiro os textos, depois os registros, que tornam a geração válida. */
+        void publicar() throws IOException {
+            if (nova) {
+                Files.move(arquivoTextos, caminho(arquivoTextos.getParent(), numero, "textos"), StandardCopyOption.ATOMIC_MOVE);
+                Files.move(arquivoRegistros, caminho(arquivoRegistros.getParent(), numero, "registros"), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        void fechar() throws IOException {
+            registros.close();
+            textos.close();
+        }
+
+        void descartar() {
+            try {
+                fechar();
+                Path diretorio = arquivoRegistros.getParent();
+                for (String extensao : List.of("registros", "textos", "registros.tmp", "textos.tmp")) {
+                    Files.deleteIfExists(caminho(diretorio, numero, extensao));
+                }
+            } catch (IOException e) {
+                log.warn("Falha ao apagar a geração {} do journal de transações", numero, e);
+            }
+        }
+    }
+
+    /** Arquivo mapeado em regiões de tamanho fixo, acrescentadas conforme o arquivo cresce. */
+    private static final class ArquivoMapeado implements Closeable {
+
+        private final FileChannel canal;
+        private final int tamanhoRegiao;
+        // Lido sem trava pela compactação, que só acessa regiões já mapeadas
+        private volatile MappedByteBuffer[] regioes = new MappedByteBuffer[0];
+        private int primeiraSuja = Integer.MAX_VALUE;
+
+        ArquivoMapeado(Path caminho, int tamanhoRegiao) throws IOException {
+            this.canal = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.tamanhoRegiao = tamanhoRegiao;
+            garantir(Math.max(canal.size(), 1));
+        }
+
+        void garantir(long fim) {
+            int necessarias = (int) ((fim + tamanhoRegiao - 1) / tamanhoRegiao);
+            if (necessarias <= regioes.length) {
+                return;
+            }
+            MappedByteBuffer[] novas = Arrays.copyOf(regioes, necessarias);
+            try {
+                for (int i = regioes.length; i < necessarias; i++) {
+                    novas[i] = canal.map(FileChannel.MapMode.READ_WRITE, (long) i * tamanhoRegiao, tamanhoRegiao);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao mapear o journal de transações", e);
+            }
+            regioes = novas;
+        }
+
+        MappedByteBuffer regiao(long posicao) {
+            return regioes[(int) (posicao / tamanhoRegiao)];
+        }
+
+        int deslocamento(long posicao) {
+            return (int) (posicao % tamanhoRegiao);
+        }
+
+        long capacidade() {
+            return (long) regioes.length * tamanhoRegiao;
+        }
+
+        void marcar(long posicao) {
+            primeiraSuja = Math.min(primeiraSuja, (int) (posicao / tamanhoRegiao));
+        }
+
+        void sincronizar() {
+            for (int i = primeiraSuja; i < regioes.length; i++) {
+                regioes[i].force();
+            }
+            primeiraSuja = Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
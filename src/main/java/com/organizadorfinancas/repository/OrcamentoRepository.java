@@ -0,0 +1,18 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.Orcamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OrcamentoRepository extends JpaRepository<Orcamento, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Orcamento o WHERE o.categoria.id = :categoriaId")
+    int excluirPorCategoria(@Param("categoriaId") Long categoriaId);
+}
@@ -2,17 +2,39 @@ package com.organizadorfinancas.repository;
 
 import com.organizadorfinancas.model.Transacao;
 import com.organizadorfinancas.model.TipoTransacao;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
+public interface TransacaoRepository extends JpaRepository<Transacao, Long>, ArmazenamentoTransacoes {
+
+    // Redeclarados para unir as versões do CrudRepository e do ArmazenamentoTransacoes, que apagam para tipos diferentes
+    @Override
+    <S extends Transacao> S save(S transacao);
+
+    @Override
+    Optional<Transacao> findById(Long id);
+
+    @Override
+    boolean existsById(Long id);
+
+    @Override
+    void deleteById(Long id);
     
     List<Transacao> findByTipo(TipoTransacao tipo);
     
@@ -30,21 +52,93 @@ public interface TransacaoRepository extends JpaRepository<Transacao, Long> {
     @Query("SELECT t FROM Transacao t WHERE t.categoria.essencial = false ORDER BY t.valor DESC")
     List<Transacao> findGastosSuperfluos();
     
+    @Query("SELECT t FROM Transacao t WHERE t.categoria.essencial = false ORDER BY t.valor DESC, t.id DESC")
+    List<Transacao> findGastosSuperfluos(Limit limite);
+    
     @Query("SELECT t FROM Transacao t WHERE t.parcelas > 1 ORDER BY t.data DESC")
     List<Transacao> findDespesasParceladas();
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT SUM(t.valor) FROM Transacao t WHERE t.tipo = :tipo AND t.data BETWEEN :dataInicio AND :dataFim")
     BigDecimal sumByTipoAndPeriodo(@Param("tipo") TipoTransacao tipo, 
                                    @Param("dataInicio") LocalDate dataInicio, 
                                    @Param("dataFim") LocalDate dataFim);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT SUM(t.valor) FROM Transacao t WHERE t.tipo = :tipo AND t.recorrente = true")
     BigDecimal sumByTipoAndRecorrente(@Param("tipo") TipoTransacao tipo);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT SUM(t.valor) FROM Transacao t WHERE t.categoria.essencial = :essencial AND t.tipo = :tipo")
     BigDecimal sumByEssencialAndTipo(@Param("essencial") Boolean essencial, 
                                      @Param("tipo") TipoTransacao tipo);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT t.categoria.nome, SUM(t.valor) FROM Transacao t WHERE t.tipo = :tipo GROUP BY t.categoria.nome ORDER BY SUM(t.valor) DESC")
     List<Object[]> findTotalPorCategoria(@Param("tipo") TipoTransacao tipo);
+    
+    @Query("SELECT t.categoria.id, YEAR(t.data), MONTH(t.data), SUM(t.valor) FROM Transacao t " +
+           "WHERE t.tipo = :tipo AND t.data >= :dataInicio GROUP BY t.categoria.id, YEAR(t.data), MONTH(t.data)")
+    List<Object[]> sumPorCategoriaEMes(@Param("tipo") TipoTransacao tipo, @Param("dataInicio") LocalDate dataInicio);
+
+    @Query("SELECT t.categoria.id, t.tipo, YEAR(t.data), MONTH(t.data), COUNT(t), SUM(t.valor) FROM Transacao t " +
+           "WHERE t.data BETWEEN :dataInicio AND :dataFim GROUP BY t.categoria.id, t.tipo, YEAR(t.data), MONTH(t.data)")
+    List<Object[]> sumPorCategoriaTipoEMes(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Override
+    default List<Object[]> findParcelasEmAberto(LocalDate dataFim) {
+        return findParcelasEmAberto(dataFim, dataFim.getYear() * 12 + dataFim.getMonthValue());
+    }
+
+    /** Parcelas pagas até o mês {@code mesFim} (ano * 12 + mês): a atual mais uma por mês desde o da data. */
+    @Query("SELECT t.valor, t.parcelas, t.parcelaAtual, t.data FROM Transacao t " +
+           "WHERE t.tipo = com.organizadorfinancas.model.TipoTransacao.DESPESA AND t.parcelas > 1 AND t.data <= :dataFim " +
+           "AND t.parcelas - t.parcelaAtual > :mesFim - (YEAR(t.data) * 12 + MONTH(t.data))")
+    List<Object[]> findParcelasEmAberto(@Param("dataFim") LocalDate dataFim, @Param("mesFim") int mesFim);
+
+    @Query("SELECT t.tipo, t.data, SUM(t.valor), COUNT(t) FROM Transacao t GROUP BY t.tipo, t.data")
+    List<Object[]> sumPorTipoEData();
+
+    @Query("SELECT t.data, SUM(CASE WHEN t.tipo = com.organizadorfinancas.model.TipoTransacao.RECEITA THEN t.valor ELSE -t.valor END) " +
+           "FROM Transacao t WHERE t.data <= :dataFim GROUP BY t.data ORDER BY t.data")
+    List<Object[]> sumSaldoPorDataAte(@Param("dataFim") LocalDate dataFim);
+
+    /** Linhas {@code (categoriaId, quantidade, total, total entre inicio e fim, última data)} das categorias informadas. */
+    @Query("SELECT t.categoria.id, COUNT(t), COALESCE(SUM(t.valor), 0), " +
+           "COALESCE(SUM(CASE WHEN t.data BETWEEN :inicio AND :fim THEN t.valor ELSE 0 END), 0), MAX(t.data) " +
+           "FROM Transacao t WHERE t.categoria.id IN :categoriaIds GROUP BY t.categoria.id")
+    List<Object[]> agregarPorCategorias(@Param("categoriaIds") Collection<Long> categoriaIds,
+                                        @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Query("SELECT t.categoria.id, MAX(t.data) FROM Transacao t WHERE t.categoria.id IN :categoriaIds GROUP BY t.categoria.id")
+    List<Object[]> findUltimaDataPorCategoria(@Param("categoriaIds") Collection<Long> categoriaIds);
+
+    @Query("SELECT t.categoria.id, SUM(t.valor) FROM Transacao t WHERE t.data BETWEEN :inicio AND :fim GROUP BY t.categoria.id")
+    List<Object[]> sumPorCategoriaNoPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    /** Transações das categorias agrupadas por mês ({@code AAAAMM}) e valor: linhas {@code (categoriaId, mes, valor, quantidade)}. */
+    @Query("SELECT t.categoria.id, YEAR(t.data) * 100 + MONTH(t.data), t.valor, COUNT(t) FROM Transacao t " +
+           "WHERE t.categoria.id IN :categoriaIds GROUP BY t.categoria.id, YEAR(t.data) * 100 + MONTH(t.data), t.valor")
+    List<Object[]> agruparPorCategoriaMesEValor(@Param("categoriaIds") Collection<Long> categoriaIds);
+
+    @Query("SELECT t.categoria.id, COUNT(t) FROM Transacao t GROUP BY t.categoria.id")
+    List<Object[]> countPorCategoria();
+
+    @Query("SELECT t.categoria.id, t.descricao, t.valor, t.data FROM Transacao t WHERE t.tipo = :tipo AND t.data >= :dataInicio")
+    List<Object[]> findLancamentosDesde(@Param("tipo") TipoTransacao tipo, @Param("dataInicio") LocalDate dataInicio);
+
+    /** Transações do período travadas para escrita, para o arquivamento ler e excluir as mesmas linhas. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transacao t WHERE t.data BETWEEN :dataInicio AND :dataFim ORDER BY t.data, t.id")
+    List<Transacao> findParaArquivar(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Query("SELECT t.id FROM Transacao t WHERE t.data BETWEEN :dataInicio AND :dataFim")
+    List<Long> findIdsEntre(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Modifying
+    @Query("DELETE FROM Transacao t WHERE t.id IN :ids")
+    int excluirPorIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MIN(t.data) FROM Transacao t")
+    LocalDate findPrimeiraData();
 }
@@ -0,0 +1,64 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.model.Transacao;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+public interface TransacaoRepositoryCustom {
+
+    /**
+     * Aplica a alteração parcial em um único {@code UPDATE ... WHERE id = ? AND versao = ?},
+     * sem carregar a entidade. Retorna a quantidade de linhas alteradas (0 se a transação
+     * não existe ou está em outra versão).
+     */
+    int atualizarParcial(Long id, AtualizacaoTransacao atualizacao);
+
+    /**
+     * Id da {@code tamanhoLote}-ésima transação do filtro a partir de {@code idInicial}, em ordem de id:
+     * o fim do próximo lote. Vazio se restam menos transações que isso.
+     */
+    Optional<Long> findIdFinalLote(FiltroTransacoes filtro, long idInicial, int tamanhoLote);
+
+    /**
+     * Agrega por categoria as transações do filtro com id entre {@code idInicial} e {@code idFinal};
+     * o total do mês considera as datas dentro de {@code mes}.
+     */
+    List<AgregadoCategoria> agregarPorCategoria(FiltroTransacoes filtro, long idInicial, long idFinal, YearMonth mes);
+
+    /**
+     * Agrupa por categoria, mês ({@code AAAAMM}) e valor as transações do filtro com id entre {@code idInicial}
+     * e {@code idFinal}: linhas {@code (categoriaId, mes, valor, quantidade)}.
+     */
+    List<Object[]> agruparValores(FiltroTransacoes filtro, long idInicial, long idFinal);
+
+    /**
+     * As transações do filtro com id entre {@code idInicial} e {@code idFinal}, em ordem de id: linhas
+     * {@code (id, categoriaId, valor, data, tipo, descricao)}.
+     */
+    List<Object[]> findLancamentosDoLote(FiltroTransacoes filtro, long idInicial, long idFinal);
+
+    /** Exclui em um único {@code DELETE} as transações do filtro com id entre {@code idInicial} e {@code idFinal}. */
+    int excluirPorFiltro(FiltroTransacoes filtro, long idInicial, long idFinal);
+
+    /**
+     * Altera em um único {@code UPDATE} as transações do filtro com id entre {@code idInicial} e
+     * {@code idFinal}, incrementando a versão de cada uma.
+     */
+    int alterarPorFiltro(FiltroTransacoes filtro, AlteracaoEmLote alteracao, long idInicial, long idFinal);
+
+    /** As {@code k} transações de maior valor do filtro, com um {@code LIMIT} no banco. */
+    List<Transacao> findMaiores(FiltroTransacoes filtro, int k);
+
+    /** As {@code k} categorias de maior total no filtro, agrupadas e limitadas no banco. */
+    List<ItemRanking> findCategoriasMaisCaras(FiltroTransacoes filtro, int k);
+
+    /** As {@code k} descrições (sem diferenciar maiúsculas) mais frequentes no filtro, agrupadas e limitadas no banco. */
+    List<ItemRanking> findDescricoesMaisFrequentes(FiltroTransacoes filtro, int k);
+}
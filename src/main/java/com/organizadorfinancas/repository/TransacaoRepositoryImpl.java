@@ -0,0 +1,255 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Transacao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+class TransacaoRepositoryImpl implements TransacaoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int atualizarParcial(Long id, AtualizacaoTransacao atualizacao) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Transacao> update = cb.createCriteriaUpdate(Transacao.class);
+        Root<Transacao> t = update.from(Transacao.class);
+
+        // Só as colunas informadas entram no SET
+        if (atualizacao.descricao() != null) {
+            update.set(t.get("descricao"), atualizacao.descricao());
+        }
+        if (atualizacao.valor() != null) {
+            update.set(t.get("valor"), atualizacao.valor());
+        }
+        if (atualizacao.data() != null) {
+            update.set(t.get("data"), atualizacao.data());
+        }
+        if (atualizacao.tipo() != null) {
+            update.set(t.get("tipo"), atualizacao.tipo());
+        }
+        if (atualizacao.recorrente() != null) {
+            update.set(t.get("recorrente"), atualizacao.recorrente());
+        }
+        if (atualizacao.parcelas() != null) {
+            update.set(t.get("parcelas"), atualizacao.parcelas());
+        }
+        if (atualizacao.parcelaAtual() != null) {
+            update.set(t.get("parcelaAtual"), atualizacao.parcelaAtual());
+        }
+        if (atualizacao.categoriaId() != null) {
+            update.set(t.get("categoria"), entityManager.getReference(Categoria.class, atualizacao.categoriaId()));
+        }
+        if (atualizacao.observacoes() != null) {
+            update.set(t.get("observacoes"), atualizacao.observacoes());
+        }
+        update.set(t.<Long>get("versao"), cb.sum(t.get("versao"), 1L));
+        update.where(cb.equal(t.get("id"), id), cb.equal(t.get("versao"), atualizacao.versao()));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public Optional<Long> findIdFinalLote(FiltroTransacoes filtro, long idInicial, int tamanhoLote) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Transacao> t = query.from(Transacao.class);
+
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.greaterThanOrEqualTo(t.get("id"), idInicial));
+        query.select(t.get("id")).where(condicoes.toArray(Predicate[]::new)).orderBy(cb.asc(t.get("id")));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(tamanhoLote - 1)
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<AgregadoCategoria> agregarPorCategoria(FiltroTransacoes filtro, long idInicial, long idFinal, YearMonth mes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AgregadoCategoria> query = cb.createQuery(AgregadoCategoria.class);
+        Root<Transacao> t = query.from(Transacao.class);
+
+        Expression<BigDecimal> valor = t.get("valor");
+        Expression<BigDecimal> valorNoMes = cb.<BigDecimal>selectCase()
+                .when(cb.between(t.get("data"), mes.atDay(1), mes.atEndOfMonth()), valor)
+                .otherwise(BigDecimal.ZERO);
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.between(t.get("id"), idInicial, idFinal));
+        query.select(cb.construct(AgregadoCategoria.class, t.get("categoria").get("id"), cb.count(t),
+                        cb.sum(valor), cb.sum(valorNoMes), cb.max(t.<Long>get("id"))))
+                .where(condicoes.toArray(Predicate[]::new))
+                .groupBy(t.get("categoria").get("id"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Object[]> agruparValores(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Transacao> t = query.from(Transacao.class);
+
+        Expression<Integer> mes = cb.sum(cb.prod(cb.function("year", Integer.class, t.get("data")), 100),
+                cb.function("month", Integer.class, t.get("data")));
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.between(t.get("id"), idInicial, idFinal));
+        query.multiselect(t.get("categoria").get("id"), mes, t.get("valor"), cb.count(t))
+                .where(condicoes.toArray(Predicate[]::new))
+                .groupBy(t.get("categoria").get("id"), mes, t.get("valor"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Object[]> findLancamentosDoLote(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Transacao> t = query.from(Transacao.class);
+
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.between(t.get("id"), idInicial, idFinal));
+        query.multiselect(t.get("id"), t.get("categoria").get("id"), t.get("valor"), t.get("data"), t.get("tipo"),
+                        t.get("descricao"))
+                .where(condicoes.toArray(Predicate[]::new))
+                .orderBy(cb.asc(t.get("id")));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int excluirPorFiltro(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Transacao> delete = cb.createCriteriaDelete(Transacao.class);
+        Root<Transacao> t = delete.from(Transacao.class);
+
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.between(t.get("id"), idInicial, idFinal));
+        delete.where(condicoes.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int alterarPorFiltro(FiltroTransacoes filtro, AlteracaoEmLote alteracao, long idInicial, long idFinal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Transacao> update = cb.createCriteriaUpdate(Transacao.class);
+        Root<Transacao> t = update.from(Transacao.class);
+
+        if (alteracao.categoriaId() != null) {
+            update.set(t.get("categoria"), entityManager.getReference(Categoria.class, alteracao.categoriaId()));
+        }
+        if (alteracao.tipo() != null) {
+            update.set(t.get("tipo"), alteracao.tipo());
+        }
+        if (alteracao.recorrente() != null) {
+            update.set(t.get("recorrente"), alteracao.recorrente());
+        }
+        // Quem editar uma dessas transações com a versão antiga recebe 409
+        update.set(t.<Long>get("versao"), cb.sum(t.get("versao"), 1L));
+
+        List<Predicate> condicoes = predicados(cb, t, filtro);
+        condicoes.add(cb.between(t.get("id"), idInicial, idFinal));
+        update.where(condicoes.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<Transacao> findMaiores(FiltroTransacoes filtro, int k) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transacao> query = cb.createQuery(Transacao.class);
+        Root<Transacao> t = query.from(Transacao.class);
+        t.fetch("categoria");
+
+        // Com o tipo no filtro, o índice (tipo, valor) já entrega as linhas na ordem e o banco para nas k primeiras
+        query.select(t)
+                .where(predicados(cb, t, filtro).toArray(Predicate[]::new))
+                .orderBy(cb.desc(t.get("valor")), cb.desc(t.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(k).getResultList();
+    }
+
+    @Override
+    public List<ItemRanking> findCategoriasMaisCaras(FiltroTransacoes filtro, int k) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ItemRanking> query = cb.createQuery(ItemRanking.class);
+        Root<Transacao> t = query.from(Transacao.class);
+        Join<Transacao, Categoria> categoria = t.join("categoria");
+
+        Expression<BigDecimal> total = cb.sum(t.<BigDecimal>get("valor"));
+        query.select(cb.construct(ItemRanking.class, categoria.get("id"), categoria.get("nome"), cb.count(t), total))
+                .where(predicados(cb, t, filtro).toArray(Predicate[]::new))
+                .groupBy(categoria.get("id"), categoria.get("nome"))
+                .orderBy(cb.desc(total), cb.asc(categoria.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(k).getResultList();
+    }
+
+    @Override
+    public List<ItemRanking> findDescricoesMaisFrequentes(FiltroTransacoes filtro, int k) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ItemRanking> query = cb.createQuery(ItemRanking.class);
+        Root<Transacao> t = query.from(Transacao.class);
+
+        Expression<String> descricao = cb.lower(t.get("descricao"));
+        Expression<Long> quantidade = cb.count(t);
+        Expression<BigDecimal> total = cb.sum(t.<BigDecimal>get("valor"));
+        query.select(cb.construct(ItemRanking.class, cb.nullLiteral(Long.class), descricao, quantidade, total))
+                .where(predicados(cb, t, filtro).toArray(Predicate[]::new))
+                .groupBy(descricao)
+                .orderBy(cb.desc(quantidade), cb.desc(total), cb.asc(descricao));
+
+        return entityManager.createQuery(query).setMaxResults(k).getResultList();
+    }
+
+    private static List<Predicate> predicados(CriteriaBuilder cb, Root<Transacao> t, FiltroTransacoes filtro) {
+        List<Predicate> condicoes = new ArrayList<>();
+        if (filtro.dataInicio() != null) {
+            condicoes.add(cb.greaterThanOrEqualTo(t.get("data"), filtro.dataInicio()));
+        }
+        if (filtro.dataFim() != null) {
+            condicoes.add(cb.lessThanOrEqualTo(t.get("data"), filtro.dataFim()));
+        }
+        if (filtro.categoriaId() != null) {
+            condicoes.add(cb.equal(t.get("categoria").get("id"), filtro.categoriaId()));
+        }
+        if (filtro.tipo() != null) {
+            condicoes.add(cb.equal(t.get("tipo"), filtro.tipo()));
+        }
+        if (filtro.descricao() != null && !filtro.descricao().isBlank()) {
+            String texto = filtro.descricao().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            condicoes.add(cb.like(cb.lower(t.get("descricao")), "%" + texto + "%", '\\'));
+        }
+        return condicoes;
+    }
+}
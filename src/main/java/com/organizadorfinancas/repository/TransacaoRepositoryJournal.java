@@ -0,0 +1,830 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.JournalTransacoes.Linha;
+import com.organizadorfinancas.repository.JournalTransacoes.Registro;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * {@link ArmazenamentoTransacoes} sobre o {@link JournalTransacoes}, usado no lugar do JPA com
+ * {@code organizador.armazenamento.transacoes=journal}. As categorias continuam no banco; as consultas e
+ * agregações são feitas percorrendo os índices do journal, com os mesmos resultados das consultas JPQL
+ * (somas vazias nulas, valores com duas casas, conflito de versão como {@link ObjectOptimisticLockingFailureException}).
+ *
+ * O journal não participa da transação do banco: cada escrita vale assim que feita. Dentro de uma
+ * transação, o estado anterior de cada transação alterada é guardado e regravado se ela for desfeita.
+ */
+public class TransacaoRepositoryJournal implements ArmazenamentoTransacoes {
+
+    private static final int TAMANHO_DESCRICAO = 255;
+    private static final int TAMANHO_OBSERVACOES = 500;
+    private static final long LIMITE_CENTAVOS = 10_000_000_000L; // precision 10, scale 2
+
+    private final JournalTransacoes journal;
+    private final CategoriaRepository categoriaRepository;
+
+    public TransacaoRepositoryJournal(JournalTransacoes journal, CategoriaRepository categoriaRepository) {
+        this.journal = journal;
+        this.categoriaRepository = categoriaRepository;
+    }
+
+    @Override
+    public <S extends Transacao> S save(S transacao) {
+        if (transacao.getId() == null) {
+            Registro gravado = journal.inserir(registro(transacao, 0, 0));
+            desfazerNoRollback(gravado.id(), null);
+            transacao.setId(gravado.id());
+            transacao.setVersao(0L);
+            return transacao;
+        }
+        if (transacao.getVersao() == null) {
+            throw new InvalidDataAccessApiUsageException("Transação " + transacao.getId() + " informada com id e sem versão");
+        }
+        long id = transacao.getId();
+        long versao = transacao.getVersao();
+        Registro novo = registro(transacao, id, versao);
+        Registro[] anterior = new Registro[1];
+        Optional<Registro> gravado = journal.alterar(id, atual -> {
+            if (atual.versao() != versao) {
+                throw new ObjectOptimisticLockingFailureException(Transacao.class, id);
+            }
+            anterior[0] = atual;
+            // Como o JPA: sem mudança, nada é gravado e a versão fica
+            return novo.equals(atual) ? null : comVersao(novo, versao + 1);
+        });
+        if (anterior[0] == null) {
+            throw new ObjectOptimisticLockingFailureException(Transacao.class, id);
+        }
+        gravado.ifPresent(registro -> desfazerNoRollback(id, anterior[0]));
+        transacao.setVersao(gravado.orElse(anterior[0]).versao());
+        return transacao;
+    }
+
+    @Override
+    public <S extends Transacao> List<S> saveAll(Iterable<S> transacoes) {
+        List<S> salvas = new ArrayList<>();
+        for (S transacao : transacoes) {
+            salvas.add(save(transacao));
+        }
+        return salvas;
+    }
+
+    @Override
+    public Optional<Transacao> findById(Long id) {
+        return journal.ler(id).map(registro -> transacoes(List.of(registro)).get(0));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return journal.existe(id);
+    }
+
+    @Override
+    public List<Transacao> findAll() {
+        return transacoes(registros(v -> journal.percorrer(1, v), linha -> true));
+    }
+
+    @Override
+    public long count() {
+        return journal.quantidade();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        journal.excluir(id).ifPresent(anterior -> desfazerNoRollback(id, anterior));
+    }
+
+    @Override
+    public List<Transacao> findByTipo(TipoTransacao tipo) {
+        return transacoes(registros(v -> journal.percorrer(1, v), linha -> linha.tipo() == tipo));
+    }
+
+    @Override
+    public List<Transacao> findByCategoriaId(Long categoriaId) {
+        if (categoriaId == null) {
+            return new ArrayList<>();
+        }
+        return transacoes(registros(v -> journal.percorrerPorCategoria(categoriaId, null, null, v), linha -> true));
+    }
+
+    @Override
+    public List<Transacao> findByDataBetween(LocalDate dataInicio, LocalDate dataFim) {
+        return transacoes(registros(v -> journal.percorrerPorData(dataInicio, dataFim, false, v), linha -> true));
+    }
+
+    @Override
+    public List<Transacao> findGastosRecorrentes() {
+        return transacoes(registros(v -> journal.percorrerPorData(null, null, true, v), Linha::recorrente));
+    }
+
+    @Override
+    public List<Transacao> findGastosSuperfluos() {
+        return findGastosSuperfluos(Limit.unlimited());
+    }
+
+    @Override
+    public List<Transacao> findGastosSuperfluos(Limit limite) {
+        Set<Long> superfluas = categoriasPorEssencial(false);
+        return maiores(v -> journal.percorrer(1, v), linha -> superfluas.contains(linha.categoriaId()),
+                limite.isLimited() ? limite.max() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transacao> findDespesasParceladas() {
+        return transacoes(registros(v -> journal.percorrerPorData(null, null, true, v), linha -> linha.parcelas() > 1));
+    }
+
+    @Override
+    public BigDecimal sumByTipoAndPeriodo(TipoTransacao tipo, LocalDate dataInicio, LocalDate dataFim) {
+        if (dataInicio == null || dataFim == null) {
+            return null;
+        }
+        Soma soma = new Soma();
+        journal.percorrerPorData(dataInicio, dataFim, false, linha -> {
+            if (linha.tipo() == tipo) {
+                soma.somar(linha.centavos());
+            }
+            return true;
+        });
+        return soma.valor();
+    }
+
+    @Override
+    public BigDecimal sumByTipoAndRecorrente(TipoTransacao tipo) {
+        Soma soma = new Soma();
+        journal.percorrer(1, linha -> {
+            if (linha.tipo() == tipo && linha.recorrente()) {
+                soma.somar(linha.centavos());
+            }
+            return true;
+        });
+        return soma.valor();
+    }
+
+    @Override
+    public BigDecimal sumByEssencialAndTipo(Boolean essencial, TipoTransacao tipo) {
+        if (essencial == null) {
+            return null;
+        }
+        Set<Long> categorias = categoriasPorEssencial(essencial);
+        Soma soma = new Soma();
+        journal.percorrer(1, linha -> {
+            if (linha.tipo() == tipo && categorias.contains(linha.categoriaId())) {
+                soma.somar(linha.centavos());
+            }
+            return true;
+        });
+        return soma.valor();
+    }
+
+    @Override
+    public List<Object[]> findTotalPorCategoria(TipoTransacao tipo) {
+        Map<Long, Soma> porCategoria = new HashMap<>();
+        journal.percorrer(1, linha -> {
+            if (linha.tipo() == tipo) {
+                porCategoria.computeIfAbsent(linha.categoriaId(), c -> new Soma()).somar(linha.centavos());
+            }
+            return true;
+        });
+        Map<Long, Categoria> categorias = categorias(porCategoria.keySet());
+        Map<String, Soma> porNome = new HashMap<>();
+        porCategoria.forEach((categoriaId, soma) -> porNome.computeIfAbsent(
+                categorias.get(categoriaId).getNome(), n -> new Soma()).somar(soma.centavos));
+        List<Object[]> linhas = new ArrayList<>();
+        porNome.forEach((nome, soma) -> linhas.add(new Object[]{nome, soma.valor()}));
+        linhas.sort(Comparator.comparing((Object[] linha) -> (BigDecimal) linha[1]).reversed());
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> sumPorCategoriaEMes(TipoTransacao tipo, LocalDate dataInicio) {
+        record Chave(long categoriaId, int ano, int mes) {
+        }
+        Map<Chave, Soma> somas = new LinkedHashMap<>();
+        journal.percorrerPorData(dataInicio, null, false, linha -> {
+            if (linha.tipo() == tipo) {
+                LocalDate data = linha.data();
+                somas.computeIfAbsent(new Chave(linha.categoriaId(), data.getYear(), data.getMonthValue()), c -> new Soma())
+                        .somar(linha.centavos());
+            }
+            return true;
+        });
+        List<Object[]> linhas = new ArrayList<>();
+        somas.forEach((chave, soma) -> linhas.add(new Object[]{chave.categoriaId(), chave.ano(), chave.mes(), soma.valor()}));
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> sumPorCategoriaTipoEMes(LocalDate dataInicio, LocalDate dataFim) {
+        record Chave(long categoriaId, TipoTransacao tipo, int ano, int mes) {
+        }
+        Map<Chave, Soma> somas = new LinkedHashMap<>();
+        journal.percorrerPorData(dataInicio, dataFim, false, linha -> {
+            LocalDate data = linha.data();
+            somas.computeIfAbsent(new Chave(linha.categoriaId(), linha.tipo(), data.getYear(), data.getMonthValue()),
+                    c -> new Soma()).somar(linha.centavos());
+            return true;
+        });
+        List<Object[]> linhas = new ArrayList<>();
+        somas.forEach((chave, soma) -> linhas.add(new Object[]{chave.categoriaId(), chave.tipo(), chave.ano(), chave.mes(),
+                soma.quantidade, soma.valor()}));
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> findParcelasEmAberto(LocalDate dataFim) {
+        int mesFim = dataFim.getYear() * 12 + dataFim.getMonthValue();
+        List<Object[]> linhas = new ArrayList<>();
+        journal.percorrerPorData(null, dataFim, false, linha -> {
+            LocalDate data = linha.data();
+            if (linha.tipo() == TipoTransacao.DESPESA && linha.parcelas() > 1
+                    && linha.parcelas() - linha.parcelaAtual() > mesFim - (data.getYear() * 12 + data.getMonthValue())) {
+                linhas.add(new Object[]{linha.valor(), linha.parcelas(), linha.parcelaAtual(), data});
+            }
+            return true;
+        });
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> sumPorTipoEData() {
+        List<Object[]> linhas = new ArrayList<>();
+        Map<TipoTransacao, Soma> doDia = new TreeMap<>();
+        int[] diaAtual = {Integer.MIN_VALUE};
+        Runnable fecharDia = () -> {
+            doDia.forEach((tipo, soma) -> linhas.add(
+                    new Object[]{tipo, LocalDate.ofEpochDay(diaAtual[0]), soma.valor(), soma.quantidade}));
+            doDia.clear();
+        };
+        journal.percorrerPorData(null, null, false, linha -> {
+            if (linha.dia() != diaAtual[0]) {
+                fecharDia.run();
+                diaAtual[0] = linha.dia();
+            }
+            doDia.computeIfAbsent(linha.tipo(), t -> new Soma()).somar(linha.centavos());
+            return true;
+        });
+        fecharDia.run();
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> sumSaldoPorDataAte(LocalDate dataFim) {
+        if (dataFim == null) {
+            return new ArrayList<>();
+        }
+        List<Object[]> linhas = new ArrayList<>();
+        Soma doDia = new Soma();
+        int[] diaAtual = {Integer.MIN_VALUE};
+        journal.percorrerPorData(null, dataFim, false, linha -> {
+            if (linha.dia() != diaAtual[0]) {
+                if (doDia.quantidade > 0) {
+                    linhas.add(new Object[]{LocalDate.ofEpochDay(diaAtual[0]), doDia.valor()});
+                }
+                doDia.zerar();
+                diaAtual[0] = linha.dia();
+            }
+            doDia.somar(linha.tipo() == TipoTransacao.RECEITA ? linha.centavos() : -linha.centavos());
+            return true;
+        });
+        if (doDia.quantidade > 0) {
+            linhas.add(new Object[]{LocalDate.ofEpochDay(diaAtual[0]), doDia.valor()});
+        }
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> agregarPorCategorias(Collection<Long> categoriaIds, LocalDate inicio, LocalDate fim) {
+        List<Object[]> linhas = new ArrayList<>();
+        for (Long categoriaId : new HashSet<>(categoriaIds)) {
+            Soma total = new Soma();
+            Soma noPeriodo = new Soma();
+            int[] ultimoDia = new int[1];
+            journal.percorrerPorCategoria(categoriaId, null, null, linha -> {
+                total.somar(linha.centavos());
+                if (!linha.data().isBefore(inicio) && !linha.data().isAfter(fim)) {
+                    noPeriodo.somar(linha.centavos());
+                }
+                ultimoDia[0] = linha.dia();
+                return true;
+            });
+            if (total.quantidade > 0) {
+                linhas.add(new Object[]{categoriaId, total.quantidade, total.valor(),
+                        BigDecimal.valueOf(noPeriodo.centavos, 2), LocalDate.ofEpochDay(ultimoDia[0])});
+            }
+        }
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> findUltimaDataPorCategoria(Collection<Long> categoriaIds) {
+        List<Object[]> linhas = new ArrayList<>();
+        for (Long categoriaId : new HashSet<>(categoriaIds)) {
+            LocalDate ultima = journal.ultimaData(categoriaId);
+            if (ultima != null) {
+                linhas.add(new Object[]{categoriaId, ultima});
+            }
+        }
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> sumPorCategoriaNoPeriodo(LocalDate inicio, LocalDate fim) {
+        Map<Long, Soma> somas = new HashMap<>();
+        journal.percorrerPorData(inicio, fim, false, linha -> {
+            somas.computeIfAbsent(linha.categoriaId(), c -> new Soma()).somar(linha.centavos());
+            return true;
+        });
+        List<Object[]> linhas = new ArrayList<>();
+        somas.forEach((categoriaId, soma) -> linhas.add(new Object[]{categoriaId, soma.valor()}));
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> agruparPorCategoriaMesEValor(Collection<Long> categoriaIds) {
+        List<Object[]> linhas = new ArrayList<>();
+        for (Long categoriaId : new HashSet<>(categoriaIds)) {
+            linhas.addAll(agruparPorMesEValor(v -> journal.percorrerPorCategoria(categoriaId, null, null, v), linha -> true));
+        }
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> countPorCategoria() {
+        List<Object[]> linhas = new ArrayList<>();
+        journal.quantidadePorCategoria().forEach((categoriaId, quantidade) -> linhas.add(new Object[]{categoriaId, quantidade}));
+        return linhas;
+    }
+
+    @Override
+    public List<Object[]> findLancamentosDesde(TipoTransacao tipo, LocalDate dataInicio) {
+        List<Object[]> linhas = new ArrayList<>();
+        journal.percorrerPorData(dataInicio, null, false, linha -> {
+            if (linha.tipo() == tipo) {
+                linhas.add(new Object[]{linha.categoriaId(), linha.descricao(), linha.valor(), linha.data()});
+            }
+            return true;
+        });
+        return linhas;
+    }
+
+    @Override
+    public List<Transacao> findParaArquivar(LocalDate dataInicio, LocalDate dataFim) {
+        return findByDataBetween(dataInicio, dataFim);
+    }
+
+    @Override
+    public List<Long> findIdsEntre(LocalDate dataInicio, LocalDate dataFim) {
+        return findByDataBetween(dataInicio, dataFim).stream().map(Transacao::getId).toList();
+    }
+
+    @Override
+    public int excluirPorIds(Collection<Long> ids) {
+        int excluidas = 0;
+        for (Long id : ids) {
+            Optional<Registro> anterior = journal.excluir(id);
+            if (anterior.isPresent()) {
+                desfazerNoRollback(id, anterior.get());
+                excluidas++;
+            }
+        }
+        return excluidas;
+    }
+
+    @Override
+    public LocalDate findPrimeiraData() {
+        return journal.primeiraData();
+    }
+
+    @Override
+    public int atualizarParcial(Long id, AtualizacaoTransacao atualizacao) {
+        if (atualizacao.categoriaId() != null) {
+            exigirCategoria(atualizacao.categoriaId());
+        }
+        validarTextos(atualizacao.descricao(), atualizacao.observacoes());
+        Registro[] anterior = new Registro[1];
+        Optional<Registro> gravado = journal.alterar(id, atual -> {
+            if (atualizacao.versao() == null || atual.versao() != atualizacao.versao()) {
+                return null;
+            }
+            anterior[0] = atual;
+            return new Registro(atual.id(),
+                    atualizacao.descricao() != null ? atualizacao.descricao() : atual.descricao(),
+                    atualizacao.valor() != null ? centavos(atualizacao.valor()) : atual.centavos(),
+                    atualizacao.data() != null ? (int) atualizacao.data().toEpochDay() : atual.dia(),
+                    atualizacao.tipo() != null ? atualizacao.tipo() : atual.tipo(),
+                    atualizacao.recorrente() != null ? atualizacao.recorrente() : atual.recorrente(),
+                    atualizacao.parcelas() != null ? atualizacao.parcelas() : atual.parcelas(),
+                    atualizacao.parcelaAtual() != null ? atualizacao.parcelaAtual() : atual.parcelaAtual(),
+                    atualizacao.categoriaId() != null ? atualizacao.categoriaId() : atual.categoriaId(),
+                    atualizacao.observacoes() != null ? atualizacao.observacoes() : atual.observacoes(),
+                    atual.versao() + 1);
+        });
+        gravado.ifPresent(registro -> desfazerNoRollback(id, anterior[0]));
+        return gravado.isPresent() ? 1 : 0;
+    }
+
+    @Override
+    public Optional<Long> findIdFinalLote(FiltroTransacoes filtro, long idInicial, int tamanhoLote) {
+        Predicate<Linha> condicao = condicao(filtro);
+        long[] encontrado = {0, 0};
+        journal.percorrer(idInicial, linha -> {
+            if (condicao.test(linha) && ++encontrado[0] == tamanhoLote) {
+                encontrado[1] = linha.id();
+                return false;
+            }
+            return true;
+        });
+        return encontrado[1] != 0 ? Optional.of(encontrado[1]) : Optional.empty();
+    }
+
+    @Override
+    public List<AgregadoCategoria> agregarPorCategoria(FiltroTransacoes filtro, long idInicial, long idFinal, YearMonth mes) {
+        Predicate<Linha> condicao = condicao(filtro);
+        int primeiroDia = (int) mes.atDay(1).toEpochDay();
+        int ultimoDia = (int) mes.atEndOfMonth().toEpochDay();
+        Map<Long, Soma> totais = new LinkedHashMap<>();
+        Map<Long, Soma> noMes = new HashMap<>();
+        Map<Long, Long> idMaximo = new HashMap<>();
+        journal.percorrer(idInicial, linha -> {
+            if (linha.id() > idFinal) {
+                return false;
+            }
+            if (condicao.test(linha)) {
+                long categoriaId = linha.categoriaId();
+                totais.computeIfAbsent(categoriaId, c -> new Soma()).somar(linha.centavos());
+                Soma doMes = noMes.computeIfAbsent(categoriaId, c -> new Soma());
+                doMes.somar(linha.dia() >= primeiroDia && linha.dia() <= ultimoDia ? linha.centavos() : 0);
+                idMaximo.put(categoriaId, linha.id());
+            }
+            return true;
+        });
+        List<AgregadoCategoria> agregados = new ArrayList<>();
+        totais.forEach((categoriaId, total) -> agregados.add(new AgregadoCategoria(categoriaId, total.quantidade,
+                total.valor(), noMes.get(categoriaId).valor(), idMaximo.get(categoriaId))));
+        return agregados;
+    }
+
+    @Override
+    public List<Object[]> agruparValores(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        return agruparPorMesEValor(v -> journal.percorrer(idInicial, linha -> linha.id() <= idFinal && v.test(linha)),
+                condicao(filtro));
+    }
+
+    @Override
+    public List<Object[]> findLancamentosDoLote(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        Predicate<Linha> condicao = condicao(filtro);
+        List<Object[]> linhas = new ArrayList<>();
+        journal.percorrer(idInicial, linha -> {
+            if (linha.id() > idFinal) {
+                return false;
+            }
+            if (condicao.test(linha)) {
+                linhas.add(new Object[]{linha.id(), linha.categoriaId(), linha.valor(), linha.data(), linha.tipo(),
+                        linha.descricao()});
+            }
+            return true;
+        });
+        return linhas;
+    }
+
+    @Override
+    public int excluirPorFiltro(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        return excluirTodas(filtro, idInicial, idFinal);
+    }
+
+    @Override
+    public int alterarPorFiltro(FiltroTransacoes filtro, AlteracaoEmLote alteracao, long idInicial, long idFinal) {
+        if (alteracao.categoriaId() != null) {
+            exigirCategoria(alteracao.categoriaId());
+        }
+        List<Registro> anteriores = journal.alterarTodos(idInicial, idFinal, condicao(filtro), atual -> new Registro(
+                atual.id(), atual.descricao(), atual.centavos(), atual.dia(),
+                alteracao.tipo() != null ? alteracao.tipo() : atual.tipo(),
+                alteracao.recorrente() != null ? alteracao.recorrente() : atual.recorrente(),
+                atual.parcelas(), atual.parcelaAtual(),
+                alteracao.categoriaId() != null ? alteracao.categoriaId() : atual.categoriaId(),
+                atual.observacoes(), atual.versao() + 1));
+        anteriores.forEach(anterior -> desfazerNoRollback(anterior.id(), anterior));
+        return anteriores.size();
+    }
+
+    @Override
+    public List<Transacao> findMaiores(FiltroTransacoes filtro, int k) {
+        return maiores(percurso(filtro), condicao(filtro), k);
+    }
+
+    @Override
+    public List<ItemRanking> findCategoriasMaisCaras(FiltroTransacoes filtro, int k) {
+        Predicate<Linha> condicao = condicao(filtro);
+        Map<Long, Soma> somas = new HashMap<>();
+        percurso(filtro).percorrer(linha -> {
+            if (condicao.test(linha)) {
+                somas.computeIfAbsent(linha.categoriaId(), c -> new Soma()).somar(linha.centavos());
+            }
+            return true;
+        });
+        Map<Long, Categoria> categorias = categorias(somas.keySet());
+        return somas.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Long, Soma> e) -> e.getValue().centavos).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(k)
+                .map(e -> new ItemRanking(e.getKey(), categorias.get(e.getKey()).getNome(),
+                        e.getValue().quantidade, e.getValue().valor()))
+                .toList();
+    }
+
+    @Override
+    public List<ItemRanking> findDescricoesMaisFrequentes(FiltroTransacoes filtro, int k) {
+        Predicate<Linha> condicao = condicao(filtro);
+        Map<String, Soma> somas = new HashMap<>();
+        percurso(filtro).percorrer(linha -> {
+            if (condicao.test(linha)) {
+                somas.computeIfAbsent(linha.descricao().toLowerCase(Locale.ROOT), d -> new Soma()).somar(linha.centavos());
+            }
+            return true;
+        });
+        return somas.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Soma> e) -> e.getValue().quantidade).reversed()
+                        .thenComparing(e -> e.getValue().centavos, Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(k)
+                .map(e -> new ItemRanking(null, e.getKey(), e.getValue().quantidade, e.getValue().valor()))
+                .toList();
+    }
+
+    /** Um percurso de um índice do journal, entregando as linhas ao visitante. */
+    @FunctionalInterface
+    private interface Percurso {
+        void percorrer(Predicate<Linha> visitante);
+    }
+
+    /** Soma em centavos e quantidade de um grupo. */
+    private static final class Soma {
+        private long centavos;
+        private long quantidade;
+
+        void somar(long valor) {
+            centavos += valor;
+            quantidade++;
+        }
+
+        void zerar() {
+            centavos = 0;
+            quantidade = 0;
+        }
+
+        // SUM sem linhas é nulo, como no banco
+        BigDecimal valor() {
+            return quantidade == 0 ? null : BigDecimal.valueOf(centavos, 2);
+        }
+    }
+
+    /** Estado anterior das transações alteradas na transação corrente, regravado se ela for desfeita. */
+    private final class Desfazer implements TransactionSynchronization {
+        private final Map<Long, Registro> anteriores = new LinkedHashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransacaoRepositoryJournal.this);
+            if (status == STATUS_ROLLED_BACK) {
+                anteriores.forEach(journal::restaurar);
+            }
+        }
+    }
+
+    private void desfazerNoRollback(long id, Registro anterior) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Desfazer desfazer = (Desfazer) TransactionSynchronizationManager.getResource(this);
+        if (desfazer == null) {
+            desfazer = new Desfazer();
+            TransactionSynchronizationManager.bindResource(this, desfazer);
+            TransactionSynchronizationManager.registerSynchronization(desfazer);
+        }
+        // Só o estado de antes da primeira escrita na transação interessa
+        if (!desfazer.anteriores.containsKey(id)) {
+            desfazer.anteriores.put(id, anterior);
+        }
+    }
+
+    private int excluirTodas(FiltroTransacoes filtro, long idInicial, long idFinal) {
+        List<Registro> anteriores = journal.alterarTodos(idInicial, idFinal, condicao(filtro), null);
+        anteriores.forEach(anterior -> desfazerNoRollback(anterior.id(), anterior));
+        return anteriores.size();
+    }
+
+    private List<Transacao> maiores(Percurso percurso, Predicate<Linha> condicao, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        // Heap mínimo de (centavos, id) com as k maiores; os registros só são lidos para as escolhidas
+        Comparator<long[]> ordem = Comparator.<long[]>comparingLong(par -> par[0]).thenComparingLong(par -> par[1]);
+        PriorityQueue<long[]> escolhidas = new PriorityQueue<>(ordem);
+        percurso.percorrer(linha -> {
+            if (condicao.test(linha)) {
+                long[] par = {linha.centavos(), linha.id()};
+                if (escolhidas.size() < k) {
+                    escolhidas.add(par);
+                } else if (ordem.compare(par, escolhidas.peek()) > 0) {
+                    escolhidas.poll();
+                    escolhidas.add(par);
+                }
+            }
+            return true;
+        });
+        List<long[]> ordenadas = new ArrayList<>(escolhidas);
+        ordenadas.sort(ordem.reversed());
+        List<Registro> registros = new ArrayList<>();
+        for (long[] par : ordenadas) {
+            journal.ler(par[1]).ifPresent(registros::add);
+        }
+        return transacoes(registros);
+    }
+
+    private List<Object[]> agruparPorMesEValor(Percurso percurso, Predicate<Linha> condicao) {
+        Map<Long, Map<Long, long[]>> grupos = new LinkedHashMap<>();
+        percurso.percorrer(linha -> {
+            if (condicao.test(linha)) {
+                grupos.computeIfAbsent(linha.categoriaId(), c -> new LinkedHashMap<>())
+                        .computeIfAbsent(chaveMesEValor(linha), k -> new long[1])[0]++;
+            }
+            return true;
+        });
+        List<Object[]> linhas = new ArrayList<>();
+        grupos.forEach((categoriaId, contagens) -> linhas.addAll(linhasMesEValor(categoriaId, contagens)));
+        return linhas;
+    }
+
+    // Mês (AAAAMM) nos bits altos e centavos nos 40 baixos: valores de até precision 10 cabem
+    private static long chaveMesEValor(Linha linha) {
+        LocalDate data = linha.data();
+        return ((long) (data.getYear() * 100 + data.getMonthValue()) << 40) | linha.centavos();
+    }
+
+    private static List<Object[]> linhasMesEValor(long categoriaId, Map<Long, long[]> contagens) {
+        List<Object[]> linhas = new ArrayList<>();
+        contagens.forEach((chave, quantidade) -> linhas.add(new Object[]{categoriaId, (int) (chave >> 40),
+                BigDecimal.valueOf(chave & ((1L << 40) - 1), 2), quantidade[0]}));
+        return linhas;
+    }
+
+    private List<Registro> registros(Percurso percurso, Predicate<Linha> condicao) {
+        List<Registro> registros = new ArrayList<>();
+        percurso.percorrer(linha -> {
+            if (condicao.test(linha)) {
+                registros.add(linha.registro());
+            }
+            return true;
+        });
+        return registros;
+    }
+
+    private List<Transacao> transacoes(List<Registro> registros) {
+        Set<Long> categoriaIds = new HashSet<>();
+        registros.forEach(registro -> categoriaIds.add(registro.categoriaId()));
+        Map<Long, Categoria> categorias = categorias(categoriaIds);
+        List<Transacao> transacoes = new ArrayList<>(registros.size());
+        for (Registro registro : registros) {
+            Transacao transacao = new Transacao(registro.descricao(), registro.valor(), registro.data(), registro.tipo(),
+                    registro.recorrente(), categorias.get(registro.categoriaId()));
+            transacao.setId(registro.id());
+            transacao.setParcelas(registro.parcelas());
+            transacao.setParcelaAtual(registro.parcelaAtual());
+            transacao.setObservacoes(registro.observacoes());
+            transacao.setVersao(registro.versao());
+            transacoes.add(transacao);
+        }
+        return transacoes;
+    }
+
+    // Categorias pelo id, uma a uma para virem do cache de segundo nível; uma que já não existe vira uma referência só com o id
+    private Map<Long, Categoria> categorias(Collection<Long> ids) {
+        Map<Long, Categoria> categorias = new HashMap<>();
+        for (Long id : ids) {
+            categorias.put(id, categoriaRepository.findById(id).orElseGet(() -> {
+                Categoria referencia = new Categoria();
+                referencia.setId(id);
+                return referencia;
+            }));
+        }
+        return categorias;
+    }
+
+    private Set<Long> categoriasPorEssencial(boolean essencial) {
+        Set<Long> ids = new HashSet<>();
+        categoriaRepository.findByEssencial(essencial).forEach(categoria -> ids.add(categoria.getId()));
+        return ids;
+    }
+
+    private Percurso percurso(FiltroTransacoes filtro) {
+        if (filtro.categoriaId() != null) {
+            return v -> journal.percorrerPorCategoria(filtro.categoriaId(), filtro.dataInicio(), filtro.dataFim(), v);
+        }
+        if (filtro.dataInicio() != null || filtro.dataFim() != null) {
+            return v -> journal.percorrerPorData(filtro.dataInicio(), filtro.dataFim(), false, v);
+        }
+        return v -> journal.percorrer(1, v);
+    }
+
+    private static Predicate<Linha> condicao(FiltroTransacoes filtro) {
+        Predicate<Linha> condicao = linha -> true;
+        if (filtro.dataInicio() != null) {
+            int inicio = (int) filtro.dataInicio().toEpochDay();
+            condicao = condicao.and(linha -> linha.dia() >= inicio);
+        }
+        if (filtro.dataFim() != null) {
+            int fim = (int) filtro.dataFim().toEpochDay();
+            condicao = condicao.and(linha -> linha.dia() <= fim);
+        }
+        if (filtro.categoriaId() != null) {
+            long categoriaId = filtro.categoriaId();
+            condicao = condicao.and(linha -> linha.categoriaId() == categoriaId);
+        }
+        if (filtro.tipo() != null) {
+            TipoTransacao tipo = filtro.tipo();
+            condicao = condicao.and(linha -> linha.tipo() == tipo);
+        }
+        if (filtro.descricao() != null && !filtro.descricao().isBlank()) {
+            String texto = filtro.descricao().toLowerCase(Locale.ROOT);
+            condicao = condicao.and(linha -> linha.descricao().toLowerCase(Locale.ROOT).contains(texto));
+        }
+        return condicao;
+    }
+
+    // As restrições das colunas (not null, tamanho, precisão e chave estrangeira) verificadas antes de gravar
+    private Registro registro(Transacao transacao, long id, long versao) {
+        if (transacao.getDescricao() == null || transacao.getValor() == null || transacao.getData() == null
+                || transacao.getTipo() == null || transacao.getRecorrente() == null || transacao.getParcelas() == null
+                || transacao.getParcelaAtual() == null || transacao.getCategoria() == null
+                || transacao.getCategoria().getId() == null) {
+            throw new DataIntegrityViolationException("Transação com campo obrigatório nulo");
+        }
+        validarTextos(transacao.getDescricao(), transacao.getObservacoes());
+        exigirCategoria(transacao.getCategoria().getId());
+        return new Registro(id, transacao.getDescricao(), centavos(transacao.getValor()), (int) transacao.getData().toEpochDay(),
+                transacao.getTipo(), transacao.getRecorrente(), transacao.getParcelas(), transacao.getParcelaAtual(),
+                transacao.getCategoria().getId(), transacao.getObservacoes(), versao);
+    }
+
+    private void exigirCategoria(Long categoriaId) {
+        if (categoriaRepository.findById(categoriaId).isEmpty()) {
+            throw new DataIntegrityViolationException("Categoria " + categoriaId + " não existe");
+        }
+    }
+
+    private static void validarTextos(String descricao, String observacoes) {
+        if (descricao != null && descricao.length() > TAMANHO_DESCRICAO) {
+            throw new DataIntegrityViolationException("Descrição passa de " + TAMANHO_DESCRICAO + " caracteres");
+        }
+        if (observacoes != null && observacoes.length() > TAMANHO_OBSERVACOES) {
+            throw new DataIntegrityViolationException("Observações passam de " + TAMANHO_OBSERVACOES + " caracteres");
+        }
+    }
+
+    private static long centavos(BigDecimal valor) {
+        long centavos = valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        if (Math.abs(centavos) >= LIMITE_CENTAVOS || valor.abs().compareTo(BigDecimal.valueOf(LIMITE_CENTAVOS, 2)) >= 0) {
+            throw new DataIntegrityViolationException("Valor " + valor + " excede a precisão da coluna");
+        }
+        return centavos;
+    }
+
+    private static Registro comVersao(Registro registro, long versao) {
+        return new Registro(registro.id(), registro.descricao(), registro.centavos(), registro.dia(), registro.tipo(),
+                registro.recorrente(), registro.parcelas(), registro.parcelaAtual(), registro.categoriaId(),
+                registro.observacoes(), versao);
+    }
+}
@@ -0,0 +1,64 @@
+package com.organizadorfinancas.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** Adia para depois do commit as atualizações de estado em memória, para não contar escritas desfeitas. */
+final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    /** Fora de uma transação do banco, executa na hora. */
+    static void executar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    /**
+     * Como {@link #executar(Runnable)}, dentro do {@code portao} do início do commit até o fim da ação: uma
+     * reconstrução do estado não fixa o retrato do banco nem troca o estado entre o commit desta escrita e a sua
+     * aplicação em memória.
+     */
+    static void executar(PortaoReconstrucao<?> portao, Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            portao.entrar();
+            try {
+                acao.run();
+            } finally {
+                portao.sair();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean dentro;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                portao.entrar();
+                dentro = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (dentro) {
+                    dentro = false;
+                    portao.sair();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,589 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.SegmentoArquivado;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Camada fria das transações: anos encerrados há mais de {@code anos-quentes} anos saem da tabela
+ * {@code transacoes} para um {@link SegmentoFrio} por ano, imutável, em colunas comprimidas e mapeado em
+ * memória. As consultas de {@link TransacaoService} juntam o banco com os segmentos; os blocos fora do
+ * período pedido são pulados pelas datas do diretório e os demais são lidos em paralelo.
+ *
+ * Transações arquivadas são somente leitura. Mover um ano fecha, numa única transação do banco, a leitura
+ * das linhas (com trava), a gravação do segmento e a exclusão das linhas; quem lê banco e segmentos juntos
+ * passa por {@link #lerConsistente}, para não contar um ano duas vezes nem nenhuma durante a troca.
+ * Se o processo cair depois de o segmento ser publicado e antes do commit, as linhas voltam ao banco;
+ * ao abrir, as que já estão num segmento são excluídas, e o ano pode ser arquivado de novo sem duplicar.
+ */
+@Service
+public class ArquivoFrio {
+
+    private static final String PREFIXO = "transacoes-";
+    private static final String SUFIXO = ".seg";
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private static final Logger log = LoggerFactory.getLogger(ArquivoFrio.class);
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${organizador.arquivo.habilitado:false}")
+    private boolean habilitado = false;
+
+    @Value("${organizador.arquivo.diretorio:./data/arquivo}")
+    private String diretorio = "./data/arquivo";
+
+    @Value("${organizador.arquivo.anos-quentes:2}")
+    private int anosQuentes = 2;
+
+    @Value("${organizador.arquivo.verificacao-horas:24}")
+    private long intervaloVerificacao = 24;
+
+    @Value("${organizador.lote.tamanho:1000}")
+    private int tamanhoLote = 1000;
+
+    private volatile List<SegmentoFrio> segmentos = List.of();
+    // Categorias com alguma transação arquivada: não podem ser excluídas nem mescladas
+    private volatile Set<Long> categorias = Set.of();
+    // Leituras que juntam banco e segmentos seguram a trava compartilhada; a troca de um ano, a exclusiva
+    private final ReentrantReadWriteLock consistencia = new ReentrantReadWriteLock();
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "arquivamento-transacoes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Abre os segmentos já gravados antes das reconstruções da inicialização, que também os leem, e
+     * exclui do banco as linhas que um arquivamento interrompido deixou nos dois lugares.
+     */
+    @PostConstruct
+    public void abrir() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            Path pasta = Path.of(diretorio);
+            Files.createDirectories(pasta);
+            List<Path> arquivos;
+            try (Stream<Path> listagem = Files.list(pasta)) {
+                arquivos = listagem.sorted().toList();
+            }
+            List<SegmentoFrio> abertos = new ArrayList<>();
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                if (nome.endsWith(SUFIXO + ".tmp")) {
+                    // Gravação interrompida: as linhas continuam no banco
+                    Files.delete(arquivo);
+                } else if (nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO)) {
+                    abertos.add(SegmentoFrio.abrir(arquivo));
+                }
+            }
+            abertos.forEach(this::descartarJaArquivadas);
+            segmentos = List.copyOf(abertos);
+            categorias = categoriasDe(segmentos);
+            log.info("Camada fria: {} segmentos, {} transações", abertos.size(),
+                    abertos.stream().mapToLong(SegmentoFrio::quantidade).sum());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir os segmentos em " + diretorio, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (habilitado) {
+            agendador.scheduleWithFixedDelay(this::arquivarAgendado, 0, intervaloVerificacao, TimeUnit.HOURS);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /** Sem segmentos, as consultas nem precisam olhar a camada fria. */
+    public boolean vazio() {
+        return segmentos.isEmpty();
+    }
+
+    public List<SegmentoArquivado> listarSegmentos() {
+        return segmentos.stream().map(ArquivoFrio::descrever).toList();
+    }
+
+    /** Executa a leitura sem que um ano mude de camada no meio dela. */
+    public <T> T lerConsistente(Supplier<T> leitura) {
+        if (!habilitado) {
+            return leitura.get();
+        }
+        consistencia.readLock().lock();
+        try {
+            return leitura.get();
+        } finally {
+            consistencia.readLock().unlock();
+        }
+    }
+
+    /**
+     * Move as transações do ano para um novo segmento e as exclui do banco. Vazio se o ano não tem
+     * transações no banco.
+     *
+     * @throws IllegalArgumentException se o ano ainda não está encerrado há {@code anos-quentes} anos
+     */
+    public synchronized Optional<SegmentoArquivado> arquivar(int ano) {
+        if (!habilitado) {
+            throw new IllegalStateException("Camada fria desabilitada (organizador.arquivo.habilitado)");
+        }
+        if (ano > ultimoAnoFechado()) {
+            throw new IllegalArgumentException("O ano " + ano + " ainda não pode ser arquivado: o último ano fechado é "
+                    + ultimoAnoFechado());
+        }
+        LocalDate inicio = LocalDate.of(ano, 1, 1);
+        LocalDate fim = LocalDate.of(ano, 12, 31);
+        String prefixoAno = String.format("%s%04d-", PREFIXO, ano);
+        long doAno = segmentos.stream().filter(s -> s.arquivo().getFileName().toString().startsWith(prefixoAno)).count();
+        Path arquivo = Path.of(diretorio).resolve(String.format("%s%03d%s", prefixoAno, doAno + 1, SUFIXO));
+
+        SegmentoFrio[] novo = new SegmentoFrio[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Transacao> transacoes = transacaoRepository.findParaArquivar(inicio, fim);
+                if (transacoes.isEmpty()) {
+                    return;
+                }
+                SegmentoFrio.gravar(arquivo, transacoes.stream().map(SegmentoFrio.Registro::de).toList());
+                novo[0] = SegmentoFrio.abrir(arquivo);
+                // Liberada só depois do commit: até lá ninguém junta banco e segmentos
+                consistencia.writeLock().lock();
+                List<Long> ids = transacoes.stream().map(Transacao::getId).toList();
+                for (int i = 0; i < ids.size(); i += tamanhoLote) {
+                    transacaoRepository.excluirPorIds(ids.subList(i, Math.min(i + tamanhoLote, ids.size())));
+                }
+                publicar(novo[0]);
+            });
+        } catch (RuntimeException e) {
+            if (novo[0] != null) {
+                retirar(novo[0]);
+            }
+            try {
+                Files.deleteIfExists(arquivo);
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw e;
+        } finally {
+            if (consistencia.isWriteLockedByCurrentThread()) {
+                consistencia.writeLock().unlock();
+            }
+        }
+        if (novo[0] == null) {
+            return Optional.empty();
+        }
+        log.info("Ano {} arquivado: {} transações em {} ({} bytes)", ano, novo[0].quantidade(), arquivo, novo[0].tamanho());
+        return Optional.of(descrever(novo[0]));
+    }
+
+    /** Arquiva todos os anos fechados que ainda têm transações no banco. */
+    public List<SegmentoArquivado> arquivarFechados() {
+        LocalDate primeira = transacaoRepository.findPrimeiraData();
+        List<SegmentoArquivado> arquivados = new ArrayList<>();
+        if (primeira != null) {
+            for (int ano = primeira.getYear(); ano <= ultimoAnoFechado(); ano++) {
+                arquivar(ano).ifPresent(arquivados::add);
+            }
+        }
+        return arquivados;
+    }
+
+    public boolean possuiCategoria(Long categoriaId) {
+        return categorias.contains(categoriaId);
+    }
+
+    /** Categorias com alguma transação arquivada. */
+    public Set<Long> categoriasArquivadas() {
+        return categorias;
+    }
+
+    public boolean contem(Long id) {
+        return buscarRegistro(id).isPresent();
+    }
+
+    public Optional<Transacao> buscar(Long id) {
+        return buscarRegistro(id).map(registro -> converter(List.of(registro)).get(0));
+    }
+
+    /** Transações arquivadas entre {@code inicio} e {@code fim} (nulos não limitam) que atendem o filtro. */
+    public List<Transacao> listar(LocalDate inicio, LocalDate fim, Predicate<SegmentoFrio.Registro> filtro) {
+        if (segmentos.isEmpty()) {
+            return List.of();
+        }
+        return converter(emParalelo(inicio, fim, bloco -> bloco.registros().stream().filter(filtro).toList()));
+    }
+
+    public List<Transacao> listar(Predicate<SegmentoFrio.Registro> filtro) {
+        return listar(null, null, filtro);
+    }
+
+    /** As {@code k} maiores do filtro, em ordem decrescente de valor e id; cada bloco devolve só as suas k maiores. */
+    public List<Transacao> maiores(LocalDate inicio, LocalDate fim, Predicate<SegmentoFrio.Registro> filtro, int k) {
+        if (segmentos.isEmpty()) {
+            return List.of();
+        }
+        Comparator<SegmentoFrio.Registro> ordem = Comparator.comparingLong(SegmentoFrio.Registro::centavos)
+                .thenComparingLong(SegmentoFrio.Registro::id).reversed();
+        List<SegmentoFrio.Registro> candidatos = emParalelo(inicio, fim,
+                bloco -> bloco.registros().stream().filter(filtro).sorted(ordem).limit(k).toList());
+        return converter(candidatos.stream().sorted(ordem).limit(k).toList());
+    }
+
+    /** Total do tipo no período, lendo só as colunas de data, tipo e valor. */
+    public BigDecimal somar(TipoTransacao tipo, LocalDate inicio, LocalDate fim) {
+        long primeiro = inicio.toEpochDay();
+        long ultimo = fim.toEpochDay();
+        byte ordinal = (byte) tipo.ordinal();
+        return BigDecimal.valueOf(somarCentavos(inicio, fim, bloco -> {
+            int[] dias = bloco.dias();
+            byte[] tipos = bloco.tipos();
+            long[] centavos = bloco.centavos();
+            long soma = 0;
+            for (int i = 0; i < dias.length; i++) {
+                if (tipos[i] == ordinal && dias[i] >= primeiro && dias[i] <= ultimo) {
+                    soma += centavos[i];
+                }
+            }
+            return soma;
+        }), 2);
+    }
+
+    /** Total das transações arquivadas que atendem o filtro. */
+    public BigDecimal somar(Predicate<SegmentoFrio.Registro> filtro) {
+        return BigDecimal.valueOf(somarCentavos(null, null, bloco -> bloco.registros().stream()
+                .filter(filtro).mapToLong(SegmentoFrio.Registro::centavos).sum()), 2);
+    }
+
+    /** Linhas {@code (tipo, data, soma, quantidade)}, como {@link ArmazenamentoTransacoes#sumPorTipoEData()}. */
+    public List<Object[]> somarPorTipoEData() {
+        Map<Long, long[]> somas = new HashMap<>();
+        for (Map<Long, long[]> parcial : emParalelo(null, null, bloco -> {
+            int[] dias = bloco.dias();
+            byte[] tipos = bloco.tipos();
+            long[] centavos = bloco.centavos();
+            Map<Long, long[]> porDia = new HashMap<>();
+            for (int i = 0; i < dias.length; i++) {
+                long[] soma = porDia.computeIfAbsent((long) dias[i] * TIPOS.length + tipos[i], chave -> new long[2]);
+                soma[0] += centavos[i];
+                soma[1]++;
+            }
+            return List.of(porDia);
+        })) {
+            parcial.forEach((chave, soma) -> somas.merge(chave, soma, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]}));
+        }
+        List<Object[]> linhas = new ArrayList<>(somas.size());
+        somas.forEach((chave, soma) -> linhas.add(new Object[]{TIPOS[(int) Math.floorMod(chave, (long) TIPOS.length)],
+                LocalDate.ofEpochDay(Math.floorDiv(chave, (long) TIPOS.length)), BigDecimal.valueOf(soma[0], 2), soma[1]}));
+        return linhas;
+    }
+
+    /** Linhas {@code (categoriaId, tipo, ano, mês, quantidade, total)} do período, como {@link ArmazenamentoTransacoes#sumPorCategoriaTipoEMes}. */
+    public List<Object[]> somarPorCategoriaTipoEMes(LocalDate inicio, LocalDate fim) {
+        record Chave(long categoriaId, byte tipo, int mes) {
+        }
+        long primeiro = inicio.toEpochDay();
+        long ultimo = fim.toEpochDay();
+        Map<Chave, long[]> somas = new HashMap<>();
+        for (Map<Chave, long[]> parcial : emParalelo(inicio, fim, bloco -> {
+            int[] dias = bloco.dias();
+            byte[] tipos = bloco.tipos();
+            long[] categoriasBloco = bloco.categorias();
+            long[] centavos = bloco.centavos();
+            Map<Chave, long[]> porMes = new HashMap<>();
+            for (int i = 0; i < dias.length; i++) {
+                if (dias[i] >= primeiro && dias[i] <= ultimo) {
+                    LocalDate data = LocalDate.ofEpochDay(dias[i]);
+                    long[] soma = porMes.computeIfAbsent(new Chave(categoriasBloco[i], tipos[i],
+                            data.getYear() * 12 + data.getMonthValue() - 1), chave -> new long[2]);
+                    soma[0] += centavos[i];
+                    soma[1]++;
+                }
+            }
+            return List.of(porMes);
+        })) {
+            parcial.forEach((chave, soma) -> somas.merge(chave, soma, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]}));
+        }
+        List<Object[]> linhas = new ArrayList<>(somas.size());
+        somas.forEach((chave, soma) -> linhas.add(new Object[]{chave.categoriaId(), TIPOS[chave.tipo()], chave.mes() / 12,
+                chave.mes() % 12 + 1, soma[1], BigDecimal.valueOf(soma[0], 2)}));
+        return linhas;
+    }
+
+    /** Linhas {@code (valor, parcelas, parcelaAtual, data)}, como {@link ArmazenamentoTransacoes#findParcelasEmAberto}. */
+    public List<Object[]> parcelasEmAberto(LocalDate fim) {
+        int mesFim = fim.getYear() * 12 + fim.getMonthValue();
+        return emParalelo(null, fim, bloco -> bloco.registros().stream()
+                .filter(r -> r.tipo() == TipoTransacao.DESPESA && r.parcelas() > 1 && !r.data().isAfter(fim)
+                        && r.parcelas() - r.parcelaAtual() > mesFim - (r.data().getYear() * 12 + r.data().getMonthValue()))
+                .map(r -> new Object[]{r.valor(), r.parcelas(), r.parcelaAtual(), r.data()})
+                .toList());
+    }
+
+    /** Total arquivado do tipo por id de categoria. */
+    public Map<Long, BigDecimal> somarPorCategoria(TipoTransacao tipo) {
+        byte ordinal = (byte) tipo.ordinal();
+        Map<Long, Long> centavosPorCategoria = new HashMap<>();
+        for (Map<Long, Long> parcial : emParalelo(null, null, bloco -> {
+            byte[] tipos = bloco.tipos();
+            long[] categoriasBloco = bloco.categorias();
+            long[] centavos = bloco.centavos();
+            Map<Long, Long> porCategoria = new HashMap<>();
+            for (int i = 0; i < tipos.length; i++) {
+                if (tipos[i] == ordinal) {
+                    porCategoria.merge(categoriasBloco[i], centavos[i], Long::sum);
+                }
+            }
+            return List.of(porCategoria);
+        })) {
+            parcial.forEach((categoria, centavos) -> centavosPorCategoria.merge(categoria, centavos, Long::sum));
+        }
+        Map<Long, BigDecimal> totais = new HashMap<>();
+        centavosPorCategoria.forEach((categoria, centavos) -> totais.put(categoria, BigDecimal.valueOf(centavos, 2)));
+        return totais;
+    }
+
+    /** Linhas {@code (categoriaId, quantidade, total, última data)} das categorias informadas. */
+    public List<Object[]> agregarPorCategoria(Collection<Long> categoriaIds) {
+        Map<Long, Object[]> agregados = new HashMap<>();
+        for (SegmentoFrio.Registro registro : registrosDasCategorias(categoriaIds)) {
+            agregados.merge(registro.categoriaId(),
+                    new Object[]{registro.categoriaId(), 1L, registro.valor(), registro.data()},
+                    (a, b) -> new Object[]{a[0], (Long) a[1] + (Long) b[1], ((BigDecimal) a[2]).add((BigDecimal) b[2]),
+                            ((LocalDate) a[3]).isAfter((LocalDate) b[3]) ? a[3] : b[3]});
+        }
+        return new ArrayList<>(agregados.values());
+    }
+
+    /** Linhas {@code (categoriaId, mês AAAAMM, valor, quantidade)} das categorias informadas. */
+    public List<Object[]> agruparValores(Collection<Long> categoriaIds) {
+        record Chave(long categoriaId, int mes, long centavos) {
+        }
+        Map<Chave, Long> grupos = new HashMap<>();
+        for (SegmentoFrio.Registro registro : registrosDasCategorias(categoriaIds)) {
+            grupos.merge(new Chave(registro.categoriaId(), registro.data().getYear() * 100 + registro.data().getMonthValue(),
+                    registro.centavos()), 1L, Long::sum);
+        }
+        List<Object[]> linhas = new ArrayList<>(grupos.size());
+        grupos.forEach((chave, quantidade) -> linhas.add(new Object[]{chave.categoriaId(), chave.mes(),
+                BigDecimal.valueOf(chave.centavos(), 2), quantidade}));
+        return linhas;
+    }
+
+    public Map<Long, Long> contarPorCategoria() {
+        Map<Long, Long> contagem = new HashMap<>();
+        for (Map<Long, Long> parcial : emParalelo(null, null, bloco -> {
+            Map<Long, Long> porCategoria = new HashMap<>();
+            for (long categoria : bloco.categorias()) {
+                porCategoria.merge(categoria, 1L, Long::sum);
+            }
+            return List.of(porCategoria);
+        })) {
+            parcial.forEach((categoria, quantidade) -> contagem.merge(categoria, quantidade, Long::sum));
+        }
+        return contagem;
+    }
+
+    /** O filtro das operações em lote aplicado a uma transação arquivada (a descrição contém o texto, sem diferenciar maiúsculas). */
+    public static Predicate<SegmentoFrio.Registro> filtro(FiltroTransacoes filtro) {
+        String texto = filtro.descricao() != null && !filtro.descricao().isBlank()
+                ? filtro.descricao().toLowerCase(Locale.ROOT) : null;
+        return registro -> (filtro.dataInicio() == null || !registro.data().isBefore(filtro.dataInicio()))
+                && (filtro.dataFim() == null || !registro.data().isAfter(filtro.dataFim()))
+                && (filtro.categoriaId() == null || filtro.categoriaId() == registro.categoriaId())
+                && (filtro.tipo() == null || filtro.tipo() == registro.tipo())
+                && (texto == null || registro.descricao().toLowerCase(Locale.ROOT).contains(texto));
+    }
+
+    // O segmento foi publicado e o commit não aconteceu: o segmento vale, as mesmas linhas do banco saem
+    private void descartarJaArquivadas(SegmentoFrio segmento) {
+        List<Long> noBanco = transacaoRepository.findIdsEntre(segmento.dataMinima(), segmento.dataMaxima());
+        if (noBanco.isEmpty()) {
+            return;
+        }
+        Set<Long> arquivadas = new HashSet<>(segmento.quantidade());
+        for (SegmentoFrio.Bloco bloco : segmento.blocos()) {
+            for (long id : bloco.ids()) {
+                arquivadas.add(id);
+            }
+        }
+        List<Long> repetidas = noBanco.stream().filter(arquivadas::contains).toList();
+        if (repetidas.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < repetidas.size(); i += tamanhoLote) {
+                transacaoRepository.excluirPorIds(repetidas.subList(i, Math.min(i + tamanhoLote, repetidas.size())));
+            }
+        });
+        log.warn("Arquivamento interrompido em {}: {} transações já arquivadas excluídas do banco",
+                segmento.arquivo().getFileName(), repetidas.size());
+    }
+
+    private void arquivarAgendado() {
+        try {
+            arquivarFechados();
+        } catch (RuntimeException e) {
+            log.warn("Falha no arquivamento dos anos fechados", e);
+        }
+    }
+
+    // O último ano cujo 31/12 fica a mais de anosQuentes anos de hoje
+    private int ultimoAnoFechado() {
+        return LocalDate.now().minusYears(anosQuentes).getYear() - 1;
+    }
+
+    private Optional<SegmentoFrio.Registro> buscarRegistro(Long id) {
+        if (id == null || segmentos.isEmpty()) {
+            return Optional.empty();
+        }
+        return segmentos.stream()
+                .flatMap(segmento -> segmento.blocos().stream())
+                .filter(bloco -> bloco.podeConter(id))
+                .flatMap(bloco -> {
+                    long[] ids = bloco.ids();
+                    for (int i = 0; i < ids.length; i++) {
+                        if (ids[i] == id) {
+                            return Stream.of(bloco.registros().get(i));
+                        }
+                    }
+                    return Stream.empty();
+                })
+                .findFirst();
+    }
+
+    private List<SegmentoFrio.Registro> registrosDasCategorias(Collection<Long> categoriaIds) {
+        Set<Long> procuradas = new HashSet<>(categoriaIds);
+        procuradas.retainAll(categorias);
+        if (procuradas.isEmpty()) {
+            return List.of();
+        }
+        return emParalelo(null, null, bloco -> {
+            long[] categoriasBloco = bloco.categorias();
+            for (long categoria : categoriasBloco) {
+                if (procuradas.contains(categoria)) {
+                    return bloco.registros().stream().filter(r -> procuradas.contains(r.categoriaId())).toList();
+                }
+            }
+            return List.of();
+        });
+    }
+
+    // Os blocos de todos os segmentos no período são lidos em paralelo; cada um devolve a sua parte do resultado
+    private <T> List<T> emParalelo(LocalDate inicio, LocalDate fim, Function<SegmentoFrio.Bloco, List<T>> leitura) {
+        return segmentos.stream()
+                .flatMap(segmento -> segmento.blocos(inicio, fim).stream())
+                .toList()
+                .parallelStream()
+                .flatMap(bloco -> leitura.apply(bloco).stream())
+                .toList();
+    }
+
+    private long somarCentavos(LocalDate inicio, LocalDate fim, ToLongFunction<SegmentoFrio.Bloco> soma) {
+        return segmentos.stream()
+                .flatMap(segmento -> segmento.blocos(inicio, fim).stream())
+                .toList()
+                .parallelStream()
+                .mapToLong(soma)
+                .sum();
+    }
+
+    // Categorias lidas de uma vez, em geral do cache de segundo nível
+    private List<Transacao> converter(List<SegmentoFrio.Registro> registros) {
+        if (registros.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Categoria> porId = new HashMap<>();
+        for (Categoria categoria : categoriaRepository.findAllById(
+                registros.stream().map(SegmentoFrio.Registro::categoriaId).distinct().toList())) {
+            porId.put(categoria.getId(), categoria);
+        }
+        return registros.stream().map(r -> r.paraTransacao(porId.get(r.categoriaId()))).toList();
+    }
+
+    private void publicar(SegmentoFrio segmento) {
+        List<SegmentoFrio> novos = new ArrayList<>(segmentos);
+        novos.add(segmento);
+        segmentos = List.copyOf(novos);
+        categorias = categoriasDe(segmentos);
+    }
+
+    private void retirar(SegmentoFrio segmento) {
+        segmentos = segmentos.stream().filter(s -> s != segmento).toList();
+        categorias = categoriasDe(segmentos);
+    }
+
+    private static Set<Long> categoriasDe(List<SegmentoFrio> segmentos) {
+        Set<Long> ids = new HashSet<>();
+        for (SegmentoFrio segmento : segmentos) {
+            for (SegmentoFrio.Bloco bloco : segmento.blocos()) {
+                for (long categoria : bloco.categorias()) {
+                    ids.add(categoria);
+                }
+            }
+        }
+        return Set.copyOf(ids);
+    }
+
+    private static SegmentoArquivado descrever(SegmentoFrio segmento) {
+        return new SegmentoArquivado(segmento.arquivo().getFileName().toString(), segmento.dataMinima(),
+                segmento.dataMaxima(), segmento.quantidade(), segmento.tamanho());
+    }
+}
@@ -0,0 +1,47 @@
+package com.organizadorfinancas.service;
+
+/**
+ * Árvore de Fenwick (binary indexed tree) de somas: soma de qualquer intervalo de posições e
+ * alteração de uma posição em O(log n). Não é thread-safe; quem usa controla o acesso.
+ */
+final class ArvoreFenwick {
+
+    // Base 1: arvore[i] guarda a soma das posições (i - (i & -i), i]
+    private final long[] arvore;
+
+    /** Monta a árvore a partir dos valores de cada posição em O(n). */
+    ArvoreFenwick(long[] valores) {
+        arvore = new long[valores.length + 1];
+        System.arraycopy(valores, 0, arvore, 1, valores.length);
+        for (int i = 1; i < arvore.length; i++) {
+            int pai = i + (i & -i);
+            if (pai < arvore.length) {
+                arvore[pai] += arvore[i];
+            }
+        }
+    }
+
+    int tamanho() {
+        return arvore.length - 1;
+    }
+
+    void somar(int posicao, long valor) {
+        for (int i = posicao + 1; i < arvore.length; i += i & -i) {
+            arvore[i] += valor;
+        }
+    }
+
+    /** Soma das posições de {@code inicio} a {@code fim}, inclusive. */
+    long somar(int inicio, int fim) {
+        return prefixo(fim) - prefixo(inicio - 1);
+    }
+
+    // Soma das posições de 0 a posicao
+    private long prefixo(int posicao) {
+        long soma = 0;
+        for (int i = posicao + 1; i > 0; i -= i & -i) {
+            soma += arvore[i];
+        }
+        return soma;
+    }
+}
@@ -0,0 +1,405 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.ResumoBackup;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Backup e restauração do banco no {@link FormatoBackup}. O backup lê categorias, orçamentos e transações numa
+ * única transação somente leitura e serializável, que no H2 enxerga um retrato do banco inteiro sem travar as
+ * escritas, e percorre as transações em páginas por id: o heap guarda uma página e um bloco, qualquer que seja
+ * o volume. Os arquivos ficam em {@code diretorio}, com os {@code manter} mais recentes.
+ *
+ * A restauração recusa um corpo que não começa como backup ou passa de {@code tamanho-maximo-mb} antes de
+ * gravá-lo em disco, lê o arquivo inteiro conferindo os checksums antes de tocar no banco e depois troca todo o
+ * conteúdo numa só transação, com inserções em lote por bloco; ao final refaz as estruturas em memória e
+ * descarta os caches. Os segmentos da camada fria não entram no backup: já são arquivos imutáveis em disco.
+ */
+@Service
+public class BackupDados {
+
+    private static final String PREFIXO = "backup-";
+    private static final String SUFIXO = ".ofb";
+    private static final DateTimeFormatter NOME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    // Só nomes gerados aqui: o nome vem da URL e não pode apontar para fora do diretório
+    private static final Pattern NOME_ARQUIVO = Pattern.compile(Pattern.quote(PREFIXO) + "\\d{8}-\\d{6}-\\d{3}" + Pattern.quote(SUFIXO));
+    // Derivadas primeiro, por causa das chaves estrangeiras
+    private static final List<String> TABELAS = List.of("faixas_distribuicao", "estatisticas_categoria", "transacoes",
+            "orcamentos", "categorias");
+
+    private static final String SELECT_TRANSACOES =
+            "SELECT id, descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id, observacoes, versao " +
+            "FROM transacoes WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String INSERT_CATEGORIA =
+            "INSERT INTO categorias (id, nome, essencial, tipo, versao) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORCAMENTO =
+            "INSERT INTO orcamentos (id, categoria_id, tipo_categoria, limite_mensal) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_TRANSACAO =
+            "INSERT INTO transacoes (id, descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id, " +
+            "observacoes, versao) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Logger log = LoggerFactory.getLogger(BackupDados.class);
+
+    /** Um backup gravado em disco. */
+    public record Backup(Path arquivo, ResumoBackup resumo) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Autowired
+    private SomasPorData somasPorData;
+
+    @Autowired
+    private MotorOrcamentos motorOrcamentos;
+
+    @Autowired
+    private DetectorGastosInvisiveis detectorGastosInvisiveis;
+
+    @Autowired
+    private CoalescedorConsultas coalescedorConsultas;
+
+    @Value("${organizador.backup.diretorio:./data/backup}")
+    private String diretorio = "./data/backup";
+
+    @Value("${organizador.backup.manter:3}")
+    private int manter = 3;
+
+    @Value("${organizador.backup.tamanho-maximo-mb:512}")
+    private long tamanhoMaximoMb = 512;
+
+    @Value("${organizador.armazenamento.transacoes:jpa}")
+    private String armazenamento = "jpa";
+
+    /** Grava um backup novo do banco e apaga os que passaram de {@code manter}. */
+    public synchronized Backup gerar() {
+        verificarArmazenamento();
+        long inicio = System.nanoTime();
+        Instant geradoEm = Instant.now();
+        Path pasta = pasta();
+        Path arquivo = pasta.resolve(PREFIXO + NOME.format(geradoEm) + SUFIXO);
+
+        TransactionTemplate retrato = new TransactionTemplate(transactionManager);
+        // No H2 a leitura repetível fixa cada tabela na sua primeira leitura; a serializável fixa o banco inteiro
+        retrato.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        retrato.setReadOnly(true);
+        FormatoBackup.Conteudo conteudo;
+        try (FormatoBackup.Escritor escritor = new FormatoBackup.Escritor(arquivo, geradoEm)) {
+            // Um ano que mudasse de camada durante a leitura voltaria para o banco na restauração e ficaria duplicado
+            arquivoFrio.lerConsistente(() -> {
+                retrato.executeWithoutResult(status -> copiar(escritor));
+                return null;
+            });
+            conteudo = escritor.concluir();
+        }
+        removerAntigos(pasta);
+
+        ResumoBackup resumo = resumir(arquivo.getFileName().toString(), conteudo, tamanho(arquivo));
+        log.info("Backup {} gerado em {} ms: {} categorias, {} orçamentos, {} transações, {} bytes", arquivo,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), conteudo.categorias(), conteudo.orcamentos(),
+                conteudo.transacoes(), resumo.bytes());
+        return new Backup(arquivo, resumo);
+    }
+
+    /**
+     * O arquivo de um backup gravado, pelo nome de {@link ResumoBackup#arquivo()}. Vazio se não existe ou já
+     * foi apagado por passar de {@code manter}.
+     *
+     * @throws IllegalArgumentException se o nome não é o de um backup
+     */
+    public Optional<Path> localizar(String nome) {
+        if (nome == null || !NOME_ARQUIVO.matcher(nome).matches()) {
+            throw new IllegalArgumentException("Nome de backup inválido: " + nome);
+        }
+        Path arquivo = pasta().resolve(nome);
+        return Files.isRegularFile(arquivo) ? Optional.of(arquivo) : Optional.empty();
+    }
+
+    /**
+     * Grava o corpo recebido num temporário e restaura a partir dele. O tamanho declarado ({@code -1} se
+     * desconhecido) e a magia e a versão do início são conferidos antes de gravar qualquer byte, e a cópia para
+     * ao passar de {@code tamanho-maximo-mb}.
+     *
+     * @throws BackupGrandeDemaisException se o corpo passa do tamanho máximo
+     * @throws IllegalStateException       se o corpo não é um backup ou é de outra versão
+     */
+    public ResumoBackup restaurar(InputStream corpo, long tamanhoDeclarado) {
+        verificarArmazenamento();
+        long maximo = tamanhoMaximoMb * 1024 * 1024;
+        if (tamanhoDeclarado > maximo) {
+            throw grandeDemais();
+        }
+        Path temporario = null;
+        try {
+            byte[] inicio = corpo.readNBytes(FormatoBackup.TAMANHO_INICIO);
+            if (inicio.length < FormatoBackup.TAMANHO_INICIO) {
+                throw new IllegalStateException("O arquivo não é um backup do organizador");
+            }
+            FormatoBackup.conferirInicio(inicio);
+            temporario = Files.createTempFile(pasta(), "restauracao-", SUFIXO + ".tmp");
+            try (OutputStream saida = Files.newOutputStream(temporario)) {
+                saida.write(inicio);
+                byte[] buffer = new byte[1 << 16];
+                long recebidos = inicio.length;
+                for (int lidos; (lidos = corpo.read(buffer)) != -1; ) {
+                    recebidos += lidos;
+                    if (recebidos > maximo) {
+                        throw grandeDemais();
+                    }
+                    saida.write(buffer, 0, lidos);
+                }
+            }
+            return restaurar(temporario);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao receber o backup", e);
+        } finally {
+            if (temporario != null) {
+                try {
+                    Files.deleteIfExists(temporario);
+                } catch (IOException e) {
+                    log.warn("Falha ao apagar {}", temporario, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Substitui todo o conteúdo do banco pelo do backup.
+     *
+     * @throws IllegalStateException se o backup está corrompido ou não traz categorias que têm transações na
+     *                               camada fria
+     */
+    public synchronized ResumoBackup restaurar(Path arquivo) {
+        verificarArmazenamento();
+        long inicio = System.nanoTime();
+        // Confere o arquivo inteiro antes de apagar qualquer coisa
+        Set<Long> categorias = new HashSet<>();
+        FormatoBackup.Conteudo conteudo = FormatoBackup.ler(arquivo, new FormatoBackup.Destino() {
+            @Override
+            public void categorias(List<FormatoBackup.LinhaCategoria> lidas) {
+                lidas.forEach(categoria -> categorias.add(categoria.id()));
+            }
+
+            @Override
+            public void orcamentos(List<FormatoBackup.LinhaOrcamento> lidos) {
+            }
+
+            @Override
+            public void transacoes(List<SegmentoFrio.Registro> lidas) {
+            }
+        });
+        Set<Long> semCategoria = new HashSet<>(arquivoFrio.categoriasArquivadas());
+        semCategoria.removeAll(categorias);
+        if (!semCategoria.isEmpty()) {
+            throw new IllegalStateException("O backup não traz as categorias " + semCategoria
+                    + ", que têm transações na camada fria");
+        }
+
+        // No H2 o ALTER TABLE confirma a transação corrente: as identidades avançam antes da troca
+        reiniciarIdentidade("categorias", conteudo.maiorIdCategoria());
+        reiniciarIdentidade("orcamentos", conteudo.maiorIdOrcamento());
+        reiniciarIdentidade("transacoes", conteudo.maiorIdTransacao());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String tabela : TABELAS) {
+                jdbcTemplate.update("DELETE FROM " + tabela);
+            }
+            FormatoBackup.ler(arquivo, new Gravacao());
+        });
+        reconstruir();
+
+        log.info("Backup de {} restaurado em {} ms: {} categorias, {} orçamentos, {} transações", conteudo.geradoEm(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), conteudo.categorias(), conteudo.orcamentos(),
+                conteudo.transacoes());
+        return resumir(null, conteudo, tamanho(arquivo));
+    }
+
+    private void copiar(FormatoBackup.Escritor escritor) {
+        jdbcTemplate.query("SELECT id, nome, essencial, tipo, versao FROM categorias ORDER BY id", rs -> {
+            escritor.categoria(new FormatoBackup.LinhaCategoria(rs.getLong("id"), rs.getString("nome"),
+                    rs.getBoolean("essencial"), TipoCategoria.valueOf(rs.getString("tipo")), rs.getLong("versao")));
+        });
+        jdbcTemplate.query("SELECT id, categoria_id, tipo_categoria, limite_mensal FROM orcamentos ORDER BY id", rs -> {
+            String tipoCategoria = rs.getString("tipo_categoria");
+            escritor.orcamento(new FormatoBackup.LinhaOrcamento(rs.getLong("id"), rs.getObject("categoria_id", Long.class),
+                    tipoCategoria != null ? TipoCategoria.valueOf(tipoCategoria) : null,
+                    centavos(rs.getBigDecimal("limite_mensal"))));
+        });
+        long[] ultimoId = {0};
+        int lidas;
+        do {
+            int[] pagina = {0};
+            jdbcTemplate.query(SELECT_TRANSACOES, rs -> {
+                ultimoId[0] = rs.getLong("id");
+                escritor.transacao(new SegmentoFrio.Registro(ultimoId[0], rs.getString("descricao"),
+                        centavos(rs.getBigDecimal("valor")), rs.getObject("data", LocalDate.class),
+                        TipoTransacao.valueOf(rs.getString("tipo")), rs.getBoolean("recorrente"), rs.getInt("parcelas"),
+                        rs.getInt("parcela_atual"), rs.getLong("categoria_id"), rs.getString("observacoes"),
+                        rs.getLong("versao")));
+                pagina[0]++;
+            }, ultimoId[0], FormatoBackup.LINHAS_POR_BLOCO);
+            lidas = pagina[0];
+        } while (lidas == FormatoBackup.LINHAS_POR_BLOCO);
+    }
+
+    /** Insere cada bloco lido num lote. */
+    private final class Gravacao implements FormatoBackup.Destino {
+
+        @Override
+        public void categorias(List<FormatoBackup.LinhaCategoria> categorias) {
+            List<Object[]> linhas = new ArrayList<>(categorias.size());
+            for (FormatoBackup.LinhaCategoria categoria : categorias) {
+                linhas.add(new Object[]{categoria.id(), categoria.nome(), categoria.essencial(), categoria.tipo().name(),
+                        categoria.versao()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_CATEGORIA, linhas);
+        }
+
+        @Override
+        public void orcamentos(List<FormatoBackup.LinhaOrcamento> orcamentos) {
+            List<Object[]> linhas = new ArrayList<>(orcamentos.size());
+            for (FormatoBackup.LinhaOrcamento orcamento : orcamentos) {
+                linhas.add(new Object[]{orcamento.id(), orcamento.categoriaId(),
+                        orcamento.tipoCategoria() != null ? orcamento.tipoCategoria().name() : null,
+                        BigDecimal.valueOf(orcamento.limiteCentavos(), 2)});
+            }
+            jdbcTemplate.batchUpdate(INSERT_ORCAMENTO, linhas);
+        }
+
+        @Override
+        public void transacoes(List<SegmentoFrio.Registro> transacoes) {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACAO, transacoes, transacoes.size(), (ps, transacao) -> {
+                ps.setLong(1, transacao.id());
+                ps.setString(2, transacao.descricao());
+                ps.setBigDecimal(3, transacao.valor());
+                ps.setDate(4, Date.valueOf(transacao.data()));
+                ps.setString(5, transacao.tipo().name());
+                ps.setBoolean(6, transacao.recorrente());
+                ps.setInt(7, transacao.parcelas());
+                ps.setInt(8, transacao.parcelaAtual());
+                ps.setLong(9, transacao.categoriaId());
+                ps.setString(10, transacao.observacoes());
+                ps.setLong(11, transacao.versao());
+            });
+        }
+    }
+
+    // A troca usou JDBC direto, fora do controle do Hibernate e dos contadores em memória
+    private void reconstruir() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        estatisticasCategorias.recalcularTodas();
+        estatisticasCategorias.invalidarContagem();
+        distribuicoesCategorias.recalcularDivergentes();
+        somasPorData.reconstruir();
+        motorOrcamentos.reconciliar();
+        detectorGastosInvisiveis.reconstruir();
+        coalescedorConsultas.invalidar();
+    }
+
+    private void reiniciarIdentidade(String tabela, long maiorDoBackup) {
+        Long maiorAtual = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tabela, Long.class);
+        long proximo = Math.max(maiorDoBackup, maiorAtual != null ? maiorAtual : 0) + 1;
+        jdbcTemplate.execute("ALTER TABLE " + tabela + " ALTER COLUMN id RESTART WITH " + proximo);
+    }
+
+    private void removerAntigos(Path pasta) {
+        try (Stream<Path> listagem = Files.list(pasta)) {
+            List<Path> antigos = listagem
+                    .filter(a -> a.getFileName().toString().startsWith(PREFIXO) && a.getFileName().toString().endsWith(SUFIXO))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .skip(Math.max(1, manter))
+                    .toList();
+            for (Path antigo : antigos) {
+                Files.deleteIfExists(antigo);
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao apagar backups antigos em {}", pasta, e);
+        }
+    }
+
+    private BackupGrandeDemaisException grandeDemais() {
+        return new BackupGrandeDemaisException("Backup maior que " + tamanhoMaximoMb + " MB");
+    }
+
+    private void verificarArmazenamento() {
+        // O journal guarda as transações fora do banco; o backup leria a tabela vazia
+        if ("journal".equals(armazenamento)) {
+            throw new IllegalStateException("Backup não suportado com organizador.armazenamento.transacoes=journal");
+        }
+    }
+
+    private Path pasta() {
+        try {
+            return Files.createDirectories(Path.of(diretorio));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao criar o diretório de backups " + diretorio, e);
+        }
+    }
+
+    private static ResumoBackup resumir(String arquivo, FormatoBackup.Conteudo conteudo, long bytes) {
+        return new ResumoBackup(arquivo, conteudo.geradoEm(), conteudo.categorias(), conteudo.orcamentos(),
+                conteudo.transacoes(), bytes);
+    }
+
+    private static long tamanho(Path arquivo) {
+        try {
+            return Files.size(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,8 @@
+package com.organizadorfinancas.service;
+
+public class BackupGrandeDemaisException extends RuntimeException {
+
+    public BackupGrandeDemaisException(String message) {
+        super(message);
+    }
+}
@@ -1,22 +1,62 @@
 package com.organizadorfinancas.service;
 
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoCategoria;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
+@Timed(value = "organizador.servico", description = "Tempo de execução das operações de serviço")
 public class CategoriaService {
     
     @Autowired
     private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private OrcamentoRepository orcamentoRepository;
+
+    @Autowired
+    private MotorOrcamentos motorOrcamentos;
+
+    @Autowired
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private CoalescedorConsultas coalescedorConsultas;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     
+    /** Todas as categorias com suas estatísticas, lidas dos contadores mantidos a cada escrita. */
     public List<Categoria> findAll() {
-        return categoriaRepository.findAll();
+        List<Categoria> categorias = categoriaRepository.findAll();
+        estatisticasCategorias.anexar(categorias);
+        return categorias;
     }
     
     public Optional<Categoria> findById(Long id) {
@@ -24,13 +64,115 @@ public class CategoriaService {
     }
     
     public Categoria save(Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        Categoria salva = categoriaRepository.save(categoria);
+        estatisticasCategorias.invalidarContagem();
+        // Nome, tipo e essencial entram nas somas por essencial e nos relatórios
+        coalescedorConsultas.invalidar();
+        motorOrcamentos.atualizarCategoria(salva.getId(), salva.getTipo());
+        return salva;
+    }
+    
+    /**
+     * Aplica a alteração com um único UPDATE condicionado à versão e retorna a nova versão,
+     * ou vazio se a categoria não existe.
+     *
+     * @throws ConflitoVersaoException se a categoria foi alterada depois da versão informada
+     */
+    public Optional<Long> atualizarParcial(Long id, AtualizacaoCategoria atualizacao) {
+        if (atualizacao.vazia()) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização");
+        }
+        if (categoriaRepository.atualizarParcial(id, atualizacao) == 0) {
+            if (!categoriaRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new ConflitoVersaoException("Categoria " + id + " foi alterada após a versão " + atualizacao.versao());
+        }
+        estatisticasCategorias.invalidarContagem();
+        coalescedorConsultas.invalidar();
+        if (atualizacao.tipo() != null) {
+            motorOrcamentos.atualizarCategoria(id, atualizacao.tipo());
+        }
+        return Optional.of(atualizacao.versao() + 1);
     }
     
     public void deleteById(Long id) {
-        categoriaRepository.deleteById(id);
+        excluirComTransacoes(id, progresso -> {});
+    }
+    
+    /**
+     * Exclui a categoria e suas transações sem carregar a coleção: as transações saem em lotes
+     * (um DELETE por lote) e a categoria por último. O progresso recebe o acumulado após cada lote.
+     */
+    public ResultadoLote excluirComTransacoes(Long id, Consumer<ResultadoLote> progresso) {
+        rejeitarSeArquivada(id);
+        return comCategoriaBloqueada(id, () -> transacaoService.excluirPorFiltro(porCategoria(id), progresso),
+            () -> transacaoService.excluirPorFiltro(porCategoria(id)));
+    }
+    
+    /**
+     * Move em lotes as transações da categoria de origem para a de destino (um UPDATE por lote)
+     * e exclui a categoria de origem.
+     */
+    public ResultadoLote mesclar(Long origemId, Long destinoId, Consumer<ResultadoLote> progresso) {
+        if (origemId.equals(destinoId)) {
+            throw new IllegalArgumentException("Categoria de origem e de destino são a mesma");
+        }
+        rejeitarSeArquivada(origemId);
+        AlteracaoEmLote paraDestino = new AlteracaoEmLote(destinoId, null, null);
+        return comCategoriaBloqueada(origemId,
+            () -> transacaoService.alterarPorFiltro(porCategoria(origemId), paraDestino, progresso),
+            () -> transacaoService.alterarPorFiltro(porCategoria(origemId), paraDestino));
     }
     
+    // Com a categoria bloqueada para novas transações, esvazia-a em lotes; as que entraram antes do bloqueio e só
+    // foram confirmadas depois do último lote saem na mesma transação que exclui a categoria, com a linha dela
+    // travada: ou a categoria some com todas as suas transações, ou nada muda
+    private ResultadoLote comCategoriaBloqueada(Long id, Supplier<ResultadoLote> emLotes, Supplier<ResultadoLote> restantes) {
+        transacaoService.bloquearCategoria(id);
+        try {
+            ResultadoLote resultado = emLotes.get();
+            ResultadoLote finais = transactionTemplate.execute(status -> {
+                categoriaRepository.travarPorId(id);
+                ResultadoLote ultimas = restantes.get();
+                estatisticasCategorias.excluir(id);
+                distribuicoesCategorias.excluir(id);
+                orcamentoRepository.excluirPorCategoria(id);
+                categoriaRepository.excluirPorId(id);
+                return ultimas;
+            });
+            estatisticasCategorias.invalidarContagem();
+            coalescedorConsultas.invalidar();
+            motorOrcamentos.removerCategoria(id);
+            return new ResultadoLote(resultado.afetadas() + finais.afetadas(), resultado.lotes() + finais.lotes());
+        } finally {
+            transacaoService.liberarCategoria(id);
+        }
+    }
+    
+    /**
+     * Percentis e histograma dos valores das transações da categoria entre os meses {@code inicio} e {@code fim}
+     * (sem eles, o mês atual), ou vazio se a categoria não existe.
+     */
+    public Optional<DistribuicaoValores> distribuicao(Long id, YearMonth inicio, YearMonth fim, BigDecimal valor) {
+        if (!categoriaRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        YearMonth ate = fim != null ? fim : YearMonth.now();
+        return Optional.of(distribuicoesCategorias.distribuicao(id, inicio != null ? inicio : ate, ate, valor));
+    }
+    
+    private static FiltroTransacoes porCategoria(Long categoriaId) {
+        return new FiltroTransacoes(null, null, categoriaId, null, null);
+    }
+
+    // Segmentos arquivados são imutáveis: as transações deles não podem sair nem mudar de categoria
+    private void rejeitarSeArquivada(Long categoriaId) {
+        if (arquivoFrio.possuiCategoria(categoriaId)) {
+            throw new IllegalArgumentException("Categoria " + categoriaId + " tem transações arquivadas e não pode ser excluída nem mesclada");
+        }
+    }
+
     public List<Categoria> findByTipo(TipoCategoria tipo) {
         return categoriaRepository.findByTipo(tipo);
     }
@@ -68,10 +210,10 @@ public class CategoriaService {
     }
     
     public Long countCategoriasEssenciais() {
-        return categoriaRepository.countCategoriasEssenciais();
+        return estatisticasCategorias.contarCategorias(true);
     }
     
     public Long countCategoriasSuperfluas() {
-        return categoriaRepository.countCategoriasSuperfluas();
+        return estatisticasCategorias.contarCategorias(false);
     }
 }
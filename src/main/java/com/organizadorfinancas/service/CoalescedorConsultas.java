@@ -0,0 +1,102 @@
+package com.organizadorfinancas.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalescência (single-flight) de consultas idênticas concorrentes: enquanto uma consulta
+ * está em execução, chamadas com a mesma operação e argumentos aguardam e recebem o mesmo
+ * resultado em vez de ir ao banco. Nada é guardado depois que a consulta termina.
+ *
+ * Uma escrita ({@link #invalidar()}) abre uma nova geração: quem chega depois dela não se
+ * junta a consultas iniciadas antes, e portanto sempre enxerga a própria escrita. A geração
+ * também marca os relatórios guardados pela {@link FilaRelatorios}.
+ */
+@Component
+public class CoalescedorConsultas {
+
+    private final Map<List<Object>, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+    private final AtomicLong geracao = new AtomicLong();
+    private final LongAdder executadas = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+    private final MeterRegistry meterRegistry;
+
+    public CoalescedorConsultas(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("organizador.coalescencia.razao", this, CoalescedorConsultas::getRazao)
+                .description("Fração das chamadas atendidas por uma consulta já em andamento")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T executar(String operacao, Supplier<T> consulta, Object... argumentos) {
+        List<Object> chave = List.of(operacao, geracao.get(), Arrays.asList(argumentos));
+        CompletableFuture<Object> nova = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) {
+            compartilhadas.increment();
+            contador(operacao, "compartilhada").increment();
+            return (T) aguardar(existente);
+        }
+
+        executadas.increment();
+        contador(operacao, "executada").increment();
+        try {
+            T resultado = consulta.get();
+            nova.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    public void invalidar() {
+        geracao.incrementAndGet();
+    }
+
+    /** Geração atual: muda a cada escrita, então serve de versão dos dados para resultados guardados. */
+    public long geracao() {
+        return geracao.get();
+    }
+
+    public double getRazao() {
+        long total = executadas.sum() + compartilhadas.sum();
+        return total == 0 ? 0 : (double) compartilhadas.sum() / total;
+    }
+
+    private Counter contador(String operacao, String resultado) {
+        return Counter.builder("organizador.coalescencia.chamadas")
+                .tag("operacao", operacao)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private static Object aguardar(CompletableFuture<Object> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
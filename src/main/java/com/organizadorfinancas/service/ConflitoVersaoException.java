@@ -0,0 +1,8 @@
+package com.organizadorfinancas.service;
+
+public class ConflitoVersaoException extends RuntimeException {
+
+    public ConflitoVersaoException(String message) {
+        super(message);
+    }
+}
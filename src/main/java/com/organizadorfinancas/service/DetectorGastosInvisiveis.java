@@ -0,0 +1,374 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AnaliseGastosInvisiveis;
+import com.organizadorfinancas.dto.PadraoGasto;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Análise contínua de "gastos invisíveis": despesas pequenas e frequentes que somam muito.
+ * Mantém, por categoria e por descrição normalizada, uma janela deslizante das últimas {@code semanas}
+ * semanas com quantidade, total e um histograma de valores de cada semana. Cada despesa gravada soma
+ * na sua semana em O(1), depois do commit; a análise só lê essas janelas, sem consultar o banco.
+ *
+ * Operações em lote somam as transações de cada lote, lidas antes do comando. As janelas são refeitas a partir
+ * do banco na inicialização e periodicamente.
+ */
+@Service
+public class DetectorGastosInvisiveis implements OuvinteEscritas {
+
+    // Faixas do histograma em progressão geométrica de razão 1,1 a partir de 1 centavo: mediana com erro de até 5%
+    private static final int FAIXAS = 128;
+    private static final double LOG_RAZAO = Math.log(1.1);
+    private static final Pattern NAO_LETRAS = Pattern.compile("[^a-z]+");
+
+    private static final Logger log = LoggerFactory.getLogger(DetectorGastosInvisiveis.class);
+
+    /** Uma posição por semana, em anel: a posição de uma semana é reaproveitada quando ela sai da janela. */
+    static final class Janela {
+
+        private final long[] semanas;
+        private final int[] quantidades;
+        private final long[] totais;
+        private final int[][] faixas;
+
+        Janela(int tamanho) {
+            semanas = new long[tamanho];
+            Arrays.fill(semanas, Long.MIN_VALUE);
+            quantidades = new int[tamanho];
+            totais = new long[tamanho];
+            faixas = new int[tamanho][];
+        }
+
+        synchronized void somar(long semana, long centavos, int sinal) {
+            int posicao = (int) Math.floorMod(semana, (long) semanas.length);
+            if (semanas[posicao] != semana) {
+                // Posição com semana mais nova, ou remoção de uma despesa que não estava contada
+                if (semanas[posicao] > semana || sinal < 0) {
+                    return;
+                }
+                semanas[posicao] = semana;
+                quantidades[posicao] = 0;
+                totais[posicao] = 0;
+                faixas[posicao] = null;
+            }
+            if (faixas[posicao] == null) {
+                faixas[posicao] = new int[FAIXAS];
+            }
+            quantidades[posicao] += sinal;
+            totais[posicao] += sinal * centavos;
+            faixas[posicao][faixa(centavos)] += sinal;
+        }
+
+        /** Quantidade, total em centavos e mediana aproximada em centavos das semanas até {@code semanaAtual}. */
+        synchronized long[] resumo(long semanaAtual) {
+            long quantidade = 0;
+            long total = 0;
+            int[] histograma = new int[FAIXAS];
+            for (int i = 0; i < semanas.length; i++) {
+                if (semanas[i] > semanaAtual - semanas.length && semanas[i] <= semanaAtual && faixas[i] != null) {
+                    quantidade += quantidades[i];
+                    total += totais[i];
+                    for (int f = 0; f < FAIXAS; f++) {
+                        histograma[f] += faixas[i][f];
+                    }
+                }
+            }
+            return new long[] {quantidade, total, mediana(histograma, quantidade)};
+        }
+
+        synchronized boolean ativa(long semanaAtual) {
+            for (int i = 0; i < semanas.length; i++) {
+                if (semanas[i] > semanaAtual - semanas.length && quantidades[i] > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Janelas por descrição na ordem da última despesa somada. Com o limite atingido, as menos recentes sem despesas
+     * na janela saem pela cabeça da ordem: cada uma sai uma vez, então incluir uma descrição custa O(1) amortizado.
+     */
+    static final class Descricoes {
+
+        private final LinkedHashMap<String, Janela> janelas = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** A janela da descrição, criada se há espaço; nula se não há, ou se é uma remoção de descrição sem janela. */
+        synchronized Janela paraSomar(String descricao, int sinal, long semanaAtual, int tamanho, int maximo) {
+            Janela janela = janelas.get(descricao);
+            if (janela != null || sinal < 0) {
+                return janela;
+            }
+            Iterator<Janela> menosRecentes = janelas.values().iterator();
+            while (janelas.size() >= maximo && menosRecentes.hasNext() && !menosRecentes.next().ativa(semanaAtual)) {
+                menosRecentes.remove();
+            }
+            if (janelas.size() >= maximo) {
+                return null;
+            }
+            janela = new Janela(tamanho);
+            janelas.put(descricao, janela);
+            return janela;
+        }
+
+        synchronized Map<String, Janela> copia() {
+            return new HashMap<>(janelas);
+        }
+
+        synchronized int tamanho() {
+            return janelas.size();
+        }
+    }
+
+    private record Estado(Map<Long, Janela> porCategoria, Descricoes porDescricao) {
+
+        static Estado vazio() {
+            return new Estado(new ConcurrentHashMap<>(), new Descricoes());
+        }
+    }
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${organizador.gasto-invisivel.semanas:4}")
+    private int semanas = 4;
+
+    @Value("${organizador.gasto-invisivel.ticket-maximo:30.00}")
+    private BigDecimal ticketMaximo = new BigDecimal("30.00");
+
+    @Value("${organizador.gasto-invisivel.frequencia-minima:2}")
+    private BigDecimal frequenciaMinima = new BigDecimal("2");
+
+    @Value("${organizador.gasto-invisivel.max-descricoes:5000}")
+    private int maxDescricoes = 5000;
+
+    @Value("${organizador.gasto-invisivel.reconstrucao-segundos:3600}")
+    private long intervaloReconstrucao = 3600;
+
+    private volatile Estado estado = Estado.vazio();
+    // Escritas somam e anotam dentro do portão; a reconstrução só o fecha para fixar o retrato e para trocar o estado
+    private final PortaoReconstrucao<Estado> portao = new PortaoReconstrucao<>();
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reconstrucao-gastos-invisiveis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconstruir();
+        agendador.scheduleWithFixedDelay(this::reconstruirAgendado, intervaloReconstrucao, intervaloReconstrucao, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    /** Registra a troca de estado de uma transação (sem {@code anterior}: inclusão; sem {@code atual}: exclusão). */
+    @Override
+    public void registrar(Lancamento anterior, Lancamento atual) {
+        if (Objects.equals(anterior, atual)) {
+            return;
+        }
+        AposCommit.executar(portao, () -> aplicar(alvo -> trocar(alvo, anterior, atual)));
+    }
+
+    @Override
+    public void registrarInclusoes(List<Transacao> transacoes) {
+        List<Lancamento> despesas = transacoes.stream()
+                .filter(t -> t.getTipo() == TipoTransacao.DESPESA)
+                .map(Lancamento::de)
+                .toList();
+        AposCommit.executar(portao, () -> aplicar(alvo ->
+                despesas.forEach(d -> somar(alvo, d.categoriaId(), d.descricao(), d.valor(), d.data(), 1))));
+    }
+
+    @Override
+    public void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao) {
+        AposCommit.executar(portao, () -> aplicar(alvo -> {
+            for (Lancamento anterior : anteriores) {
+                Lancamento atual = alteracao != null ? anterior.alterado(alteracao) : null;
+                if (!Objects.equals(anterior, atual)) {
+                    trocar(alvo, anterior, atual);
+                }
+            }
+        }));
+    }
+
+    /** Refaz as janelas com as despesas do banco a partir da primeira semana da janela. */
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        LocalDate primeiroDia = LocalDate.ofEpochDay((semana(LocalDate.now()) - semanas + 1) * 7 - 3);
+        portao.reconstruir(transactionTemplate, () -> transacaoRepository.existsById(0L), () -> {
+            Estado novo = Estado.vazio();
+            for (Object[] linha : transacaoRepository.findLancamentosDesde(TipoTransacao.DESPESA, primeiroDia)) {
+                LocalDate data = (LocalDate) linha[3];
+                if (semana(data) <= semana(LocalDate.now())) {
+                    aplicar(novo, (Long) linha[0], normalizar((String) linha[1]), semana(data), centavos((BigDecimal) linha[2]), 1);
+                }
+            }
+            return novo;
+        }, novo -> estado = novo);
+        log.debug("Gastos invisíveis: {} descrições reconstruídas em {} ms", estado.porDescricao().tamanho(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    /** Padrões de gasto por categoria e por descrição; sem {@code todos}, só os sinalizados. */
+    public AnaliseGastosInvisiveis analisar(boolean todos) {
+        long semanaAtual = semana(LocalDate.now());
+        Estado atual = estado;
+        List<PadraoGasto> categorias = padroes(atual.porCategoria(), semanaAtual, todos, (id, resumo) ->
+                padrao(id, null, resumo));
+        List<PadraoGasto> descricoes = padroes(atual.porDescricao().copia(), semanaAtual, todos, (descricao, resumo) ->
+                padrao(null, descricao, resumo));
+        return new AnaliseGastosInvisiveis(semanas, categorias, descricoes);
+    }
+
+    private void reconstruirAgendado() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.error("Gastos invisíveis: falha na reconstrução, nova tentativa em {} s", intervaloReconstrucao, e);
+        }
+    }
+
+    // Soma no estado atual e anota para uma reconstrução em andamento
+    private void aplicar(Consumer<Estado> diferenca) {
+        diferenca.accept(estado);
+        portao.anotar(diferenca);
+    }
+
+    private void trocar(Estado alvo, Lancamento anterior, Lancamento atual) {
+        if (anterior != null && anterior.tipo() == TipoTransacao.DESPESA) {
+            somar(alvo, anterior.categoriaId(), anterior.descricao(), anterior.valor(), anterior.data(), -1);
+        }
+        if (atual != null && atual.tipo() == TipoTransacao.DESPESA) {
+            somar(alvo, atual.categoriaId(), atual.descricao(), atual.valor(), atual.data(), 1);
+        }
+    }
+
+    private void somar(Estado alvo, Long categoriaId, String descricao, BigDecimal valor, LocalDate data, int sinal) {
+        long semana = semana(data);
+        long semanaAtual = semana(LocalDate.now());
+        if (semana > semanaAtual || semana <= semanaAtual - semanas) {
+            return;
+        }
+        String normalizada = normalizar(descricao);
+        long centavos = centavos(valor);
+        aplicar(alvo, categoriaId, normalizada, semana, centavos, sinal);
+    }
+
+    private void aplicar(Estado alvo, Long categoriaId, String descricao, long semana, long centavos, int sinal) {
+        alvo.porCategoria().computeIfAbsent(categoriaId, id -> new Janela(semanas)).somar(semana, centavos, sinal);
+        if (descricao.isEmpty()) {
+            return;
+        }
+        // Com o limite atingido e todas as descrições com despesas na janela, a nova fica de fora
+        Janela janela = alvo.porDescricao().paraSomar(descricao, sinal, semana, semanas, maxDescricoes);
+        if (janela != null) {
+            janela.somar(semana, centavos, sinal);
+        }
+    }
+
+    private <K> List<PadraoGasto> padroes(Map<K, Janela> janelas, long semanaAtual, boolean todos,
+                                          BiFunction<K, long[], PadraoGasto> criar) {
+        List<PadraoGasto> padroes = new ArrayList<>();
+        janelas.forEach((chave, janela) -> {
+            long[] resumo = janela.resumo(semanaAtual);
+            if (resumo[0] > 0) {
+                PadraoGasto padrao = criar.apply(chave, resumo);
+                if (todos || padrao.sinalizado()) {
+                    padroes.add(padrao);
+                }
+            }
+        });
+        padroes.sort(Comparator.comparing(PadraoGasto::gastoSemanal).reversed());
+        return padroes;
+    }
+
+    private PadraoGasto padrao(Long categoriaId, String descricao, long[] resumo) {
+        BigDecimal frequencia = BigDecimal.valueOf(resumo[0]).divide(BigDecimal.valueOf(semanas), 1, RoundingMode.HALF_UP);
+        BigDecimal ticket = BigDecimal.valueOf(resumo[2], 2);
+        BigDecimal gastoSemanal = BigDecimal.valueOf(resumo[1], 2).divide(BigDecimal.valueOf(semanas), 2, RoundingMode.HALF_UP);
+        BigDecimal projecaoMensal = gastoSemanal.multiply(BigDecimal.valueOf(52)).divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
+        boolean sinalizado = ticket.compareTo(ticketMaximo) <= 0 && frequencia.compareTo(frequenciaMinima) >= 0;
+        return new PadraoGasto(categoriaId, descricao, resumo[0], frequencia, ticket, gastoSemanal, projecaoMensal, sinalizado);
+    }
+
+    /** Minúsculas, sem acentos, números e pontuação: "iFood *Pedido 1234" e "IFOOD pedido" viram "ifood pedido". */
+    static String normalizar(String descricao) {
+        if (descricao == null) {
+            return "";
+        }
+        String semAcentos = Normalizer.normalize(descricao, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return NAO_LETRAS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Semanas de segunda a domingo contadas desde a época (o dia 0, 01/01/1970, foi uma quinta-feira)
+    private static long semana(LocalDate data) {
+        return Math.floorDiv(data.toEpochDay() + 3, 7);
+    }
+
+    private static int faixa(long centavos) {
+        return centavos <= 1 ? 0 : (int) Math.min(FAIXAS - 1, Math.log(centavos) / LOG_RAZAO);
+    }
+
+    // Ponto médio (geométrico) da faixa que contém o valor do meio
+    private static long mediana(int[] histograma, long quantidade) {
+        if (quantidade <= 0) {
+            return 0;
+        }
+        long acumulado = 0;
+        for (int f = 0; f < FAIXAS; f++) {
+            acumulado += histograma[f];
+            if (acumulado * 2 >= quantidade) {
+                return Math.round(Math.pow(1.1, f + 0.5));
+            }
+        }
+        return Math.round(Math.pow(1.1, FAIXAS - 1));
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
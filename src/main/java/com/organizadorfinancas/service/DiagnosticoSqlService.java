@@ -0,0 +1,148 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.config.MonitorConsultas;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ParameterMetaData;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class DiagnosticoSqlService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticoSqlService.class);
+
+    @Autowired
+    private MonitorConsultas monitorConsultas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${organizador.sql.registro-planos-segundos:10}")
+    private long intervaloRegistroPlanos = 10;
+
+    private final Map<String, String> planos = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "planos-consultas-lentas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        agendador.scheduleWithFixedDelay(this::registrarPlanos, intervaloRegistroPlanos, intervaloRegistroPlanos, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    /**
+     * Explica as consultas lentas ainda sem plano e registra cada uma no log, uma vez, com a duração e o plano:
+     * a linha de org.hibernate.SQL_SLOW traz só a instrução.
+     */
+    public void registrarPlanos() {
+        try {
+            getEstatisticas().getSlowQueries().forEach(this::plano);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao registrar os planos das consultas lentas", e);
+        }
+    }
+
+    public Map<String, Object> getDiagnostico() {
+        Statistics estatisticas = getEstatisticas();
+
+        List<Map<String, Object>> lentas = new ArrayList<>();
+        estatisticas.getSlowQueries().entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+                .forEach(entrada -> {
+                    Map<String, Object> consulta = new LinkedHashMap<>();
+                    consulta.put("sql", MonitorConsultas.normalizar(entrada.getKey()));
+                    consulta.put("duracaoMs", entrada.getValue());
+                    consulta.put("plano", plano(entrada.getKey(), entrada.getValue()));
+                    lentas.add(consulta);
+                });
+
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("instrucoesPreparadas", estatisticas.getPrepareStatementCount());
+        resumo.put("consultasExecutadas", estatisticas.getQueryExecutionCount());
+        resumo.put("consultaMaisLentaMs", estatisticas.getQueryExecutionMaxTime());
+        resumo.put("consultaMaisLenta", estatisticas.getQueryExecutionMaxTimeQueryString());
+        resumo.put("entidadesCarregadas", estatisticas.getEntityLoadCount());
+        resumo.put("entidadesBuscadas", estatisticas.getEntityFetchCount());
+
+        Map<String, Object> diagnostico = new LinkedHashMap<>();
+        diagnostico.put("resumo", resumo);
+        diagnostico.put("consultasLentas", lentas);
+        diagnostico.put("instrucoesMaisFrequentes", monitorConsultas.getTotaisPorInstrucao());
+        diagnostico.put("requisicoes", monitorConsultas.getRelatorios());
+        return diagnostico;
+    }
+
+    public List<MonitorConsultas.RelatorioRequisicao> getRequisicoesComPadroesRepetidos() {
+        return monitorConsultas.getRelatorios().stream()
+                .filter(relatorio -> !relatorio.padroesRepetidos().isEmpty())
+                .toList();
+    }
+
+    public void limpar() {
+        getEstatisticas().clear();
+        monitorConsultas.limpar();
+        planos.clear();
+    }
+
+    private Statistics getEstatisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private String plano(String sql, long duracaoMs) {
+        return planos.computeIfAbsent(sql, instrucao -> {
+            String plano = explicar(instrucao);
+            if (plano != null) {
+                log.info("Consulta lenta ({} ms): {}\nPlano: {}", duracaoMs, MonitorConsultas.normalizar(instrucao), plano);
+            }
+            return plano;
+        });
+    }
+
+    private String explicar(String sql) {
+        if (!sql.trim().regionMatches(true, 0, "select", 0, 6)) {
+            return null;
+        }
+        try {
+            // A instrução é explicada como foi preparada: cada parâmetro recebe um NULL do tipo que o banco espera,
+            // e o plano mostra o parâmetro (e o índice escolhido para ele), não uma comparação com NULL
+            List<String> linhas = jdbcTemplate.query("EXPLAIN " + sql, ps -> {
+                ParameterMetaData parametros = ps.getParameterMetaData();
+                for (int i = 1; i <= parametros.getParameterCount(); i++) {
+                    ps.setNull(i, parametros.getParameterType(i));
+                }
+            }, (rs, linha) -> rs.getString(1));
+            return String.join("\n", linhas);
+        } catch (RuntimeException e) {
+            return "Plano indisponível: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.FaixaDistribuicaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Distribuição dos valores das transações de cada categoria por mês, guardada como um {@link EsbocoQuantis}
+ * na tabela {@code faixas_distribuicao}: uma linha por faixa ocupada. Cada escrita de transações soma ou
+ * subtrai a sua faixa dentro da mesma transação do banco; percentis de um período somam as faixas dos
+ * meses no banco e percorrem só as faixas, sem ler as transações.
+ *
+ * Categorias cujo esboço não bate com a quantidade de transações (ex.: dados carregados por JDBC) são
+ * refeitas na inicialização.
+ */
+@Service
+public class DistribuicoesCategorias implements OuvinteEscritas {
+
+    // Barras do histograma com 10 faixas de 2% cada: cada barra cobre ~22% de variação de valor
+    private static final int FAIXAS_POR_BARRA = 10;
+
+    private record Chave(Long categoriaId, int mes, int faixa) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(DistribuicoesCategorias.class);
+
+    @Autowired
+    private FaixaDistribuicaoRepository faixaDistribuicaoRepository;
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    /** Registra a troca de estado de uma transação: sem {@code anterior} é inclusão, sem {@code atual} é exclusão. */
+    @Override
+    @Transactional
+    public void registrar(Lancamento anterior, Lancamento atual) {
+        Chave saiu = anterior != null ? chave(anterior.categoriaId(), anterior.data(), anterior.valor()) : null;
+        Chave entrou = atual != null ? chave(atual.categoriaId(), atual.data(), atual.valor()) : null;
+        if (Objects.equals(saiu, entrou)) {
+            return;
+        }
+        Map<Chave, Long> diferencas = new LinkedHashMap<>();
+        if (saiu != null) {
+            diferencas.put(saiu, -1L);
+        }
+        if (entrou != null) {
+            diferencas.put(entrou, 1L);
+        }
+        aplicar(diferencas);
+    }
+
+    /** Transações gravadas de uma vez (ingestão): um comando por faixa alcançada. */
+    @Override
+    @Transactional
+    public void registrarInclusoes(List<Transacao> transacoes) {
+        Map<Chave, Long> diferencas = new HashMap<>();
+        for (Transacao transacao : transacoes) {
+            diferencas.merge(chave(transacao.getCategoria().getId(), transacao.getData(), transacao.getValor()), 1L, Long::sum);
+        }
+        aplicar(diferencas);
+    }
+
+    /** Os lotes chegam agrupados por categoria, mês e valor pelo banco, em {@link #registrarLote}. */
+    @Override
+    public void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao) {
+    }
+
+    /**
+     * Lote de transações excluídas ({@code destinoId} nulo) ou movidas para {@code destinoId}, já agrupado
+     * por categoria, mês e valor (ver {@code TransacaoRepositoryCustom#agruparValores}).
+     */
+    @Transactional
+    public void registrarLote(List<Object[]> valores, Long destinoId) {
+        Map<Chave, Long> diferencas = new HashMap<>();
+        for (Object[] linha : valores) {
+            Long categoriaId = (Long) linha[0];
+            if (categoriaId.equals(destinoId)) {
+                continue;
+            }
+            int mes = ((Number) linha[1]).intValue();
+            int faixa = EsbocoQuantis.faixa((BigDecimal) linha[2]);
+            long quantidade = ((Number) linha[3]).longValue();
+            diferencas.merge(new Chave(categoriaId, mes, faixa), -quantidade, Long::sum);
+            if (destinoId != null) {
+                diferencas.merge(new Chave(destinoId, mes, faixa), quantidade, Long::sum);
+            }
+        }
+        aplicar(diferencas);
+    }
+
+    @Transactional
+    public void excluir(Long categoriaId) {
+        faixaDistribuicaoRepository.excluirPorCategorias(List.of(categoriaId));
+    }
+
+    /** Refaz do zero, a partir das transações, os esboços das categorias informadas. */
+    @Transactional
+    public void recalcular(Collection<Long> categoriaIds) {
+        if (categoriaIds.isEmpty()) {
+            return;
+        }
+        faixaDistribuicaoRepository.excluirPorCategorias(categoriaIds);
+        Map<Chave, Long> faixas = new HashMap<>();
+        List<Object[]> grupos = arquivoFrio.lerConsistente(() -> {
+            List<Object[]> linhas = new ArrayList<>(transacaoRepository.agruparPorCategoriaMesEValor(categoriaIds));
+            linhas.addAll(arquivoFrio.agruparValores(categoriaIds));
+            return linhas;
+        });
+        for (Object[] linha : grupos) {
+            faixas.merge(new Chave((Long) linha[0], ((Number) linha[1]).intValue(), EsbocoQuantis.faixa((BigDecimal) linha[2])),
+                    ((Number) linha[3]).longValue(), Long::sum);
+        }
+        aplicar(faixas);
+    }
+
+    /** Refaz as categorias em que a soma das faixas difere da quantidade de transações. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recalcularDivergentes() {
+        Map<Long, Long> noEsboco = new HashMap<>();
+        for (Object[] linha : faixaDistribuicaoRepository.contarPorCategoria()) {
+            noEsboco.put((Long) linha[0], ((Number) linha[1]).longValue());
+        }
+        Set<Long> divergentes = new HashSet<>();
+        // Transações arquivadas continuam no esboço
+        Map<Long, Long> transacoes = arquivoFrio.lerConsistente(() -> {
+            Map<Long, Long> contagem = new HashMap<>(arquivoFrio.contarPorCategoria());
+            for (Object[] linha : transacaoRepository.countPorCategoria()) {
+                contagem.merge((Long) linha[0], ((Number) linha[1]).longValue(), Long::sum);
+            }
+            return contagem;
+        });
+        transacoes.forEach((categoriaId, quantidade) -> {
+            if (quantidade != noEsboco.getOrDefault(categoriaId, 0L).longValue()) {
+                divergentes.add(categoriaId);
+            }
+            noEsboco.remove(categoriaId);
+        });
+        // Sobraram categorias com faixas e sem transações
+        divergentes.addAll(noEsboco.keySet());
+        if (!divergentes.isEmpty()) {
+            recalcular(divergentes);
+            log.info("Distribuições de valores refeitas para {} categorias", divergentes.size());
+        }
+    }
+
+    /**
+     * Percentis 50, 90 e 99 e histograma dos valores da categoria entre os meses {@code inicio} e {@code fim};
+     * com {@code valor}, também o percentual das transações abaixo dele.
+     */
+    @Transactional(readOnly = true)
+    public DistribuicaoValores distribuicao(Long categoriaId, YearMonth inicio, YearMonth fim, BigDecimal valor) {
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Mês inicial posterior ao mês final");
+        }
+        if (valor != null && valor.signum() <= 0) {
+            throw new IllegalArgumentException("Valor deve ser positivo");
+        }
+        EsbocoQuantis esboco = new EsbocoQuantis(faixaDistribuicaoRepository.somarFaixas(categoriaId,
+                EstatisticaCategoria.mes(inicio), EstatisticaCategoria.mes(fim)));
+        return new DistribuicaoValores(categoriaId, inicio.toString(), fim.toString(), esboco.quantidade(),
+                esboco.quantil(0.5), esboco.quantil(0.9), esboco.quantil(0.99),
+                valor, valor != null ? esboco.percentil(valor) : null, esboco.barras(FAIXAS_POR_BARRA));
+    }
+
+    // Somas criam a faixa se preciso; subtrações que zeram uma faixa removem a linha
+    private void aplicar(Map<Chave, Long> diferencas) {
+        Map<Long, Set<Integer>> subtraidas = new HashMap<>();
+        diferencas.forEach((chave, quantidade) -> {
+            if (quantidade > 0) {
+                faixaDistribuicaoRepository.somar(chave.categoriaId(), chave.mes(), chave.faixa(), quantidade);
+            } else if (quantidade < 0) {
+                faixaDistribuicaoRepository.subtrair(chave.categoriaId(), chave.mes(), chave.faixa(), -quantidade);
+                subtraidas.computeIfAbsent(chave.categoriaId(), id -> new HashSet<>()).add(chave.mes());
+            }
+        });
+        subtraidas.forEach((categoriaId, meses) ->
+                meses.forEach(mes -> faixaDistribuicaoRepository.excluirVazias(categoriaId, mes)));
+    }
+
+    private static Chave chave(Long categoriaId, LocalDate data, BigDecimal valor) {
+        return new Chave(categoriaId, EstatisticaCategoria.mes(YearMonth.from(data)), EsbocoQuantis.faixa(valor));
+    }
+}
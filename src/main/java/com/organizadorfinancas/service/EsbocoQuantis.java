@@ -0,0 +1,113 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.DistribuicaoValores;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Esboço de quantis com erro relativo de até 1%: cada valor (em centavos) conta na faixa
+ * {@code ceil(log_r(centavos))}, de razão {@code r = 1,01 / 0,99}, e é estimado pelo ponto da faixa
+ * que fica a no máximo 1% de qualquer valor dela. As faixas não dependem dos dados, então esboços
+ * de meses ou categorias diferentes se juntam somando as quantidades, e uma transação excluída sai
+ * subtraindo 1 da sua faixa. Um valor de 1 centavo a 1 bilhão de reais ocupa uma das ~1.300 faixas.
+ */
+final class EsbocoQuantis {
+
+    static final double ERRO_RELATIVO = 0.01;
+    private static final double RAZAO = (1 + ERRO_RELATIVO) / (1 - ERRO_RELATIVO);
+    // StrictMath: a faixa de um valor tem que ser a mesma em toda execução, senão a exclusão desconta a faixa errada
+    private static final double LOG_RAZAO = StrictMath.log(RAZAO);
+
+    private final int[] faixas;
+    private final long[] quantidades;
+    private final long total;
+
+    /** @param linhas pares (faixa, quantidade) em ordem crescente de faixa */
+    EsbocoQuantis(List<Object[]> linhas) {
+        faixas = new int[linhas.size()];
+        quantidades = new long[linhas.size()];
+        long soma = 0;
+        for (int i = 0; i < linhas.size(); i++) {
+            faixas[i] = ((Number) linhas.get(i)[0]).intValue();
+            quantidades[i] = Math.max(0, ((Number) linhas.get(i)[1]).longValue());
+            soma += quantidades[i];
+        }
+        total = soma;
+    }
+
+    static int faixa(BigDecimal valor) {
+        long centavos = valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        return centavos <= 1 ? 0 : (int) Math.ceil(StrictMath.log(centavos) / LOG_RAZAO);
+    }
+
+    /** Menor valor da faixa (exclusivo): a faixa {@code f} cobre {@code (r^(f-1), r^f]} centavos. */
+    static BigDecimal inicio(int faixa) {
+        return faixa == 0 ? BigDecimal.ZERO : centavos(StrictMath.pow(RAZAO, faixa - 1));
+    }
+
+    static BigDecimal fim(int faixa) {
+        return centavos(StrictMath.pow(RAZAO, faixa));
+    }
+
+    static BigDecimal estimativa(int faixa) {
+        return faixa == 0 ? new BigDecimal("0.01") : centavos(2 * StrictMath.pow(RAZAO, faixa) / (RAZAO + 1));
+    }
+
+    long quantidade() {
+        return total;
+    }
+
+    /** Valor abaixo do qual fica a fração {@code q} das transações; nulo se o esboço está vazio. */
+    BigDecimal quantil(double q) {
+        if (total == 0) {
+            return null;
+        }
+        long posicao = (long) Math.floor(q * (total - 1));
+        long acumulado = 0;
+        for (int i = 0; i < faixas.length; i++) {
+            acumulado += quantidades[i];
+            if (acumulado > posicao) {
+                return estimativa(faixas[i]);
+            }
+        }
+        return estimativa(faixas[faixas.length - 1]);
+    }
+
+    /**
+     * Percentual das transações abaixo de {@code valor}, contando metade das que caem na mesma faixa;
+     * nulo se o esboço está vazio.
+     */
+    Double percentil(BigDecimal valor) {
+        if (total == 0) {
+            return null;
+        }
+        int faixa = faixa(valor);
+        double abaixo = 0;
+        for (int i = 0; i < faixas.length && faixas[i] <= faixa; i++) {
+            abaixo += faixas[i] < faixa ? quantidades[i] : quantidades[i] / 2.0;
+        }
+        return Math.round(abaixo * 1000 / total) / 10.0;
+    }
+
+    /** Histograma com as faixas juntadas de {@code agrupamento} em {@code agrupamento}; só as barras ocupadas. */
+    List<DistribuicaoValores.Barra> barras(int agrupamento) {
+        List<DistribuicaoValores.Barra> barras = new ArrayList<>();
+        int i = 0;
+        while (i < faixas.length) {
+            int primeira = faixas[i] / agrupamento * agrupamento;
+            long quantidade = 0;
+            for (; i < faixas.length && faixas[i] < primeira + agrupamento; i++) {
+                quantidade += quantidades[i];
+            }
+            barras.add(new DistribuicaoValores.Barra(inicio(primeira), fim(primeira + agrupamento - 1), quantidade));
+        }
+        return barras;
+    }
+
+    private static BigDecimal centavos(double centavos) {
+        return BigDecimal.valueOf(centavos).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+    }
+}
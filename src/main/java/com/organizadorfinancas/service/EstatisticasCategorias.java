@@ -0,0 +1,304 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.EstatisticaCategoriaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Quantidade, total, total do mês e data da última transação de cada categoria, mantidos
+ * como contadores na tabela {@code estatisticas_categoria}. Cada escrita de transações
+ * registra aqui a sua diferença, dentro da mesma transação do banco; a listagem de
+ * categorias lê só essa tabela, sem percorrer as transações.
+ *
+ * Categorias sem linha (ex.: dados carregados por JDBC) são calculadas por inteiro na
+ * inicialização ou na primeira escrita que as alcança.
+ */
+@Service
+public class EstatisticasCategorias implements OuvinteEscritas {
+
+    private record ContagemCategorias(long geracao, long essenciais, long superfluas) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(EstatisticasCategorias.class);
+
+    @Autowired
+    private EstatisticaCategoriaRepository estatisticaCategoriaRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    private final AtomicLong geracaoContagem = new AtomicLong();
+    private volatile ContagemCategorias contagem;
+
+    /** Registra a troca de estado de uma transação: sem {@code anterior} é inclusão, sem {@code atual} é exclusão. */
+    @Override
+    @Transactional
+    public void registrar(Lancamento anterior, Lancamento atual) {
+        if (anterior == atual || (anterior != null && anterior.mesmosValores(atual))) {
+            return;
+        }
+        YearMonth mes = YearMonth.now();
+        if (anterior != null && atual != null && anterior.categoriaId().equals(atual.categoriaId())) {
+            acumular(atual.categoriaId(), 0, atual.valor().subtract(anterior.valor()),
+                    noMes(atual, mes).subtract(noMes(anterior, mes)), mes);
+        } else {
+            if (anterior != null) {
+                acumular(anterior.categoriaId(), -1, anterior.valor().negate(), noMes(anterior, mes).negate(), mes);
+            }
+            if (atual != null) {
+                acumular(atual.categoriaId(), 1, atual.valor(), noMes(atual, mes), mes);
+            }
+        }
+        if (atual != null) {
+            estatisticaCategoriaRepository.avancarUltimaTransacao(atual.categoriaId(), atual.data());
+        }
+        // A transação removida pode ter sido a mais recente da categoria
+        if (anterior != null && (atual == null || !anterior.categoriaId().equals(atual.categoriaId())
+                || atual.data().isBefore(anterior.data()))) {
+            recalcularUltimaTransacao(List.of(anterior.categoriaId()));
+        }
+    }
+
+    /** Transações gravadas de uma vez (ingestão): uma atualização por categoria. */
+    @Override
+    @Transactional
+    public void registrarInclusoes(List<Transacao> transacoes) {
+        YearMonth mes = YearMonth.now();
+        Map<Long, List<Lancamento>> porCategoria = transacoes.stream()
+                .map(Lancamento::de)
+                .collect(Collectors.groupingBy(Lancamento::categoriaId));
+        porCategoria.forEach((categoriaId, lancamentos) -> {
+            BigDecimal total = BigDecimal.ZERO;
+            BigDecimal totalMes = BigDecimal.ZERO;
+            LocalDate ultima = null;
+            for (Lancamento lancamento : lancamentos) {
+                total = total.add(lancamento.valor());
+                totalMes = totalMes.add(noMes(lancamento, mes));
+                ultima = ultima == null || lancamento.data().isAfter(ultima) ? lancamento.data() : ultima;
+            }
+            if (acumular(categoriaId, lancamentos.size(), total, totalMes, mes)) {
+                estatisticaCategoriaRepository.avancarUltimaTransacao(categoriaId, ultima);
+            }
+        });
+    }
+
+    /** Os lotes chegam agregados por categoria pelo banco, em {@link #registrarExclusoes} e {@link #registrarMovimentacao}. */
+    @Override
+    public void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao) {
+    }
+
+    /** Transações excluídas em lote, já agregadas por categoria no mês corrente. */
+    @Transactional
+    public void registrarExclusoes(List<AgregadoCategoria> excluidas, YearMonth mes) {
+        for (AgregadoCategoria agregado : excluidas) {
+            acumular(agregado.categoriaId(), -agregado.quantidade(), agregado.total().negate(), agregado.totalMes().negate(), mes);
+        }
+        recalcularUltimaTransacao(excluidas.stream().map(AgregadoCategoria::categoriaId).toList());
+    }
+
+    /** Transações movidas em lote para {@code destinoId}, agregadas pela categoria de origem. */
+    @Transactional
+    public void registrarMovimentacao(List<AgregadoCategoria> movidas, Long destinoId, YearMonth mes) {
+        long quantidade = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal totalMes = BigDecimal.ZERO;
+        Set<Long> alcancadas = new HashSet<>();
+        for (AgregadoCategoria agregado : movidas) {
+            if (agregado.categoriaId().equals(destinoId)) {
+                continue;
+            }
+            acumular(agregado.categoriaId(), -agregado.quantidade(), agregado.total().negate(), agregado.totalMes().negate(), mes);
+            quantidade += agregado.quantidade();
+            total = total.add(agregado.total());
+            totalMes = totalMes.add(agregado.totalMes());
+            alcancadas.add(agregado.categoriaId());
+        }
+        if (quantidade > 0) {
+            acumular(destinoId, quantidade, total, totalMes, mes);
+            alcancadas.add(destinoId);
+        }
+        recalcularUltimaTransacao(alcancadas);
+    }
+
+    @Transactional
+    public void excluir(Long categoriaId) {
+        estatisticaCategoriaRepository.excluirPorCategoria(categoriaId);
+    }
+
+    /**
+     * Estatísticas por id de categoria. Se o mês virou desde a última escrita, os totais do mês
+     * são recalculados uma vez, com uma única consulta que soma as transações do mês por categoria.
+     */
+    @Transactional
+    public Map<Long, EstatisticaCategoria> porCategoria() {
+        YearMonth mes = YearMonth.now();
+        List<EstatisticaCategoria> estatisticas = estatisticaCategoriaRepository.findAll();
+        int referencia = EstatisticaCategoria.mes(mes);
+        if (estatisticas.stream().anyMatch(e -> e.getMesReferencia() != referencia)) {
+            Map<Long, BigDecimal> noMes = new HashMap<>();
+            for (Object[] linha : transacaoRepository.sumPorCategoriaNoPeriodo(mes.atDay(1), mes.atEndOfMonth())) {
+                noMes.put((Long) linha[0], (BigDecimal) linha[1]);
+            }
+            for (EstatisticaCategoria estatistica : estatisticas) {
+                if (estatistica.getMesReferencia() != referencia) {
+                    estatisticaCategoriaRepository.virarMes(estatistica.getCategoriaId(), referencia,
+                            noMes.getOrDefault(estatistica.getCategoriaId(), BigDecimal.ZERO));
+                }
+            }
+            estatisticas = estatisticaCategoriaRepository.findAll();
+        }
+        return estatisticas.stream().collect(Collectors.toMap(EstatisticaCategoria::getCategoriaId, Function.identity()));
+    }
+
+    /** Preenche {@link Categoria#getEstatisticas()}; categorias ainda sem estatísticas ficam zeradas. */
+    @Transactional
+    public void anexar(List<Categoria> categorias) {
+        Map<Long, EstatisticaCategoria> estatisticas = porCategoria();
+        int referencia = EstatisticaCategoria.mes(YearMonth.now());
+        for (Categoria categoria : categorias) {
+            categoria.setEstatisticas(estatisticas.getOrDefault(categoria.getId(),
+                    new EstatisticaCategoria(categoria.getId(), 0L, BigDecimal.ZERO, referencia, BigDecimal.ZERO, null)));
+        }
+    }
+
+    /** Calcula do zero, a partir das transações, as estatísticas das categorias informadas. */
+    @Transactional
+    public void recalcular(Collection<Long> categoriaIds) {
+        if (categoriaIds.isEmpty()) {
+            return;
+        }
+        YearMonth mes = YearMonth.now();
+        int referencia = EstatisticaCategoria.mes(mes);
+        Map<Long, EstatisticaCategoria> calculadas = new HashMap<>();
+        for (Long categoriaId : categoriaIds) {
+            calculadas.put(categoriaId, new EstatisticaCategoria(categoriaId, 0L, BigDecimal.ZERO, referencia, BigDecimal.ZERO, null));
+        }
+        List<Object[]> arquivadas = arquivoFrio.lerConsistente(() -> {
+            for (Object[] linha : transacaoRepository.agregarPorCategorias(categoriaIds, mes.atDay(1), mes.atEndOfMonth())) {
+                Long categoriaId = (Long) linha[0];
+                calculadas.put(categoriaId, new EstatisticaCategoria(categoriaId, (Long) linha[1], (BigDecimal) linha[2],
+                        referencia, (BigDecimal) linha[3], (LocalDate) linha[4]));
+            }
+            return arquivoFrio.agregarPorCategoria(categoriaIds);
+        });
+        // Transações arquivadas são de anos fechados: entram na quantidade, no total e na última data, nunca no mês
+        for (Object[] linha : arquivadas) {
+            EstatisticaCategoria estatistica = calculadas.get((Long) linha[0]);
+            LocalDate ultima = estatistica.getUltimaTransacao();
+            estatistica.setQuantidade(estatistica.getQuantidade() + (Long) linha[1]);
+            estatistica.setTotal(estatistica.getTotal().add((BigDecimal) linha[2]));
+            if (ultima == null || ultima.isBefore((LocalDate) linha[3])) {
+                estatistica.setUltimaTransacao((LocalDate) linha[3]);
+            }
+        }
+        estatisticaCategoriaRepository.saveAll(calculadas.values());
+    }
+
+    @Transactional
+    public void recalcularTodas() {
+        recalcular(categoriaRepository.findAll().stream().map(Categoria::getId).toList());
+    }
+
+    /** Calcula as categorias que ainda não têm estatísticas (carga inicial, dados gravados por JDBC). */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recalcularFaltantes() {
+        List<Long> faltantes = estatisticaCategoriaRepository.findCategoriasSemEstatistica();
+        if (!faltantes.isEmpty()) {
+            recalcular(faltantes);
+            log.info("Estatísticas calculadas para {} categorias", faltantes.size());
+        }
+        invalidarContagem();
+    }
+
+    /**
+     * Quantidade de categorias essenciais ou supérfluas. As categorias só mudam por {@link CategoriaService},
+     * que chama {@link #invalidarContagem()} a cada escrita; entre escritas a contagem fica em memória.
+     */
+    public long contarCategorias(boolean essencial) {
+        long geracao = geracaoContagem.get();
+        ContagemCategorias atual = contagem;
+        if (atual == null || atual.geracao() != geracao) {
+            atual = new ContagemCategorias(geracao,
+                    valorOuZero(categoriaRepository.countCategoriasEssenciais()),
+                    valorOuZero(categoriaRepository.countCategoriasSuperfluas()));
+            contagem = atual;
+        }
+        return essencial ? atual.essenciais() : atual.superfluas();
+    }
+
+    public void invalidarContagem() {
+        geracaoContagem.incrementAndGet();
+    }
+
+    // Sem linha para a categoria: calcula por inteiro, já enxergando a escrita corrente
+    private boolean acumular(Long categoriaId, long quantidade, BigDecimal total, BigDecimal totalMes, YearMonth mes) {
+        if (estatisticaCategoriaRepository.acumular(categoriaId, quantidade, total, EstatisticaCategoria.mes(mes), totalMes) == 0) {
+            recalcular(List.of(categoriaId));
+            return false;
+        }
+        return true;
+    }
+
+    private void recalcularUltimaTransacao(Collection<Long> categoriaIds) {
+        if (categoriaIds.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDate> ultimas = new HashMap<>();
+        arquivoFrio.lerConsistente(() -> {
+            for (Object[] linha : transacaoRepository.findUltimaDataPorCategoria(categoriaIds)) {
+                ultimas.put((Long) linha[0], (LocalDate) linha[1]);
+            }
+            // Sem transações no banco, a mais recente da categoria pode estar arquivada
+            List<Long> semQuentes = categoriaIds.stream().filter(id -> !ultimas.containsKey(id)).toList();
+            if (!semQuentes.isEmpty() && !arquivoFrio.vazio()) {
+                for (Object[] linha : arquivoFrio.agregarPorCategoria(semQuentes)) {
+                    ultimas.put((Long) linha[0], (LocalDate) linha[3]);
+                }
+            }
+            return null;
+        });
+        for (Long categoriaId : categoriaIds) {
+            estatisticaCategoriaRepository.definirUltimaTransacao(categoriaId, ultimas.get(categoriaId));
+        }
+    }
+
+    private static BigDecimal noMes(Lancamento lancamento, YearMonth mes) {
+        return YearMonth.from(lancamento.data()).equals(mes) ? lancamento.valor() : BigDecimal.ZERO;
+    }
+
+    private static long valorOuZero(Long valor) {
+        return valor != null ? valor : 0;
+    }
+}
@@ -0,0 +1,217 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.EstadoRelatorio;
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila de relatórios: cada pedido vira um trabalho calculado por um de {@code trabalhadores} threads, na ordem
+ * da prioridade e depois da chegada. Cabem até {@code capacidade} trabalhos aguardando; além disso o pedido é
+ * recusado com {@link FilaRelatoriosCheiaException}.
+ *
+ * Pedidos do mesmo período se juntam ao trabalho existente enquanto ele aguarda (um pedido mais prioritário o
+ * adianta na fila) e, depois de iniciado, enquanto a geração do {@link CoalescedorConsultas} for a do início do
+ * cálculo: o relatório pronto é reaproveitado até a próxima escrita. Trabalhos concluídos ficam disponíveis por
+ * {@code retencao-minutos}; os expirados saem da memória a cada minuto, mesmo sem pedidos novos.
+ */
+@Service
+public class FilaRelatorios {
+
+    private static final Logger log = LoggerFactory.getLogger(FilaRelatorios.class);
+
+    private final RelatorioService relatorioService;
+    private final CoalescedorConsultas coalescedorConsultas;
+    private final MeterRegistry meterRegistry;
+    private final int capacidade;
+    private final Duration retencao;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService limpeza = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "relatorios-limpeza");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Trabalho> trabalhos = new ConcurrentHashMap<>();
+    // Último trabalho de cada período (pedido sem prioridade), sob a trava de enviar
+    private final Map<PedidoRelatorio, Trabalho> porPedido = new HashMap<>();
+    private final AtomicLong chegada = new AtomicLong();
+
+    public FilaRelatorios(RelatorioService relatorioService, CoalescedorConsultas coalescedorConsultas,
+                          MeterRegistry meterRegistry,
+                          @Value("${organizador.relatorios.trabalhadores:2}") int trabalhadores,
+                          @Value("${organizador.relatorios.capacidade:100}") int capacidade,
+                          @Value("${organizador.relatorios.retencao-minutos:60}") long retencaoMinutos) {
+        this.relatorioService = relatorioService;
+        this.coalescedorConsultas = coalescedorConsultas;
+        this.meterRegistry = meterRegistry;
+        this.capacidade = capacidade;
+        this.retencao = Duration.ofMinutes(retencaoMinutos);
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(trabalhadores, trabalhadores, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "relatorios-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("organizador.relatorios.fila", executor, e -> e.getQueue().size())
+                .description("Relatórios aguardando um trabalhador")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        limpeza.scheduleWithFixedDelay(this::removerExpirados, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        limpeza.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Agenda o relatório ou devolve o trabalho que já o atende.
+     *
+     * @throws FilaRelatoriosCheiaException se já há {@code capacidade} trabalhos aguardando
+     */
+    public synchronized EstadoRelatorio enviar(PedidoRelatorio pedido) {
+        pedido.validar();
+        removerExpirados();
+        PedidoRelatorio chave = pedido.semPrioridade();
+        Trabalho existente = porPedido.get(chave);
+        if (existente != null && existente.atende(coalescedorConsultas.geracao())) {
+            if (existente.situacao == EstadoRelatorio.Situacao.PENDENTE
+                    && pedido.prioridade().compareTo(existente.prioridade) < 0 && executor.remove(existente)) {
+                existente.prioridade = pedido.prioridade();
+                executor.execute(existente);
+            }
+            contador("reaproveitado").increment();
+            return existente.estado();
+        }
+        if (executor.getQueue().size() >= capacidade) {
+            contador("recusado").increment();
+            throw new FilaRelatoriosCheiaException("Fila de relatórios cheia (" + capacidade + " aguardando)");
+        }
+        Trabalho novo = new Trabalho(chave, pedido.prioridade());
+        trabalhos.put(novo.id, novo);
+        porPedido.put(chave, novo);
+        executor.execute(novo);
+        contador("agendado").increment();
+        return novo.estado();
+    }
+
+    public Optional<EstadoRelatorio> estado(String id) {
+        return vigente(id).map(Trabalho::estado);
+    }
+
+    /** O relatório do trabalho, vazio se ele não existe, expirou ou ainda não terminou. */
+    public Optional<Relatorio> resultado(String id) {
+        return vigente(id).map(trabalho -> trabalho.resultado);
+    }
+
+    // Entre duas limpezas, um trabalho expirado já não é devolvido
+    private Optional<Trabalho> vigente(String id) {
+        Instant limite = Instant.now().minus(retencao);
+        return Optional.ofNullable(trabalhos.get(id)).filter(trabalho -> !trabalho.expirado(limite));
+    }
+
+    synchronized void removerExpirados() {
+        Instant limite = Instant.now().minus(retencao);
+        trabalhos.values().removeIf(trabalho -> trabalho.expirado(limite));
+        porPedido.values().removeIf(trabalho -> !trabalhos.containsKey(trabalho.id));
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("organizador.relatorios.pedidos")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private final class Trabalho implements Runnable, Comparable<Trabalho> {
+
+        private final String id = UUID.randomUUID().toString();
+        private final PedidoRelatorio pedido;
+        private final long ordem = chegada.incrementAndGet();
+        private final Instant criadoEm = Instant.now();
+        // Alterada só dentro de enviar, com o trabalho fora da fila
+        private volatile PedidoRelatorio.Prioridade prioridade;
+        private volatile EstadoRelatorio.Situacao situacao = EstadoRelatorio.Situacao.PENDENTE;
+        private volatile long geracao;
+        private volatile Instant iniciadoEm;
+        private volatile Instant concluidoEm;
+        private volatile Relatorio resultado;
+        private volatile String erro;
+
+        private Trabalho(PedidoRelatorio pedido, PedidoRelatorio.Prioridade prioridade) {
+            this.pedido = pedido;
+            this.prioridade = prioridade;
+        }
+
+        private boolean expirado(Instant limite) {
+            Instant concluido = concluidoEm;
+            return concluido != null && concluido.isBefore(limite);
+        }
+
+        // Um trabalho ainda na fila vai ler os dados quando começar; depois disso, só vale sem escritas novas
+        private boolean atende(long geracaoAtual) {
+            return switch (situacao) {
+                case PENDENTE -> true;
+                case EXECUTANDO, CONCLUIDO -> geracao == geracaoAtual;
+                case FALHOU -> false;
+            };
+        }
+
+        @Override
+        public void run() {
+            // A geração é lida antes dos dados: uma escrita durante o cálculo já invalida o resultado
+            geracao = coalescedorConsultas.geracao();
+            iniciadoEm = Instant.now();
+            situacao = EstadoRelatorio.Situacao.EXECUTANDO;
+            try {
+                resultado = relatorioService.gerar(pedido);
+                concluidoEm = Instant.now();
+                situacao = EstadoRelatorio.Situacao.CONCLUIDO;
+            } catch (RuntimeException e) {
+                log.warn("Falha ao gerar o relatório {} ({})", id, pedido, e);
+                erro = e.getMessage();
+                concluidoEm = Instant.now();
+                situacao = EstadoRelatorio.Situacao.FALHOU;
+            }
+        }
+
+        @Override
+        public int compareTo(Trabalho outro) {
+            int porPrioridade = prioridade.compareTo(outro.prioridade);
+            return porPrioridade != 0 ? porPrioridade : Long.compare(ordem, outro.ordem);
+        }
+
+        private EstadoRelatorio estado() {
+            return new EstadoRelatorio(id, new PedidoRelatorio(pedido.periodo(), pedido.ano(), pedido.mes(), prioridade),
+                    situacao, criadoEm, iniciadoEm, concluidoEm, erro);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.organizadorfinancas.service;
+
+public class FilaRelatoriosCheiaException extends RuntimeException {
+
+    public FilaRelatoriosCheiaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,524 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binário dos backups: categorias, orçamentos e transações em blocos de até {@value #LINHAS_POR_BLOCO}
+ * linhas. Cada bloco leva o tipo das linhas, a quantidade, o tamanho e o crc32c do tipo, da quantidade e do
+ * conteúdo. Os números são varints (zigzag onde podem ser negativos), os ids são a diferença para o anterior
+ * e os textos vão em UTF-8 com o tamanho à frente; uma transação típica ocupa uns 30 bytes.
+ *
+ * Layout: {@code [magia][versão][bloco de cabeçalho][blocos de linhas][bloco final]}. O bloco de cabeçalho
+ * traz o instante da geração e os nomes de {@link TipoTransacao} na ordem dos índices usados nas transações;
+ * o bloco final traz as quantidades de cada tipo de linha, então um arquivo truncado entre dois blocos também
+ * é recusado. Escrita e leitura guardam um bloco por vez em memória.
+ */
+public final class FormatoBackup {
+
+    /** Uma categoria do backup. */
+    public record LinhaCategoria(long id, String nome, boolean essencial, TipoCategoria tipo, long versao) {
+    }
+
+    /** Um orçamento do backup: de uma categoria ou de um tipo de categoria. */
+    public record LinhaOrcamento(long id, Long categoriaId, TipoCategoria tipoCategoria, long limiteCentavos) {
+    }
+
+    /** O que um backup lido por inteiro contém: quantidades e o maior id de cada tabela. */
+    public record Conteudo(Instant geradoEm, long categorias, long orcamentos, long transacoes,
+                           long maiorIdCategoria, long maiorIdOrcamento, long maiorIdTransacao) {
+    }
+
+    /** Recebe os blocos na ordem do arquivo. */
+    public interface Destino {
+
+        void categorias(List<LinhaCategoria> categorias);
+
+        void orcamentos(List<LinhaOrcamento> orcamentos);
+
+        void transacoes(List<SegmentoFrio.Registro> transacoes);
+    }
+
+    public static final int LINHAS_POR_BLOCO = 4096;
+    /** Bytes da magia e da versão no início do arquivo. */
+    public static final int TAMANHO_INICIO = 2 * Integer.BYTES;
+
+    private static final int MAGIA = 0x4F46424B; // "OFBK"
+    private static final int VERSAO_FORMATO = 1;
+    // Por bloco: tipo, linhas, tamanho do conteúdo e crc32c
+    private static final int CABECALHO_BLOCO = 1 + 3 * Integer.BYTES;
+    private static final int TAMANHO_MAXIMO_BLOCO = 64 * 1024 * 1024;
+
+    private static final byte BLOCO_FIM = 0;
+    private static final byte BLOCO_CABECALHO = 1;
+    private static final byte BLOCO_CATEGORIAS = 2;
+    private static final byte BLOCO_ORCAMENTOS = 3;
+    private static final byte BLOCO_TRANSACOES = 4;
+
+    // Bits do byte de opções de uma transação; os quatro menores são o índice do tipo
+    private static final int RECORRENTE = 0x10;
+    private static final int COM_OBSERVACOES = 0x20;
+    // Bits do byte de opções de um orçamento
+    private static final int COM_CATEGORIA = 0x01;
+    private static final int COM_TIPO_CATEGORIA = 0x02;
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private FormatoBackup() {
+    }
+
+    /**
+     * Grava um backup novo em um temporário ao lado do arquivo final, que só recebe o nome em {@link #concluir()}.
+     * Fechar sem concluir apaga o temporário.
+     */
+    public static final class Escritor implements Closeable {
+
+        private final Path arquivo;
+        private final Path temporario;
+        private final FileChannel canal;
+        private final Instant geradoEm;
+        private final Saida conteudo = new Saida();
+        private final ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_BLOCO);
+        private byte tipoBloco = BLOCO_FIM;
+        private int linhas;
+        private long idAnterior;
+        private long categorias;
+        private long orcamentos;
+        private long transacoes;
+        private long maiorIdCategoria;
+        private long maiorIdOrcamento;
+        private long maiorIdTransacao;
+        private boolean concluido;
+
+        public Escritor(Path arquivo, Instant geradoEm) {
+            this.arquivo = arquivo;
+            this.temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            this.geradoEm = geradoEm;
+            try {
+                this.canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                escrever(canal, ByteBuffer.allocate(TAMANHO_INICIO).putInt(MAGIA).putInt(VERSAO_FORMATO).flip());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao criar o backup " + arquivo, e);
+            }
+            conteudo.zigzag(geradoEm.toEpochMilli());
+            conteudo.varint(TIPOS.length);
+            for (TipoTransacao tipo : TIPOS) {
+                conteudo.texto(tipo.name());
+            }
+            gravarBloco(BLOCO_CABECALHO, 0);
+        }
+
+        public void categoria(LinhaCategoria categoria) {
+            iniciar(BLOCO_CATEGORIAS);
+            conteudo.zigzag(categoria.id() - idAnterior);
+            conteudo.texto(categoria.nome());
+            conteudo.byte_(categoria.essencial() ? 1 : 0);
+            conteudo.texto(categoria.tipo().name());
+            conteudo.varint(categoria.versao());
+            maiorIdCategoria = Math.max(maiorIdCategoria, categoria.id());
+            categorias++;
+            terminar(categoria.id());
+        }
+
+        public void orcamento(LinhaOrcamento orcamento) {
+            iniciar(BLOCO_ORCAMENTOS);
+            conteudo.zigzag(orcamento.id() - idAnterior);
+            conteudo.byte_((orcamento.categoriaId() != null ? COM_CATEGORIA : 0)
+                    | (orcamento.tipoCategoria() != null ? COM_TIPO_CATEGORIA : 0));
+            if (orcamento.categoriaId() != null) {
+                conteudo.varint(orcamento.categoriaId());
+            }
+            if (orcamento.tipoCategoria() != null) {
+                conteudo.texto(orcamento.tipoCategoria().name());
+            }
+            conteudo.zigzag(orcamento.limiteCentavos());
+            maiorIdOrcamento = Math.max(maiorIdOrcamento, orcamento.id());
+            orcamentos++;
+            terminar(orcamento.id());
+        }
+
+        public void transacao(SegmentoFrio.Registro transacao) {
+            iniciar(BLOCO_TRANSACOES);
+            conteudo.zigzag(transacao.id() - idAnterior);
+            conteudo.texto(transacao.descricao());
+            conteudo.zigzag(transacao.centavos());
+            conteudo.zigzag(transacao.data().toEpochDay());
+            conteudo.byte_(transacao.tipo().ordinal()
+                    | (transacao.recorrente() ? RECORRENTE : 0)
+                    | (transacao.observacoes() != null ? COM_OBSERVACOES : 0));
+            conteudo.varint(transacao.parcelas());
+            conteudo.varint(transacao.parcelaAtual());
+            conteudo.varint(transacao.categoriaId());
+            if (transacao.observacoes() != null) {
+                conteudo.texto(transacao.observacoes());
+            }
+            conteudo.varint(transacao.versao());
+            maiorIdTransacao = Math.max(maiorIdTransacao, transacao.id());
+            transacoes++;
+            terminar(transacao.id());
+        }
+
+        /** Grava o último bloco e o bloco final, sincroniza e renomeia o temporário para o nome do backup. */
+        public Conteudo concluir() {
+            if (linhas > 0) {
+                gravarBloco(tipoBloco, linhas);
+            }
+            conteudo.varint(categorias);
+            conteudo.varint(orcamentos);
+            conteudo.varint(transacoes);
+            gravarBloco(BLOCO_FIM, 0);
+            try {
+                canal.force(true);
+                canal.close();
+                Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar o backup " + arquivo, e);
+            }
+            concluido = true;
+            return new Conteudo(geradoEm, categorias, orcamentos, transacoes,
+                    maiorIdCategoria, maiorIdOrcamento, maiorIdTransacao);
+        }
+
+        @Override
+        public void close() {
+            if (concluido) {
+                return;
+            }
+            try {
+                canal.close();
+                Files.deleteIfExists(temporario);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao descartar o backup incompleto " + temporario, e);
+            }
+        }
+
+        private void iniciar(byte tipo) {
+            if (tipo != tipoBloco) {
+                if (linhas > 0) {
+                    gravarBloco(tipoBloco, linhas);
+                }
+                tipoBloco = tipo;
+                idAnterior = 0;
+            }
+        }
+
+        private void terminar(long id) {
+            idAnterior = id;
+            if (++linhas == LINHAS_POR_BLOCO) {
+                gravarBloco(tipoBloco, linhas);
+            }
+        }
+
+        private void gravarBloco(byte tipo, int quantidade) {
+            CRC32C crc = new CRC32C();
+            cabecalho.clear().put(tipo).putInt(quantidade);
+            crc.update(cabecalho.array(), 0, cabecalho.position());
+            crc.update(conteudo.dados, 0, conteudo.tamanho);
+            cabecalho.putInt(conteudo.tamanho).putInt((int) crc.getValue()).flip();
+            try {
+                escrever(canal, cabecalho);
+                escrever(canal, ByteBuffer.wrap(conteudo.dados, 0, conteudo.tamanho));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar o backup " + arquivo, e);
+            }
+            conteudo.tamanho = 0;
+            linhas = 0;
+            idAnterior = 0;
+        }
+    }
+
+    /**
+     * Lê o backup inteiro, conferindo a magia, a versão, o crc32c de cada bloco e as quantidades do bloco final,
+     * e entrega as linhas ao destino bloco a bloco. Sem destino, só confere o arquivo.
+     *
+     * @throws IllegalStateException se o arquivo não é um backup, é de outra versão, está truncado ou corrompido
+     */
+    public static Conteudo ler(Path arquivo, Destino destino) {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 1 << 16))) {
+            byte[] inicio = new byte[TAMANHO_INICIO];
+            entrada.readFully(inicio);
+            conferirInicio(inicio);
+            Leitura leitura = new Leitura(entrada);
+            Entrada cabecalho = leitura.proximo();
+            if (leitura.tipo != BLOCO_CABECALHO) {
+                throw corrompido("o primeiro bloco não é o cabeçalho");
+            }
+            Instant geradoEm = Instant.ofEpochMilli(cabecalho.zigzag());
+            TipoTransacao[] tipos = new TipoTransacao[cabecalho.inteiro()];
+            for (int i = 0; i < tipos.length; i++) {
+                tipos[i] = TipoTransacao.valueOf(cabecalho.texto());
+            }
+            cabecalho.fim();
+
+            long categorias = 0;
+            long orcamentos = 0;
+            long transacoes = 0;
+            long maiorIdCategoria = 0;
+            long maiorIdOrcamento = 0;
+            long maiorIdTransacao = 0;
+            while (true) {
+                Entrada bloco = leitura.proximo();
+                int linhas = leitura.linhas;
+                long id = 0;
+                switch (leitura.tipo) {
+                    case BLOCO_CATEGORIAS -> {
+                        List<LinhaCategoria> lidas = new ArrayList<>(linhas);
+                        for (int i = 0; i < linhas; i++) {
+                            id += bloco.zigzag();
+                            lidas.add(new LinhaCategoria(id, bloco.texto(), bloco.byte_() != 0,
+                                    TipoCategoria.valueOf(bloco.texto()), bloco.varint()));
+                            maiorIdCategoria = Math.max(maiorIdCategoria, id);
+                        }
+                        bloco.fim();
+                        categorias += linhas;
+                        if (destino != null) {
+                            destino.categorias(lidas);
+                        }
+                    }
+                    case BLOCO_ORCAMENTOS -> {
+                        List<LinhaOrcamento> lidos = new ArrayList<>(linhas);
+                        for (int i = 0; i < linhas; i++) {
+                            id += bloco.zigzag();
+                            int opcoes = bloco.byte_();
+                            Long categoriaId = (opcoes & COM_CATEGORIA) != 0 ? bloco.varint() : null;
+                            TipoCategoria tipoCategoria = (opcoes & COM_TIPO_CATEGORIA) != 0
+                                    ? TipoCategoria.valueOf(bloco.texto()) : null;
+                            lidos.add(new LinhaOrcamento(id, categoriaId, tipoCategoria, bloco.zigzag()));
+                            maiorIdOrcamento = Math.max(maiorIdOrcamento, id);
+                        }
+                        bloco.fim();
+                        orcamentos += linhas;
+                        if (destino != null) {
+                            destino.orcamentos(lidos);
+                        }
+                    }
+                    case BLOCO_TRANSACOES -> {
+                        List<SegmentoFrio.Registro> lidas = new ArrayList<>(linhas);
+                        for (int i = 0; i < linhas; i++) {
+                            id += bloco.zigzag();
+                            String descricao = bloco.texto();
+                            long centavos = bloco.zigzag();
+                            LocalDate data = LocalDate.ofEpochDay(bloco.zigzag());
+                            int opcoes = bloco.byte_();
+                            if ((opcoes & 0x0F) >= tipos.length) {
+                                throw corrompido("tipo de transação inválido");
+                            }
+                            int parcelas = bloco.inteiro();
+                            int parcelaAtual = bloco.inteiro();
+                            long categoriaId = bloco.varint();
+                            String observacoes = (opcoes & COM_OBSERVACOES) != 0 ? bloco.texto() : null;
+                            lidas.add(new SegmentoFrio.Registro(id, descricao, centavos, data, tipos[opcoes & 0x0F],
+                                    (opcoes & RECORRENTE) != 0, parcelas, parcelaAtual, categoriaId, observacoes,
+                                    bloco.varint()));
+                            maiorIdTransacao = Math.max(maiorIdTransacao, id);
+                        }
+                        bloco.fim();
+                        transacoes += linhas;
+                        if (destino != null) {
+                            destino.transacoes(lidas);
+                        }
+                    }
+                    case BLOCO_FIM -> {
+                        if (bloco.varint() != categorias || bloco.varint() != orcamentos || bloco.varint() != transacoes) {
+                            throw corrompido("quantidades diferentes das do bloco final");
+                        }
+                        bloco.fim();
+                        if (entrada.read() != -1) {
+                            throw corrompido("dados depois do bloco final");
+                        }
+                        return new Conteudo(geradoEm, categorias, orcamentos, transacoes,
+                                maiorIdCategoria, maiorIdOrcamento, maiorIdTransacao);
+                    }
+                    default -> throw corrompido("tipo de bloco desconhecido " + leitura.tipo);
+                }
+            }
+        } catch (EOFException e) {
+            throw corrompido("arquivo truncado");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler o backup " + arquivo, e);
+        }
+    }
+
+    /**
+     * Confere a magia e a versão dos primeiros {@value #TAMANHO_INICIO} bytes, para recusar um arquivo antes de
+     * receber o resto.
+     *
+     * @throws IllegalStateException se não é um backup ou é de outra versão
+     */
+    public static void conferirInicio(byte[] inicio) {
+        ByteBuffer campos = ByteBuffer.wrap(inicio, 0, TAMANHO_INICIO);
+        if (campos.getInt() != MAGIA) {
+            throw new IllegalStateException("O arquivo não é um backup do organizador");
+        }
+        int versao = campos.getInt();
+        if (versao != VERSAO_FORMATO) {
+            throw new IllegalStateException("Versão de backup não suportada: " + versao);
+        }
+    }
+
+    private static IllegalStateException corrompido(String motivo) {
+        return new IllegalStateException("Backup corrompido: " + motivo);
+    }
+
+    private static void escrever(FileChannel canal, ByteBuffer dados) throws IOException {
+        while (dados.hasRemaining()) {
+            canal.write(dados);
+        }
+    }
+
+    /** Lê os blocos em sequência, reaproveitando o mesmo buffer. */
+    private static final class Leitura {
+
+        private final DataInputStream entrada;
+        private final byte[] cabecalho = new byte[CABECALHO_BLOCO];
+        private byte[] dados = new byte[1 << 16];
+        private byte tipo;
+        private int linhas;
+
+        private Leitura(DataInputStream entrada) {
+            this.entrada = entrada;
+        }
+
+        private Entrada proximo() throws IOException {
+            entrada.readFully(cabecalho);
+            ByteBuffer campos = ByteBuffer.wrap(cabecalho);
+            tipo = campos.get();
+            linhas = campos.getInt();
+            int tamanho = campos.getInt();
+            int crcGravado = campos.getInt();
+            if (linhas < 0 || linhas > LINHAS_POR_BLOCO || tamanho < 0 || tamanho > TAMANHO_MAXIMO_BLOCO) {
+                throw corrompido("cabeçalho de bloco inválido");
+            }
+            if (dados.length < tamanho) {
+                dados = new byte[Math.max(tamanho, dados.length * 2)];
+            }
+            entrada.readFully(dados, 0, tamanho);
+            CRC32C crc = new CRC32C();
+            crc.update(cabecalho, 0, 1 + Integer.BYTES);
+            crc.update(dados, 0, tamanho);
+            if ((int) crc.getValue() != crcGravado) {
+                throw corrompido("crc32c divergente");
+            }
+            return new Entrada(dados, tamanho);
+        }
+    }
+
+    private static final class Saida {
+
+        private byte[] dados = new byte[1 << 16];
+        private int tamanho;
+
+        private void byte_(int valor) {
+            garantir(1);
+            dados[tamanho++] = (byte) valor;
+        }
+
+        private void varint(long valor) {
+            garantir(10);
+            while ((valor & ~0x7FL) != 0) {
+                dados[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            dados[tamanho++] = (byte) valor;
+        }
+
+        private void zigzag(long valor) {
+            varint((valor << 1) ^ (valor >> 63));
+        }
+
+        private void texto(String texto) {
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            garantir(bytes.length);
+            System.arraycopy(bytes, 0, dados, tamanho, bytes.length);
+            tamanho += bytes.length;
+        }
+
+        private void garantir(int bytes) {
+            if (tamanho + bytes > dados.length) {
+                dados = Arrays.copyOf(dados, Math.max(tamanho + bytes, dados.length * 2));
+            }
+        }
+    }
+
+    private static final class Entrada {
+
+        private final byte[] dados;
+        private final int tamanho;
+        private int posicao;
+
+        private Entrada(byte[] dados, int tamanho) {
+            this.dados = dados;
+            this.tamanho = tamanho;
+        }
+
+        private int byte_() {
+            if (posicao >= tamanho) {
+                throw corrompido("bloco mais curto que suas linhas");
+            }
+            return dados[posicao++] & 0xFF;
+        }
+
+        private long varint() {
+            long valor = 0;
+            for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+                int atual = byte_();
+                valor |= (long) (atual & 0x7F) << deslocamento;
+                if ((atual & 0x80) == 0) {
+                    return valor;
+                }
+            }
+            throw corrompido("varint longo demais");
+        }
+
+        private long zigzag() {
+            long valor = varint();
+            return (valor >>> 1) ^ -(valor & 1);
+        }
+
+        private int inteiro() {
+            long valor = varint();
+            if (valor > Integer.MAX_VALUE) {
+                throw corrompido("inteiro fora do intervalo");
+            }
+            return (int) valor;
+        }
+
+        private String texto() {
+            int bytes = inteiro();
+            if (bytes > tamanho - posicao) {
+                throw corrompido("texto além do fim do bloco");
+            }
+            String texto = new String(dados, posicao, bytes, StandardCharsets.UTF_8);
+            posicao += bytes;
+            return texto;
+        }
+
+        private void fim() {
+            if (posicao != tamanho) {
+                throw corrompido("bytes sobrando no bloco");
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.organizadorfinancas.service;
+
+public class IngestaoSaturadaException extends RuntimeException {
+
+    public IngestaoSaturadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,358 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ingestão assíncrona de transações (write-behind). Cada transação aceita é gravada no
+ * {@link JournalIngestao} e sincronizada com o disco antes da confirmação, que devolve a
+ * sequência durável. As transações aceitas ficam num buffer limitado e são gravadas no banco
+ * em lotes (a cada {@code intervaloMs} ou ao atingir {@code tamanhoLote}), numa única transação
+ * que também registra a última sequência aplicada. Na inicialização, os registros do journal
+ * com sequência acima da última aplicada são regravados, então uma queda não perde transações
+ * confirmadas nem as duplica. Uma transação que o banco recusa (ex.: categoria excluída depois da
+ * aceitação) vai para a tabela {@code ingestao_rejeitadas}, onde o cliente a consulta pela sequência.
+ */
+public class IngestaoTransacoes implements AutoCloseable {
+
+    public record Estado(long ultimaAceita, long ultimaDuravel, long ultimaAplicada, int pendentes, long rejeitadas) {
+    }
+
+    /** Transação confirmada que o banco recusou, com o motivo. */
+    public record Rejeitada(long sequencia, Transacao transacao, String motivo, Instant rejeitadaEm) {
+    }
+
+    private record Pendente(long sequencia, Transacao transacao) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaoTransacoes.class);
+
+    private static final String INSERT_TRANSACAO =
+            "INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id, observacoes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_REJEITADA =
+            "INSERT INTO ingestao_rejeitadas (sequencia, dados, motivo, rejeitada_em) VALUES (?, ?, ?, ?)";
+    private static final int TAMANHO_MOTIVO = 1000;
+
+    private final JournalIngestao journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoriaRepository categoriaRepository;
+    private final Consumer<List<Transacao>> aoGravar;
+    private final Runnable aposAplicar;
+    private final int capacidade;
+    private final int tamanhoLote;
+    private final long intervaloMs;
+
+    private final ArrayDeque<Pendente> buffer = new ArrayDeque<>();
+    private final Object travaDescarga = new Object();
+    private final Object monitorAplicacao = new Object();
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ingestao-transacoes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Alterados sob a trava da instância e lidos sem ela por getEstado
+    private final AtomicLong ultimaAceita = new AtomicLong();
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private volatile long ultimaAplicada;
+
+    public IngestaoTransacoes(JournalIngestao journal, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              CategoriaRepository categoriaRepository, Consumer<List<Transacao>> aoGravar, Runnable aposAplicar,
+                              int capacidade, int tamanhoLote, long intervaloMs) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.categoriaRepository = categoriaRepository;
+        this.aoGravar = aoGravar;
+        this.aposAplicar = aposAplicar;
+        this.capacidade = capacidade;
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMs = intervaloMs;
+    }
+
+    public void iniciar() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ingestao_estado (id INT PRIMARY KEY, ultima_sequencia BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO ingestao_estado (id, ultima_sequencia) " +
+                "SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM ingestao_estado WHERE id = 1)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ingestao_rejeitadas (sequencia BIGINT PRIMARY KEY, " +
+                "dados VARBINARY(65535) NOT NULL, motivo VARCHAR(" + TAMANHO_MOTIVO + ") NOT NULL, rejeitada_em TIMESTAMP NOT NULL)");
+        Long aplicada = jdbcTemplate.queryForObject("SELECT ultima_sequencia FROM ingestao_estado WHERE id = 1", Long.class);
+        ultimaAplicada = aplicada != null ? aplicada : 0;
+
+        int recuperadas = 0;
+        for (JournalIngestao.Registro registro : journal.recuperar()) {
+            if (registro.sequencia() > ultimaAplicada) {
+                buffer.add(new Pendente(registro.sequencia(), decodificar(registro.dados())));
+                pendentes.incrementAndGet();
+                recuperadas++;
+            }
+        }
+        ultimaAceita.set(Math.max(ultimaAplicada, journal.getUltimaDuravel()));
+        if (recuperadas > 0) {
+            log.info("Ingestão: {} transações recuperadas do journal", recuperadas);
+            descarregar();
+        }
+        journal.descartarAte(ultimaAplicada);
+        agendador.scheduleWithFixedDelay(this::descarregarAgendado, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Aceita a transação e retorna sua sequência depois que ela está gravada no journal em disco.
+     *
+     * @throws IngestaoSaturadaException se o buffer estiver cheio
+     */
+    public long aceitar(Transacao transacao) {
+        validar(transacao);
+        byte[] dados = codificar(transacao);
+        long sequencia;
+        synchronized (this) {
+            if (buffer.size() >= capacidade) {
+                throw new IngestaoSaturadaException("Buffer de ingestão cheio (" + capacidade + " transações pendentes)");
+            }
+            sequencia = ultimaAceita.incrementAndGet();
+            journal.anexar(sequencia, dados);
+            buffer.add(new Pendente(sequencia, transacao));
+            pendentes.incrementAndGet();
+            if (buffer.size() == tamanhoLote) {
+                agendador.execute(this::descarregarAgendado);
+            }
+        }
+        // Sincronização em grupo: aceitações concorrentes compartilham o mesmo fsync
+        journal.sincronizar(sequencia);
+        return sequencia;
+    }
+
+    /**
+     * Aguarda até que a sequência informada esteja gravada no banco, antecipando a próxima descarga.
+     * Permite que um cliente leia as próprias escritas.
+     */
+    public boolean aguardarAplicacao(long sequencia, long timeoutMs) throws InterruptedException {
+        if (ultimaAplicada >= sequencia) {
+            return true;
+        }
+        sequencia = Math.min(sequencia, ultimaAceita.get());
+        agendador.execute(this::descarregarAgendado);
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (monitorAplicacao) {
+            while (ultimaAplicada < sequencia) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitorAplicacao, restante);
+            }
+        }
+        return true;
+    }
+
+    /** Lido sem a trava de {@link #aceitar}: a contagem das rejeitadas vai ao banco sem atrasar as aceitações. */
+    public Estado getEstado() {
+        Long rejeitadas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ingestao_rejeitadas", Long.class);
+        return new Estado(ultimaAceita.get(), journal.getUltimaDuravel(), ultimaAplicada, pendentes.get(),
+                rejeitadas != null ? rejeitadas : 0);
+    }
+
+    /** Transações recusadas pelo banco e ainda não descartadas pelo cliente, em ordem de sequência. */
+    public List<Rejeitada> rejeitadas() {
+        return jdbcTemplate.query("SELECT sequencia, dados, motivo, rejeitada_em FROM ingestao_rejeitadas ORDER BY sequencia",
+                (rs, linha) -> new Rejeitada(rs.getLong("sequencia"), decodificar(rs.getBytes("dados")),
+                        rs.getString("motivo"), rs.getTimestamp("rejeitada_em").toInstant()));
+    }
+
+    /** Remove uma rejeitada já tratada pelo cliente; falso se a sequência não está entre as rejeitadas. */
+    public boolean descartarRejeitada(long sequencia) {
+        return jdbcTemplate.update("DELETE FROM ingestao_rejeitadas WHERE sequencia = ?", sequencia) > 0;
+    }
+
+    @Override
+    public void close() {
+        agendador.shutdown();
+        try {
+            agendador.awaitTermination(10, TimeUnit.SECONDS);
+            descarregar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Ingestão: transações pendentes serão regravadas do journal na próxima inicialização", e);
+        } finally {
+            journal.close();
+        }
+    }
+
+    private void descarregarAgendado() {
+        try {
+            descarregar();
+        } catch (RuntimeException e) {
+            log.error("Ingestão: falha ao gravar lote, nova tentativa em {} ms", intervaloMs, e);
+        }
+    }
+
+    private void descarregar() {
+        synchronized (travaDescarga) {
+            while (true) {
+                List<Pendente> lote = new ArrayList<>(tamanhoLote);
+                synchronized (this) {
+                    Iterator<Pendente> pendentes = buffer.iterator();
+                    while (pendentes.hasNext() && lote.size() < tamanhoLote) {
+                        lote.add(pendentes.next());
+                    }
+                }
+                if (lote.isEmpty()) {
+                    return;
+                }
+
+                try {
+                    aplicar(lote);
+                } catch (DataIntegrityViolationException e) {
+                    aplicarIndividualmente(lote);
+                }
+
+                synchronized (this) {
+                    for (int i = 0; i < lote.size(); i++) {
+                        buffer.poll();
+                        pendentes.decrementAndGet();
+                    }
+                }
+                long aplicada = lote.get(lote.size() - 1).sequencia();
+                journal.descartarAte(aplicada);
+                // Invalida os caches antes de liberar quem aguarda a leitura das próprias escritas
+                aposAplicar.run();
+                synchronized (monitorAplicacao) {
+                    ultimaAplicada = aplicada;
+                    monitorAplicacao.notifyAll();
+                }
+            }
+        }
+    }
+
+    // Grava o lote e a última sequência aplicada na mesma transação (group commit)
+    private void aplicar(List<Pendente> lote) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACAO, lote, lote.size(), (ps, pendente) -> {
+                Transacao t = pendente.transacao();
+                ps.setString(1, t.getDescricao());
+                ps.setBigDecimal(2, t.getValor());
+                ps.setDate(3, Date.valueOf(t.getData()));
+                ps.setString(4, t.getTipo().name());
+                ps.setBoolean(5, t.getRecorrente());
+                ps.setInt(6, t.getParcelas());
+                ps.setInt(7, t.getParcelaAtual());
+                ps.setLong(8, t.getCategoria().getId());
+                ps.setString(9, t.getObservacoes());
+            });
+            aoGravar.accept(lote.stream().map(Pendente::transacao).toList());
+            registrarAplicada(lote.get(lote.size() - 1).sequencia());
+        });
+    }
+
+    /**
+     * Um registro que viola restrições do banco (ex.: categoria excluída depois da aceitação) nunca será
+     * gravado: vai para {@code ingestao_rejeitadas} na mesma transação que o marca como aplicado, para não
+     * bloquear os seguintes nem sumir sem rastro.
+     */
+    private void aplicarIndividualmente(List<Pendente> lote) {
+        for (Pendente pendente : lote) {
+            try {
+                aplicar(List.of(pendente));
+            } catch (DataIntegrityViolationException e) {
+                String motivo = e.getMostSpecificCause().getMessage();
+                log.error("Ingestão: transação de sequência {} rejeitada: {}", pendente.sequencia(), motivo);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(INSERT_REJEITADA, pendente.sequencia(), codificar(pendente.transacao()),
+                            motivo.length() > TAMANHO_MOTIVO ? motivo.substring(0, TAMANHO_MOTIVO) : motivo,
+                            Timestamp.from(Instant.now()));
+                    registrarAplicada(pendente.sequencia());
+                });
+            }
+        }
+    }
+
+    private void registrarAplicada(long sequencia) {
+        jdbcTemplate.update("UPDATE ingestao_estado SET ultima_sequencia = ? WHERE id = 1", sequencia);
+    }
+
+    private void validar(Transacao transacao) {
+        if (transacao.getTipo() == null || transacao.getRecorrente() == null
+                || transacao.getParcelas() == null || transacao.getParcelaAtual() == null) {
+            throw new IllegalArgumentException("Tipo, recorrente, parcelas e parcelaAtual são obrigatórios");
+        }
+        Categoria categoria = transacao.getCategoria();
+        if (categoria == null || categoria.getId() == null || !categoriaRepository.existsById(categoria.getId())) {
+            throw new IllegalArgumentException("Categoria inexistente");
+        }
+    }
+
+    static byte[] codificar(Transacao transacao) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(transacao.getDescricao());
+            out.writeUTF(transacao.getValor().toPlainString());
+            out.writeLong(transacao.getData().toEpochDay());
+            out.writeUTF(transacao.getTipo().name());
+            out.writeBoolean(transacao.getRecorrente());
+            out.writeInt(transacao.getParcelas());
+            out.writeInt(transacao.getParcelaAtual());
+            out.writeLong(transacao.getCategoria().getId());
+            out.writeBoolean(transacao.getObservacoes() != null);
+            if (transacao.getObservacoes() != null) {
+                out.writeUTF(transacao.getObservacoes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Transacao decodificar(byte[] dados) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dados))) {
+            Transacao transacao = new Transacao();
+            transacao.setDescricao(in.readUTF());
+            transacao.setValor(new BigDecimal(in.readUTF()));
+            transacao.setData(LocalDate.ofEpochDay(in.readLong()));
+            transacao.setTipo(TipoTransacao.valueOf(in.readUTF()));
+            transacao.setRecorrente(in.readBoolean());
+            transacao.setParcelas(in.readInt());
+            transacao.setParcelaAtual(in.readInt());
+            Categoria categoria = new Categoria();
+            categoria.setId(in.readLong());
+            transacao.setCategoria(categoria);
+            if (in.readBoolean()) {
+                transacao.setObservacoes(in.readUTF());
+            }
+            return transacao;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.organizadorfinancas.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escrita antecipada (WAL) da ingestão assíncrona. Cada registro é
+ * {@code [tamanho][sequência][dados][crc32c]}; um registro incompleto ou corrompido no fim
+ * do último segmento (queda durante a escrita) é descartado na recuperação.
+ *
+ * A sincronização com o disco é feita em grupo: chamadas concorrentes a
+ * {@link #sincronizar(long)} são atendidas por um único {@code force}.
+ */
+public class JournalIngestao implements AutoCloseable {
+
+    public record Registro(long sequencia, byte[] dados) {
+    }
+
+    private record Segmento(Path arquivo, long ultimaSequencia) {
+    }
+
+    private static final String PREFIXO = "ingestao-";
+    private static final String SUFIXO = ".log";
+    private static final int CABECALHO = Integer.BYTES + Long.BYTES;
+
+    private final Path diretorio;
+    private final long tamanhoMaximoSegmento;
+    private final Deque<Segmento> segmentosFechados = new ArrayDeque<>();
+    private final Object travaSincronizacao = new Object();
+
+    private FileChannel canal;
+    private Path arquivoAtual;
+    private long ultimaAnexada;
+    private volatile long ultimaDuravel;
+
+    public JournalIngestao(Path diretorio, long tamanhoMaximoSegmento) {
+        this.diretorio = diretorio;
+        this.tamanhoMaximoSegmento = tamanhoMaximoSegmento;
+    }
+
+    /**
+     * Lê todos os segmentos em ordem e abre um novo segmento para escrita.
+     * Deve ser chamado uma vez, antes de qualquer escrita.
+     */
+    public synchronized List<Registro> recuperar() {
+        try {
+            Files.createDirectories(diretorio);
+            List<Path> arquivos;
+            try (Stream<Path> listagem = Files.list(diretorio)) {
+                arquivos = listagem
+                        .filter(p -> p.getFileName().toString().startsWith(PREFIXO) && p.getFileName().toString().endsWith(SUFIXO))
+                        .sorted()
+                        .toList();
+            }
+
+            List<Registro> registros = new ArrayList<>();
+            for (Path arquivo : arquivos) {
+                long ultima = ler(arquivo, registros);
+                if (ultima > 0) {
+                    segmentosFechados.add(new Segmento(arquivo, ultima));
+                    ultimaAnexada = Math.max(ultimaAnexada, ultima);
+                } else {
+                    Files.delete(arquivo);
+                }
+            }
+            ultimaDuravel = ultimaAnexada;
+            abrirSegmento(ultimaAnexada + 1);
+            return registros;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao recuperar o journal de ingestão em " + diretorio, e);
+        }
+    }
+
+    public synchronized void anexar(long sequencia, byte[] dados) {
+        try {
+            if (canal.size() >= tamanhoMaximoSegmento) {
+                fecharSegmentoAtual();
+                abrirSegmento(sequencia);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(CABECALHO + dados.length + Integer.BYTES);
+            buffer.putInt(dados.length).putLong(sequencia).put(dados);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.array(), Integer.BYTES, Long.BYTES + dados.length);
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            ultimaAnexada = sequencia;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar no journal de ingestão", e);
+        }
+    }
+
+    /** Garante que todos os registros até {@code sequencia} estão no disco. */
+    public void sincronizar(long sequencia) {
+        if (ultimaDuravel >= sequencia) {
+            return;
+        }
+        synchronized (travaSincronizacao) {
+            if (ultimaDuravel >= sequencia) {
+                return;
+            }
+            long alvo;
+            FileChannel canalAtual;
+            synchronized (this) {
+                alvo = ultimaAnexada;
+                canalAtual = canal;
+            }
+            try {
+                canalAtual.force(false);
+            } catch (ClosedChannelException e) {
+                // Segmento trocado durante a sincronização: ao ser fechado ele já foi sincronizado
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao sincronizar o journal de ingestão", e);
+            }
+            ultimaDuravel = alvo;
+        }
+    }
+
+    /** Remove os segmentos cujos registros já foram todos aplicados no banco. */
+    public synchronized void descartarAte(long sequenciaAplicada) {
+        try {
+            while (!segmentosFechados.isEmpty() && segmentosFechados.peekFirst().ultimaSequencia() <= sequenciaAplicada) {
+                Files.deleteIfExists(segmentosFechados.pollFirst().arquivo());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao descartar segmentos do journal de ingestão", e);
+        }
+    }
+
+    public long getUltimaDuravel() {
+        return ultimaDuravel;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (canal != null) {
+                canal.force(false);
+                canal.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao fechar o journal de ingestão", e);
+        }
+    }
+
+    private void abrirSegmento(long primeiraSequencia) throws IOException {
+        arquivoAtual = diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiraSequencia, SUFIXO));
+        canal = FileChannel.open(arquivoAtual, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void fecharSegmentoAtual() throws IOException {
+        canal.force(false);
+        canal.close();
+        segmentosFechados.add(new Segmento(arquivoAtual, ultimaAnexada));
+    }
+
+    /** Lê os registros válidos do arquivo, trunca a cauda inválida e retorna a última sequência lida (0 se vazio). */
+    private static long ler(Path arquivo, List<Registro> destino) throws IOException {
+        long ultima = 0;
+        try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer conteudo = ByteBuffer.allocate((int) leitura.size());
+            while (conteudo.hasRemaining()) {
+                if (leitura.read(conteudo) < 0) {
+                    break;
+                }
+            }
+            conteudo.flip();
+            int validos = 0;
+            while (conteudo.remaining() >= CABECALHO + Integer.BYTES) {
+                int inicio = conteudo.position();
+                int tamanho = conteudo.getInt();
+                if (tamanho < 0 || conteudo.remaining() < Long.BYTES + tamanho + Integer.BYTES) {
+                    break;
+                }
+                long sequencia = conteudo.getLong();
+                byte[] dados = new byte[tamanho];
+                conteudo.get(dados);
+                CRC32C crc = new CRC32C();
+                crc.update(conteudo.array(), inicio + Integer.BYTES, Long.BYTES + tamanho);
+                if (conteudo.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                destino.add(new Registro(sequencia, dados));
+                ultima = sequencia;
+                validos = conteudo.position();
+            }
+            if (validos < leitura.size()) {
+                leitura.truncate(validos);
+                leitura.force(false);
+            }
+        }
+        return ultima;
+    }
+}
@@ -0,0 +1,29 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Os campos de uma transação que contam para estatísticas, orçamentos e análise de gastos das categorias. */
+public record Lancamento(Long categoriaId, BigDecimal valor, LocalDate data, TipoTransacao tipo, String descricao) {
+
+    public static Lancamento de(Transacao transacao) {
+        return new Lancamento(transacao.getCategoria().getId(), transacao.getValor(), transacao.getData(),
+                transacao.getTipo(), transacao.getDescricao());
+    }
+
+    /** O lançamento depois de uma alteração em lote: a categoria e o tipo informados substituem os atuais. */
+    public Lancamento alterado(AlteracaoEmLote alteracao) {
+        return new Lancamento(alteracao.categoriaId() != null ? alteracao.categoriaId() : categoriaId, valor, data,
+                alteracao.tipo() != null ? alteracao.tipo() : tipo, descricao);
+    }
+
+    /** Mesma categoria, valor, data e tipo: trocar um pelo outro não muda estatísticas nem orçamentos. */
+    public boolean mesmosValores(Lancamento outro) {
+        return outro != null && categoriaId.equals(outro.categoriaId) && valor.compareTo(outro.valor) == 0
+                && data.equals(outro.data) && tipo == outro.tipo;
+    }
+}
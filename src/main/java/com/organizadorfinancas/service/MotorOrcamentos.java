@@ -0,0 +1,324 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlertaOrcamento;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.StatusOrcamento;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Orçamentos mensais avaliados em memória a cada escrita. O gasto (despesas) de cada
+ * categoria por mês fica em um {@link LongAdder} em centavos, somado depois do commit
+ * de cada escrita; status e alertas são lidos só desses contadores, sem ir ao banco.
+ *
+ * Operações em lote somam as transações de cada lote, lidas antes do comando. Os contadores
+ * são refeitos a partir do banco na inicialização e periodicamente, o que corrige qualquer
+ * desvio (ex.: escritas feitas fora da aplicação).
+ * Ficam em memória os meses a partir de {@code meses - 1} meses atrás.
+ */
+@Service
+public class MotorOrcamentos implements OuvinteEscritas {
+
+    private record Chave(long categoriaId, int mes) {
+    }
+
+    private record ChaveAlerta(long orcamentoId, int mes) {
+    }
+
+    private record Indice(List<Orcamento> todos, Map<Long, List<Orcamento>> porCategoria,
+                          Map<TipoCategoria, List<Orcamento>> porTipo) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(MotorOrcamentos.class);
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private OrcamentoRepository orcamentoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${organizador.orcamento.meses:13}")
+    private int meses = 13;
+
+    @Value("${organizador.orcamento.reconciliacao-segundos:300}")
+    private long intervaloReconciliacao = 300;
+
+    @Value("${organizador.orcamento.alertas:100}")
+    private int capacidadeAlertas = 100;
+
+    private volatile Map<Chave, LongAdder> gastos = new ConcurrentHashMap<>();
+    // Escritas somam e anotam dentro do portão; a reconciliação só o fecha para fixar o retrato e para trocar o mapa
+    private final PortaoReconstrucao<Map<Chave, LongAdder>> portao = new PortaoReconstrucao<>();
+
+    private volatile Indice indice = new Indice(List.of(), Map.of(), Map.of());
+    private final Map<Long, TipoCategoria> tipos = new ConcurrentHashMap<>();
+    private final Set<ChaveAlerta> estourados = ConcurrentHashMap.newKeySet();
+    private final Deque<AlertaOrcamento> alertas = new ArrayDeque<>();
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reconciliacao-orcamentos");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconciliar();
+        agendador.scheduleWithFixedDelay(this::reconciliarAgendado, intervaloReconciliacao, intervaloReconciliacao, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    /**
+     * Registra a troca de estado de uma transação (sem {@code anterior}: inclusão; sem {@code atual}: exclusão).
+     * Dentro de uma transação do banco, só é aplicado depois do commit.
+     */
+    @Override
+    public void registrar(Lancamento anterior, Lancamento atual) {
+        List<Lancamento> removidas = new ArrayList<>(1);
+        List<Lancamento> incluidas = new ArrayList<>(1);
+        separar(anterior, atual, removidas, incluidas);
+        AposCommit.executar(portao, () -> aplicar(removidas, incluidas));
+    }
+
+    @Override
+    public void registrarInclusoes(List<Transacao> transacoes) {
+        List<Lancamento> despesas = transacoes.stream()
+                .filter(t -> t.getTipo() == TipoTransacao.DESPESA)
+                .map(Lancamento::de)
+                .toList();
+        AposCommit.executar(portao, () -> aplicar(List.of(), despesas));
+    }
+
+    @Override
+    public void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao) {
+        List<Lancamento> removidas = new ArrayList<>(anteriores.size());
+        List<Lancamento> incluidas = new ArrayList<>(alteracao != null ? anteriores.size() : 0);
+        for (Lancamento anterior : anteriores) {
+            separar(anterior, alteracao != null ? anterior.alterado(alteracao) : null, removidas, incluidas);
+        }
+        AposCommit.executar(portao, () -> aplicar(removidas, incluidas));
+    }
+
+    /** Refaz gastos, orçamentos e tipos das categorias a partir do banco. */
+    public synchronized void reconciliar() {
+        long inicio = System.nanoTime();
+        Map<Long, TipoCategoria> tiposAtuais = categoriaRepository.findAll().stream()
+                .collect(Collectors.toMap(Categoria::getId, Categoria::getTipo));
+        tipos.keySet().retainAll(tiposAtuais.keySet());
+        tipos.putAll(tiposAtuais);
+        indice = indexar(orcamentoRepository.findAll());
+        YearMonth primeiro = YearMonth.now().minusMonths(meses - 1L);
+        portao.reconstruir(transactionTemplate, () -> transacaoRepository.existsById(0L), () -> {
+            Map<Chave, LongAdder> recalculados = new ConcurrentHashMap<>();
+            for (Object[] linha : transacaoRepository.sumPorCategoriaEMes(TipoTransacao.DESPESA, primeiro.atDay(1))) {
+                Chave chave = new Chave((Long) linha[0], ((Number) linha[1]).intValue() * 100 + ((Number) linha[2]).intValue());
+                recalculados.computeIfAbsent(chave, c -> new LongAdder()).add(centavos((BigDecimal) linha[3]));
+            }
+            return recalculados;
+        }, recalculados -> gastos = recalculados);
+        estourados.clear();
+        for (Orcamento orcamento : indice.todos()) {
+            for (YearMonth mes = YearMonth.now().minusMonths(meses - 1L); !mes.isAfter(YearMonth.now()); mes = mes.plusMonths(1)) {
+                if (gasto(orcamento, mes(mes)) > centavos(orcamento.getLimiteMensal())) {
+                    estourados.add(new ChaveAlerta(orcamento.getId(), mes(mes)));
+                }
+            }
+        }
+        log.debug("Orçamentos reconciliados em {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    /** Recarrega os orçamentos depois de uma alteração; os gastos em memória continuam valendo. */
+    public void recarregarOrcamentos() {
+        indice = indexar(orcamentoRepository.findAll());
+    }
+
+    public void atualizarCategoria(Long categoriaId, TipoCategoria tipo) {
+        tipos.put(categoriaId, tipo);
+    }
+
+    public void removerCategoria(Long categoriaId) {
+        tipos.remove(categoriaId);
+        recarregarOrcamentos();
+    }
+
+    public List<Orcamento> orcamentos() {
+        return indice.todos();
+    }
+
+    /** Status de todos os orçamentos no mês, calculado só com os contadores em memória. */
+    public List<StatusOrcamento> status(YearMonth mes) {
+        if (mes.isBefore(YearMonth.now().minusMonths(meses - 1L))) {
+            throw new IllegalArgumentException("Mês fora da janela mantida em memória (" + meses + " meses)");
+        }
+        List<StatusOrcamento> status = new ArrayList<>();
+        for (Orcamento orcamento : indice.todos()) {
+            BigDecimal limite = orcamento.getLimiteMensal();
+            BigDecimal gasto = BigDecimal.valueOf(gasto(orcamento, mes(mes)), 2);
+            Categoria categoria = orcamento.getCategoria();
+            status.add(new StatusOrcamento(orcamento.getId(), categoria != null ? categoria.getId() : null,
+                    categoria != null ? categoria.getNome() : null, orcamento.getTipoCategoria(), mes.toString(),
+                    limite, gasto, limite.subtract(gasto),
+                    gasto.multiply(BigDecimal.valueOf(100)).divide(limite, 1, RoundingMode.HALF_UP),
+                    gasto.compareTo(limite) > 0));
+        }
+        return status;
+    }
+
+    /** Alertas de estouro mais recentes primeiro. */
+    public List<AlertaOrcamento> alertas() {
+        synchronized (alertas) {
+            return new ArrayList<>(alertas);
+        }
+    }
+
+    private void reconciliarAgendado() {
+        try {
+            reconciliar();
+        } catch (RuntimeException e) {
+            log.error("Orçamentos: falha na reconciliação, nova tentativa em {} s", intervaloReconciliacao, e);
+        }
+    }
+
+    private static void separar(Lancamento anterior, Lancamento atual, List<Lancamento> removidas, List<Lancamento> incluidas) {
+        if (anterior != null && anterior.tipo() == TipoTransacao.DESPESA) {
+            removidas.add(anterior);
+        }
+        if (atual != null && atual.tipo() == TipoTransacao.DESPESA) {
+            incluidas.add(atual);
+        }
+    }
+
+    // Soma no mapa atual, anota para uma reconciliação em andamento e avalia os orçamentos das chaves alteradas
+    private void aplicar(List<Lancamento> removidas, List<Lancamento> incluidas) {
+        Consumer<Map<Chave, LongAdder>> diferenca = alvo -> {
+            removidas.forEach(despesa -> somar(alvo, despesa, -1));
+            incluidas.forEach(despesa -> somar(alvo, despesa, 1));
+        };
+        diferenca.accept(gastos);
+        portao.anotar(diferenca);
+        Set<Chave> alteradas = new HashSet<>();
+        removidas.forEach(despesa -> alteradas.add(chave(despesa)));
+        incluidas.forEach(despesa -> alteradas.add(chave(despesa)));
+        alteradas.forEach(this::verificar);
+    }
+
+    private static void somar(Map<Chave, LongAdder> alvo, Lancamento lancamento, int sinal) {
+        alvo.computeIfAbsent(chave(lancamento), c -> new LongAdder()).add(sinal * centavos(lancamento.valor()));
+    }
+
+    private static Chave chave(Lancamento lancamento) {
+        return new Chave(lancamento.categoriaId(), mes(YearMonth.from(lancamento.data())));
+    }
+
+    // Avalia os orçamentos da categoria e do tipo dela no mês; cada estouro gera um único alerta até o gasto voltar ao limite
+    private void verificar(Chave chave) {
+        Indice atual = indice;
+        List<Orcamento> afetados = new ArrayList<>(atual.porCategoria().getOrDefault(chave.categoriaId(), List.of()));
+        TipoCategoria tipo = tipos.get(chave.categoriaId());
+        if (tipo != null) {
+            afetados.addAll(atual.porTipo().getOrDefault(tipo, List.of()));
+        }
+        for (Orcamento orcamento : afetados) {
+            long gasto = gasto(orcamento, chave.mes());
+            ChaveAlerta chaveAlerta = new ChaveAlerta(orcamento.getId(), chave.mes());
+            if (gasto <= centavos(orcamento.getLimiteMensal())) {
+                estourados.remove(chaveAlerta);
+            } else if (estourados.add(chaveAlerta)) {
+                AlertaOrcamento alerta = new AlertaOrcamento(orcamento.getId(),
+                        orcamento.getCategoria() != null ? orcamento.getCategoria().getId() : null,
+                        orcamento.getTipoCategoria(), YearMonth.of(chave.mes() / 100, chave.mes() % 100).toString(),
+                        orcamento.getLimiteMensal(), BigDecimal.valueOf(gasto, 2), LocalDateTime.now());
+                log.warn("Orçamento {} estourado em {}: gasto {} de {}", orcamento.getId(), alerta.mes(),
+                        alerta.gasto(), alerta.limite());
+                synchronized (alertas) {
+                    alertas.addFirst(alerta);
+                    while (alertas.size() > capacidadeAlertas) {
+                        alertas.removeLast();
+                    }
+                }
+            }
+        }
+    }
+
+    private long gasto(Orcamento orcamento, int mes) {
+        Map<Chave, LongAdder> atuais = gastos;
+        if (orcamento.getCategoria() != null) {
+            LongAdder gasto = atuais.get(new Chave(orcamento.getCategoria().getId(), mes));
+            return gasto != null ? gasto.sum() : 0;
+        }
+        long total = 0;
+        for (Map.Entry<Long, TipoCategoria> categoria : tipos.entrySet()) {
+            if (categoria.getValue() == orcamento.getTipoCategoria()) {
+                LongAdder gasto = atuais.get(new Chave(categoria.getKey(), mes));
+                total += gasto != null ? gasto.sum() : 0;
+            }
+        }
+        return total;
+    }
+
+    private static Indice indexar(List<Orcamento> orcamentos) {
+        Map<Long, List<Orcamento>> porCategoria = new HashMap<>();
+        Map<TipoCategoria, List<Orcamento>> porTipo = new HashMap<>();
+        for (Orcamento orcamento : orcamentos) {
+            if (orcamento.getCategoria() != null) {
+                porCategoria.computeIfAbsent(orcamento.getCategoria().getId(), id -> new ArrayList<>()).add(orcamento);
+            } else {
+                porTipo.computeIfAbsent(orcamento.getTipoCategoria(), tipo -> new ArrayList<>()).add(orcamento);
+            }
+        }
+        return new Indice(List.copyOf(orcamentos), porCategoria, porTipo);
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static int mes(YearMonth mes) {
+        return mes.getYear() * 100 + mes.getMonthValue();
+    }
+}
@@ -0,0 +1,71 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlertaOrcamento;
+import com.organizadorfinancas.dto.StatusOrcamento;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Timed(value = "organizador.servico", description = "Tempo de execução das operações de serviço")
+public class OrcamentoService {
+
+    @Autowired
+    private OrcamentoRepository orcamentoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private MotorOrcamentos motorOrcamentos;
+
+    /** Orçamentos carregados em memória pelo motor; não consulta o banco. */
+    public List<Orcamento> findAll() {
+        return motorOrcamentos.orcamentos();
+    }
+
+    public Optional<Orcamento> findById(Long id) {
+        return orcamentoRepository.findById(id);
+    }
+
+    /** Um orçamento vale para uma categoria ou para todas as categorias de um tipo, nunca para os dois. */
+    public Orcamento save(Orcamento orcamento) {
+        if ((orcamento.getCategoria() == null) == (orcamento.getTipoCategoria() == null)) {
+            throw new IllegalArgumentException("Informe a categoria ou o tipo de categoria do orçamento");
+        }
+        if (orcamento.getCategoria() != null) {
+            Long categoriaId = orcamento.getCategoria().getId();
+            Categoria categoria = categoriaId == null ? null : categoriaRepository.findById(categoriaId).orElse(null);
+            if (categoria == null) {
+                throw new IllegalArgumentException("Categoria não encontrada: " + categoriaId);
+            }
+            orcamento.setCategoria(categoria);
+        }
+        orcamento.setLimiteMensal(orcamento.getLimiteMensal().setScale(2, RoundingMode.HALF_UP));
+        Orcamento salvo = orcamentoRepository.save(orcamento);
+        motorOrcamentos.recarregarOrcamentos();
+        return salvo;
+    }
+
+    public void deleteById(Long id) {
+        orcamentoRepository.deleteById(id);
+        motorOrcamentos.recarregarOrcamentos();
+    }
+
+    public List<StatusOrcamento> status(YearMonth mes) {
+        return motorOrcamentos.status(mes);
+    }
+
+    public List<AlertaOrcamento> alertas() {
+        return motorOrcamentos.alertas();
+    }
+}
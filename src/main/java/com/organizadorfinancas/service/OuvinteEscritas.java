@@ -0,0 +1,26 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.model.Transacao;
+
+import java.util.List;
+
+/**
+ * Estado derivado das transações (estatísticas, orçamentos, gastos invisíveis, distribuições, somas por data)
+ * que acompanha cada escrita. O {@link TransacaoService} e a ingestão avisam todos os ouvintes registrados
+ * como beans; cada um decide se aplica na hora, na mesma transação do banco, ou depois do commit.
+ */
+public interface OuvinteEscritas {
+
+    /** Registra a troca de estado de uma transação: sem {@code anterior} é inclusão, sem {@code atual} é exclusão. */
+    void registrar(Lancamento anterior, Lancamento atual);
+
+    /** Transações gravadas de uma vez (ingestão). */
+    void registrarInclusoes(List<Transacao> transacoes);
+
+    /**
+     * Transações excluídas ({@code alteracao} nula) ou alteradas por um comando em lote, lidas antes do comando
+     * na mesma transação do banco.
+     */
+    void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao);
+}
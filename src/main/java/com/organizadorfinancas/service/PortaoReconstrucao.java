@@ -0,0 +1,97 @@
+package com.organizadorfinancas.service;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Separa o commit das escritas da reconstrução de um estado em memória {@code E} a partir do banco, sem segurar
+ * as escritas durante a leitura. Cada escrita fica dentro do portão do início do commit até aplicar a sua
+ * diferença em memória ({@link AposCommit#executar(PortaoReconstrucao, Runnable)}) e a {@link #anotar anota}.
+ *
+ * A reconstrução fecha o portão só por dois instantes. No primeiro, fixa o retrato do banco numa transação de
+ * leitura repetível e passa a anotar as diferenças: cada escrita, então, ou foi confirmada antes do retrato ou é
+ * anotada, nunca as duas coisas. A leitura corre com o portão aberto; no segundo instante as diferenças anotadas
+ * são aplicadas ao estado novo, que substitui o atual.
+ *
+ * Fechar o portão não entra na fila por tempo indeterminado: cada tentativa espera no máximo
+ * {@value #ESPERA_MS} ms. Enquanto espera, novas escritas aguardam atrás dela, então as que já estão dentro
+ * terminam e a reconstrução não passa fome; ao desistir, libera uma escrita que espera, no commit, um registro
+ * travado por outra ainda fora do portão.
+ */
+final class PortaoReconstrucao<E> {
+
+    private static final long ESPERA_MS = 10;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private volatile Queue<Consumer<E>> anotadas;
+
+    void entrar() {
+        trava.readLock().lock();
+    }
+
+    void sair() {
+        trava.readLock().unlock();
+    }
+
+    /**
+     * Dentro do portão, depois de aplicar a diferença ao estado atual: com uma reconstrução em andamento, a
+     * diferença é aplicada também ao estado novo antes da troca.
+     */
+    void anotar(Consumer<E> diferenca) {
+        Queue<Consumer<E>> fila = anotadas;
+        if (fila != null) {
+            fila.add(diferenca);
+        }
+    }
+
+    /**
+     * Monta um estado novo com {@code ler} a partir do retrato fixado por {@code fixarRetrato} (uma leitura
+     * qualquer da tabela) e o entrega a {@code trocar} com as escritas confirmadas durante a leitura já aplicadas.
+     * Uma reconstrução por vez.
+     */
+    void reconstruir(TransactionTemplate transacoes, Runnable fixarRetrato, Supplier<E> ler, Consumer<E> trocar) {
+        TransactionTemplate retrato = new TransactionTemplate(transacoes.getTransactionManager());
+        retrato.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        retrato.setReadOnly(true);
+        // A conexão é obtida antes de fechar o portão: o retrato não espera por uma escrita parada no commit
+        retrato.executeWithoutResult(status -> {
+            fechado(() -> {
+                fixarRetrato.run();
+                anotadas = new ConcurrentLinkedQueue<>();
+            });
+            try {
+                E novo = ler.get();
+                fechado(() -> {
+                    anotadas.forEach(diferenca -> diferenca.accept(novo));
+                    trocar.accept(novo);
+                    anotadas = null;
+                });
+            } finally {
+                anotadas = null;
+            }
+        });
+    }
+
+    private void fechado(Runnable acao) {
+        try {
+            while (!trava.writeLock().tryLock(ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                // Desistiu: as escritas que aguardavam passam, e a próxima tentativa volta à fila
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrução interrompida", e);
+        }
+        try {
+            acao.run();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+}
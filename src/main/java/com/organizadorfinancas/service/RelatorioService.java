@@ -0,0 +1,156 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calcula os relatórios mensais e anuais a partir de somas por categoria, tipo e mês feitas no banco e na camada
+ * fria: o volume lido é o número de categorias e meses, não o de transações. É chamado pelos trabalhadores da
+ * {@link FilaRelatorios}, fora das threads do Tomcat.
+ */
+@Service
+@Timed(value = "organizador.servico", description = "Tempo de execução das operações de serviço")
+public class RelatorioService {
+
+    // Meses da tendência no relatório mensal, contando o próprio mês
+    static final int MESES_TENDENCIA = 6;
+
+    private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(2);
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private record ChaveCategoria(Long categoriaId, TipoTransacao tipo) {
+    }
+
+    private static final class Acumulado {
+        private Categoria categoria;
+        private long quantidade;
+        private BigDecimal total = ZERO;
+    }
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    public Relatorio gerar(PedidoRelatorio pedido) {
+        pedido.validar();
+        LocalDate inicio = pedido.inicio();
+        LocalDate fim = pedido.fim();
+        YearMonth mesInicial = YearMonth.from(inicio);
+        YearMonth primeiroMes = pedido.periodo() == PedidoRelatorio.Periodo.MENSAL
+                ? mesInicial.minusMonths(MESES_TENDENCIA - 1) : mesInicial;
+
+        BigDecimal receitas = ZERO;
+        BigDecimal despesas = ZERO;
+        Map<ChaveCategoria, Acumulado> porCategoria = new HashMap<>();
+        TreeMap<YearMonth, BigDecimal[]> tendencia = new TreeMap<>();
+        for (YearMonth mes = primeiroMes; !mes.isAfter(YearMonth.from(fim)); mes = mes.plusMonths(1)) {
+            tendencia.put(mes, new BigDecimal[]{ZERO, ZERO});
+        }
+
+        // Linhas (categoriaId, tipo, ano, mês, quantidade, total); as categorias vêm em geral do cache de segundo nível
+        List<Object[]> linhas = transacaoService.getTotaisPorCategoriaTipoEMes(primeiroMes.atDay(1), fim);
+        Map<Long, Categoria> categorias = new HashMap<>();
+        for (Categoria categoria : categoriaRepository.findAllById(
+                linhas.stream().map(linha -> (Long) linha[0]).distinct().toList())) {
+            categorias.put(categoria.getId(), categoria);
+        }
+        for (Object[] linha : linhas) {
+            Categoria categoria = categorias.get((Long) linha[0]);
+            if (categoria == null) {
+                // Excluída entre as duas consultas, junto com as suas transações
+                continue;
+            }
+            TipoTransacao tipo = (TipoTransacao) linha[1];
+            YearMonth mes = YearMonth.of(((Number) linha[2]).intValue(), ((Number) linha[3]).intValue());
+            BigDecimal total = (BigDecimal) linha[5];
+            boolean despesa = tipo == TipoTransacao.DESPESA;
+            if (despesa) {
+                BigDecimal[] valores = tendencia.get(mes);
+                int lado = Boolean.TRUE.equals(categoria.getEssencial()) ? 0 : 1;
+                valores[lado] = valores[lado].add(total);
+            }
+            if (mes.isBefore(mesInicial)) {
+                continue;
+            }
+            if (despesa) {
+                despesas = despesas.add(total);
+            } else {
+                receitas = receitas.add(total);
+            }
+            Acumulado acumulado = porCategoria.computeIfAbsent(new ChaveCategoria(categoria.getId(), tipo), chave -> new Acumulado());
+            acumulado.categoria = categoria;
+            acumulado.quantidade += ((Number) linha[4]).longValue();
+            acumulado.total = acumulado.total.add(total);
+        }
+
+        List<Relatorio.TotalCategoria> totais = new ArrayList<>(porCategoria.size());
+        for (Map.Entry<ChaveCategoria, Acumulado> linha : porCategoria.entrySet()) {
+            Acumulado acumulado = linha.getValue();
+            TipoTransacao tipo = linha.getKey().tipo();
+            totais.add(new Relatorio.TotalCategoria(acumulado.categoria.getId(), acumulado.categoria.getNome(),
+                    acumulado.categoria.getTipo(), Boolean.TRUE.equals(acumulado.categoria.getEssencial()), tipo,
+                    acumulado.quantidade, acumulado.total,
+                    percentual(acumulado.total, tipo == TipoTransacao.DESPESA ? despesas : receitas)));
+        }
+        totais.sort(Comparator.comparing(Relatorio.TotalCategoria::tipo)
+                .thenComparing(Relatorio.TotalCategoria::total, Comparator.reverseOrder())
+                .thenComparing(Relatorio.TotalCategoria::categoriaId));
+
+        List<Relatorio.TendenciaMensal> meses = new ArrayList<>(tendencia.size());
+        tendencia.forEach((mes, valores) -> meses.add(new Relatorio.TendenciaMensal(mes.toString(), valores[0], valores[1],
+                percentual(valores[1], valores[0].add(valores[1])))));
+
+        return new Relatorio(pedido.periodo(), inicio, fim, Instant.now(), receitas, despesas, receitas.subtract(despesas),
+                totais, meses, exposicaoParcelas(fim));
+    }
+
+    /**
+     * Parcelas em aberto no fim do período. O valor de uma despesa parcelada é o total da compra, dividido em
+     * parcelas mensais iguais; a parcela atual é a do mês da data e avança um mês por vez. A consulta já traz só
+     * as compras com parcelas depois do mês de {@code fim}.
+     */
+    private Relatorio.ExposicaoParcelas exposicaoParcelas(LocalDate fim) {
+        long compras = 0;
+        long parcelasRestantes = 0;
+        BigDecimal valorRestante = ZERO;
+        BigDecimal compromissoMensal = ZERO;
+        for (Object[] linha : transacaoService.findParcelasEmAberto(fim)) {
+            BigDecimal valor = (BigDecimal) linha[0];
+            int parcelas = ((Number) linha[1]).intValue();
+            long pagas = ((Number) linha[2]).intValue()
+                    + ChronoUnit.MONTHS.between(YearMonth.from((LocalDate) linha[3]), YearMonth.from(fim));
+            long restantes = parcelas - pagas;
+            BigDecimal parcela = valor.divide(BigDecimal.valueOf(parcelas), 2, RoundingMode.HALF_UP);
+            compras++;
+            parcelasRestantes += restantes;
+            valorRestante = valorRestante.add(parcela.multiply(BigDecimal.valueOf(restantes)));
+            compromissoMensal = compromissoMensal.add(parcela);
+        }
+        return new Relatorio.ExposicaoParcelas(compras, parcelasRestantes, valorRestante, compromissoMensal);
+    }
+
+    private static BigDecimal percentual(BigDecimal parte, BigDecimal total) {
+        return total.signum() == 0 ? ZERO : parte.multiply(CEM).divide(total, 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,442 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Arquivo imutável de transações arquivadas, em colunas comprimidas. As transações ficam em ordem de data,
+ * em blocos de até {@value #LINHAS_POR_BLOCO} linhas; cada bloco guarda a menor e a maior data e id e, por
+ * coluna, a posição, os tamanhos e o crc32c do trecho comprimido (deflate). O arquivo é mapeado em memória
+ * e cada coluna de um bloco só é descomprimida quando lida, então uma soma por tipo e data não toca as
+ * descrições.
+ *
+ * Layout: {@code [cabeçalho][diretório de blocos][colunas]}. O cabeçalho traz a versão do formato, a
+ * quantidade de transações e de blocos e a menor e a maior data do arquivo.
+ */
+public final class SegmentoFrio {
+
+    /** Uma transação arquivada: valor em centavos e categoria pelo id. */
+    public record Registro(long id, String descricao, long centavos, LocalDate data, TipoTransacao tipo,
+                           boolean recorrente, int parcelas, int parcelaAtual, long categoriaId,
+                           String observacoes, long versao) {
+
+        public static Registro de(Transacao transacao) {
+            return new Registro(transacao.getId(), transacao.getDescricao(),
+                    transacao.getValor().movePointRight(2).longValueExact(), transacao.getData(), transacao.getTipo(),
+                    Boolean.TRUE.equals(transacao.getRecorrente()), transacao.getParcelas(), transacao.getParcelaAtual(),
+                    transacao.getCategoria().getId(), transacao.getObservacoes(),
+                    transacao.getVersao() != null ? transacao.getVersao() : 0);
+        }
+
+        public BigDecimal valor() {
+            return BigDecimal.valueOf(centavos, 2);
+        }
+
+        public Transacao paraTransacao(Categoria categoria) {
+            Transacao transacao = new Transacao(descricao, valor(), data, tipo, recorrente, categoria);
+            transacao.setId(id);
+            transacao.setParcelas(parcelas);
+            transacao.setParcelaAtual(parcelaAtual);
+            transacao.setObservacoes(observacoes);
+            transacao.setVersao(versao);
+            return transacao;
+        }
+    }
+
+    public static final int LINHAS_POR_BLOCO = 8192;
+
+    private static final int MAGIA = 0x4F465346; // "OFSF"
+    private static final int VERSAO_FORMATO = 1;
+    private static final int CABECALHO = 6 * Integer.BYTES;
+
+    private static final int COLUNA_ID = 0;
+    private static final int COLUNA_DIA = 1;
+    private static final int COLUNA_CENTAVOS = 2;
+    private static final int COLUNA_TIPO = 3;
+    private static final int COLUNA_RECORRENTE = 4;
+    private static final int COLUNA_PARCELAS = 5;
+    private static final int COLUNA_PARCELA_ATUAL = 6;
+    private static final int COLUNA_CATEGORIA = 7;
+    private static final int COLUNA_VERSAO = 8;
+    private static final int COLUNA_DESCRICAO = 9;
+    private static final int COLUNA_OBSERVACOES = 10;
+    private static final int COLUNAS = 11;
+
+    // Por coluna: posição, tamanho comprimido, tamanho original e crc32c
+    private static final int ENTRADA_COLUNA = Long.BYTES + 3 * Integer.BYTES;
+    // Por bloco: linhas, menor e maior dia, menor e maior id e as entradas das colunas
+    private static final int ENTRADA_BLOCO = 3 * Integer.BYTES + 2 * Long.BYTES + COLUNAS * ENTRADA_COLUNA;
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private final Path arquivo;
+    private final MappedByteBuffer conteudo;
+    private final int quantidade;
+    private final LocalDate dataMinima;
+    private final LocalDate dataMaxima;
+    private final List<Bloco> blocos;
+
+    private SegmentoFrio(Path arquivo, MappedByteBuffer conteudo, int quantidade, LocalDate dataMinima,
+                         LocalDate dataMaxima, List<Bloco> blocos) {
+        this.arquivo = arquivo;
+        this.conteudo = conteudo;
+        this.quantidade = quantidade;
+        this.dataMinima = dataMinima;
+        this.dataMaxima = dataMaxima;
+        this.blocos = blocos;
+    }
+
+    /**
+     * Grava as transações num arquivo novo: escreve num temporário, sincroniza e renomeia, para que um
+     * arquivo com o nome final esteja sempre completo.
+     */
+    public static void gravar(Path arquivo, List<Registro> registros) {
+        if (registros.isEmpty()) {
+            throw new IllegalArgumentException("Segmento sem transações");
+        }
+        List<Registro> ordenados = new ArrayList<>(registros);
+        ordenados.sort(Comparator.comparing(Registro::data).thenComparingLong(Registro::id));
+        int quantidadeBlocos = (ordenados.size() + LINHAS_POR_BLOCO - 1) / LINHAS_POR_BLOCO;
+
+        ByteBuffer diretorio = ByteBuffer.allocate(quantidadeBlocos * ENTRADA_BLOCO);
+        List<byte[]> colunas = new ArrayList<>();
+        long posicao = CABECALHO + (long) diretorio.capacity();
+        for (int inicio = 0; inicio < ordenados.size(); inicio += LINHAS_POR_BLOCO) {
+            List<Registro> bloco = ordenados.subList(inicio, Math.min(inicio + LINHAS_POR_BLOCO, ordenados.size()));
+            diretorio.putInt(bloco.size())
+                    .putInt((int) bloco.get(0).data().toEpochDay())
+                    .putInt((int) bloco.get(bloco.size() - 1).data().toEpochDay())
+                    .putLong(bloco.stream().mapToLong(Registro::id).min().getAsLong())
+                    .putLong(bloco.stream().mapToLong(Registro::id).max().getAsLong());
+            for (int coluna = 0; coluna < COLUNAS; coluna++) {
+                byte[] original = codificar(bloco, coluna);
+                byte[] comprimida = comprimir(original);
+                CRC32C crc = new CRC32C();
+                crc.update(comprimida);
+                diretorio.putLong(posicao).putInt(comprimida.length).putInt(original.length).putInt((int) crc.getValue());
+                colunas.add(comprimida);
+                posicao += comprimida.length;
+            }
+        }
+        diretorio.flip();
+
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO)
+                .putInt(MAGIA).putInt(VERSAO_FORMATO).putInt(ordenados.size()).putInt(quantidadeBlocos)
+                .putInt((int) ordenados.get(0).data().toEpochDay())
+                .putInt((int) ordenados.get(ordenados.size() - 1).data().toEpochDay())
+                .flip();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                escrever(canal, cabecalho);
+                escrever(canal, diretorio);
+                for (byte[] coluna : colunas) {
+                    escrever(canal, ByteBuffer.wrap(coluna));
+                }
+                canal.force(true);
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporario);
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw new UncheckedIOException("Falha ao gravar o segmento " + arquivo, e);
+        }
+    }
+
+    /** Mapeia o arquivo em memória e lê o cabeçalho e o diretório de blocos. */
+    public static SegmentoFrio abrir(Path arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Segmento maior que 2 GB: " + arquivo);
+            }
+            MappedByteBuffer conteudo = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (conteudo.capacity() < CABECALHO || conteudo.getInt(0) != MAGIA) {
+                throw new IllegalStateException("Arquivo não é um segmento de transações: " + arquivo);
+            }
+            int versao = conteudo.getInt(4);
+            if (versao != VERSAO_FORMATO) {
+                throw new IllegalStateException("Versão de segmento não suportada (" + versao + "): " + arquivo);
+            }
+            int quantidade = conteudo.getInt(8);
+            int quantidadeBlocos = conteudo.getInt(12);
+            List<Bloco> blocos = new ArrayList<>(quantidadeBlocos);
+            for (int i = 0; i < quantidadeBlocos; i++) {
+                blocos.add(new Bloco(conteudo, CABECALHO + i * ENTRADA_BLOCO));
+            }
+            return new SegmentoFrio(arquivo, conteudo, quantidade, LocalDate.ofEpochDay(conteudo.getInt(16)),
+                    LocalDate.ofEpochDay(conteudo.getInt(20)), List.copyOf(blocos));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o segmento " + arquivo, e);
+        }
+    }
+
+    public Path arquivo() {
+        return arquivo;
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public LocalDate dataMinima() {
+        return dataMinima;
+    }
+
+    public LocalDate dataMaxima() {
+        return dataMaxima;
+    }
+
+    public long tamanho() {
+        return conteudo.capacity();
+    }
+
+    public List<Bloco> blocos() {
+        return blocos;
+    }
+
+    /**
+     * Blocos com alguma data entre {@code inicio} e {@code fim} (nulos não limitam). Os outros nem chegam
+     * a ser lidos.
+     */
+    public List<Bloco> blocos(LocalDate inicio, LocalDate fim) {
+        long primeiro = inicio != null ? inicio.toEpochDay() : Long.MIN_VALUE;
+        long ultimo = fim != null ? fim.toEpochDay() : Long.MAX_VALUE;
+        if (dataMaxima.toEpochDay() < primeiro || dataMinima.toEpochDay() > ultimo) {
+            return List.of();
+        }
+        return blocos.stream().filter(b -> b.diaMaximo >= primeiro && b.diaMinimo <= ultimo).toList();
+    }
+
+    /** Um bloco do segmento; cada chamada a uma coluna a descomprime de novo do arquivo mapeado. */
+    public static final class Bloco {
+
+        private final MappedByteBuffer conteudo;
+        private final int entrada;
+        private final int linhas;
+        private final int diaMinimo;
+        private final int diaMaximo;
+        private final long idMinimo;
+        private final long idMaximo;
+
+        private Bloco(MappedByteBuffer conteudo, int entrada) {
+            this.conteudo = conteudo;
+            this.entrada = entrada;
+            this.linhas = conteudo.getInt(entrada);
+            this.diaMinimo = conteudo.getInt(entrada + 4);
+            this.diaMaximo = conteudo.getInt(entrada + 8);
+            this.idMinimo = conteudo.getLong(entrada + 12);
+            this.idMaximo = conteudo.getLong(entrada + 20);
+        }
+
+        public int linhas() {
+            return linhas;
+        }
+
+        public boolean podeConter(long id) {
+            return id >= idMinimo && id <= idMaximo;
+        }
+
+        public long[] ids() {
+            return longs(ler(COLUNA_ID));
+        }
+
+        /** Datas em dias desde a época, em ordem crescente. */
+        public int[] dias() {
+            ByteBuffer coluna = ler(COLUNA_DIA);
+            int[] dias = new int[linhas];
+            int dia = diaMinimo;
+            for (int i = 0; i < linhas; i++) {
+                dia += coluna.getInt();
+                dias[i] = dia;
+            }
+            return dias;
+        }
+
+        public long[] centavos() {
+            return longs(ler(COLUNA_CENTAVOS));
+        }
+
+        public byte[] tipos() {
+            return bytes(ler(COLUNA_TIPO));
+        }
+
+        public byte[] recorrentes() {
+            return bytes(ler(COLUNA_RECORRENTE));
+        }
+
+        public long[] categorias() {
+            return longs(ler(COLUNA_CATEGORIA));
+        }
+
+        public List<Registro> registros() {
+            long[] ids = ids();
+            int[] dias = dias();
+            long[] centavos = centavos();
+            byte[] tipos = tipos();
+            byte[] recorrentes = recorrentes();
+            ByteBuffer parcelas = ler(COLUNA_PARCELAS);
+            ByteBuffer parcelasAtuais = ler(COLUNA_PARCELA_ATUAL);
+            long[] categorias = categorias();
+            ByteBuffer versoes = ler(COLUNA_VERSAO);
+            ByteBuffer descricoes = ler(COLUNA_DESCRICAO);
+            ByteBuffer observacoes = ler(COLUNA_OBSERVACOES);
+            List<Registro> registros = new ArrayList<>(linhas);
+            for (int i = 0; i < linhas; i++) {
+                registros.add(new Registro(ids[i], texto(descricoes), centavos[i], LocalDate.ofEpochDay(dias[i]),
+                        TIPOS[tipos[i]], recorrentes[i] != 0, parcelas.getInt(), parcelasAtuais.getInt(),
+                        categorias[i], texto(observacoes), versoes.getLong()));
+            }
+            return registros;
+        }
+
+        private ByteBuffer ler(int coluna) {
+            int posicao = entrada + 3 * Integer.BYTES + 2 * Long.BYTES + coluna * ENTRADA_COLUNA;
+            int inicio = (int) conteudo.getLong(posicao);
+            int comprimido = conteudo.getInt(posicao + 8);
+            int original = conteudo.getInt(posicao + 12);
+            ByteBuffer trecho = conteudo.slice(inicio, comprimido);
+            CRC32C crc = new CRC32C();
+            crc.update(trecho.duplicate());
+            if ((int) crc.getValue() != conteudo.getInt(posicao + 16)) {
+                throw new IllegalStateException("Segmento corrompido: crc inválido na coluna " + coluna);
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(trecho);
+                byte[] saida = new byte[original];
+                int lidos = 0;
+                while (lidos < original && !inflater.finished()) {
+                    lidos += inflater.inflate(saida, lidos, original - lidos);
+                }
+                if (lidos != original) {
+                    throw new IllegalStateException("Segmento corrompido: coluna " + coluna + " incompleta");
+                }
+                return ByteBuffer.wrap(saida);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Segmento corrompido: coluna " + coluna, e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private long[] longs(ByteBuffer coluna) {
+            long[] valores = new long[linhas];
+            coluna.asLongBuffer().get(valores);
+            return valores;
+        }
+
+        private byte[] bytes(ByteBuffer coluna) {
+            return coluna.array();
+        }
+
+        private static String texto(ByteBuffer coluna) {
+            int tamanho = coluna.getInt();
+            if (tamanho < 0) {
+                return null;
+            }
+            String texto = new String(coluna.array(), coluna.position(), tamanho, StandardCharsets.UTF_8);
+            coluna.position(coluna.position() + tamanho);
+            return texto;
+        }
+    }
+
+    // Datas guardadas como diferença para a anterior (a primeira, para o menor dia do bloco): quase tudo 0 ou 1
+    private static byte[] codificar(List<Registro> bloco, int coluna) {
+        int linhas = bloco.size();
+        ByteBuffer buffer;
+        switch (coluna) {
+            case COLUNA_ID, COLUNA_CENTAVOS, COLUNA_CATEGORIA, COLUNA_VERSAO -> {
+                buffer = ByteBuffer.allocate(linhas * Long.BYTES);
+                for (Registro registro : bloco) {
+                    buffer.putLong(switch (coluna) {
+                        case COLUNA_ID -> registro.id();
+                        case COLUNA_CENTAVOS -> registro.centavos();
+                        case COLUNA_CATEGORIA -> registro.categoriaId();
+                        default -> registro.versao();
+                    });
+                }
+            }
+            case COLUNA_DIA -> {
+                buffer = ByteBuffer.allocate(linhas * Integer.BYTES);
+                long anterior = bloco.get(0).data().toEpochDay();
+                for (Registro registro : bloco) {
+                    long dia = registro.data().toEpochDay();
+                    buffer.putInt((int) (dia - anterior));
+                    anterior = dia;
+                }
+            }
+            case COLUNA_PARCELAS, COLUNA_PARCELA_ATUAL -> {
+                buffer = ByteBuffer.allocate(linhas * Integer.BYTES);
+                for (Registro registro : bloco) {
+                    buffer.putInt(coluna == COLUNA_PARCELAS ? registro.parcelas() : registro.parcelaAtual());
+                }
+            }
+            case COLUNA_TIPO, COLUNA_RECORRENTE -> {
+                buffer = ByteBuffer.allocate(linhas);
+                for (Registro registro : bloco) {
+                    buffer.put(coluna == COLUNA_TIPO ? (byte) registro.tipo().ordinal() : (byte) (registro.recorrente() ? 1 : 0));
+                }
+            }
+            default -> {
+                ByteArrayOutputStream textos = new ByteArrayOutputStream();
+                for (Registro registro : bloco) {
+                    String texto = coluna == COLUNA_DESCRICAO ? registro.descricao() : registro.observacoes();
+                    byte[] utf8 = texto != null ? texto.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                    textos.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(texto != null ? utf8.length : -1).array());
+                    textos.writeBytes(utf8);
+                }
+                return textos.toByteArray();
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] comprimir(byte[] original) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(original);
+            deflater.finish();
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, original.length / 4));
+            byte[] trecho = new byte[8192];
+            while (!deflater.finished()) {
+                saida.write(trecho, 0, deflater.deflate(trecho));
+            }
+            return saida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void escrever(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+}
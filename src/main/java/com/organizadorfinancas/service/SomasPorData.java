@@ -0,0 +1,311 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Total de receitas ou de despesas de qualquer período, lido de uma {@link ArvoreFenwick} por tipo
+ * com uma posição por dia, em centavos, de {@code ano-inicial} a {@code ano-final}. Cada escrita soma
+ * o seu valor no dia depois do commit; a soma de um período percorre O(log n) posições, sem ir ao banco.
+ *
+ * As mesmas árvores dão o saldo acumulado de qualquer dia: o prefixo de receitas menos o de despesas,
+ * somados aos totais anteriores aos anos indexados. Uma transação retroativa altera só O(log n) posições,
+ * sem refazer os saldos dos dias seguintes.
+ *
+ * As árvores são refeitas do banco (e da {@link ArquivoFrio camada fria}) na inicialização e periodicamente. Antes da
+ * primeira montagem, ou quando o período alcança transações fora dos anos indexados, a consulta fica
+ * para o banco ({@link #somar} e {@link #saldosAcumulados} retornam vazio).
+ */
+@Service
+public class SomasPorData implements OuvinteEscritas {
+
+    private record Diferenca(TipoTransacao tipo, LocalDate data, long centavos, int quantidade) {
+    }
+
+    // Quantidade de transações de cada tipo antes e depois dos anos indexados e total anterior em centavos, por ordinal do tipo
+    private record Indice(long primeiroDia, ArvoreFenwick[] arvores, long[] antes, long[] depois, long[] somaAntes) {
+    }
+
+    private static final TipoTransacao[] TIPOS = TipoTransacao.values();
+
+    private static final Logger log = LoggerFactory.getLogger(SomasPorData.class);
+
+    @Autowired
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${organizador.somas.ano-inicial:2000}")
+    private int anoInicial = 2000;
+
+    @Value("${organizador.somas.ano-final:2099}")
+    private int anoFinal = 2099;
+
+    @Value("${organizador.somas.reconstrucao-segundos:3600}")
+    private long intervaloReconstrucao = 3600;
+
+    private volatile Indice indice;
+    // Escritas aplicam e anotam dentro do portão; a reconstrução só o fecha para fixar o retrato e para trocar as árvores
+    private final PortaoReconstrucao<Indice> portao = new PortaoReconstrucao<>();
+    // Escritas alteram as árvores sob a trava exclusiva; leituras são otimistas e só esperam se uma escrita cruzou
+    private final StampedLock trava = new StampedLock();
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reconstrucao-somas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconstruir();
+        agendador.scheduleWithFixedDelay(this::reconstruirAgendado, intervaloReconstrucao, intervaloReconstrucao, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+    }
+
+    /**
+     * Registra a troca de estado de uma transação (sem {@code anterior}: inclusão; sem {@code atual}: exclusão).
+     * Dentro de uma transação do banco, só é aplicado depois do commit.
+     */
+    @Override
+    public void registrar(Lancamento anterior, Lancamento atual) {
+        if (anterior != null && atual != null && anterior.tipo() == atual.tipo() && anterior.data().equals(atual.data())
+                && anterior.valor().compareTo(atual.valor()) == 0) {
+            return;
+        }
+        List<Diferenca> diferencas = new ArrayList<>(2);
+        if (anterior != null) {
+            diferencas.add(new Diferenca(anterior.tipo(), anterior.data(), -centavos(anterior.valor()), -1));
+        }
+        if (atual != null) {
+            diferencas.add(new Diferenca(atual.tipo(), atual.data(), centavos(atual.valor()), 1));
+        }
+        AposCommit.executar(portao, () -> aplicar(diferencas));
+    }
+
+    @Override
+    public void registrarInclusoes(List<Transacao> transacoes) {
+        List<Diferenca> diferencas = transacoes.stream()
+                .map(t -> new Diferenca(t.getTipo(), t.getData(), centavos(t.getValor()), 1))
+                .toList();
+        AposCommit.executar(portao, () -> aplicar(diferencas));
+    }
+
+    @Override
+    public void registrarEmLote(List<Lancamento> anteriores, AlteracaoEmLote alteracao) {
+        // Mudar só a categoria não altera as somas por tipo e dia
+        if (alteracao != null && alteracao.tipo() == null) {
+            return;
+        }
+        List<Diferenca> diferencas = new ArrayList<>();
+        for (Lancamento anterior : anteriores) {
+            diferencas.add(new Diferenca(anterior.tipo(), anterior.data(), -centavos(anterior.valor()), -1));
+            if (alteracao != null) {
+                diferencas.add(new Diferenca(alteracao.tipo(), anterior.data(), centavos(anterior.valor()), 1));
+            }
+        }
+        AposCommit.executar(portao, () -> aplicar(diferencas));
+    }
+
+    /** Refaz as árvores a partir do banco, com uma soma por tipo e dia. */
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        long primeiroDia = LocalDate.of(anoInicial, 1, 1).toEpochDay();
+        int dias = (int) (LocalDate.of(anoFinal, 12, 31).toEpochDay() - primeiroDia + 1);
+        // Banco e camada fria lidos juntos: um ano arquivado no meio da leitura não é contado duas vezes
+        arquivoFrio.lerConsistente(() -> {
+            portao.reconstruir(transactionTemplate, () -> transacaoRepository.existsById(0L),
+                    () -> montar(primeiroDia, dias), novo -> indice = novo);
+            return null;
+        });
+        log.debug("Somas por data reconstruídas em {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    private Indice montar(long primeiroDia, int dias) {
+        long[][] valores = new long[TIPOS.length][dias];
+        long[] antes = new long[TIPOS.length];
+        long[] depois = new long[TIPOS.length];
+        long[] somaAntes = new long[TIPOS.length];
+        List<Object[]> linhas = new ArrayList<>(transacaoRepository.sumPorTipoEData());
+        linhas.addAll(arquivoFrio.somarPorTipoEData());
+        for (Object[] linha : linhas) {
+            int tipo = ((TipoTransacao) linha[0]).ordinal();
+            long posicao = ((LocalDate) linha[1]).toEpochDay() - primeiroDia;
+            if (posicao < 0) {
+                antes[tipo] += ((Number) linha[3]).longValue();
+                somaAntes[tipo] += centavos((BigDecimal) linha[2]);
+            } else if (posicao >= dias) {
+                depois[tipo] += ((Number) linha[3]).longValue();
+            } else {
+                valores[tipo][(int) posicao] += centavos((BigDecimal) linha[2]);
+            }
+        }
+        ArvoreFenwick[] arvores = new ArvoreFenwick[TIPOS.length];
+        for (int tipo = 0; tipo < TIPOS.length; tipo++) {
+            arvores[tipo] = new ArvoreFenwick(valores[tipo]);
+        }
+        return new Indice(primeiroDia, arvores, antes, depois, somaAntes);
+    }
+
+    /**
+     * Total do tipo entre {@code inicio} e {@code fim}, inclusive. Vazio se as árvores ainda não foram montadas
+     * ou se o período alcança transações fora dos anos indexados: nesses casos a soma fica para o banco.
+     */
+    public Optional<BigDecimal> somar(TipoTransacao tipo, LocalDate inicio, LocalDate fim) {
+        long selo = trava.tryOptimisticRead();
+        Optional<BigDecimal> soma = consultar(tipo, inicio, fim);
+        if (!trava.validate(selo)) {
+            selo = trava.readLock();
+            try {
+                soma = consultar(tipo, inicio, fim);
+            } finally {
+                trava.unlockRead(selo);
+            }
+        }
+        return soma;
+    }
+
+    /**
+     * Saldo acumulado (receitas menos despesas de todas as transações até o dia, inclusive) de cada um dos
+     * {@code dias}, lidos todos do mesmo estado das árvores. Vazio se as árvores ainda não foram montadas ou
+     * se algum dia depende de transações fora dos anos indexados.
+     */
+    public Optional<List<BigDecimal>> saldosAcumulados(List<LocalDate> dias) {
+        long selo = trava.tryOptimisticRead();
+        Optional<List<BigDecimal>> saldos = consultarSaldos(dias);
+        if (!trava.validate(selo)) {
+            selo = trava.readLock();
+            try {
+                saldos = consultarSaldos(dias);
+            } finally {
+                trava.unlockRead(selo);
+            }
+        }
+        return saldos;
+    }
+
+    private Optional<List<BigDecimal>> consultarSaldos(List<LocalDate> dias) {
+        Indice atual = indice;
+        if (atual == null) {
+            return Optional.empty();
+        }
+        List<BigDecimal> saldos = new ArrayList<>(dias.size());
+        for (LocalDate dia : dias) {
+            long posicao = dia.toEpochDay() - atual.primeiroDia();
+            long centavos = 0;
+            for (TipoTransacao tipo : TIPOS) {
+                int ordinal = tipo.ordinal();
+                ArvoreFenwick arvore = atual.arvores()[ordinal];
+                long acumulado;
+                if (posicao < 0) {
+                    if (atual.antes()[ordinal] > 0) {
+                        return Optional.empty();
+                    }
+                    acumulado = 0;
+                } else {
+                    if (posicao >= arvore.tamanho() && atual.depois()[ordinal] > 0) {
+                        return Optional.empty();
+                    }
+                    acumulado = atual.somaAntes()[ordinal] + arvore.somar(0, (int) Math.min(posicao, arvore.tamanho() - 1));
+                }
+                centavos += tipo == TipoTransacao.RECEITA ? acumulado : -acumulado;
+            }
+            saldos.add(BigDecimal.valueOf(centavos, 2));
+        }
+        return Optional.of(saldos);
+    }
+
+    private Optional<BigDecimal> consultar(TipoTransacao tipo, LocalDate inicio, LocalDate fim) {
+        Indice atual = indice;
+        if (atual == null) {
+            return Optional.empty();
+        }
+        ArvoreFenwick arvore = atual.arvores()[tipo.ordinal()];
+        long primeira = inicio.toEpochDay() - atual.primeiroDia();
+        long ultima = fim.toEpochDay() - atual.primeiroDia();
+        if (primeira < 0) {
+            if (atual.antes()[tipo.ordinal()] > 0) {
+                return Optional.empty();
+            }
+            primeira = 0;
+        }
+        if (ultima >= arvore.tamanho()) {
+            if (atual.depois()[tipo.ordinal()] > 0) {
+                return Optional.empty();
+            }
+            ultima = arvore.tamanho() - 1;
+        }
+        long centavos = primeira > ultima ? 0 : arvore.somar((int) primeira, (int) ultima);
+        return Optional.of(BigDecimal.valueOf(centavos, 2));
+    }
+
+    private void aplicar(List<Diferenca> diferencas) {
+        long selo = trava.writeLock();
+        try {
+            Indice atual = indice;
+            if (atual != null) {
+                for (Diferenca diferenca : diferencas) {
+                    aplicar(atual, diferenca);
+                }
+            }
+        } finally {
+            trava.unlockWrite(selo);
+        }
+        portao.anotar(novo -> diferencas.forEach(diferenca -> aplicar(novo, diferenca)));
+    }
+
+    private static void aplicar(Indice indice, Diferenca diferenca) {
+        int tipo = diferenca.tipo().ordinal();
+        long posicao = diferenca.data().toEpochDay() - indice.primeiroDia();
+        if (posicao < 0) {
+            indice.antes()[tipo] += diferenca.quantidade();
+            indice.somaAntes()[tipo] += diferenca.centavos();
+        } else if (posicao >= indice.arvores()[tipo].tamanho()) {
+            indice.depois()[tipo] += diferenca.quantidade();
+        } else {
+            indice.arvores()[tipo].somar((int) posicao, diferenca.centavos());
+        }
+    }
+
+    private void reconstruirAgendado() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.error("Somas por data: falha na reconstrução, nova tentativa em {} s", intervaloReconstrucao, e);
+        }
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
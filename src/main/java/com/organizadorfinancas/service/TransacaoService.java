@@ -1,100 +1,408 @@
 package com.organizadorfinancas.service;
 
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AnaliseGastosInvisiveis;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.dto.ResultadoLote;
+import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.Transacao;
 import com.organizadorfinancas.model.TipoTransacao;
-import com.organizadorfinancas.repository.TransacaoRepository;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "organizador.servico", description = "Tempo de execução das operações de serviço")
 public class TransacaoService {
+
+    // Registra um lote nas estatísticas: agregado por categoria e agrupado por categoria, mês e valor, ambos lidos antes do comando
+    private interface RegistroLote {
+        void registrar(List<AgregadoCategoria> agregados, List<Object[]> valores, YearMonth mes);
+    }
     
     @Autowired
-    private TransacaoRepository transacaoRepository;
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CoalescedorConsultas coalescedorConsultas;
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private DetectorGastosInvisiveis detectorGastosInvisiveis;
+
+    @Autowired
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Autowired
+    private SomasPorData somasPorData;
+
+    @Autowired
+    private List<OuvinteEscritas> ouvintes;
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${organizador.lote.tamanho:1000}")
+    private int tamanhoLote = 1000;
+
+    @Value("${organizador.top.maximo:100}")
+    private int maximoTop = 100;
+    
+    @Value("${organizador.saldo.maximo-pontos:3660}")
+    private int maximoPontosSaldo = 3660;
+
+    // Categorias sendo excluídas ou mescladas: nenhuma transação entra nelas até a exclusão terminar
+    private final Set<Long> categoriasBloqueadas = ConcurrentHashMap.newKeySet();
     
     public List<Transacao> findAll() {
-        return transacaoRepository.findAll();
+        return comArquivadas(transacaoRepository::findAll, () -> arquivoFrio.listar(registro -> true), null);
     }
     
     public Optional<Transacao> findById(Long id) {
-        return transacaoRepository.findById(id);
+        Optional<Transacao> transacao = transacaoRepository.findById(id);
+        return transacao.isPresent() ? transacao : arquivoFrio.buscar(id);
     }
     
     public Transacao save(Transacao transacao) {
-        return transacaoRepository.save(transacao);
+        resolverCategoria(transacao);
+        if (transacao.getCategoria() != null) {
+            rejeitarSeBloqueada(transacao.getCategoria().getId());
+        }
+        Transacao salva = transactionTemplate.execute(status -> {
+            Lancamento anterior = transacao.getId() == null ? null
+                : transacaoRepository.findById(transacao.getId()).map(Lancamento::de).orElse(null);
+            if (anterior == null) {
+                rejeitarSeArquivada(transacao.getId());
+            }
+            Transacao gravada = transacaoRepository.save(transacao);
+            avisar(anterior, Lancamento.de(gravada));
+            return gravada;
+        });
+        coalescedorConsultas.invalidar();
+        return salva;
     }
     
-    public void deleteById(Long id) {
-        transacaoRepository.deleteById(id);
+    /**
+     * Aplica a alteração com um único UPDATE condicionado à versão e retorna a nova versão,
+     * ou vazio se a transação não existe.
+     *
+     * @throws ConflitoVersaoException se a transação foi alterada depois da versão informada
+     */
+    public Optional<Long> atualizarParcial(Long id, AtualizacaoTransacao atualizacao) {
+        if (atualizacao.vazia()) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização");
+        }
+        rejeitarSeBloqueada(atualizacao.categoriaId());
+        Optional<Long> versao = transactionTemplate.execute(status -> {
+            // Valor, data, tipo, categoria e descrição mudam estatísticas, orçamentos e gastos invisíveis:
+            // é preciso o estado anterior
+            Lancamento anterior = null;
+            if (atualizacao.valor() != null || atualizacao.data() != null || atualizacao.tipo() != null
+                    || atualizacao.categoriaId() != null || atualizacao.descricao() != null) {
+                Optional<Transacao> existente = transacaoRepository.findById(id);
+                if (existente.isEmpty()) {
+                    rejeitarSeArquivada(id);
+                    return Optional.<Long>empty();
+                }
+                if (!existente.get().getVersao().equals(atualizacao.versao())) {
+                    throw conflito(id, atualizacao);
+                }
+                anterior = Lancamento.de(existente.get());
+            }
+            if (transacaoRepository.atualizarParcial(id, atualizacao) == 0) {
+                // Só no caso de falha: distingue transação inexistente de versão desatualizada
+                if (!transacaoRepository.existsById(id)) {
+                    rejeitarSeArquivada(id);
+                    return Optional.<Long>empty();
+                }
+                throw conflito(id, atualizacao);
+            }
+            if (anterior != null) {
+                Lancamento atual = new Lancamento(
+                    atualizacao.categoriaId() != null ? atualizacao.categoriaId() : anterior.categoriaId(),
+                    atualizacao.valor() != null ? atualizacao.valor() : anterior.valor(),
+                    atualizacao.data() != null ? atualizacao.data() : anterior.data(),
+                    atualizacao.tipo() != null ? atualizacao.tipo() : anterior.tipo(),
+                    atualizacao.descricao() != null ? atualizacao.descricao() : anterior.descricao());
+                avisar(anterior, atual);
+            }
+            return Optional.of(atualizacao.versao() + 1);
+        });
+        if (versao.isPresent()) {
+            coalescedorConsultas.invalidar();
+        }
+        return versao;
+    }
+    
+    /**
+     * Exclui a transação e retorna se ela existia, ou falso se não existe.
+     *
+     * @throws IllegalArgumentException se a transação está arquivada
+     */
+    public boolean deleteById(Long id) {
+        boolean excluida = transactionTemplate.execute(status -> {
+            Optional<Transacao> existente = transacaoRepository.findById(id);
+            if (existente.isEmpty()) {
+                rejeitarSeArquivada(id);
+                return false;
+            }
+            transacaoRepository.deleteById(id);
+            avisar(Lancamento.de(existente.get()), null);
+            return true;
+        });
+        if (excluida) {
+            coalescedorConsultas.invalidar();
+        }
+        return excluida;
+    }
+    
+    /**
+     * Exclui todas as transações do filtro com um DELETE por lote de até {@code tamanhoLote} transações,
+     * cada lote na sua própria transação.
+     */
+    public ResultadoLote excluirPorFiltro(FiltroTransacoes filtro) {
+        return excluirPorFiltro(filtro, progresso -> {});
+    }
+    
+    /** Como {@link #excluirPorFiltro(FiltroTransacoes)}, informando o acumulado após cada lote. */
+    public ResultadoLote excluirPorFiltro(FiltroTransacoes filtro, Consumer<ResultadoLote> progresso) {
+        validarFiltro(filtro);
+        return executarEmLotes(filtro, progresso, (idInicial, idFinal) ->
+            transacaoRepository.excluirPorFiltro(filtro, idInicial, idFinal),
+            (agregados, valores, mes) -> {
+                estatisticasCategorias.registrarExclusoes(agregados, mes);
+                distribuicoesCategorias.registrarLote(valores, null);
+            }, null);
+    }
+    
+    /** Aplica a alteração a todas as transações do filtro com um UPDATE por lote. */
+    public ResultadoLote alterarPorFiltro(FiltroTransacoes filtro, AlteracaoEmLote alteracao) {
+        return alterarPorFiltro(filtro, alteracao, progresso -> {});
+    }
+    
+    /** Como {@link #alterarPorFiltro(FiltroTransacoes, AlteracaoEmLote)}, informando o acumulado após cada lote. */
+    public ResultadoLote alterarPorFiltro(FiltroTransacoes filtro, AlteracaoEmLote alteracao,
+                                          Consumer<ResultadoLote> progresso) {
+        validarFiltro(filtro);
+        if (alteracao.vazia()) {
+            throw new IllegalArgumentException("Nenhum campo informado para alteração");
+        }
+        rejeitarSeBloqueada(alteracao.categoriaId());
+        if (alteracao.categoriaId() != null && !categoriaRepository.existsById(alteracao.categoriaId())) {
+            throw new IllegalArgumentException("Categoria não encontrada: " + alteracao.categoriaId());
+        }
+        return executarEmLotes(filtro, progresso, (idInicial, idFinal) ->
+            transacaoRepository.alterarPorFiltro(filtro, alteracao, idInicial, idFinal),
+            alteracao.categoriaId() == null ? null : (agregados, valores, mes) -> {
+                estatisticasCategorias.registrarMovimentacao(agregados, alteracao.categoriaId(), mes);
+                distribuicoesCategorias.registrarLote(valores, alteracao.categoriaId());
+            }, alteracao);
     }
     
     public List<Transacao> findByTipo(TipoTransacao tipo) {
-        return transacaoRepository.findByTipo(tipo);
+        return comArquivadas(() -> transacaoRepository.findByTipo(tipo),
+            () -> arquivoFrio.listar(registro -> registro.tipo() == tipo), null);
     }
     
     public List<Transacao> findAllDespesas() {
-        return transacaoRepository.findByTipo(TipoTransacao.DESPESA);
+        return findByTipo(TipoTransacao.DESPESA);
     }
     
     public List<Transacao> findAllReceitas() {
-        return transacaoRepository.findByTipo(TipoTransacao.RECEITA);
+        return findByTipo(TipoTransacao.RECEITA);
     }
     
     public List<Transacao> findGastosRecorrentes() {
-        return transacaoRepository.findGastosRecorrentes();
+        return comArquivadas(transacaoRepository::findGastosRecorrentes,
+            () -> arquivoFrio.listar(SegmentoFrio.Registro::recorrente), MAIS_RECENTES);
     }
     
     public List<Transacao> findGastosSuperfluos() {
-        return transacaoRepository.findGastosSuperfluos();
+        return comArquivadas(transacaoRepository::findGastosSuperfluos,
+            () -> arquivoFrio.listar(daCategoria(false)), MAIORES);
+    }
+    
+    /** Os {@code limite} gastos supérfluos de maior valor, limitados no banco e em cada bloco arquivado. */
+    public List<Transacao> findGastosSuperfluos(int limite) {
+        validarTop(limite);
+        return limitar(comArquivadas(() -> transacaoRepository.findGastosSuperfluos(Limit.of(limite)),
+            () -> arquivoFrio.maiores(null, null, daCategoria(false), limite), MAIORES), limite);
+    }
+    
+    /** As {@code k} transações de maior valor do filtro; sem tipo no filtro, só despesas. */
+    public List<Transacao> findMaiores(FiltroTransacoes filtro, int k) {
+        validarTop(k);
+        FiltroTransacoes efetivo = despesasSeSemTipo(filtro);
+        return limitar(comArquivadas(() -> transacaoRepository.findMaiores(efetivo, k),
+            () -> arquivoFrio.maiores(efetivo.dataInicio(), efetivo.dataFim(), ArquivoFrio.filtro(efetivo), k), MAIORES), k);
+    }
+    
+    /** As {@code k} categorias de maior total no filtro; sem tipo no filtro, só despesas. */
+    public List<ItemRanking> findCategoriasMaisCaras(FiltroTransacoes filtro, int k) {
+        validarTop(k);
+        return transacaoRepository.findCategoriasMaisCaras(despesasSeSemTipo(filtro), k);
+    }
+    
+    /** As {@code k} descrições mais frequentes no filtro; sem tipo no filtro, só despesas. */
+    public List<ItemRanking> findDescricoesMaisFrequentes(FiltroTransacoes filtro, int k) {
+        validarTop(k);
+        return transacaoRepository.findDescricoesMaisFrequentes(despesasSeSemTipo(filtro), k);
     }
     
     public List<Transacao> findDespesasParceladas() {
-        return transacaoRepository.findDespesasParceladas();
+        return comArquivadas(transacaoRepository::findDespesasParceladas,
+            () -> arquivoFrio.listar(registro -> registro.parcelas() > 1), MAIS_RECENTES);
     }
     
     public List<Transacao> findByPeriodo(LocalDate dataInicio, LocalDate dataFim) {
-        return transacaoRepository.findByDataBetween(dataInicio, dataFim);
+        return comArquivadas(() -> transacaoRepository.findByDataBetween(dataInicio, dataFim),
+            () -> arquivoFrio.listar(dataInicio, dataFim,
+                registro -> !registro.data().isBefore(dataInicio) && !registro.data().isAfter(dataFim)), null);
     }
     
     public List<Transacao> findByCategoriaId(Long categoriaId) {
-        return transacaoRepository.findByCategoriaId(categoriaId);
+        return comArquivadas(() -> transacaoRepository.findByCategoriaId(categoriaId),
+            () -> arquivoFrio.listar(registro -> categoriaId.equals(registro.categoriaId())), null);
     }
     
     public BigDecimal getTotalDespesas() {
-        return transacaoRepository.sumByTipoAndPeriodo(
-            TipoTransacao.DESPESA, 
-            LocalDate.now().withDayOfMonth(1), 
-            LocalDate.now()
-        );
+        return sumByTipoNoMes(TipoTransacao.DESPESA);
     }
     
     public BigDecimal getTotalReceitas() {
-        return transacaoRepository.sumByTipoAndPeriodo(
-            TipoTransacao.RECEITA, 
-            LocalDate.now().withDayOfMonth(1), 
-            LocalDate.now()
-        );
+        return sumByTipoNoMes(TipoTransacao.RECEITA);
+    }
+    
+    /** Total do tipo no período, lido do índice de somas por data em memória sempre que possível. */
+    public BigDecimal getTotalPorPeriodo(TipoTransacao tipo, LocalDate dataInicio, LocalDate dataFim) {
+        if (dataInicio.isAfter(dataFim)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+        return sumByTipoAndPeriodo(tipo, dataInicio, dataFim);
+    }
+    
+    /**
+     * Série do saldo acumulado no fechamento de cada dia, semana, mês ou ano do período (o último ponto é
+     * {@code dataFim}). Lida das somas por data em memória, em O(log n) por ponto, sempre que possível.
+     */
+    public List<PontoSaldo> getSaldoAcumulado(LocalDate dataInicio, LocalDate dataFim, PontoSaldo.Granularidade granularidade) {
+        if (dataInicio.isAfter(dataFim)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+        List<LocalDate> fechamentos = new ArrayList<>();
+        LocalDate dia = dataInicio;
+        while (!dia.isAfter(dataFim)) {
+            if (fechamentos.size() == maximoPontosSaldo) {
+                throw new IllegalArgumentException("O período passa de " + maximoPontosSaldo + " pontos; use uma granularidade maior");
+            }
+            LocalDate fechamento = granularidade.fechamento(dia);
+            if (fechamento.isAfter(dataFim)) {
+                fechamento = dataFim;
+            }
+            fechamentos.add(fechamento);
+            dia = fechamento.plusDays(1);
+        }
+        List<BigDecimal> saldos = somasPorData.saldosAcumulados(fechamentos).orElseGet(() -> saldosNoBanco(fechamentos));
+        List<PontoSaldo> pontos = new ArrayList<>(fechamentos.size());
+        for (int i = 0; i < fechamentos.size(); i++) {
+            pontos.add(new PontoSaldo(fechamentos.get(i), saldos.get(i)));
+        }
+        return pontos;
     }
     
     public BigDecimal getTotalGastosRecorrentes() {
-        return transacaoRepository.sumByTipoAndRecorrente(TipoTransacao.DESPESA);
+        return coalescedorConsultas.executar("sumByTipoAndRecorrente",
+            () -> somarComArquivadas(() -> transacaoRepository.sumByTipoAndRecorrente(TipoTransacao.DESPESA),
+                () -> arquivoFrio.somar(registro -> registro.tipo() == TipoTransacao.DESPESA && registro.recorrente())),
+            TipoTransacao.DESPESA);
     }
     
     public BigDecimal getTotalDespesasEssenciais() {
-        return transacaoRepository.sumByEssencialAndTipo(true, TipoTransacao.DESPESA);
+        return sumByEssencial(true);
     }
     
     public BigDecimal getTotalDespesasSuperfluas() {
-        return transacaoRepository.sumByEssencialAndTipo(false, TipoTransacao.DESPESA);
+        return sumByEssencial(false);
     }
     
     public List<Object[]> getTotaisPorCategoria(TipoTransacao tipo) {
-        return transacaoRepository.findTotalPorCategoria(tipo);
+        return coalescedorConsultas.executar("findTotalPorCategoria",
+            () -> arquivoFrio.lerConsistente(() -> totaisPorCategoria(tipo)), tipo);
+    }
+    
+    /**
+     * Linhas {@code (categoriaId, tipo, ano, mês, quantidade, total)} do período, agregadas no banco e na camada
+     * fria; um mês com transações nos dois lados vem numa linha só.
+     */
+    public List<Object[]> getTotaisPorCategoriaTipoEMes(LocalDate dataInicio, LocalDate dataFim) {
+        return arquivoFrio.lerConsistente(() -> {
+            List<Object[]> doBanco = transacaoRepository.sumPorCategoriaTipoEMes(dataInicio, dataFim);
+            if (arquivoFrio.vazio()) {
+                return doBanco;
+            }
+            Map<List<Object>, Object[]> porChave = new LinkedHashMap<>();
+            for (List<Object[]> linhas : List.of(arquivoFrio.somarPorCategoriaTipoEMes(dataInicio, dataFim), doBanco)) {
+                for (Object[] linha : linhas) {
+                    porChave.merge(List.of(linha[0], linha[1], linha[2], linha[3]), linha, (a, b) -> new Object[]{
+                        a[0], a[1], a[2], a[3], ((Number) a[4]).longValue() + ((Number) b[4]).longValue(),
+                        ((BigDecimal) a[5]).add((BigDecimal) b[5])});
+                }
+            }
+            return new ArrayList<>(porChave.values());
+        });
+    }
+
+    /** Linhas {@code (valor, parcelas, parcelaAtual, data)} das despesas com parcelas a vencer depois do mês de {@code dataFim}. */
+    public List<Object[]> findParcelasEmAberto(LocalDate dataFim) {
+        return arquivoFrio.lerConsistente(() -> {
+            List<Object[]> doBanco = transacaoRepository.findParcelasEmAberto(dataFim);
+            if (arquivoFrio.vazio()) {
+                return doBanco;
+            }
+            List<Object[]> todas = new ArrayList<>(arquivoFrio.parcelasEmAberto(dataFim));
+            todas.addAll(doBanco);
+            return todas;
+        });
+    }
+
+    /** Despesas pequenas e frequentes das últimas semanas, lidas das janelas em memória. */
+    public AnaliseGastosInvisiveis analisarGastosInvisiveis(boolean todos) {
+        return detectorGastosInvisiveis.analisar(todos);
     }
     
     public BigDecimal getSaldoMensal() {
@@ -102,4 +410,249 @@ public class TransacaoService {
         BigDecimal despesas = getTotalDespesas();
         return receitas.subtract(despesas);
     }
+
+    private static final Comparator<Transacao> MAIS_RECENTES = Comparator.comparing(Transacao::getData).reversed();
+    private static final Comparator<Transacao> MAIORES =
+        Comparator.comparing(Transacao::getValor).thenComparing(Transacao::getId).reversed();
+
+    /**
+     * Recusa novas transações na categoria, e a entrada de outras por alteração, até {@link #liberarCategoria}.
+     *
+     * @throws IllegalArgumentException se a categoria já está bloqueada por outra exclusão
+     */
+    void bloquearCategoria(Long categoriaId) {
+        if (!categoriasBloqueadas.add(categoriaId)) {
+            throw new IllegalArgumentException("Categoria " + categoriaId + " já está sendo excluída");
+        }
+    }
+
+    void liberarCategoria(Long categoriaId) {
+        categoriasBloqueadas.remove(categoriaId);
+    }
+
+    private void rejeitarSeBloqueada(Long categoriaId) {
+        if (categoriaId != null && categoriasBloqueadas.contains(categoriaId)) {
+            throw new IllegalArgumentException("Categoria " + categoriaId + " está sendo excluída");
+        }
+    }
+
+    private static ConflitoVersaoException conflito(Long id, AtualizacaoTransacao atualizacao) {
+        return new ConflitoVersaoException("Transação " + id + " foi alterada após a versão " + atualizacao.versao());
+    }
+
+    private void rejeitarSeArquivada(Long id) {
+        if (arquivoFrio.contem(id)) {
+            throw new IllegalArgumentException("Transação " + id + " está arquivada e é somente leitura");
+        }
+    }
+
+    // Junta o banco com a camada fria; com ordem, reordena como a consulta do banco, senão as arquivadas
+    // (as mais antigas) vêm primeiro
+    private List<Transacao> comArquivadas(Supplier<List<Transacao>> quentes, Supplier<List<Transacao>> arquivadas,
+                                          Comparator<Transacao> ordem) {
+        return arquivoFrio.lerConsistente(() -> {
+            List<Transacao> doBanco = quentes.get();
+            List<Transacao> frias = arquivoFrio.vazio() ? List.of() : arquivadas.get();
+            if (frias.isEmpty()) {
+                return doBanco;
+            }
+            List<Transacao> todas = new ArrayList<>(frias.size() + doBanco.size());
+            todas.addAll(frias);
+            todas.addAll(doBanco);
+            if (ordem != null) {
+                todas.sort(ordem);
+            }
+            return todas;
+        });
+    }
+
+    private BigDecimal somarComArquivadas(Supplier<BigDecimal> quente, Supplier<BigDecimal> arquivado) {
+        return arquivoFrio.lerConsistente(() -> {
+            BigDecimal total = quente.get();
+            BigDecimal frio = arquivoFrio.vazio() ? BigDecimal.ZERO : arquivado.get();
+            return frio.signum() == 0 ? total : (total != null ? total : BigDecimal.ZERO).add(frio);
+        });
+    }
+
+    private static List<Transacao> limitar(List<Transacao> transacoes, int k) {
+        return transacoes.size() > k ? transacoes.subList(0, k) : transacoes;
+    }
+
+    // Despesas das categorias essenciais ou supérfluas; a lista de categorias costuma vir do cache de consultas
+    private Predicate<SegmentoFrio.Registro> daCategoria(boolean essencial) {
+        Set<Long> ids = categoriaRepository.findByEssencial(essencial).stream()
+            .map(Categoria::getId).collect(Collectors.toSet());
+        return registro -> ids.contains(registro.categoriaId());
+    }
+
+    // Os totais arquivados somam por nome, como o GROUP BY do banco, e a ordem decrescente é refeita
+    private List<Object[]> totaisPorCategoria(TipoTransacao tipo) {
+        List<Object[]> doBanco = transacaoRepository.findTotalPorCategoria(tipo);
+        Map<Long, BigDecimal> arquivados = arquivoFrio.vazio() ? Map.of() : arquivoFrio.somarPorCategoria(tipo);
+        if (arquivados.isEmpty()) {
+            return doBanco;
+        }
+        Map<String, BigDecimal> porNome = new LinkedHashMap<>();
+        for (Object[] linha : doBanco) {
+            porNome.put((String) linha[0], (BigDecimal) linha[1]);
+        }
+        for (Categoria categoria : categoriaRepository.findAllById(arquivados.keySet())) {
+            porNome.merge(categoria.getNome(), arquivados.get(categoria.getId()), BigDecimal::add);
+        }
+        return porNome.entrySet().stream()
+            .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+            .map(total -> new Object[]{total.getKey(), total.getValue()})
+            .toList();
+    }
+
+    private void validarTop(int k) {
+        if (k < 1 || k > maximoTop) {
+            throw new IllegalArgumentException("Informe uma quantidade entre 1 e " + maximoTop);
+        }
+    }
+
+    private static FiltroTransacoes despesasSeSemTipo(FiltroTransacoes filtro) {
+        if (filtro.dataInicio() != null && filtro.dataFim() != null && filtro.dataInicio().isAfter(filtro.dataFim())) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+        return filtro.tipo() != null ? filtro : new FiltroTransacoes(filtro.dataInicio(), filtro.dataFim(),
+            filtro.categoriaId(), TipoTransacao.DESPESA, filtro.descricao());
+    }
+
+    private void validarFiltro(FiltroTransacoes filtro) {
+        if (filtro.vazio()) {
+            throw new IllegalArgumentException("Informe ao menos um critério de filtro");
+        }
+        if (filtro.dataInicio() != null && filtro.dataFim() != null && filtro.dataInicio().isAfter(filtro.dataFim())) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+    }
+
+    // Percorre o filtro em ordem de id: cada lote vai do id seguinte ao anterior até o id da tamanhoLote-ésima transação.
+    // As transações do lote são lidas antes do comando, na mesma transação, e o comando vai só até o maior id lido: uma
+    // transação incluída no meio não sai do lote sem ter sido contada. Quando o comando muda as estatísticas, o lote
+    // também é agregado por categoria no banco. Os ouvintes recebem as transações lidas com a alteração (nula na
+    // exclusão) e atualizam o estado em memória depois do commit, sem refazer tudo a partir do banco.
+    private ResultadoLote executarEmLotes(FiltroTransacoes filtro, Consumer<ResultadoLote> progresso,
+                                         ToIntBiFunction<Long, Long> comando, RegistroLote registrarEstatisticas,
+                                         AlteracaoEmLote alteracao) {
+        // Só recorrente mudando: nada em memória depende disso
+        boolean alteraEstado = alteracao == null || alteracao.categoriaId() != null || alteracao.tipo() != null;
+        long afetadas = 0;
+        int lotes = 0;
+        long idInicial = 0;
+        try {
+            while (true) {
+                Optional<Long> idFinal = transacaoRepository.findIdFinalLote(filtro, idInicial, tamanhoLote);
+                long inicioLote = idInicial;
+                long fimLote = idFinal.orElse(Long.MAX_VALUE);
+                afetadas += transactionTemplate.execute(status -> {
+                    if (!alteraEstado) {
+                        return comando.applyAsInt(inicioLote, fimLote);
+                    }
+                    List<Object[]> linhas = transacaoRepository.findLancamentosDoLote(filtro, inicioLote, fimLote);
+                    if (linhas.isEmpty()) {
+                        return 0;
+                    }
+                    long maiorId = (Long) linhas.get(linhas.size() - 1)[0];
+                    YearMonth mes = YearMonth.now();
+                    List<AgregadoCategoria> agregados = null;
+                    List<Object[]> valores = null;
+                    if (registrarEstatisticas != null) {
+                        agregados = transacaoRepository.agregarPorCategoria(filtro, inicioLote, maiorId, mes);
+                        valores = transacaoRepository.agruparValores(filtro, inicioLote, maiorId);
+                    }
+                    int afetadasLote = comando.applyAsInt(inicioLote, maiorId);
+                    if (registrarEstatisticas != null) {
+                        registrarEstatisticas.registrar(agregados, valores, mes);
+                    }
+                    List<Lancamento> anteriores = linhas.stream()
+                        .map(linha -> new Lancamento((Long) linha[1], (BigDecimal) linha[2], (LocalDate) linha[3],
+                            (TipoTransacao) linha[4], (String) linha[5]))
+                        .toList();
+                    for (OuvinteEscritas ouvinte : ouvintes) {
+                        ouvinte.registrarEmLote(anteriores, alteracao);
+                    }
+                    return afetadasLote;
+                });
+                lotes++;
+                if (idFinal.isEmpty()) {
+                    return new ResultadoLote(afetadas, lotes);
+                }
+                progresso.accept(new ResultadoLote(afetadas, lotes));
+                idInicial = idFinal.get() + 1;
+            }
+        } finally {
+            coalescedorConsultas.invalidar();
+        }
+    }
+
+    private void avisar(Lancamento anterior, Lancamento atual) {
+        for (OuvinteEscritas ouvinte : ouvintes) {
+            ouvinte.registrar(anterior, atual);
+        }
+    }
+
+    // Uma categoria vinda só com o id (sem versão) é trocada pela entidade, em geral já no cache de segundo nível
+    private void resolverCategoria(Transacao transacao) {
+        Categoria categoria = transacao.getCategoria();
+        if (categoria != null && categoria.getId() != null && categoria.getVersao() == null) {
+            transacao.setCategoria(categoriaRepository.findById(categoria.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Categoria não encontrada: " + categoria.getId())));
+        }
+    }
+
+    private BigDecimal sumByTipoNoMes(TipoTransacao tipo) {
+        return sumByTipoAndPeriodo(tipo, LocalDate.now().withDayOfMonth(1), LocalDate.now());
+    }
+
+    // Sem o índice em memória (ainda montando, ou período com transações fora dos anos indexados) a soma vai ao banco;
+    // agregações idênticas concorrentes (ex.: painéis atualizando ao mesmo tempo) compartilham uma única consulta
+    private BigDecimal sumByTipoAndPeriodo(TipoTransacao tipo, LocalDate inicio, LocalDate fim) {
+        return somasPorData.somar(tipo, inicio, fim).orElseGet(() -> coalescedorConsultas.executar("sumByTipoAndPeriodo",
+            () -> somarComArquivadas(() -> transacaoRepository.sumByTipoAndPeriodo(tipo, inicio, fim),
+                () -> arquivoFrio.somar(tipo, inicio, fim)), tipo, inicio, fim));
+    }
+
+    // Percorre o saldo de cada dia com transações até o último fechamento, acumulando em ordem de data
+    private List<BigDecimal> saldosNoBanco(List<LocalDate> fechamentos) {
+        List<Object[]> porDia = arquivoFrio.lerConsistente(() -> saldoPorDia(fechamentos.get(fechamentos.size() - 1)));
+        List<BigDecimal> saldos = new ArrayList<>(fechamentos.size());
+        BigDecimal saldo = BigDecimal.ZERO.setScale(2);
+        int linha = 0;
+        for (LocalDate fechamento : fechamentos) {
+            while (linha < porDia.size() && !((LocalDate) porDia.get(linha)[0]).isAfter(fechamento)) {
+                saldo = saldo.add((BigDecimal) porDia.get(linha++)[1]);
+            }
+            saldos.add(saldo);
+        }
+        return saldos;
+    }
+
+    // Com a camada fria, o saldo arquivado de cada dia é somado ao do banco e a ordem de data refeita
+    private List<Object[]> saldoPorDia(LocalDate dataFim) {
+        List<Object[]> doBanco = transacaoRepository.sumSaldoPorDataAte(dataFim);
+        if (arquivoFrio.vazio()) {
+            return doBanco;
+        }
+        TreeMap<LocalDate, BigDecimal> porDia = new TreeMap<>();
+        for (Object[] linha : doBanco) {
+            porDia.put((LocalDate) linha[0], (BigDecimal) linha[1]);
+        }
+        for (Object[] linha : arquivoFrio.somarPorTipoEData()) {
+            LocalDate dia = (LocalDate) linha[1];
+            if (!dia.isAfter(dataFim)) {
+                BigDecimal valor = (BigDecimal) linha[2];
+                porDia.merge(dia, linha[0] == TipoTransacao.RECEITA ? valor : valor.negate(), BigDecimal::add);
+            }
+        }
+        return porDia.entrySet().stream().map(dia -> new Object[]{dia.getKey(), dia.getValue()}).toList();
+    }
+
+    private BigDecimal sumByEssencial(boolean essencial) {
+        return coalescedorConsultas.executar("sumByEssencialAndTipo",
+            () -> somarComArquivadas(() -> transacaoRepository.sumByEssencialAndTipo(essencial, TipoTransacao.DESPESA),
+                () -> arquivoFrio.somar(daCategoria(essencial).and(registro -> registro.tipo() == TipoTransacao.DESPESA))),
+            essencial, TipoTransacao.DESPESA);
+    }
 }
@@ -0,0 +1,106 @@
+package com.organizadorfinancas.benchmark;
+
+import com.organizadorfinancas.OrganizadorFinancasApplication;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o armazenamento das transações no H2 (JPA) com o journal mapeado em memória
+ * ({@code organizador.armazenamento.transacoes=journal}) pelo {@link ArmazenamentoTransacoes} da aplicação:
+ * inclusão, leitura por id e consulta de um mês.
+ *
+ * Execução: scripts/benchmark-armazenamento.sh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class ArmazenamentoTransacoesBenchmark {
+
+    @Param({"jpa", "journal"})
+    public String armazenamento;
+
+    @Param({"50000"})
+    public int transacoes;
+
+    private ConfigurableApplicationContext contexto;
+    private ArmazenamentoTransacoes repositorio;
+    private List<Categoria> categorias;
+    private long[] ids;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void preparar() {
+        // Argumentos de linha de comando: têm precedência sobre o application.properties
+        contexto = new SpringApplicationBuilder(OrganizadorFinancasApplication.class)
+                .run("--server.port=0",
+                        "--organizador.armazenamento.transacoes=" + armazenamento,
+                        "--logging.level.root=WARN");
+        repositorio = contexto.getBean(ArmazenamentoTransacoes.class);
+        categorias = contexto.getBean(CategoriaRepository.class).saveAll(List.of(
+                new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL),
+                new Categoria("Lazer", false, TipoCategoria.DESPESA_SUPERFLUA),
+                new Categoria("Salário", true, TipoCategoria.RENDA_FIXA)));
+        ids = new long[transacoes];
+        for (int i = 0; i < transacoes; i++) {
+            ids[i] = repositorio.save(nova()).getId();
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Transacao inserir() {
+        return repositorio.save(nova());
+    }
+
+    @Benchmark
+    public Optional<Transacao> buscarPorId() {
+        return repositorio.findById(ids[random.nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Transacao> consultarMes() {
+        LocalDate inicio = LocalDate.of(2024, 1 + random.nextInt(12), 1);
+        return repositorio.findByDataBetween(inicio, inicio.plusMonths(1).minusDays(1));
+    }
+
+    private Transacao nova() {
+        return new Transacao("Transação " + random.nextInt(1_000),
+                BigDecimal.valueOf(random.nextLong(100, 500_000), 2),
+                LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366)),
+                random.nextInt(5) == 0 ? TipoTransacao.RECEITA : TipoTransacao.DESPESA,
+                random.nextBoolean(),
+                categorias.get(random.nextInt(categorias.size())));
+    }
+}
@@ -0,0 +1,99 @@
+package com.organizadorfinancas.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organizadorfinancas.config.ModeloJsonModule;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o ObjectMapper padrão do Spring MVC com o mesmo mapper acrescido do {@link ModeloJsonModule}
+ * na serialização de uma listagem de transações e na leitura do corpo de um POST.
+ *
+ * Execução: scripts/benchmark-serializacao.sh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class SerializacaoJsonBenchmark {
+
+    @Param({"20", "500"})
+    public int transacoes;
+
+    private ObjectMapper padrao;
+    private ObjectMapper modelo;
+    private List<Transacao> lista;
+    private byte[] corpo;
+
+    @Setup
+    public void preparar() throws Exception {
+        padrao = Jackson2ObjectMapperBuilder.json().build();
+        modelo = Jackson2ObjectMapperBuilder.json().modulesToInstall(new ModeloJsonModule()).build();
+
+        TipoCategoria[] tipos = TipoCategoria.values();
+        List<Categoria> categorias = new ArrayList<>();
+        for (long i = 1; i <= 15; i++) {
+            Categoria categoria = new Categoria("Categoria " + i, i % 2 == 0, tipos[(int) (i % tipos.length)]);
+            categoria.setId(i);
+            categorias.add(categoria);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        lista = new ArrayList<>();
+        for (long i = 1; i <= transacoes; i++) {
+            Transacao transacao = new Transacao("Transação " + i,
+                    BigDecimal.valueOf(random.nextLong(100, 500_000), 2),
+                    LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)),
+                    random.nextInt(5) == 0 ? TipoTransacao.RECEITA : TipoTransacao.DESPESA,
+                    random.nextBoolean(),
+                    categorias.get(random.nextInt(categorias.size())));
+            transacao.setId(i);
+            lista.add(transacao);
+        }
+
+        corpo = padrao.writeValueAsBytes(lista.get(0));
+    }
+
+    @Benchmark
+    public byte[] serializarPadrao() throws Exception {
+        return padrao.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public byte[] serializarModelo() throws Exception {
+        return modelo.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public Transacao desserializarPadrao() throws Exception {
+        return padrao.readValue(corpo, Transacao.class);
+    }
+
+    @Benchmark
+    public Transacao desserializarModelo() throws Exception {
+        return modelo.readValue(corpo, Transacao.class);
+    }
+}
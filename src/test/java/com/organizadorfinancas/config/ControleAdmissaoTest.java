@@ -0,0 +1,201 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.config.ControleAdmissao.ClasseEndpoint;
+import com.organizadorfinancas.config.ControleAdmissao.Decisao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do ControleAdmissao")
+class ControleAdmissaoTest {
+
+    private long agora;
+    private ControleAdmissao controleAdmissao;
+
+    @BeforeEach
+    void setUp() {
+        agora = 0;
+        controleAdmissao = new ControleAdmissao(new ControleAdmissao.Parametros(10, 5, 100, 50, 4, 1, 8,
+                Map.of(ClasseEndpoint.CRUD, 100L, ClasseEndpoint.LISTAGEM, 100L, ClasseEndpoint.AGREGADO, 100L,
+                        ClasseEndpoint.LOTE, 1000L, ClasseEndpoint.INGESTAO, 100L)),
+                () -> agora);
+    }
+
+    private void avancarMs(long ms) {
+        agora += ms * 1_000_000;
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar o cliente sem fichas e informar quando tentar de novo")
+    void admitir_ShouldRejectWhenBucketIsEmpty() {
+        assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.AGREGADO).admitida());
+        controleAdmissao.concluir(ClasseEndpoint.AGREGADO, agora);
+        assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.AGREGADO).admitida());
+        controleAdmissao.concluir(ClasseEndpoint.AGREGADO, agora);
+
+        Decisao decisao = controleAdmissao.admitir("a", ClasseEndpoint.CRUD);
+
+        assertFalse(decisao.admitida());
+        assertEquals(1, decisao.retryAfterSegundos());
+        assertTrue(controleAdmissao.admitir("b", ClasseEndpoint.CRUD).admitida());
+    }
+
+    @Test
+    @DisplayName("Deve cobrar a ingestão de um balde próprio, sem esgotar nem depender do balde comum")
+    void admitir_ShouldUseSeparateBucketForIngestao() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+            controleAdmissao.concluir(ClasseEndpoint.CRUD, agora);
+        }
+        assertFalse(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.INGESTAO).admitida());
+            controleAdmissao.concluir(ClasseEndpoint.INGESTAO, agora);
+        }
+        Decisao decisao = controleAdmissao.admitir("a", ClasseEndpoint.INGESTAO);
+        assertFalse(decisao.admitida());
+        assertEquals(1, decisao.retryAfterSegundos());
+
+        avancarMs(200);
+        assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+    }
+
+    @Test
+    @DisplayName("Deve recarregar as fichas com o tempo")
+    void admitir_ShouldRefillBucketOverTime() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+            controleAdmissao.concluir(ClasseEndpoint.CRUD, agora);
+        }
+        assertFalse(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+
+        avancarMs(200);
+
+        assertTrue(controleAdmissao.admitir("a", ClasseEndpoint.CRUD).admitida());
+    }
+
+    @Test
+    @DisplayName("Deve limitar a concorrência por classe sem afetar as demais")
+    void admitir_ShouldLimitConcurrencyPerClass() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(controleAdmissao.admitir("c" + i, ClasseEndpoint.LISTAGEM).admitida());
+        }
+
+        Decisao decisao = controleAdmissao.admitir("outro", ClasseEndpoint.LISTAGEM);
+
+        assertFalse(decisao.admitida());
+        assertEquals("Serviço sobrecarregado", decisao.motivo());
+        assertTrue(controleAdmissao.admitir("outro", ClasseEndpoint.CRUD).admitida());
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite acima da latência alvo e aumentar abaixo dela")
+    void concluir_ShouldAdaptLimitToLatency() {
+        for (int i = 0; i < 5; i++) {
+            long inicio = agora;
+            controleAdmissao.admitir("a", ClasseEndpoint.CRUD);
+            avancarMs(500);
+            controleAdmissao.concluir(ClasseEndpoint.CRUD, inicio);
+        }
+        double reduzido = controleAdmissao.getLimite(ClasseEndpoint.CRUD);
+        assertTrue(reduzido < 4);
+
+        for (int i = 0; i < 40; i++) {
+            long inicio = agora;
+            controleAdmissao.admitir("a", ClasseEndpoint.CRUD);
+            avancarMs(10);
+            controleAdmissao.concluir(ClasseEndpoint.CRUD, inicio);
+            avancarMs(200);
+        }
+
+        assertTrue(controleAdmissao.getLimite(ClasseEndpoint.CRUD) > reduzido);
+        assertEquals(4, controleAdmissao.getLimite(ClasseEndpoint.LISTAGEM));
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite uma vez por janela numa rajada de respostas lentas")
+    void concluir_SlowBurst_ShouldDecreaseOncePerWindow() {
+        long inicio = agora;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(controleAdmissao.admitir("c" + i, ClasseEndpoint.CRUD).admitida());
+        }
+        avancarMs(500);
+        for (int i = 0; i < 4; i++) {
+            controleAdmissao.concluir(ClasseEndpoint.CRUD, inicio);
+        }
+
+        assertEquals(4 * 0.9, controleAdmissao.getLimite(ClasseEndpoint.CRUD), 1e-9);
+
+        // Uma requisição lenta iniciada depois da redução abre a janela seguinte
+        avancarMs(1);
+        long depois = agora;
+        controleAdmissao.admitir("a", ClasseEndpoint.CRUD);
+        avancarMs(500);
+        controleAdmissao.concluir(ClasseEndpoint.CRUD, depois);
+        assertEquals(4 * 0.9 * 0.9, controleAdmissao.getLimite(ClasseEndpoint.CRUD), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Deve classificar os endpoints e responder 429 com Retry-After")
+    void filtro_ShouldClassifyAndShed() throws Exception {
+        assertEquals(ClasseEndpoint.AGREGADO,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("GET", "/api/transacoes/resumo/saldo")));
+        assertEquals(ClasseEndpoint.LISTAGEM,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("GET", "/api/transacoes/despesas")));
+        assertEquals(ClasseEndpoint.CRUD,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("GET", "/api/transacoes/15")));
+        assertEquals(ClasseEndpoint.CRUD,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("POST", "/api/transacoes")));
+        assertEquals(ClasseEndpoint.LOTE,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("DELETE", "/api/transacoes")));
+        assertEquals(ClasseEndpoint.LOTE,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("PATCH", "/api/transacoes")));
+        assertEquals(ClasseEndpoint.LOTE,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("POST", "/api/categorias/3/mesclar/4")));
+        assertEquals(ClasseEndpoint.LOTE,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("DELETE", "/api/categorias/3")));
+        assertEquals(ClasseEndpoint.CRUD,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("DELETE", "/api/transacoes/15")));
+        assertEquals(ClasseEndpoint.INGESTAO,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("POST", "/api/transacoes/ingestao")));
+        assertEquals(ClasseEndpoint.LISTAGEM,
+                FiltroAdmissao.classificar(new MockHttpServletRequest("GET", "/api/transacoes/ingestao/estado")));
+
+        FiltroAdmissao filtro = new FiltroAdmissao(controleAdmissao, "X-Forwarded-For");
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/transacoes/resumo/saldo");
+            request.addHeader("X-Forwarded-For", "10.0.0.1, 192.168.0.1");
+            response = new MockHttpServletResponse();
+            filtro.doFilter(request, response, new MockFilterChain());
+        }
+
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("Limite de requisições do cliente excedido"));
+    }
+
+    @Test
+    @DisplayName("Deve manter a vaga de uma resposta assíncrona até o fim do envio")
+    void filtro_AsyncResponse_ShouldHoldSlotUntilComplete() throws Exception {
+        FiltroAdmissao filtro = new FiltroAdmissao(controleAdmissao, null);
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/categorias/3");
+        request.setAsyncSupported(true);
+
+        filtro.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, controleAdmissao.getEmAndamento(FiltroAdmissao.classificar(request)));
+        MockAsyncContext contexto = (MockAsyncContext) request.getAsyncContext();
+        contexto.complete();
+        assertEquals(0, controleAdmissao.getEmAndamento(FiltroAdmissao.classificar(request)));
+    }
+}
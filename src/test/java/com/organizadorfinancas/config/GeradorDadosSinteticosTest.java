@@ -0,0 +1,93 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.TransacaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testes do GeradorDadosSinteticos")
+class GeradorDadosSinteticosTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransacaoRepository transacaoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve gerar transações para todos os usuários e meses")
+    void gerar_ShouldInsertTransacoes() {
+        GeradorDadosSinteticos gerador = new GeradorDadosSinteticos(jdbcTemplate, 42L, 500, 4);
+
+        GeradorDadosSinteticos.Resultado resultado = gerador.gerar(20, LocalDate.of(2025, 1, 1), 12);
+
+        assertEquals(16, categoriaRepository.count());
+        assertEquals(resultado.transacoes(), transacaoRepository.count());
+        assertTrue(resultado.transacoes() > 20 * 12 * 20);
+        assertFalse(transacaoRepository.findByTipo(TipoTransacao.RECEITA).isEmpty());
+        assertFalse(transacaoRepository.findDespesasParceladas().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve gerar os mesmos dados para a mesma semente independentemente do paralelismo")
+    void gerar_ShouldBeDeterministic() {
+        new GeradorDadosSinteticos(jdbcTemplate, 7L, 100, 1).gerar(10, LocalDate.of(2025, 1, 1), 6);
+        List<Map<String, Object>> primeiraCarga = resumoPorMes();
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "transacoes");
+
+        new GeradorDadosSinteticos(jdbcTemplate, 7L, 100, 3).gerar(10, LocalDate.of(2025, 1, 1), 6);
+
+        assertEquals(primeiraCarga, resumoPorMes());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar sazonalidade no consumo de dezembro")
+    void gerar_ShouldApplySeasonality() {
+        new GeradorDadosSinteticos(jdbcTemplate, 42L, 1000, 2).gerar(50, LocalDate.of(2025, 1, 1), 12);
+
+        BigDecimal junho = transacaoRepository.sumByTipoAndPeriodo(TipoTransacao.DESPESA,
+                LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30));
+        BigDecimal dezembro = transacaoRepository.sumByTipoAndPeriodo(TipoTransacao.DESPESA,
+                LocalDate.of(2025, 12, 1), LocalDate.of(2025, 12, 31));
+
+        assertTrue(dezembro.compareTo(junho) > 0);
+    }
+
+    private List<Map<String, Object>> resumoPorMes() {
+        return jdbcTemplate.queryForList(
+                "SELECT MONTH(data) AS mes, tipo, COUNT(*) AS quantidade, SUM(valor) AS total " +
+                "FROM transacoes GROUP BY MONTH(data), tipo ORDER BY mes, tipo");
+    }
+}
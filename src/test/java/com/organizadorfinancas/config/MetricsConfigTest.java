@@ -0,0 +1,77 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.service.CategoriaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@DisplayName("Testes das métricas da aplicação")
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Test
+    @DisplayName("Deve registrar tempo das operações de serviço por método e resultado")
+    void servico_ShouldBeTimed() {
+        categoriaService.findAll();
+
+        Timer timer = meterRegistry.find("organizador.servico")
+                .tag("class", CategoriaService.class.getName())
+                .tag("method", "findAll")
+                .tag("exception", "none")
+                .timer();
+
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar tempo das invocações de repositório")
+    void repositorio_ShouldBeTimed() {
+        categoriaService.countCategoriasEssenciais();
+
+        Timer timer = meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "CategoriaRepository")
+                .tag("method", "countCategoriasEssenciais")
+                .tag("state", "SUCCESS")
+                .timer();
+
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Deve expor métricas no endpoint do Prometheus")
+    void prometheus_ShouldExposeMetrics() throws Exception {
+        categoriaService.findAll();
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("organizador_servico_seconds")))
+                .andExpect(content().string(containsString("hikaricp_connections")))
+                .andExpect(content().string(containsString("jvm_memory_used_bytes")));
+    }
+}
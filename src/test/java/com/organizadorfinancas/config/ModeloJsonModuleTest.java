@@ -0,0 +1,124 @@
+package com.organizadorfinancas.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do ModeloJsonModule")
+class ModeloJsonModuleTest {
+
+    private ObjectMapper padrao;
+    private ObjectMapper modelo;
+    private Categoria salario;
+    private Categoria lazer;
+
+    @BeforeEach
+    void setUp() {
+        padrao = Jackson2ObjectMapperBuilder.json().build();
+        modelo = Jackson2ObjectMapperBuilder.json().modulesToInstall(new ModeloJsonModule()).build();
+
+        salario = new Categoria("Salário \"CLT\"", true, TipoCategoria.RENDA_FIXA);
+        salario.setId(1L);
+        lazer = new Categoria("Lazer", false, TipoCategoria.DESPESA_SUPERFLUA);
+        lazer.setId(2L);
+    }
+
+    private List<Transacao> transacoes() {
+        Transacao receita = new Transacao("Salário", new BigDecimal("5000.00"),
+                LocalDate.of(2024, 1, 5), TipoTransacao.RECEITA, true, salario);
+        receita.setId(1L);
+        Transacao parcelada = new Transacao("Notebook", new BigDecimal("-0.05"),
+                LocalDate.of(2024, 11, 20), TipoTransacao.DESPESA, false, lazer);
+        parcelada.setId(2L);
+        parcelada.setParcelas(3);
+        parcelada.setObservacoes("linha 1\nlinha 2");
+        Transacao semCategoria = new Transacao("Cinema", new BigDecimal("1E+3"),
+                LocalDate.of(2024, 2, 29), null, null, null);
+        Transacao mesmaCategoria = new Transacao("Streaming", new BigDecimal("39.9"),
+                LocalDate.of(2024, 3, 1), TipoTransacao.DESPESA, true, lazer);
+        mesmaCategoria.setId(4L);
+        return Arrays.asList(receita, parcelada, semCategoria, mesmaCategoria);
+    }
+
+    @Test
+    @DisplayName("Deve gerar o mesmo JSON do serializador por reflexão")
+    void serialize_ShouldMatchReflectionBasedOutput() throws Exception {
+        List<Transacao> transacoes = transacoes();
+
+        assertEquals(padrao.writeValueAsString(transacoes), modelo.writeValueAsString(transacoes));
+        assertEquals(padrao.writeValueAsString(lazer), modelo.writeValueAsString(lazer));
+    }
+
+    @Test
+    @DisplayName("Deve seguir WRITE_DATES_AS_TIMESTAMPS e a formatação indentada")
+    void serialize_ShouldHonorMapperFeatures() throws Exception {
+        padrao.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).enable(SerializationFeature.INDENT_OUTPUT);
+        modelo.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).enable(SerializationFeature.INDENT_OUTPUT);
+        List<Transacao> transacoes = transacoes();
+
+        String json = modelo.writeValueAsString(transacoes);
+
+        assertEquals(padrao.writeValueAsString(transacoes), json);
+        assertTrue(json.contains("\"data\" : \"2024-01-05\""));
+    }
+
+    @Test
+    @DisplayName("Deve ler o corpo de uma transação ignorando campos desconhecidos")
+    void deserialize_ShouldReadTransacao() throws Exception {
+        String json = """
+                {"descricao":"Mercado","valor":150.75,"data":"2024-01-10","tipo":"DESPESA","recorrente":"true",
+                 "parcelas":1,"parcelaAtual":1,"valorMensal":150.75,"extra":{"a":[1,2]},
+                 "categoria":{"id":2,"nome":"Lazer","transacoes":[]},"observacoes":null}
+                """;
+
+        Transacao transacao = modelo.readValue(json, Transacao.class);
+
+        assertNull(transacao.getId());
+        assertEquals("Mercado", transacao.getDescricao());
+        assertEquals(new BigDecimal("150.75"), transacao.getValor());
+        assertEquals(LocalDate.of(2024, 1, 10), transacao.getData());
+        assertEquals(TipoTransacao.DESPESA, transacao.getTipo());
+        assertTrue(transacao.getRecorrente());
+        assertEquals(1, transacao.getParcelas());
+        assertEquals(2L, transacao.getCategoria().getId());
+        assertEquals("Lazer", transacao.getCategoria().getNome());
+        assertNull(transacao.getObservacoes());
+    }
+
+    @Test
+    @DisplayName("Deve ler de volta o JSON que serializa, inclusive datas em array")
+    void deserialize_ShouldRoundTrip() throws Exception {
+        List<Transacao> transacoes = transacoes();
+        Transacao original = transacoes.get(1);
+
+        Transacao lida = modelo.readValue(modelo.writeValueAsBytes(original), Transacao.class);
+
+        assertEquals(padrao.writeValueAsString(original), padrao.writeValueAsString(lida));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar valores inválidos de enum e data")
+    void deserialize_ShouldRejectInvalidValues() {
+        assertThrows(InvalidFormatException.class,
+                () -> modelo.readValue("{\"tipo\":\"TRANSFERENCIA\"}", Transacao.class));
+        assertThrows(InvalidFormatException.class,
+                () -> modelo.readValue("{\"data\":\"2024-02-30\"}", Transacao.class));
+        assertThrows(InvalidFormatException.class,
+                () -> modelo.readValue("{\"tipo\":\"OUTRO\"}", Categoria.class));
+    }
+}
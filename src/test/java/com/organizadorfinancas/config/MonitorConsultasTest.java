@@ -0,0 +1,62 @@
+package com.organizadorfinancas.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do MonitorConsultas")
+class MonitorConsultasTest {
+
+    private MonitorConsultas monitorConsultas;
+
+    @BeforeEach
+    void setUp() {
+        monitorConsultas = new MonitorConsultas(3);
+    }
+
+    @Test
+    @DisplayName("Deve normalizar literais, listas IN e espaços")
+    void normalizar_ShouldReplaceLiteralsAndCollapseWhitespace() {
+        String sql = "select c.id from categorias c\n   where c.nome = 'Café' and c.id in (?, ?, ?) and c.id > 10";
+
+        assertEquals("select c.id from categorias c where c.nome = ? and c.id in (?...) and c.id > ?",
+                MonitorConsultas.normalizar(sql));
+    }
+
+    @Test
+    @DisplayName("Deve sinalizar instruções repetidas na mesma requisição")
+    void finalizarRequisicao_ShouldFlagRepeatedStatements() {
+        monitorConsultas.iniciarRequisicao();
+        monitorConsultas.inspect("select t.id from transacoes t");
+        for (int i = 0; i < 4; i++) {
+            monitorConsultas.inspect("select c.nome from categorias c where c.id=" + i);
+        }
+
+        MonitorConsultas.RelatorioRequisicao relatorio = monitorConsultas.finalizarRequisicao("GET", "/api/transacoes", 12);
+
+        assertEquals(5, relatorio.totalInstrucoes());
+        assertEquals(1, relatorio.padroesRepetidos().size());
+        assertTrue(relatorio.padroesRepetidos().get(0).startsWith("4x select c.nome from categorias c where c.id=?"));
+        assertEquals(1, monitorConsultas.getRelatorios().size());
+    }
+
+    @Test
+    @DisplayName("Não deve registrar relatório quando a requisição não executa SQL")
+    void finalizarRequisicao_ShouldIgnoreRequestsWithoutStatements() {
+        monitorConsultas.iniciarRequisicao();
+
+        assertNull(monitorConsultas.finalizarRequisicao("GET", "/api/categorias", 1));
+        assertTrue(monitorConsultas.getRelatorios().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve acumular totais por instrução fora de requisições")
+    void inspect_ShouldAccumulateTotals() {
+        monitorConsultas.inspect("select 1");
+        monitorConsultas.inspect("select 2");
+
+        assertEquals(2L, monitorConsultas.getTotaisPorInstrucao().get("select ?"));
+    }
+}
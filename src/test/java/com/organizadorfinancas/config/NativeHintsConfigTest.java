@@ -0,0 +1,50 @@
+package com.organizadorfinancas.config;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das dicas de AOT/imagem nativa")
+class NativeHintsConfigTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new NativeHintsConfig.OrganizadorRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    @DisplayName("Deve registrar reflexão para entidades e enums")
+    void registerHints_ShouldRegisterModelReflection() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Transacao.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Categoria.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TipoTransacao.class).test(hints));
+    }
+
+    @Test
+    @DisplayName("Deve registrar recursos do cache e do Swagger UI")
+    void registerHints_ShouldRegisterResources() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("ehcache.xml").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("ehcache-core.xsd").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/resources/webjars/swagger-ui/index.html").test(hints));
+    }
+
+    @Test
+    @DisplayName("Deve registrar classes instanciadas por nome")
+    void registerHints_ShouldRegisterNamedClasses() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("org.h2.Driver")).test(hints));
+    }
+}
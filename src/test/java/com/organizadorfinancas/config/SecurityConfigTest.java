@@ -0,0 +1,46 @@
+package com.organizadorfinancas.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.security.user.password=senha-teste")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes da configuração de segurança")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Deve exigir o usuário administrador em /admin e deixar /api aberta")
+    void admin_ShouldRequireAdminCredentials() throws Exception {
+        mockMvc.perform(get("/admin/sql"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists("WWW-Authenticate"));
+        mockMvc.perform(get("/admin/sql").with(httpBasic("admin", "errada")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/admin/sql").with(httpBasic("admin", "senha-teste")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/categorias"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a restauração anônima sem ler o corpo")
+    void restore_WithoutCredentials_ShouldBeRejected() throws Exception {
+        mockMvc.perform(post("/admin/restore").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1, 2, 3}))
+                .andExpect(status().isUnauthorized());
+    }
+}
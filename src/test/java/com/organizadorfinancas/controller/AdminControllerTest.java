@@ -0,0 +1,141 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.config.MonitorConsultas;
+import com.organizadorfinancas.config.TestSecurityConfig;
+import com.organizadorfinancas.dto.ResumoBackup;
+import com.organizadorfinancas.dto.SegmentoArquivado;
+import com.organizadorfinancas.service.ArquivoFrio;
+import com.organizadorfinancas.service.BackupDados;
+import com.organizadorfinancas.service.BackupGrandeDemaisException;
+import com.organizadorfinancas.service.DiagnosticoSqlService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AdminController.class)
+@Import(TestSecurityConfig.class)
+@DisplayName("Testes do AdminController")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DiagnosticoSqlService diagnosticoSqlService;
+
+    @MockBean
+    private ArquivoFrio arquivoFrio;
+
+    @MockBean
+    private BackupDados backupDados;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve retornar diagnóstico de SQL")
+    void getDiagnosticoSql_ShouldReturnDiagnostico() throws Exception {
+        when(diagnosticoSqlService.getDiagnostico()).thenReturn(Map.of("consultasLentas", List.of()));
+
+        mockMvc.perform(get("/admin/sql"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consultasLentas").isArray());
+
+        verify(diagnosticoSqlService, times(1)).getDiagnostico();
+    }
+
+    @Test
+    @DisplayName("Deve retornar requisições com padrões repetidos")
+    void getPadroesRepetidos_ShouldReturnRelatorios() throws Exception {
+        MonitorConsultas.RelatorioRequisicao relatorio = new MonitorConsultas.RelatorioRequisicao(
+                "GET", "/api/transacoes", 30, 12, Map.of("select ?", 12), List.of("12x select ?"));
+        when(diagnosticoSqlService.getRequisicoesComPadroesRepetidos()).thenReturn(List.of(relatorio));
+
+        mockMvc.perform(get("/admin/sql/repeticoes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/api/transacoes"))
+                .andExpect(jsonPath("$[0].padroesRepetidos[0]").value("12x select ?"));
+    }
+
+    @Test
+    @DisplayName("Deve limpar diagnóstico de SQL")
+    void limparDiagnosticoSql_ShouldReturnNoContent() throws Exception {
+        mockMvc.perform(delete("/admin/sql"))
+                .andExpect(status().isNoContent());
+
+        verify(diagnosticoSqlService, times(1)).limpar();
+    }
+
+    @Test
+    @DisplayName("Deve arquivar um ano fechado e informar quando não há o que arquivar")
+    void arquivar_ShouldReturnSegmentOrNoContent() throws Exception {
+        when(arquivoFrio.arquivar(2022)).thenReturn(Optional.of(new SegmentoArquivado("transacoes-2022-001.seg",
+                LocalDate.of(2022, 1, 3), LocalDate.of(2022, 12, 28), 1200, 18_000)));
+        when(arquivoFrio.arquivar(2021)).thenReturn(Optional.empty());
+        when(arquivoFrio.arquivar(2026)).thenThrow(new IllegalArgumentException("O ano 2026 ainda não pode ser arquivado"));
+
+        mockMvc.perform(post("/admin/arquivo/2022"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.arquivo").value("transacoes-2022-001.seg"))
+                .andExpect(jsonPath("$.transacoes").value(1200));
+        mockMvc.perform(post("/admin/arquivo/2021"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/admin/arquivo/2026"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve gerar o backup no POST, enviar o arquivo no GET e restaurar o corpo recebido")
+    void backup_ShouldGenerateSendFileAndRestoreBody() throws Exception {
+        byte[] conteudo = {'O', 'F', 'B', 'K', 0, 0, 0, 1, 42};
+        Path arquivo = Files.write(diretorio.resolve("backup-20261018-120000-000.ofb"), conteudo);
+        ResumoBackup resumo = new ResumoBackup(arquivo.getFileName().toString(), Instant.parse("2026-10-18T12:00:00Z"),
+                2, 1, 3, conteudo.length);
+        when(backupDados.gerar()).thenReturn(new BackupDados.Backup(arquivo, resumo));
+        when(backupDados.localizar("backup-20261018-120000-000.ofb")).thenReturn(Optional.of(arquivo));
+        when(backupDados.localizar("backup-20251018-120000-000.ofb")).thenReturn(Optional.empty());
+        when(backupDados.restaurar(any(InputStream.class), eq((long) conteudo.length))).thenReturn(
+                new ResumoBackup(null, resumo.geradoEm(), 2, 1, 3, conteudo.length));
+
+        mockMvc.perform(post("/admin/backup"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/admin/backup/backup-20261018-120000-000.ofb"))
+                .andExpect(jsonPath("$.transacoes").value(3));
+        mockMvc.perform(get("/admin/backup/backup-20261018-120000-000.ofb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"backup-20261018-120000-000.ofb\""))
+                .andExpect(content().bytes(conteudo));
+        // Baixar não gera outro backup
+        verify(backupDados, times(1)).gerar();
+        mockMvc.perform(get("/admin/backup/backup-20251018-120000-000.ofb"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/admin/restore").contentType(MediaType.APPLICATION_OCTET_STREAM).content(conteudo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transacoes").value(3))
+                .andExpect(jsonPath("$.categorias").value(2));
+        when(backupDados.restaurar(any(InputStream.class), eq(3L))).thenThrow(new BackupGrandeDemaisException("Backup maior que 1 MB"));
+        mockMvc.perform(post("/admin/restore").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[3]))
+                .andExpect(status().isPayloadTooLarge());
+    }
+}
@@ -2,7 +2,10 @@ package com.organizadorfinancas.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.organizadorfinancas.config.TestSecurityConfig;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.EstatisticaCategoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.service.CategoriaService;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,13 +17,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,6 +53,9 @@ class CategoriaControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CategoriaController categoriaController;
+
     private Categoria categoria1;
     private Categoria categoria2;
 
@@ -70,6 +87,22 @@ class CategoriaControllerTest {
         verify(categoriaService, times(1)).findAll();
     }
 
+    @Test
+    @DisplayName("Deve incluir as estatísticas de cada categoria na listagem")
+    void findAll_ShouldIncludeEstatisticas() throws Exception {
+        categoria1.setEstatisticas(new EstatisticaCategoria(1L, 12L, new BigDecimal("60000.00"), 202610,
+                new BigDecimal("5000.00"), LocalDate.of(2026, 10, 5)));
+        when(categoriaService.findAll()).thenReturn(List.of(categoria1));
+
+        mockMvc.perform(get("/api/categorias"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].estatisticas.quantidade").value(12))
+                .andExpect(jsonPath("$[0].estatisticas.total").value(60000.00))
+                .andExpect(jsonPath("$[0].estatisticas.totalMesAtual").value(5000.00))
+                .andExpect(jsonPath("$[0].estatisticas.ultimaTransacao[2]").value(5))
+                .andExpect(jsonPath("$[0].estatisticas.mesReferencia").doesNotExist());
+    }
+
     @Test
     @DisplayName("Deve retornar categoria por ID com sucesso")
     void findById_ShouldReturnCategoria_WhenExists() throws Exception {
@@ -194,6 +227,108 @@ class CategoriaControllerTest {
         verify(categoriaService, never()).deleteById(anyLong());
     }
 
+    @Test
+    @DisplayName("Deve retornar a distribuição dos valores da categoria no período")
+    void distribuicao_ShouldReturnPercentiles() throws Exception {
+        YearMonth inicio = YearMonth.of(2026, 1);
+        YearMonth fim = YearMonth.of(2026, 3);
+        when(categoriaService.distribuicao(1L, inicio, fim, new BigDecimal("400")))
+                .thenReturn(Optional.of(new DistribuicaoValores(1L, "2026-01", "2026-03", 40,
+                        new BigDecimal("180.10"), new BigDecimal("350.20"), new BigDecimal("420.00"),
+                        new BigDecimal("400"), 92.5,
+                        List.of(new DistribuicaoValores.Barra(new BigDecimal("150.00"), new BigDecimal("183.00"), 21)))));
+        when(categoriaService.distribuicao(eq(99L), any(), any(), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/categorias/1/distribuicao")
+                        .param("inicio", "2026-01")
+                        .param("fim", "2026-03")
+                        .param("valor", "400"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantidade").value(40))
+                .andExpect(jsonPath("$.p90").value(350.20))
+                .andExpect(jsonPath("$.percentilValor").value(92.5))
+                .andExpect(jsonPath("$.histograma[0].quantidade").value(21));
+
+        mockMvc.perform(get("/api/categorias/99/distribuicao"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve transmitir uma linha por lote quando o cliente pede NDJSON")
+    void deleteByIdComProgresso_ShouldStreamOneLinePerLote() throws Exception {
+        when(categoriaService.findById(1L)).thenReturn(Optional.of(categoria1));
+        when(categoriaService.excluirComTransacoes(eq(1L), any())).thenAnswer(invocacao -> {
+            Consumer<ResultadoLote> progresso = invocacao.getArgument(1);
+            progresso.accept(new ResultadoLote(1000, 1));
+            return new ResultadoLote(1500, 2);
+        });
+
+        MvcResult resultado = mockMvc.perform(delete("/api/categorias/1").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Espera o corpo terminar de ser escrito na thread assíncrona antes do dispatch
+        resultado.getAsyncResult();
+
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"afetadas\":1000,\"lotes\":1,\"concluido\":false}\n"
+                        + "{\"afetadas\":1500,\"lotes\":2,\"concluido\":true}\n"));
+
+        verify(categoriaService, never()).deleteById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve concluir a exclusão mesmo que o cliente desconecte no meio do progresso")
+    void deleteByIdComProgresso_ShouldFinish_WhenClientDisconnects() throws Exception {
+        when(categoriaService.findById(1L)).thenReturn(Optional.of(categoria1));
+        List<ResultadoLote> informados = new ArrayList<>();
+        when(categoriaService.excluirComTransacoes(eq(1L), any())).thenAnswer(invocacao -> {
+            Consumer<ResultadoLote> progresso = invocacao.getArgument(1);
+            for (int lote = 1; lote <= 3; lote++) {
+                ResultadoLote parcial = new ResultadoLote(1000L * lote, lote);
+                progresso.accept(parcial);
+                informados.add(parcial);
+            }
+            return new ResultadoLote(3500, 4);
+        });
+
+        StreamingResponseBody corpo = categoriaController.deleteByIdComProgresso(1L).getBody();
+        corpo.writeTo(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        assertEquals(3, informados.size());
+    }
+
+    @Test
+    @DisplayName("Deve mesclar categorias e retornar a quantidade de transações movidas")
+    void mesclar_ShouldReturnResultado_WhenBothExist() throws Exception {
+        when(categoriaService.findById(1L)).thenReturn(Optional.of(categoria1));
+        when(categoriaService.findById(2L)).thenReturn(Optional.of(categoria2));
+        when(categoriaService.mesclar(eq(1L), eq(2L), any())).thenReturn(new ResultadoLote(12, 1));
+
+        mockMvc.perform(post("/api/categorias/1/mesclar/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afetadas").value(12))
+                .andExpect(jsonPath("$.lotes").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 ao mesclar com destino inexistente")
+    void mesclar_ShouldReturnNotFound_WhenDestinoNotExists() throws Exception {
+        when(categoriaService.findById(1L)).thenReturn(Optional.of(categoria1));
+        when(categoriaService.findById(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/categorias/1/mesclar/99"))
+                .andExpect(status().isNotFound());
+
+        verify(categoriaService, never()).mesclar(anyLong(), anyLong(), any());
+    }
+
     @Test
     @DisplayName("Deve buscar categorias por tipo")
     void findByTipo_ShouldReturnCategoriasByTipo() throws Exception {
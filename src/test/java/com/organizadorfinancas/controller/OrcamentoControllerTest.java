@@ -0,0 +1,92 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.config.TestSecurityConfig;
+import com.organizadorfinancas.dto.StatusOrcamento;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.service.OrcamentoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OrcamentoController.class)
+@Import(TestSecurityConfig.class)
+@DisplayName("Testes do OrcamentoController")
+class OrcamentoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrcamentoService orcamentoService;
+
+    @Test
+    @DisplayName("Deve criar orçamento de categoria")
+    void create_ShouldReturnCreated() throws Exception {
+        Categoria mercado = new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL);
+        mercado.setId(2L);
+        Orcamento salvo = new Orcamento(mercado, null, new BigDecimal("500.00"));
+        salvo.setId(1L);
+        when(orcamentoService.save(any(Orcamento.class))).thenReturn(salvo);
+
+        mockMvc.perform(post("/api/orcamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoria\": {\"id\": 2}, \"limiteMensal\": 500.00}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.categoria.nome").value("Mercado"))
+                .andExpect(jsonPath("$.limiteMensal").value(500.00));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar orçamento sem limite")
+    void create_WithoutLimite_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/orcamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tipoCategoria\": \"DESPESA_SUPERFLUA\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(orcamentoService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 ao excluir orçamento inexistente")
+    void deleteById_WhenNotExists_ShouldReturnNotFound() throws Exception {
+        when(orcamentoService.findById(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/orcamentos/99"))
+                .andExpect(status().isNotFound());
+
+        verify(orcamentoService, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o status do mês informado")
+    void status_ShouldUseMesParameter() throws Exception {
+        when(orcamentoService.status(YearMonth.of(2026, 9))).thenReturn(List.of(new StatusOrcamento(1L, null, null,
+                TipoCategoria.DESPESA_SUPERFLUA, "2026-09", new BigDecimal("100.00"), new BigDecimal("120.00"),
+                new BigDecimal("-20.00"), new BigDecimal("120.0"), true)));
+
+        mockMvc.perform(get("/api/orcamentos/status").param("mes", "2026-09"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].mes").value("2026-09"))
+                .andExpect(jsonPath("$[0].estourado").value(true))
+                .andExpect(jsonPath("$[0].disponivel").value(-20.00));
+    }
+}
@@ -0,0 +1,100 @@
+package com.organizadorfinancas.controller;
+
+import com.organizadorfinancas.config.TestSecurityConfig;
+import com.organizadorfinancas.dto.EstadoRelatorio;
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import com.organizadorfinancas.service.FilaRelatorios;
+import com.organizadorfinancas.service.FilaRelatoriosCheiaException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RelatorioController.class)
+@Import(TestSecurityConfig.class)
+@DisplayName("Testes do RelatorioController")
+class RelatorioControllerTest {
+
+    private static final PedidoRelatorio MARCO = new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 3, null);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FilaRelatorios filaRelatorios;
+
+    @Test
+    @DisplayName("Deve agendar o relatório e apontar para a situação")
+    void enviar_ShouldReturnAccepted() throws Exception {
+        when(filaRelatorios.enviar(MARCO)).thenReturn(estado("abc", EstadoRelatorio.Situacao.PENDENTE));
+
+        mockMvc.perform(post("/api/relatorios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"periodo\": \"MENSAL\", \"ano\": 2026, \"mes\": 3}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/relatorios/abc"))
+                .andExpect(jsonPath("$.situacao").value("PENDENTE"))
+                .andExpect(jsonPath("$.pedido.prioridade").value("NORMAL"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar pedido inválido e responder 503 com a fila cheia")
+    void enviar_InvalidOrFull_ShouldReject() throws Exception {
+        mockMvc.perform(post("/api/relatorios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"periodo\": \"MENSAL\", \"ano\": 2026, \"mes\": 13}"))
+                .andExpect(status().isBadRequest());
+
+        when(filaRelatorios.enviar(any())).thenThrow(new FilaRelatoriosCheiaException("Fila de relatórios cheia"));
+        mockMvc.perform(post("/api/relatorios")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"periodo\": \"ANUAL\", \"ano\": 2026}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar o relatório pronto, 202 enquanto calcula e 404 para trabalho desconhecido")
+    void resultado_ShouldFollowJobState() throws Exception {
+        Relatorio relatorio = new Relatorio(PedidoRelatorio.Periodo.MENSAL, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31),
+                Instant.now(), new BigDecimal("5000.00"), new BigDecimal("1000.00"), new BigDecimal("4000.00"), List.of(),
+                List.of(), new Relatorio.ExposicaoParcelas(0, 0, BigDecimal.ZERO, BigDecimal.ZERO));
+        when(filaRelatorios.resultado("pronto")).thenReturn(Optional.of(relatorio));
+        when(filaRelatorios.resultado("calculando")).thenReturn(Optional.empty());
+        when(filaRelatorios.estado("calculando")).thenReturn(Optional.of(estado("calculando", EstadoRelatorio.Situacao.EXECUTANDO)));
+        when(filaRelatorios.resultado("desconhecido")).thenReturn(Optional.empty());
+        when(filaRelatorios.estado("desconhecido")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/relatorios/pronto/resultado"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldo").value(4000.00));
+        mockMvc.perform(get("/api/relatorios/calculando/resultado"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.situacao").value("EXECUTANDO"));
+        mockMvc.perform(get("/api/relatorios/desconhecido/resultado"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/relatorios/calculando"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("calculando"));
+    }
+
+    private static EstadoRelatorio estado(String id, EstadoRelatorio.Situacao situacao) {
+        return new EstadoRelatorio(id, MARCO, situacao, Instant.now(), null, null, null);
+    }
+}
@@ -2,7 +2,16 @@ package com.organizadorfinancas.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.organizadorfinancas.config.TestSecurityConfig;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AnaliseGastosInvisiveis;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
+import com.organizadorfinancas.dto.PadraoGasto;
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.*;
+import com.organizadorfinancas.service.ConflitoVersaoException;
 import com.organizadorfinancas.service.TransacaoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +31,7 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -187,28 +197,112 @@ class TransacaoControllerTest {
         verify(transacaoService, never()).save(any(Transacao.class));
     }
 
+    @Test
+    @DisplayName("Deve aplicar alteração parcial e retornar a nova versão no ETag")
+    void patch_ShouldReturnNoContentWithETag_WhenVersionMatches() throws Exception {
+        when(transacaoService.atualizarParcial(eq(1L), any(AtualizacaoTransacao.class))).thenReturn(Optional.of(4L));
+
+        mockMvc.perform(patch("/api/transacoes/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"versao\":3,\"valor\":5500.00}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(transacaoService).atualizarParcial(1L, new AtualizacaoTransacao(
+                3L, null, new BigDecimal("5500.00"), null, null, null, null, null, null, null));
+        verify(transacaoService, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 409 quando a transação foi alterada por outra requisição")
+    void patch_ShouldReturnConflict_WhenVersionIsStale() throws Exception {
+        when(transacaoService.atualizarParcial(eq(1L), any(AtualizacaoTransacao.class)))
+                .thenThrow(new ConflitoVersaoException("Transação 1 foi alterada após a versão 3"));
+
+        mockMvc.perform(patch("/api/transacoes/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"versao\":3,\"descricao\":\"Salário Março\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Transação 1 foi alterada após a versão 3"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 na alteração parcial sem versão e 404 para transação inexistente")
+    void patch_ShouldValidateVersionAndReturnNotFound() throws Exception {
+        mockMvc.perform(patch("/api/transacoes/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valor\":10.00}"))
+                .andExpect(status().isBadRequest());
+
+        when(transacaoService.atualizarParcial(eq(99L), any(AtualizacaoTransacao.class))).thenReturn(Optional.empty());
+
+        mockMvc.perform(patch("/api/transacoes/99")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"versao\":0,\"valor\":10.00}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve excluir por filtro e retornar a quantidade afetada")
+    void excluirPorFiltro_ShouldBindFilterAndReturnCount() throws Exception {
+        FiltroTransacoes filtro = new FiltroTransacoes(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28),
+                2L, TipoTransacao.DESPESA, null);
+        when(transacaoService.excluirPorFiltro(filtro)).thenReturn(new ResultadoLote(37, 1));
+
+        mockMvc.perform(delete("/api/transacoes")
+                        .param("dataInicio", "2026-02-01")
+                        .param("dataFim", "2026-02-28")
+                        .param("categoriaId", "2")
+                        .param("tipo", "DESPESA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afetadas").value(37))
+                .andExpect(jsonPath("$.lotes").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve alterar por filtro e retornar 400 quando o serviço rejeita o filtro")
+    void alterarPorFiltro_ShouldReturnCountOrBadRequest() throws Exception {
+        FiltroTransacoes uber = new FiltroTransacoes(null, null, null, null, "uber");
+        when(transacaoService.alterarPorFiltro(uber, new AlteracaoEmLote(5L, null, null)))
+                .thenReturn(new ResultadoLote(12, 1));
+        when(transacaoService.alterarPorFiltro(new FiltroTransacoes(null, null, null, null, null), new AlteracaoEmLote(5L, null, null)))
+                .thenThrow(new IllegalArgumentException("Informe ao menos um critério de filtro"));
+
+        mockMvc.perform(patch("/api/transacoes")
+                        .param("descricao", "uber")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoriaId\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.afetadas").value(12));
+
+        mockMvc.perform(patch("/api/transacoes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"categoriaId\":5}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Informe ao menos um critério de filtro"));
+    }
+
     @Test
     @DisplayName("Deve excluir transação com sucesso")
     void deleteById_ShouldDeleteTransacao_WhenExists() throws Exception {
-        when(transacaoService.findById(1L)).thenReturn(Optional.of(transacaoSalario));
+        when(transacaoService.deleteById(1L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/transacoes/1"))
                 .andExpect(status().isNoContent());
 
-        verify(transacaoService, times(1)).findById(1L);
         verify(transacaoService, times(1)).deleteById(1L);
+        verify(transacaoService, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("Deve retornar 404 quando tentar excluir transação inexistente")
     void deleteById_ShouldReturnNotFound_WhenNotExists() throws Exception {
-        when(transacaoService.findById(99L)).thenReturn(Optional.empty());
+        when(transacaoService.deleteById(99L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/transacoes/99"))
                 .andExpect(status().isNotFound());
 
-        verify(transacaoService, times(1)).findById(99L);
-        verify(transacaoService, never()).deleteById(anyLong());
+        verify(transacaoService, never()).findById(anyLong());
     }
 
     @Test
@@ -278,6 +372,53 @@ class TransacaoControllerTest {
         verify(transacaoService, times(1)).findGastosSuperfluos();
     }
 
+    @Test
+    @DisplayName("Deve repassar o limite de gastos supérfluos")
+    void findGastosSuperfluos_ShouldUseLimite_WhenInformed() throws Exception {
+        when(transacaoService.findGastosSuperfluos(5)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/transacoes/superfluos").param("limite", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+
+        verify(transacaoService).findGastosSuperfluos(5);
+        verify(transacaoService, never()).findGastosSuperfluos();
+    }
+
+    @Test
+    @DisplayName("Deve buscar as maiores transações do filtro")
+    void findMaiores_ShouldBindFiltroAndK() throws Exception {
+        FiltroTransacoes filtro = new FiltroTransacoes(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28), null, null, null);
+        when(transacaoService.findMaiores(filtro, 3)).thenReturn(List.of(transacaoAlimentacao));
+
+        mockMvc.perform(get("/api/transacoes/maiores")
+                        .param("dataInicio", "2026-02-01")
+                        .param("dataFim", "2026-02-28")
+                        .param("k", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].descricao").value("Supermercado"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar as categorias mais caras e 400 para k inválido")
+    void findCategoriasMaisCaras_ShouldReturnRanking() throws Exception {
+        FiltroTransacoes filtro = new FiltroTransacoes(null, null, null, null, null);
+        when(transacaoService.findCategoriasMaisCaras(filtro, 10))
+                .thenReturn(List.of(new ItemRanking(2L, "Alimentação", 3L, new BigDecimal("900.00"))));
+        when(transacaoService.findCategoriasMaisCaras(filtro, 500))
+                .thenThrow(new IllegalArgumentException("Informe uma quantidade entre 1 e 100"));
+
+        mockMvc.perform(get("/api/transacoes/resumo/top-categorias"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoriaId").value(2))
+                .andExpect(jsonPath("$[0].nome").value("Alimentação"))
+                .andExpect(jsonPath("$[0].total").value(900.00));
+
+        mockMvc.perform(get("/api/transacoes/resumo/top-categorias").param("k", "500"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Deve buscar despesas parceladas")
     void findDespesasParceladas_ShouldReturnDespesasParceladas() throws Exception {
@@ -371,6 +512,39 @@ class TransacaoControllerTest {
         verify(transacaoService, times(1)).getSaldoMensal();
     }
 
+    @Test
+    @DisplayName("Deve retornar o total do tipo no período")
+    void getTotalPorPeriodo_ShouldReturnTotal() throws Exception {
+        when(transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 2, 20)))
+                .thenReturn(new BigDecimal("730.40"));
+
+        mockMvc.perform(get("/api/transacoes/resumo/periodo")
+                        .param("tipo", "DESPESA")
+                        .param("dataInicio", "2026-01-10")
+                        .param("dataFim", "2026-02-20"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("730.40"));
+
+        verify(transacaoService, times(1)).getTotalPorPeriodo(TipoTransacao.DESPESA, LocalDate.of(2026, 1, 10), LocalDate.of(2026, 2, 20));
+    }
+
+    @Test
+    @DisplayName("Deve retornar a série do saldo acumulado")
+    void getSaldoAcumulado_ShouldReturnSeries() throws Exception {
+        when(transacaoService.getSaldoAcumulado(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 6, 30), PontoSaldo.Granularidade.ANO))
+                .thenReturn(List.of(new PontoSaldo(LocalDate.of(2025, 12, 31), new BigDecimal("12000.00")),
+                        new PontoSaldo(LocalDate.of(2026, 6, 30), new BigDecimal("15500.00"))));
+
+        mockMvc.perform(get("/api/transacoes/resumo/saldo-acumulado")
+                        .param("dataInicio", "2025-01-01")
+                        .param("dataFim", "2026-06-30")
+                        .param("granularidade", "ANO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].saldo").value(12000.00))
+                .andExpect(jsonPath("$[1].saldo").value(15500.00));
+    }
+
     @Test
     @DisplayName("Deve retornar totais por categoria")
     void getTotaisPorCategoria_ShouldReturnTotaisPorCategoria() throws Exception {
@@ -389,4 +563,19 @@ class TransacaoControllerTest {
 
         verify(transacaoService, times(1)).getTotaisPorCategoria(TipoTransacao.DESPESA);
     }
+
+    @Test
+    @DisplayName("Deve retornar os gastos invisíveis sinalizados")
+    void analisarGastosInvisiveis_ShouldReturnFlaggedPatterns() throws Exception {
+        PadraoGasto cafe = new PadraoGasto(null, "cafe", 12, new BigDecimal("3.0"), new BigDecimal("7.41"),
+                new BigDecimal("22.50"), new BigDecimal("97.50"), true);
+        when(transacaoService.analisarGastosInvisiveis(false)).thenReturn(new AnaliseGastosInvisiveis(4, List.of(), List.of(cafe)));
+
+        mockMvc.perform(get("/api/transacoes/gastos-invisiveis"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.semanas").value(4))
+                .andExpect(jsonPath("$.descricoes[0].descricao").value("cafe"))
+                .andExpect(jsonPath("$.descricoes[0].categoriaId").doesNotExist())
+                .andExpect(jsonPath("$.descricoes[0].sinalizado").value(true));
+    }
 }
@@ -1,13 +1,19 @@
 package com.organizadorfinancas.repository;
 
+import com.organizadorfinancas.dto.AtualizacaoCategoria;
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,9 +25,15 @@ import static org.junit.jupiter.api.Assertions.*;
 @DisplayName("Testes do CategoriaRepository")
 class CategoriaRepositoryTest {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Categoria categoriaSalario;
     private Categoria categoriaAlimentacao;
     private Categoria categoriaStreaming;
@@ -210,4 +222,61 @@ class CategoriaRepositoryTest {
         assertFalse(updatedCategoria.getEssencial());
         assertEquals(savedCategoria.getId(), updatedCategoria.getId());
     }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Deve manter categoria no cache de segundo nível após a leitura")
+    void findById_ShouldPopulateSecondLevelCache() {
+        Cache cache = entityManagerFactory.getCache();
+        Categoria savedCategoria = categoriaRepository.save(categoriaSalario);
+        cache.evictAll();
+
+        try {
+            categoriaRepository.findById(savedCategoria.getId());
+
+            assertTrue(cache.contains(Categoria.class, savedCategoria.getId()));
+        } finally {
+            categoriaRepository.deleteById(savedCategoria.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve alterar a categoria em um único UPDATE condicionado à versão")
+    void atualizarParcial_ShouldUpdateOnlyMatchingVersion() {
+        Categoria saved = categoriaRepository.saveAndFlush(categoriaStreaming);
+        entityManager.clear();
+        AtualizacaoCategoria atualizacao = new AtualizacaoCategoria(0L, "Streaming", null, null);
+
+        assertEquals(1, categoriaRepository.atualizarParcial(saved.getId(), atualizacao));
+        assertEquals(0, categoriaRepository.atualizarParcial(saved.getId(), atualizacao));
+        entityManager.clear();
+
+        Categoria atualizada = categoriaRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("Streaming", atualizada.getNome());
+        assertFalse(atualizada.getEssencial());
+        assertEquals(1L, atualizada.getVersao());
+    }
+
+    @Test
+    @DisplayName("Deve excluir só a linha da categoria, sem carregá-la")
+    void excluirPorId_ShouldDeleteCategoriaRow() {
+        Categoria saved = categoriaRepository.saveAndFlush(categoriaStreaming);
+        entityManager.clear();
+
+        assertEquals(1, categoriaRepository.excluirPorId(saved.getId()));
+        assertEquals(0, categoriaRepository.excluirPorId(saved.getId()));
+        entityManager.clear();
+
+        assertFalse(categoriaRepository.findById(saved.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve travar a linha da categoria e retornar vazio quando ela não existe")
+    void travarPorId_ShouldLockExistingCategoria() {
+        Categoria saved = categoriaRepository.saveAndFlush(categoriaStreaming);
+        entityManager.clear();
+
+        assertEquals(Optional.of(saved.getId()), categoriaRepository.travarPorId(saved.getId()).map(Categoria::getId));
+        assertTrue(categoriaRepository.travarPorId(-1L).isEmpty());
+    }
 }
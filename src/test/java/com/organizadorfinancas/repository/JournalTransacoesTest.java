@@ -0,0 +1,139 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.repository.JournalTransacoes.Registro;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do JournalTransacoes")
+class JournalTransacoesTest {
+
+    @TempDir
+    Path diretorio;
+
+    private JournalTransacoes abrir() {
+        return new JournalTransacoes(diretorio, false, 0, 0.5, 0);
+    }
+
+    private static Registro registro(String descricao, long centavos, LocalDate data, long categoriaId) {
+        return new Registro(0, descricao, centavos, (int) data.toEpochDay(), TipoTransacao.DESPESA, false, 1, 1,
+                categoriaId, descricao.length() % 2 == 0 ? null : "obs " + descricao, 0);
+    }
+
+    private static List<Long> idsPorData(JournalTransacoes journal, LocalDate inicio, LocalDate fim) {
+        List<Long> ids = new ArrayList<>();
+        journal.percorrerPorData(inicio, fim, false, linha -> ids.add(linha.id()));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Deve reabrir com as inclusões, alterações e exclusões gravadas e os índices remontados")
+    void abrir_ShouldRecoverWrites() {
+        Registro feira;
+        Registro aluguel;
+        try (JournalTransacoes journal = abrir()) {
+            feira = journal.inserir(registro("Feira", 12_345, LocalDate.of(2026, 3, 10), 1));
+            aluguel = journal.inserir(registro("Aluguel", 150_000, LocalDate.of(2026, 3, 5), 2));
+            Registro luz = journal.inserir(registro("Luz", 20_000, LocalDate.of(2026, 3, 20), 2));
+            journal.alterar(feira.id(), atual -> new Registro(atual.id(), "Feira do mês", 13_000, atual.dia(), atual.tipo(),
+                    true, 1, 1, 1, null, atual.versao() + 1));
+            journal.excluir(luz.id());
+        }
+
+        try (JournalTransacoes journal = abrir()) {
+            assertEquals(2, journal.quantidade());
+            Registro lida = journal.ler(feira.id()).orElseThrow();
+            assertEquals("Feira do mês", lida.descricao());
+            assertEquals(13_000, lida.centavos());
+            assertEquals(1, lida.versao());
+            assertNull(lida.observacoes());
+            assertEquals(aluguel, journal.ler(aluguel.id()).orElseThrow());
+            assertFalse(journal.existe(3));
+            assertEquals(List.of(aluguel.id(), feira.id()), idsPorData(journal, LocalDate.of(2026, 3, 1), null));
+            assertEquals(LocalDate.of(2026, 3, 5), journal.ultimaData(2));
+            assertEquals(LocalDate.of(2026, 3, 5), journal.primeiraData());
+            // Ids excluídos não são reaproveitados
+            assertEquals(4, journal.inserir(registro("Água", 9_000, LocalDate.of(2026, 3, 21), 2)).id());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar um registro incompleto no fim e continuar gravando depois dele")
+    void abrir_ShouldDiscardTornTail() throws IOException {
+        try (JournalTransacoes journal = abrir()) {
+            journal.inserir(registro("Feira", 12_345, LocalDate.of(2026, 3, 10), 1));
+            journal.inserir(registro("Cinema", 5_000, LocalDate.of(2026, 3, 11), 1));
+        }
+        // Simula uma gravação interrompida: o segundo registro fica com um byte trocado
+        Path registros = diretorio.resolve("transacoes-1.registros");
+        try (FileChannel canal = FileChannel.open(registros, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer byteDoValor = ByteBuffer.allocate(1);
+            long posicao = 2L * JournalTransacoes.TAMANHO_REGISTRO + 24;
+            canal.read(byteDoValor, posicao);
+            byteDoValor.put(0, (byte) ~byteDoValor.get(0));
+            canal.write(byteDoValor.rewind(), posicao);
+        }
+
+        try (JournalTransacoes journal = abrir()) {
+            assertEquals(1, journal.quantidade());
+            assertEquals("Feira", journal.ler(1).orElseThrow().descricao());
+            journal.inserir(registro("Teatro", 8_000, LocalDate.of(2026, 3, 12), 1));
+        }
+        try (JournalTransacoes journal = abrir()) {
+            assertEquals(2, journal.quantidade());
+            assertEquals(List.of(1L, 2L), idsPorData(journal, null, null));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compactar mantendo só as versões vivas e apagar a geração anterior")
+    void compactar_ShouldKeepLiveRecords() throws IOException {
+        try (JournalTransacoes journal = abrir()) {
+            for (int i = 0; i < 100; i++) {
+                journal.inserir(registro("Compra " + i, 1_000 + i, LocalDate.of(2026, 1, 1).plusDays(i), i % 3));
+            }
+            for (long id = 1; id <= 100; id++) {
+                journal.alterar(id, atual -> new Registro(atual.id(), atual.descricao(), atual.centavos() * 2, atual.dia(),
+                        atual.tipo(), atual.recorrente(), 1, 1, atual.categoriaId(), atual.observacoes(), atual.versao() + 1));
+            }
+            for (long id = 1; id <= 100; id += 2) {
+                journal.excluir(id);
+            }
+            assertEquals(250, journal.registrosGravados());
+            assertTrue(journal.desperdicio() > 0.5);
+
+            journal.compactar();
+
+            assertEquals(50, journal.quantidade());
+            assertEquals(50, journal.registrosGravados());
+            assertEquals(0, journal.desperdicio());
+            assertEquals(2_002, journal.ler(2).orElseThrow().centavos());
+            journal.excluir(4);
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertEquals(List.of("transacoes-2.registros", "transacoes-2.textos"),
+                    arquivos.map(a -> a.getFileName().toString()).sorted().toList());
+        }
+
+        try (JournalTransacoes journal = abrir()) {
+            assertEquals(49, journal.quantidade());
+            assertEquals("Compra 99", journal.ler(100).orElseThrow().descricao());
+            assertEquals(LocalDate.of(2026, 1, 2), journal.primeiraData());
+            assertEquals(101, journal.inserir(registro("Nova", 1, LocalDate.of(2026, 5, 1), 0)).id());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.organizadorfinancas.repository;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Grava as mesmas transações no banco e no journal e compara as respostas de cada consulta do repositório.
+ * Como os ids gerados diferem, as transações são comparadas pela descrição, única em cada uma.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testes do TransacaoRepositoryJournal")
+class TransacaoRepositoryJournalTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Autowired
+    private TransacaoRepository jpa;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JournalTransacoes journalTransacoes;
+    private TransacaoRepositoryJournal journal;
+    private List<Categoria> categorias;
+    // Id no journal de cada id no banco
+    private final Map<Long, Long> ids = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        journalTransacoes = new JournalTransacoes(diretorio, false, 1000, 0.5, 0);
+        journal = new TransacaoRepositoryJournal(journalTransacoes, categoriaRepository);
+        categorias = categoriaRepository.saveAll(List.of(
+                new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL),
+                new Categoria("Lazer", false, TipoCategoria.DESPESA_SUPERFLUA),
+                new Categoria("Salário", true, TipoCategoria.RENDA_FIXA),
+                new Categoria("Freela", false, TipoCategoria.RENDA_VARIAVEL)));
+
+        Random aleatorio = new Random(48);
+        for (int i = 0; i < 400; i++) {
+            Categoria categoria = categorias.get(aleatorio.nextInt(categorias.size()));
+            TipoTransacao tipo = categoria.getTipo().name().startsWith("RENDA") ? TipoTransacao.RECEITA : TipoTransacao.DESPESA;
+            BigDecimal valor = BigDecimal.valueOf(100 + aleatorio.nextInt(50) * 250L, 2);
+            LocalDate data = LocalDate.of(2025, 1, 1).plusDays(aleatorio.nextInt(540));
+            String descricao = (i % 5 == 0 ? "Padaria " : "Compra ") + i;
+            Transacao noBanco = nova(descricao, valor, data, tipo, aleatorio.nextInt(4) == 0, categoria);
+            Transacao noJournal = nova(descricao, valor, data, tipo, noBanco.getRecorrente(), categoria);
+            int parcelas = aleatorio.nextInt(6) == 0 ? 10 : 1;
+            noBanco.setParcelas(parcelas);
+            noJournal.setParcelas(parcelas);
+            ids.put(jpa.save(noBanco).getId(), journal.save(noJournal).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        journalTransacoes.close();
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve responder as consultas de leitura como o banco")
+    void consultas_ShouldMatchDatabase() {
+        LocalDate inicio = LocalDate.of(2025, 3, 1);
+        LocalDate fim = LocalDate.of(2025, 9, 30);
+        List<Long> categoriaIds = categorias.stream().map(Categoria::getId).toList();
+
+        assertEquals(jpa.count(), journal.count());
+        assertEquals(conjunto(jpa.findAll()), conjunto(journal.findAll()));
+        assertEquals(conjunto(jpa.findByTipo(TipoTransacao.RECEITA)), conjunto(journal.findByTipo(TipoTransacao.RECEITA)));
+        assertEquals(conjunto(jpa.findByCategoriaId(categoriaIds.get(1))), conjunto(journal.findByCategoriaId(categoriaIds.get(1))));
+        assertEquals(conjunto(jpa.findByDataBetween(inicio, fim)), conjunto(journal.findByDataBetween(inicio, fim)));
+        assertEquals(datas(jpa.findGastosRecorrentes()), datas(journal.findGastosRecorrentes()));
+        assertEquals(datas(jpa.findDespesasParceladas()), datas(journal.findDespesasParceladas()));
+        assertEquals(descricoes(jpa.findGastosSuperfluos(Limit.of(15))), descricoes(journal.findGastosSuperfluos(Limit.of(15))));
+
+        for (TipoTransacao tipo : TipoTransacao.values()) {
+            assertEquals(jpa.sumByTipoAndPeriodo(tipo, inicio, fim), journal.sumByTipoAndPeriodo(tipo, inicio, fim));
+            assertEquals(jpa.sumByTipoAndRecorrente(tipo), journal.sumByTipoAndRecorrente(tipo));
+            assertEquals(jpa.sumByEssencialAndTipo(false, tipo), journal.sumByEssencialAndTipo(false, tipo));
+            assertEquals(linhas(jpa.findTotalPorCategoria(tipo)), linhas(journal.findTotalPorCategoria(tipo)));
+            assertEquals(linhas(jpa.sumPorCategoriaEMes(tipo, inicio)), linhas(journal.sumPorCategoriaEMes(tipo, inicio)));
+            assertEquals(linhas(jpa.findLancamentosDesde(tipo, fim)), linhas(journal.findLancamentosDesde(tipo, fim)));
+        }
+        assertNull(journal.sumByTipoAndPeriodo(TipoTransacao.RECEITA, LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31)));
+        assertEquals(linhas(jpa.sumPorTipoEData()), linhas(journal.sumPorTipoEData()));
+        assertEquals(jpa.sumSaldoPorDataAte(fim).stream().map(Arrays::toString).toList(),
+                journal.sumSaldoPorDataAte(fim).stream().map(Arrays::toString).toList());
+        assertEquals(linhas(jpa.agregarPorCategorias(categoriaIds, inicio, fim)), linhas(journal.agregarPorCategorias(categoriaIds, inicio, fim)));
+        assertEquals(linhas(jpa.findUltimaDataPorCategoria(categoriaIds)), linhas(journal.findUltimaDataPorCategoria(categoriaIds)));
+        assertEquals(linhas(jpa.sumPorCategoriaNoPeriodo(inicio, fim)), linhas(journal.sumPorCategoriaNoPeriodo(inicio, fim)));
+        assertEquals(linhas(jpa.agruparPorCategoriaMesEValor(categoriaIds)), linhas(journal.agruparPorCategoriaMesEValor(categoriaIds)));
+        assertEquals(linhas(jpa.countPorCategoria()), linhas(journal.countPorCategoria()));
+        assertEquals(linhas(jpa.sumPorCategoriaTipoEMes(inicio, fim)), linhas(journal.sumPorCategoriaTipoEMes(inicio, fim)));
+        assertEquals(linhas(jpa.findParcelasEmAberto(fim)), linhas(journal.findParcelasEmAberto(fim)));
+        assertEquals(jpa.findPrimeiraData(), journal.findPrimeiraData());
+        // A consulta do arquivamento trava as linhas e exige uma transação no banco
+        assertEquals(descricoes(new TransactionTemplate(transactionManager).execute(status -> jpa.findParaArquivar(inicio, fim))),
+                descricoes(journal.findParaArquivar(inicio, fim)));
+    }
+
+    @Test
+    @DisplayName("Deve responder os filtros, rankings e agregações por lote como o banco")
+    void filtros_ShouldMatchDatabase() {
+        FiltroTransacoes filtro = new FiltroTransacoes(LocalDate.of(2025, 2, 1), null, null, TipoTransacao.DESPESA, "PADARIA");
+        FiltroTransacoes porCategoria = new FiltroTransacoes(null, LocalDate.of(2025, 12, 31), categorias.get(0).getId(), null, null);
+
+        for (FiltroTransacoes f : List.of(filtro, porCategoria)) {
+            assertEquals(descricoes(jpa.findMaiores(f, 7)), descricoes(journal.findMaiores(f, 7)));
+            assertEquals(jpa.findCategoriasMaisCaras(f, 3), journal.findCategoriasMaisCaras(f, 3));
+            assertEquals(jpa.findDescricoesMaisFrequentes(f, 5), journal.findDescricoesMaisFrequentes(f, 5));
+            assertEquals(linhas(jpa.agruparValores(f, 1, Long.MAX_VALUE)), linhas(journal.agruparValores(f, 1, Long.MAX_VALUE)));
+            assertEquals(jpa.agregarPorCategoria(f, 1, Long.MAX_VALUE, YearMonth.of(2025, 3)).stream()
+                            .map(a -> List.of(a.categoriaId(), a.quantidade(), a.total(), a.totalMes(), ids.get(a.idMaximo()))).collect(Collectors.toSet()),
+                    journal.agregarPorCategoria(f, 1, Long.MAX_VALUE, YearMonth.of(2025, 3)).stream()
+                            .map(a -> List.of(a.categoriaId(), a.quantidade(), a.total(), a.totalMes(), a.idMaximo())).collect(Collectors.toSet()));
+            long primeiroBanco = ids.keySet().stream().min(Long::compare).orElseThrow();
+            assertEquals(jpa.findIdFinalLote(f, primeiroBanco, 10).map(ids::get), journal.findIdFinalLote(f, 1, 10));
+        }
+
+        AlteracaoEmLote alteracao = new AlteracaoEmLote(categorias.get(1).getId(), null, true);
+        assertEquals(jpa.alterarPorFiltro(filtro, alteracao, 1, Long.MAX_VALUE), journal.alterarPorFiltro(filtro, alteracao, 1, Long.MAX_VALUE));
+        assertEquals(jpa.excluirPorFiltro(porCategoria, 1, Long.MAX_VALUE), journal.excluirPorFiltro(porCategoria, 1, Long.MAX_VALUE));
+        assertEquals(conjunto(jpa.findAll()), conjunto(journal.findAll()));
+    }
+
+    @Test
+    @DisplayName("Deve versionar as escritas e recusar versão desatualizada, categoria inexistente e campo nulo")
+    void escritas_ShouldVersionAndValidate() {
+        Transacao transacao = journal.findById(1L).orElseThrow();
+        assertEquals(0, transacao.getVersao());
+        transacao.setValor(new BigDecimal("77.10"));
+        assertEquals(1, journal.save(transacao).getVersao());
+        assertEquals(1, journal.save(transacao).getVersao(), "sem mudança a versão fica");
+
+        Transacao desatualizada = journal.findById(1L).orElseThrow();
+        desatualizada.setVersao(0L);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> journal.save(desatualizada));
+        assertEquals(0, journal.atualizarParcial(1L, atualizacao(0L, "Outra")));
+        assertEquals(1, journal.atualizarParcial(1L, atualizacao(1L, "Outra")));
+        assertEquals("Outra", journal.findById(1L).orElseThrow().getDescricao());
+        assertEquals(0, journal.atualizarParcial(99_999L, atualizacao(0L, "Nenhuma")));
+
+        Transacao semCategoria = nova("Sem categoria", BigDecimal.TEN, LocalDate.now(), TipoTransacao.DESPESA, false, null);
+        assertThrows(DataIntegrityViolationException.class, () -> journal.save(semCategoria));
+        Categoria inexistente = new Categoria("Fantasma", false, TipoCategoria.DESPESA_SUPERFLUA);
+        inexistente.setId(99_999L);
+        semCategoria.setCategoria(inexistente);
+        assertThrows(DataIntegrityViolationException.class, () -> journal.save(semCategoria));
+        assertThrows(DataIntegrityViolationException.class, () -> journal.alterarPorFiltro(
+                new FiltroTransacoes(null, null, null, null, null), new AlteracaoEmLote(99_999L, null, null), 1, 10));
+    }
+
+    @Test
+    @DisplayName("Deve desfazer as escritas no journal quando a transação do banco é desfeita")
+    void rollback_ShouldRestorePreviousState() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Transacao antes = journal.findById(2L).orElseThrow();
+        long quantidade = journal.count();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Transacao alterada = journal.findById(2L).orElseThrow();
+            alterada.setDescricao("Alterada");
+            journal.save(alterada);
+            journal.atualizarParcial(2L, atualizacao(1L, "Alterada de novo"));
+            journal.deleteById(3L);
+            journal.save(nova("Nova", BigDecimal.ONE, LocalDate.now(), TipoTransacao.DESPESA, false, categorias.get(0)));
+            status.setRollbackOnly();
+        });
+
+        Transacao depois = journal.findById(2L).orElseThrow();
+        assertEquals(antes.getDescricao(), depois.getDescricao());
+        assertEquals(antes.getVersao(), depois.getVersao());
+        assertTrue(journal.existsById(3L));
+        assertEquals(quantidade, journal.count());
+
+        transactionTemplate.executeWithoutResult(status -> journal.deleteById(3L));
+        assertFalse(journal.existsById(3L));
+    }
+
+    private static Transacao nova(String descricao, BigDecimal valor, LocalDate data, TipoTransacao tipo,
+                                  boolean recorrente, Categoria categoria) {
+        return new Transacao(descricao, valor, data, tipo, recorrente, categoria);
+    }
+
+    private static AtualizacaoTransacao atualizacao(Long versao, String descricao) {
+        return new AtualizacaoTransacao(versao, descricao, null, null, null, null, null, null, null, null);
+    }
+
+    // Conteúdo das transações sem id e versão, que não coincidem entre os dois
+    private static Map<String, String> conjunto(List<Transacao> transacoes) {
+        return transacoes.stream().collect(Collectors.toMap(Transacao::getDescricao, t -> String.join("|",
+                t.getValor().toPlainString(), t.getData().toString(), t.getTipo().name(), t.getRecorrente().toString(),
+                t.getParcelas().toString(), t.getParcelaAtual().toString(), t.getCategoria().getNome(),
+                String.valueOf(t.getObservacoes()))));
+    }
+
+    private static List<String> descricoes(List<Transacao> transacoes) {
+        return transacoes.stream().map(Transacao::getDescricao).toList();
+    }
+
+    // Consultas ordenadas só por data: a ordem entre transações do mesmo dia não é definida
+    private static List<LocalDate> datas(List<Transacao> transacoes) {
+        return transacoes.stream().map(Transacao::getData).toList();
+    }
+
+    private static List<String> linhas(List<Object[]> linhas) {
+        List<String> texto = new ArrayList<>(linhas.stream().map(Arrays::toString).toList());
+        texto.sort(null);
+        return texto;
+    }
+}
@@ -1,5 +1,9 @@
 package com.organizadorfinancas.repository;
 
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ItemRanking;
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.model.TipoTransacao;
@@ -8,6 +12,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
@@ -321,4 +326,172 @@ class TransacaoRepositoryTest {
 
         assertEquals(new BigDecimal("400.00"), valorMensal);
     }
+
+    @Test
+    @DisplayName("Deve alterar apenas os campos informados e incrementar a versão")
+    void atualizarParcial_ShouldUpdateOnlyGivenFieldsAndBumpVersion() {
+        Transacao saved = entityManager.persistFlushFind(transacaoParcelada);
+        assertEquals(0L, saved.getVersao());
+        entityManager.clear();
+
+        int alteradas = transacaoRepository.atualizarParcial(saved.getId(), new AtualizacaoTransacao(
+                0L, null, new BigDecimal("3900.00"), null, null, null, null, 2, categoriaStreaming.getId(), null));
+        entityManager.clear();
+
+        Transacao atualizada = transacaoRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(1, alteradas);
+        assertEquals(1L, atualizada.getVersao());
+        assertEquals(new BigDecimal("3900.00"), atualizada.getValor());
+        assertEquals(2, atualizada.getParcelaAtual());
+        assertEquals(categoriaStreaming.getId(), atualizada.getCategoria().getId());
+        assertEquals("Notebook", atualizada.getDescricao());
+        assertEquals(12, atualizada.getParcelas());
+    }
+
+    @Test
+    @DisplayName("Não deve alterar a transação quando a versão informada está desatualizada")
+    void atualizarParcial_ShouldNotUpdate_WhenVersionIsStale() {
+        Transacao saved = entityManager.persistFlushFind(transacaoSalario);
+        entityManager.clear();
+        AtualizacaoTransacao atualizacao = new AtualizacaoTransacao(
+                0L, "Salário Março", null, null, null, null, null, null, null, null);
+
+        assertEquals(1, transacaoRepository.atualizarParcial(saved.getId(), atualizacao));
+        assertEquals(0, transacaoRepository.atualizarParcial(saved.getId(), atualizacao));
+        assertEquals(0, transacaoRepository.atualizarParcial(-1L, atualizacao));
+        entityManager.clear();
+
+        assertEquals(1L, transacaoRepository.findById(saved.getId()).orElseThrow().getVersao());
+    }
+
+    @Test
+    @DisplayName("Deve excluir por filtro apenas as transações da faixa de ids informada")
+    void excluirPorFiltro_ShouldDeleteMatchingTransacoesInIdRange() {
+        transacaoRepository.saveAll(List.of(transacaoSalario, transacaoAlimentacao, transacaoStreaming, transacaoParcelada));
+        entityManager.flush();
+        FiltroTransacoes fevereiroDespesas = new FiltroTransacoes(
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28), null, TipoTransacao.DESPESA, null);
+
+        Optional<Long> fimPrimeiroLote = transacaoRepository.findIdFinalLote(fevereiroDespesas, 0, 2);
+        assertEquals(Optional.of(transacaoStreaming.getId()), fimPrimeiroLote);
+        assertEquals(Optional.empty(), transacaoRepository.findIdFinalLote(fevereiroDespesas, fimPrimeiroLote.get() + 1, 2));
+
+        assertEquals(2, transacaoRepository.excluirPorFiltro(fevereiroDespesas, 0, fimPrimeiroLote.get()));
+        assertEquals(1, transacaoRepository.excluirPorFiltro(fevereiroDespesas, fimPrimeiroLote.get() + 1, Long.MAX_VALUE));
+        entityManager.clear();
+
+        assertEquals(List.of(transacaoSalario.getId()), transacaoRepository.findAll().stream().map(Transacao::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Deve recategorizar por trecho da descrição e incrementar a versão")
+    void alterarPorFiltro_ShouldRecategorizeByDescription() {
+        transacaoRepository.saveAll(List.of(transacaoAlimentacao, transacaoStreaming, transacaoParcelada));
+        entityManager.flush();
+        FiltroTransacoes netflix = new FiltroTransacoes(null, null, null, null, "NETFLIX");
+
+        int alteradas = transacaoRepository.alterarPorFiltro(netflix,
+                new AlteracaoEmLote(categoriaAlimentacao.getId(), null, false), 0, Long.MAX_VALUE);
+        entityManager.clear();
+
+        Transacao streaming = transacaoRepository.findById(transacaoStreaming.getId()).orElseThrow();
+        assertEquals(1, alteradas);
+        assertEquals(categoriaAlimentacao.getId(), streaming.getCategoria().getId());
+        assertFalse(streaming.getRecorrente());
+        assertEquals(1L, streaming.getVersao());
+        assertEquals(0L, transacaoRepository.findById(transacaoAlimentacao.getId()).orElseThrow().getVersao());
+    }
+
+    @Test
+    @DisplayName("Deve limitar os gastos supérfluos no banco")
+    void findGastosSuperfluos_WithLimit_ShouldReturnOnlyLargest() {
+        Transacao spotify = new Transacao("Spotify", new BigDecimal("21.90"),
+                LocalDate.of(2026, 2, 12), TipoTransacao.DESPESA, true, categoriaStreaming);
+        transacaoRepository.saveAll(List.of(transacaoStreaming, spotify));
+
+        List<Transacao> resultado = transacaoRepository.findGastosSuperfluos(Limit.of(1));
+
+        assertEquals(List.of(transacaoStreaming.getId()), resultado.stream().map(Transacao::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Deve retornar as k maiores transações do filtro")
+    void findMaiores_ShouldReturnTopKByValor() {
+        transacaoRepository.saveAll(List.of(transacaoSalario, transacaoAlimentacao, transacaoStreaming, transacaoParcelada));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Transacao> resultado = transacaoRepository.findMaiores(
+                new FiltroTransacoes(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28), null, TipoTransacao.DESPESA, null), 2);
+
+        assertEquals(List.of("Notebook", "Supermercado"), resultado.stream().map(Transacao::getDescricao).toList());
+        assertEquals("Alimentação", resultado.get(0).getCategoria().getNome());
+    }
+
+    @Test
+    @DisplayName("Deve agrupar e limitar categorias e descrições no banco")
+    void rankings_ShouldGroupAndLimit() {
+        Transacao outraNetflix = new Transacao("NETFLIX", new BigDecimal("39.90"),
+                LocalDate.of(2026, 3, 10), TipoTransacao.DESPESA, true, categoriaStreaming);
+        transacaoRepository.saveAll(List.of(transacaoSalario, transacaoAlimentacao, transacaoStreaming,
+                transacaoParcelada, outraNetflix));
+        FiltroTransacoes despesas = new FiltroTransacoes(null, null, null, TipoTransacao.DESPESA, null);
+
+        List<ItemRanking> categorias = transacaoRepository.findCategoriasMaisCaras(despesas, 1);
+        List<ItemRanking> descricoes = transacaoRepository.findDescricoesMaisFrequentes(despesas, 2);
+
+        assertEquals(1, categorias.size());
+        assertEquals(categoriaAlimentacao.getId(), categorias.get(0).categoriaId());
+        assertEquals(2L, categorias.get(0).quantidade());
+        assertEquals(0, new BigDecimal("4000.00").compareTo(categorias.get(0).total()));
+        assertEquals(List.of("netflix", "notebook"), descricoes.stream().map(ItemRanking::nome).toList());
+        assertEquals(2L, descricoes.get(0).quantidade());
+        assertNull(descricoes.get(0).categoriaId());
+    }
+
+    @Test
+    @DisplayName("Deve trazer só as despesas parceladas com parcelas depois do mês do fim")
+    void findParcelasEmAberto_ShouldFilterInDatabase() {
+        Transacao quitada = new Transacao("Geladeira", new BigDecimal("600.00"),
+                LocalDate.of(2025, 1, 10), TipoTransacao.DESPESA, false, categoriaAlimentacao);
+        quitada.setParcelas(6);
+        quitada.setParcelaAtual(1);
+        Transacao futura = new Transacao("Viagem", new BigDecimal("1200.00"),
+                LocalDate.of(2027, 1, 10), TipoTransacao.DESPESA, false, categoriaStreaming);
+        futura.setParcelas(3);
+        futura.setParcelaAtual(1);
+        Transacao ultimaNoMes = new Transacao("Celular", new BigDecimal("1100.00"),
+                LocalDate.of(2026, 2, 20), TipoTransacao.DESPESA, false, categoriaStreaming);
+        ultimaNoMes.setParcelas(11);
+        ultimaNoMes.setParcelaAtual(1);
+        transacaoRepository.saveAll(List.of(transacaoSalario, transacaoParcelada, quitada, futura, ultimaNoMes));
+
+        List<Object[]> abertas = transacaoRepository.findParcelasEmAberto(LocalDate.of(2026, 12, 31));
+
+        // Notebook: parcela 11 de 12 em dezembro; o celular termina em dezembro
+        assertEquals(1, abertas.size());
+        assertEquals(0, new BigDecimal("3600.00").compareTo((BigDecimal) abertas.get(0)[0]));
+        assertEquals(12, abertas.get(0)[1]);
+        assertEquals(LocalDate.of(2026, 2, 1), abertas.get(0)[3]);
+    }
+
+    @Test
+    @DisplayName("Deve somar por categoria, tipo e mês dentro do período")
+    void sumPorCategoriaTipoEMes_ShouldGroupInDatabase() {
+        Transacao outroMercado = new Transacao("Feira", new BigDecimal("60.00"),
+                LocalDate.of(2026, 2, 20), TipoTransacao.DESPESA, false, categoriaAlimentacao);
+        Transacao marco = new Transacao("Supermercado", new BigDecimal("80.00"),
+                LocalDate.of(2026, 3, 2), TipoTransacao.DESPESA, false, categoriaAlimentacao);
+        transacaoRepository.saveAll(List.of(transacaoSalario, transacaoAlimentacao, outroMercado, marco));
+
+        List<Object[]> linhas = transacaoRepository.sumPorCategoriaTipoEMes(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28));
+
+        assertEquals(2, linhas.size());
+        Object[] alimentacao = linhas.stream().filter(l -> l[0].equals(categoriaAlimentacao.getId())).findFirst().orElseThrow();
+        assertEquals(TipoTransacao.DESPESA, alimentacao[1]);
+        assertEquals(2026, alimentacao[2]);
+        assertEquals(2, alimentacao[3]);
+        assertEquals(2L, alimentacao[4]);
+        assertEquals(0, new BigDecimal("460.00").compareTo((BigDecimal) alimentacao[5]));
+    }
 }
@@ -0,0 +1,201 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.dto.SegmentoArquivado;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.TransacaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"organizador.lote.tamanho=2", "organizador.arquivo.habilitado=true"})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TestServicosConfig.class)
+@DisplayName("Testes do ArquivoFrio")
+class ArquivoFrioTest {
+
+    private static final Path DIRETORIO;
+
+    static {
+        try {
+            DIRETORIO = Files.createTempDirectory("arquivo-frio");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void diretorio(DynamicPropertyRegistry registro) {
+        registro.add("organizador.arquivo.diretorio", DIRETORIO::toString);
+    }
+
+    @Autowired
+    private ArquivoFrio arquivoFrio;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private SomasPorData somasPorData;
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private TransacaoRepository transacaoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria salario;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        salario = categoriaRepository.save(new Categoria("Salário", true, TipoCategoria.RENDA_FIXA));
+        somasPorData.reconstruir();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> arquivos = Files.list(DIRETORIO)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.delete(arquivo);
+            }
+        }
+        arquivoFrio.abrir();
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "faixas_distribuicao", "estatisticas_categoria", "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve mover o ano para um segmento e continuar respondendo as consultas como antes")
+    void arquivar_ShouldKeepQueriesAnswering() {
+        Transacao feira = transacaoService.save(nova(TipoTransacao.DESPESA, "250.35", LocalDate.of(2020, 3, 10), mercado));
+        transacaoService.save(nova(TipoTransacao.RECEITA, "1000.00", LocalDate.of(2020, 3, 5), salario));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "99.90", LocalDate.of(2020, 11, 2), mercado));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "40.00", LocalDate.of(2026, 1, 15), mercado));
+        BigDecimal despesas2020 = transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+        List<PontoSaldo> saldos = transacaoService.getSaldoAcumulado(LocalDate.of(2020, 1, 1), LocalDate.of(2026, 12, 31), PontoSaldo.Granularidade.ANO);
+        List<String> totais = linhas(transacaoService.getTotaisPorCategoriaTipoEMes(LocalDate.of(2020, 1, 1), LocalDate.of(2026, 12, 31)));
+
+        SegmentoArquivado segmento = arquivoFrio.arquivar(2020).orElseThrow();
+
+        assertEquals(3, segmento.transacoes());
+        assertEquals(LocalDate.of(2020, 3, 5), segmento.dataInicial());
+        assertEquals(LocalDate.of(2020, 11, 2), segmento.dataFinal());
+        assertEquals(1, transacaoRepository.count());
+        assertEquals(4, transacaoService.findAll().size());
+        assertEquals(3, transacaoService.findByCategoriaId(mercado.getId()).size());
+        assertEquals(2, transacaoService.findByPeriodo(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 31)).size());
+        Transacao arquivada = transacaoService.findById(feira.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("250.35").compareTo(arquivada.getValor()));
+        assertEquals(mercado.getId(), arquivada.getCategoria().getId());
+        assertEquals(0, despesas2020.compareTo(transacaoService.getTotalPorPeriodo(
+                TipoTransacao.DESPESA, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31))));
+        assertEquals(saldos, transacaoService.getSaldoAcumulado(LocalDate.of(2020, 1, 1), LocalDate.of(2026, 12, 31), PontoSaldo.Granularidade.ANO));
+        assertEquals(totais, linhas(transacaoService.getTotaisPorCategoriaTipoEMes(LocalDate.of(2020, 1, 1), LocalDate.of(2026, 12, 31))));
+
+        // As somas em memória reconstruídas enxergam o ano arquivado
+        somasPorData.reconstruir();
+        assertEquals(0, despesas2020.compareTo(transacaoService.getTotalPorPeriodo(
+                TipoTransacao.DESPESA, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31))));
+    }
+
+    @Test
+    @DisplayName("Deve manter as transações arquivadas somente leitura e reabrir os segmentos gravados")
+    void arquivar_ShouldBeReadOnlyAndDurable() {
+        Transacao antiga = transacaoService.save(nova(TipoTransacao.DESPESA, "80.00", LocalDate.of(2019, 6, 1), mercado));
+        arquivoFrio.arquivar(2019).orElseThrow();
+
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.deleteById(antiga.getId()));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.save(antiga));
+        assertTrue(arquivoFrio.possuiCategoria(mercado.getId()));
+        assertFalse(arquivoFrio.possuiCategoria(salario.getId()));
+        assertEquals(Optional.empty(), arquivoFrio.arquivar(2018));
+        assertThrows(IllegalArgumentException.class, () -> arquivoFrio.arquivar(LocalDate.now().getYear()));
+
+        arquivoFrio.abrir();
+        assertEquals(1, arquivoFrio.listarSegmentos().size());
+        assertTrue(arquivoFrio.contem(antiga.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve buscar a última transação da categoria nos segmentos quando o banco não tem nenhuma")
+    void deleteById_ShouldFallBackToArchivedLastDate() {
+        transacaoService.save(nova(TipoTransacao.DESPESA, "80.00", LocalDate.of(2019, 6, 1), mercado));
+        arquivoFrio.arquivar(2019).orElseThrow();
+        Transacao recente = transacaoService.save(nova(TipoTransacao.DESPESA, "40.00", LocalDate.of(2026, 1, 15), mercado));
+        assertEquals(LocalDate.of(2026, 1, 15), estatisticasCategorias.porCategoria().get(mercado.getId()).getUltimaTransacao());
+
+        assertTrue(transacaoService.deleteById(recente.getId()));
+
+        assertEquals(LocalDate.of(2019, 6, 1), estatisticasCategorias.porCategoria().get(mercado.getId()).getUltimaTransacao());
+    }
+
+    @Test
+    @DisplayName("Deve excluir do banco, ao abrir, as linhas de um segmento publicado antes de uma queda")
+    void abrir_AfterCrashBeforeCommit_ShouldNotDuplicate() {
+        transacaoService.save(nova(TipoTransacao.DESPESA, "80.00", LocalDate.of(2019, 6, 1), mercado));
+        transacaoService.save(nova(TipoTransacao.RECEITA, "900.00", LocalDate.of(2019, 7, 5), salario));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "40.00", LocalDate.of(2026, 1, 15), mercado));
+        // O segmento chegou ao disco, mas a exclusão das linhas não foi confirmada
+        SegmentoFrio.gravar(DIRETORIO.resolve("transacoes-2019-001.seg"), transacaoRepository
+                .findByDataBetween(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31)).stream()
+                .map(SegmentoFrio.Registro::de).toList());
+
+        arquivoFrio.abrir();
+
+        assertEquals(1, transacaoRepository.count());
+        assertEquals(3, transacaoService.findAll().size());
+        assertEquals(Optional.empty(), arquivoFrio.arquivar(2019));
+
+        arquivoFrio.abrir();
+        assertEquals(1, arquivoFrio.listarSegmentos().size());
+        assertEquals(1, transacaoRepository.count());
+    }
+
+    private static List<String> linhas(List<Object[]> linhas) {
+        List<String> texto = new ArrayList<>(linhas.stream().map(Arrays::toString).toList());
+        texto.sort(null);
+        return texto;
+    }
+}
@@ -0,0 +1,222 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.ResumoBackup;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {"organizador.backup.manter=2", "organizador.backup.tamanho-maximo-mb=1"})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BackupDados.class, TestServicosConfig.class})
+@DisplayName("Testes do BackupDados")
+class BackupDadosTest {
+
+    private static final Path DIRETORIO;
+
+    static {
+        try {
+            DIRETORIO = Files.createTempDirectory("backup");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void diretorio(DynamicPropertyRegistry registro) {
+        registro.add("organizador.backup.diretorio", DIRETORIO::toString);
+    }
+
+    private static final String TRANSACOES = "SELECT * FROM transacoes ORDER BY id";
+
+    @Autowired
+    private BackupDados backupDados;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private SomasPorData somasPorData;
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private MotorOrcamentos motorOrcamentos;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private OrcamentoRepository orcamentoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria salario;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        salario = categoriaRepository.save(new Categoria("Salário", true, TipoCategoria.RENDA_FIXA));
+        somasPorData.reconstruir();
+        motorOrcamentos.reconciliar();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> arquivos = Files.list(DIRETORIO)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.delete(arquivo);
+            }
+        }
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "faixas_distribuicao", "estatisticas_categoria", "transacoes",
+                "orcamentos", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve restaurar exatamente o conteúdo do backup, com ids, somas e estatísticas refeitas")
+    void restaurar_ShouldBringBackBackedUpContent() throws IOException {
+        LocalDate hoje = LocalDate.now();
+        Transacao feira = nova(TipoTransacao.DESPESA, "250.35", hoje, mercado);
+        feira.setObservacoes("Feira da semana");
+        feira = transacaoService.save(feira);
+        transacaoService.save(nova(TipoTransacao.RECEITA, "5000.00", hoje.withDayOfMonth(1), salario));
+        Transacao geladeira = nova(TipoTransacao.DESPESA, "300.00", hoje.minusMonths(2), mercado);
+        geladeira.setParcelas(10);
+        geladeira.setParcelaAtual(3);
+        geladeira.setRecorrente(true);
+        transacaoService.save(geladeira);
+        orcamentoRepository.save(new Orcamento(mercado, null, new BigDecimal("800.00")));
+        orcamentoRepository.save(new Orcamento(null, TipoCategoria.DESPESA_SUPERFLUA, new BigDecimal("300.00")));
+        List<Map<String, Object>> transacoes = jdbcTemplate.queryForList(TRANSACOES);
+        List<Map<String, Object>> categorias = jdbcTemplate.queryForList("SELECT * FROM categorias ORDER BY id");
+        List<Map<String, Object>> orcamentos = jdbcTemplate.queryForList("SELECT * FROM orcamentos ORDER BY id");
+        BigDecimal despesas = transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, hoje.minusYears(1), hoje);
+
+        BackupDados.Backup backup = backupDados.gerar();
+        assertEquals(new ResumoBackup(backup.arquivo().getFileName().toString(), backup.resumo().geradoEm(), 2, 2, 3,
+                Files.size(backup.arquivo())), backup.resumo());
+
+        // Mudanças depois do backup, inclusive uma categoria nova e a exclusão de uma transação
+        Categoria lazer = categoriaRepository.save(new Categoria("Lazer", false, TipoCategoria.DESPESA_SUPERFLUA));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "80.00", hoje, lazer));
+        transacaoService.deleteById(feira.getId());
+
+        ResumoBackup restaurado;
+        try (InputStream corpo = Files.newInputStream(backup.arquivo())) {
+            restaurado = backupDados.restaurar(corpo, Files.size(backup.arquivo()));
+        }
+
+        assertNull(restaurado.arquivo());
+        assertEquals(3, restaurado.transacoes());
+        assertEquals(transacoes, jdbcTemplate.queryForList(TRANSACOES));
+        assertEquals(categorias, jdbcTemplate.queryForList("SELECT * FROM categorias ORDER BY id"));
+        assertEquals(orcamentos, jdbcTemplate.queryForList("SELECT * FROM orcamentos ORDER BY id"));
+        assertTrue(categoriaRepository.findById(lazer.getId()).isEmpty());
+        assertEquals(0, despesas.compareTo(transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, hoje.minusYears(1), hoje)));
+        assertEquals(2L, estatisticasCategorias.porCategoria().get(mercado.getId()).getQuantidade());
+        assertEquals(2, motorOrcamentos.orcamentos().size());
+        // As identidades seguem depois dos maiores ids, do backup e dos excluídos
+        Transacao depois = transacaoService.save(nova(TipoTransacao.DESPESA, "10.00", hoje, mercado));
+        assertTrue(depois.getId() > (Long) transacoes.get(transacoes.size() - 1).get("ID"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar um backup corrompido sem alterar o banco e guardar só os mais recentes")
+    void restaurar_ShouldRejectCorruptedBackup() throws IOException {
+        transacaoService.save(nova(TipoTransacao.DESPESA, "42.00", LocalDate.now(), mercado));
+        backupDados.gerar();
+        backupDados.gerar();
+        Path ultimo = backupDados.gerar().arquivo();
+        try (Stream<Path> arquivos = Files.list(DIRETORIO)) {
+            assertEquals(2, arquivos.count());
+        }
+
+        byte[] conteudo = Files.readAllBytes(ultimo);
+        conteudo[conteudo.length / 2] ^= 0x40;
+        Path corrompido = DIRETORIO.resolve("corrompido.bin");
+        Files.write(corrompido, conteudo);
+        transacaoService.save(nova(TipoTransacao.DESPESA, "7.00", LocalDate.now(), mercado));
+        List<Map<String, Object>> antes = jdbcTemplate.queryForList(TRANSACOES);
+
+        assertThrows(IllegalStateException.class, () -> backupDados.restaurar(corrompido));
+        assertEquals(antes, jdbcTemplate.queryForList(TRANSACOES));
+    }
+
+    @Test
+    @DisplayName("Deve recusar um corpo grande demais ou que não é backup antes de gravá-lo em disco")
+    void restaurar_ShouldRejectOversizedOrForeignBody() throws IOException {
+        transacaoService.save(nova(TipoTransacao.DESPESA, "42.00", LocalDate.now(), mercado));
+        List<Map<String, Object>> antes = jdbcTemplate.queryForList(TRANSACOES);
+        byte[] grande = new byte[2 * 1024 * 1024];
+        System.arraycopy(new byte[]{'O', 'F', 'B', 'K', 0, 0, 0, 1}, 0, grande, 0, 8);
+        byte[] outraVersao = {'O', 'F', 'B', 'K', 0, 0, 0, 9, 1, 2, 3};
+
+        assertThrows(BackupGrandeDemaisException.class,
+                () -> backupDados.restaurar(new ByteArrayInputStream(grande), grande.length));
+        // Sem Content-Length, a cópia para ao passar do máximo
+        assertThrows(BackupGrandeDemaisException.class,
+                () -> backupDados.restaurar(new ByteArrayInputStream(grande), -1));
+        IllegalStateException versao = assertThrows(IllegalStateException.class,
+                () -> backupDados.restaurar(new ByteArrayInputStream(outraVersao), outraVersao.length));
+        assertTrue(versao.getMessage().contains("Versão"));
+        assertThrows(IllegalStateException.class,
+                () -> backupDados.restaurar(new ByteArrayInputStream("{}".getBytes()), 2));
+
+        assertEquals(antes, jdbcTemplate.queryForList(TRANSACOES));
+        try (Stream<Path> arquivos = Files.list(DIRETORIO)) {
+            assertTrue(arquivos.noneMatch(arquivo -> arquivo.getFileName().toString().startsWith("restauracao-")));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve localizar um backup gravado pelo nome e recusar nomes fora do padrão")
+    void localizar_ShouldFindGeneratedBackupOnly() {
+        BackupDados.Backup backup = backupDados.gerar();
+
+        assertEquals(Optional.of(backup.arquivo()), backupDados.localizar(backup.resumo().arquivo()));
+        assertEquals(Optional.empty(), backupDados.localizar("backup-20000101-000000-000.ofb"));
+        assertThrows(IllegalArgumentException.class, () -> backupDados.localizar("../application.properties"));
+        assertThrows(IllegalArgumentException.class, () -> backupDados.localizar("corrompido.bin"));
+    }
+}
@@ -1,22 +1,34 @@
 package com.organizadorfinancas.service;
 
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.Categoria;
 import com.organizadorfinancas.model.TipoCategoria;
 import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +38,30 @@ class CategoriaServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Mock
+    private TransacaoService transacaoService;
+
+    @Mock
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Mock
+    private OrcamentoRepository orcamentoRepository;
+
+    @Mock
+    private MotorOrcamentos motorOrcamentos;
+
+    @Mock
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Mock
+    private ArquivoFrio arquivoFrio;
+
+    @Mock
+    private CoalescedorConsultas coalescedorConsultas;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private CategoriaService categoriaService;
 
@@ -102,9 +138,81 @@ class CategoriaServiceTest {
     @Test
     @DisplayName("Deve excluir categoria por ID")
     void deleteById_ShouldDeleteCategoria() {
-        categoriaService.deleteById(1L);
+        FiltroTransacoes daCategoria = new FiltroTransacoes(null, null, 1L, null, null);
+        when(transacaoService.excluirPorFiltro(eq(daCategoria), any())).thenReturn(new ResultadoLote(5, 2));
+        when(transacaoService.excluirPorFiltro(daCategoria)).thenReturn(new ResultadoLote(1, 1));
+
+        assertEquals(new ResultadoLote(6, 3), categoriaService.excluirComTransacoes(1L, progresso -> {}));
+
+        // As transações que chegaram depois do último lote saem com a categoria, com a linha travada
+        InOrder ordem = inOrder(transacaoService, transactionTemplate, orcamentoRepository, categoriaRepository, motorOrcamentos);
+        ordem.verify(transacaoService).bloquearCategoria(1L);
+        ordem.verify(transacaoService).excluirPorFiltro(eq(daCategoria), any());
+        ordem.verify(transactionTemplate).execute(any());
+        ordem.verify(categoriaRepository).travarPorId(1L);
+        ordem.verify(transacaoService).excluirPorFiltro(daCategoria);
+        ordem.verify(orcamentoRepository).excluirPorCategoria(1L);
+        ordem.verify(categoriaRepository, times(1)).excluirPorId(1L);
+        ordem.verify(motorOrcamentos).removerCategoria(1L);
+        ordem.verify(transacaoService).liberarCategoria(1L);
+        verify(distribuicoesCategorias).excluir(1L);
+        verify(categoriaRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve usar o mês atual como período padrão da distribuição")
+    void distribuicao_ShouldDefaultToCurrentMonth() {
+        YearMonth mes = YearMonth.now();
+        DistribuicaoValores distribuicao = new DistribuicaoValores(1L, mes.toString(), mes.toString(), 0,
+                null, null, null, null, null, List.of());
+        when(categoriaRepository.existsById(1L)).thenReturn(true);
+        when(distribuicoesCategorias.distribuicao(1L, mes, mes, null)).thenReturn(distribuicao);
+
+        assertEquals(Optional.of(distribuicao), categoriaService.distribuicao(1L, null, null, null));
+        when(categoriaRepository.existsById(99L)).thenReturn(false);
+        assertTrue(categoriaService.distribuicao(99L, null, null, null).isEmpty());
+        verify(distribuicoesCategorias, never()).distribuicao(eq(99L), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve mover as transações para o destino antes de excluir a origem")
+    void mesclar_ShouldMoveTransacoesAndDeleteOrigem() {
+        FiltroTransacoes daOrigem = new FiltroTransacoes(null, null, 1L, null, null);
+        AlteracaoEmLote paraDestino = new AlteracaoEmLote(2L, null, null);
+        when(transacaoService.alterarPorFiltro(eq(daOrigem), eq(paraDestino), any())).thenReturn(new ResultadoLote(7, 1));
+        when(transacaoService.alterarPorFiltro(daOrigem, paraDestino)).thenReturn(new ResultadoLote(0, 1));
+
+        ResultadoLote resultado = categoriaService.mesclar(1L, 2L, progresso -> {});
+
+        assertEquals(new ResultadoLote(7, 2), resultado);
+        InOrder ordem = inOrder(transacaoService, categoriaRepository);
+        ordem.verify(transacaoService).bloquearCategoria(1L);
+        ordem.verify(transacaoService).alterarPorFiltro(any(), any(), any());
+        ordem.verify(categoriaRepository).travarPorId(1L);
+        ordem.verify(transacaoService).alterarPorFiltro(daOrigem, paraDestino);
+        ordem.verify(categoriaRepository).excluirPorId(1L);
+        ordem.verify(transacaoService).liberarCategoria(1L);
+    }
+
+    @Test
+    @DisplayName("Deve liberar a categoria e mantê-la quando a exclusão falha no meio")
+    void excluirComTransacoes_ShouldUnblockAndKeepCategoria_WhenBatchFails() {
+        when(transacaoService.excluirPorFiltro(any(), any())).thenThrow(new IllegalStateException("falhou"));
+
+        assertThrows(IllegalStateException.class, () -> categoriaService.excluirComTransacoes(1L, progresso -> {}));
+
+        verify(transacaoService).liberarCategoria(1L);
+        verify(categoriaRepository, never()).excluirPorId(anyLong());
+        verify(motorOrcamentos, never()).removerCategoria(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve recusar mesclar uma categoria nela mesma")
+    void mesclar_ShouldThrow_WhenOrigemEqualsDestino() {
+        assertThrows(IllegalArgumentException.class, () -> categoriaService.mesclar(1L, 1L, progresso -> {}));
 
-        verify(categoriaRepository, times(1)).deleteById(1L);
+        verifyNoInteractions(transacaoService);
+        verify(categoriaRepository, never()).excluirPorId(anyLong());
     }
 
     @Test
@@ -260,22 +368,22 @@ class CategoriaServiceTest {
     @Test
     @DisplayName("Deve contar categorias essenciais")
     void countCategoriasEssenciais_ShouldReturnCount() {
-        when(categoriaRepository.countCategoriasEssenciais()).thenReturn(5L);
+        when(estatisticasCategorias.contarCategorias(true)).thenReturn(5L);
 
         Long resultado = categoriaService.countCategoriasEssenciais();
 
         assertEquals(5L, resultado);
-        verify(categoriaRepository, times(1)).countCategoriasEssenciais();
+        verify(categoriaRepository, never()).countCategoriasEssenciais();
     }
 
     @Test
     @DisplayName("Deve contar categorias supérfluas")
     void countCategoriasSuperfluas_ShouldReturnCount() {
-        when(categoriaRepository.countCategoriasSuperfluas()).thenReturn(3L);
+        when(estatisticasCategorias.contarCategorias(false)).thenReturn(3L);
 
         Long resultado = categoriaService.countCategoriasSuperfluas();
 
         assertEquals(3L, resultado);
-        verify(categoriaRepository, times(1)).countCategoriasSuperfluas();
+        verify(categoriaRepository, never()).countCategoriasSuperfluas();
     }
 }
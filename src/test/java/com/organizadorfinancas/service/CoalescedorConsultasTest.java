@@ -0,0 +1,133 @@
+package com.organizadorfinancas.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do CoalescedorConsultas")
+class CoalescedorConsultasTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CoalescedorConsultas coalescedor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescedor = new CoalescedorConsultas(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Deve executar uma única consulta para chamadas idênticas concorrentes")
+    void executar_ShouldJoinConcurrentIdenticalCalls() throws Exception {
+        int chamadores = 8;
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(chamadores);
+        try {
+            List<Future<BigDecimal>> resultados = new ArrayList<>();
+            for (int i = 0; i < chamadores; i++) {
+                resultados.add(executor.submit(() -> coalescedor.executar("soma", () -> {
+                    execucoes.incrementAndGet();
+                    aguardar(liberarConsulta);
+                    return new BigDecimal("42.00");
+                }, "DESPESA")));
+            }
+            while (meterRegistry.find("organizador.coalescencia.chamadas").tag("resultado", "compartilhada").counter() == null
+                    || meterRegistry.get("organizador.coalescencia.chamadas").tag("resultado", "compartilhada").counter().count() < chamadores - 1) {
+                Thread.sleep(5);
+            }
+            liberarConsulta.countDown();
+
+            for (Future<BigDecimal> resultado : resultados) {
+                assertEquals(new BigDecimal("42.00"), resultado.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, execucoes.get());
+        assertEquals(7.0 / 8, coalescedor.getRazao(), 1e-9);
+        assertEquals(7.0 / 8, meterRegistry.get("organizador.coalescencia.razao").gauge().value(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Deve repassar a exceção da consulta a todos os chamadores")
+    void executar_ShouldPropagateFailureToJoinedCallers() throws Exception {
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> lider = executor.submit(() -> coalescedor.executar("soma", () -> {
+                consultaIniciada.countDown();
+                aguardar(liberarConsulta);
+                throw new IllegalStateException("falhou");
+            }));
+            aguardar(consultaIniciada);
+
+            Future<Object> seguidor = executor.submit(() -> coalescedor.executar("soma", () -> BigDecimal.ONE));
+            while (coalescedor.getRazao() == 0) {
+                Thread.sleep(5);
+            }
+            liberarConsulta.countDown();
+
+            ExecutionException falhaLider = assertThrows(ExecutionException.class, () -> lider.get(5, TimeUnit.SECONDS));
+            ExecutionException falhaSeguidor = assertThrows(ExecutionException.class, () -> seguidor.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, falhaLider.getCause());
+            assertSame(falhaLider.getCause(), falhaSeguidor.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(BigDecimal.ONE, coalescedor.executar("soma", () -> BigDecimal.ONE));
+    }
+
+    @Test
+    @DisplayName("Não deve juntar chamadas com argumentos diferentes nem após uma escrita")
+    void executar_ShouldNotJoinDifferentArgumentsOrAfterInvalidation() throws Exception {
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<BigDecimal> antiga = executor.submit(() -> coalescedor.executar("soma", () -> {
+                consultaIniciada.countDown();
+                aguardar(liberarConsulta);
+                return BigDecimal.ONE;
+            }, "DESPESA"));
+            aguardar(consultaIniciada);
+
+            assertEquals(BigDecimal.TEN, coalescedor.executar("soma", () -> BigDecimal.TEN, "RECEITA"));
+            coalescedor.invalidar();
+            assertEquals(BigDecimal.TEN, coalescedor.executar("soma", () -> BigDecimal.TEN, "DESPESA"));
+
+            liberarConsulta.countDown();
+            assertEquals(BigDecimal.ONE, antiga.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, coalescedor.getRazao());
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AnaliseGastosInvisiveis;
+import com.organizadorfinancas.dto.PadraoGasto;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do DetectorGastosInvisiveis")
+class DetectorGastosInvisiveisTest {
+
+    @Mock
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private DetectorGastosInvisiveis detector;
+
+    private final LocalDate hoje = LocalDate.now();
+
+    @Test
+    @DisplayName("Deve normalizar descrições sem acentos, números e pontuação")
+    void normalizar_ShouldStripAccentsDigitsAndPunctuation() {
+        assertEquals("ifood pedido", DetectorGastosInvisiveis.normalizar("iFood *Pedido 1234"));
+        assertEquals("cafe da manha", DetectorGastosInvisiveis.normalizar("  CAFÉ da manhã!! "));
+        assertEquals("", DetectorGastosInvisiveis.normalizar("12/10"));
+    }
+
+    @Test
+    @DisplayName("Deve sinalizar gastos pequenos e frequentes e ignorar os grandes e raros")
+    void analisar_ShouldFlagSmallFrequentExpenses() {
+        for (int i = 0; i < 12; i++) {
+            detector.registrar(null, despesa(1L, "Café " + i, "7.50", hoje.minusDays(i)));
+        }
+        detector.registrar(null, despesa(2L, "Aluguel", "1500.00", hoje));
+        detector.registrar(null, new Lancamento(1L, new BigDecimal("3000.00"), hoje, TipoTransacao.RECEITA, "Salário"));
+
+        AnaliseGastosInvisiveis analise = detector.analisar(false);
+
+        assertEquals(1, analise.descricoes().size());
+        PadraoGasto cafe = analise.descricoes().get(0);
+        assertEquals("cafe", cafe.descricao());
+        assertEquals(12, cafe.quantidade());
+        assertEquals(0, new BigDecimal("3.0").compareTo(cafe.frequenciaSemanal()));
+        assertEquals(0, new BigDecimal("22.50").compareTo(cafe.gastoSemanal()));
+        assertEquals(0, new BigDecimal("97.50").compareTo(cafe.projecaoMensal()));
+        // Mediana aproximada pelo histograma: erro de até 5%
+        assertEquals(7.50, cafe.ticketMediano().doubleValue(), 0.375);
+        assertTrue(cafe.sinalizado());
+
+        assertEquals(List.of(1L), analise.categorias().stream().map(PadraoGasto::categoriaId).toList());
+        assertEquals(2, detector.analisar(true).descricoes().size());
+    }
+
+    @Test
+    @DisplayName("Deve descontar exclusões e ignorar despesas fora da janela")
+    void registrar_ShouldSubtractRemovalsAndIgnoreOldExpenses() {
+        Lancamento uber = despesa(3L, "Uber", "15.00", hoje);
+        for (int i = 0; i < 8; i++) {
+            detector.registrar(null, uber);
+        }
+        detector.registrar(null, despesa(3L, "Uber", "15.00", hoje.minusWeeks(10)));
+        detector.registrar(uber, null);
+        detector.registrar(uber, despesa(3L, "Uber", "15.00", hoje.minusWeeks(10)));
+
+        PadraoGasto padrao = detector.analisar(true).descricoes().get(0);
+
+        assertEquals(6, padrao.quantidade());
+        assertEquals(0, new BigDecimal("22.50").compareTo(padrao.gastoSemanal()));
+        assertFalse(padrao.sinalizado());
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir as janelas a partir do banco")
+    void reconstruir_ShouldLoadExpensesFromRepository() {
+        detector.registrar(null, despesa(9L, "Antiga", "1.00", hoje));
+        when(transacaoRepository.findLancamentosDesde(eq(TipoTransacao.DESPESA), any(LocalDate.class))).thenReturn(List.of(
+                new Object[] {4L, "Padaria", new BigDecimal("6.00"), hoje},
+                new Object[] {4L, "Padaria", new BigDecimal("6.00"), hoje.minusDays(7)},
+                new Object[] {4L, "Padaria", new BigDecimal("6.00"), hoje.plusWeeks(2)}));
+
+        detector.reconstruir();
+
+        AnaliseGastosInvisiveis analise = detector.analisar(true);
+        assertEquals(List.of("padaria"), analise.descricoes().stream().map(PadraoGasto::descricao).toList());
+        assertEquals(2, analise.descricoes().get(0).quantidade());
+        verify(transacaoRepository).findLancamentosDesde(TipoTransacao.DESPESA,
+                hoje.with(DayOfWeek.MONDAY).minusWeeks(3));
+    }
+
+    @Test
+    @DisplayName("Deve descartar a descrição sem despesas na janela menos recente quando o limite é atingido")
+    void descricoes_ShouldEvictLeastRecentInactiveDescription() {
+        DetectorGastosInvisiveis.Descricoes descricoes = new DetectorGastosInvisiveis.Descricoes();
+        descricoes.paraSomar("antiga", 1, 10, 4, 2).somar(1, 100, 1);
+        descricoes.paraSomar("recente", 1, 10, 4, 2).somar(10, 100, 1);
+
+        assertNotNull(descricoes.paraSomar("nova", 1, 10, 4, 2));
+        assertEquals(Set.of("recente", "nova"), descricoes.copia().keySet());
+
+        descricoes.paraSomar("nova", 1, 10, 4, 2).somar(10, 100, 1);
+        assertNull(descricoes.paraSomar("outra", 1, 10, 4, 2));
+        assertNull(descricoes.paraSomar("removida", -1, 10, 4, 2));
+        assertEquals(2, descricoes.tamanho());
+    }
+
+    private static Lancamento despesa(Long categoriaId, String descricao, String valor, LocalDate data) {
+        return new Lancamento(categoriaId, new BigDecimal(valor), data, TipoTransacao.DESPESA, descricao);
+    }
+}
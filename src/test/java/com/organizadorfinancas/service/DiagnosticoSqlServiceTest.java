@@ -0,0 +1,85 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.config.MonitorConsultas;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do DiagnosticoSqlService")
+class DiagnosticoSqlServiceTest {
+
+    @Mock
+    private MonitorConsultas monitorConsultas;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Spy
+    private JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:diagnostico;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @InjectMocks
+    private DiagnosticoSqlService diagnosticoSqlService;
+
+    private final Statistics estatisticas = mock(Statistics.class);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS lancamentos (id BIGINT PRIMARY KEY, data DATE, descricao VARCHAR(100))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS lancamentos_data ON lancamentos (data)");
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(estatisticas);
+    }
+
+    @Test
+    @DisplayName("Deve explicar a consulta lenta preparada, sem trocar os parâmetros nem os literais")
+    void getDiagnostico_ShouldExplainPreparedStatement() {
+        String sql = "select id from lancamentos where data between ? and ? and descricao <> '?'";
+        when(estatisticas.getSlowQueries()).thenReturn(Map.of(sql, 350L));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> lentas = (List<Map<String, Object>>) diagnosticoSqlService.getDiagnostico().get("consultasLentas");
+
+        String plano = (String) lentas.get(0).get("plano");
+        assertTrue(plano.contains("LANCAMENTOS_DATA"), plano);
+        assertTrue(plano.contains("BETWEEN ?1 AND ?2"), plano);
+        assertTrue(plano.contains("'?'"), plano);
+        assertFalse(plano.contains("NULL"), plano);
+    }
+
+    @Test
+    @DisplayName("Deve explicar cada consulta lenta uma só vez entre o registro no log e o diagnóstico")
+    void registrarPlanos_ShouldExplainEachQueryOnce() {
+        String sql = "select id from lancamentos where id = ?";
+        when(estatisticas.getSlowQueries()).thenReturn(Map.of(sql, 250L, "update lancamentos set data = ?", 300L));
+
+        diagnosticoSqlService.registrarPlanos();
+        diagnosticoSqlService.registrarPlanos();
+        diagnosticoSqlService.getDiagnostico();
+
+        verify(jdbcTemplate, times(1)).query(eq("EXPLAIN " + sql), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+        verify(jdbcTemplate, never()).query(startsWith("EXPLAIN update"), any(PreparedStatementSetter.class),
+                any(RowMapper.class));
+    }
+}
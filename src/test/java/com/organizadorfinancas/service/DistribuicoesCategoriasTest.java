@@ -0,0 +1,186 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.DistribuicaoValores;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.FaixaDistribuicao;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.FaixaDistribuicaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "organizador.lote.tamanho=2")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TestServicosConfig.class)
+@DisplayName("Testes do DistribuicoesCategorias")
+class DistribuicoesCategoriasTest {
+
+    @Autowired
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private FaixaDistribuicaoRepository faixaDistribuicaoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria delivery;
+    private YearMonth mes;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        delivery = categoriaRepository.save(new Categoria("Delivery", false, TipoCategoria.DESPESA_SUPERFLUA));
+        mes = YearMonth.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "faixas_distribuicao", "estatisticas_categoria", "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve estimar percentis com erro relativo de até 1%")
+    void distribuicao_ShouldEstimatePercentiles() {
+        for (int reais = 1; reais <= 100; reais++) {
+            transacaoService.save(nova("Compra " + reais, reais + ".00", mes.atDay(1), mercado));
+        }
+
+        DistribuicaoValores distribuicao = distribuicoesCategorias.distribuicao(mercado.getId(), mes, mes, new BigDecimal("50.00"));
+
+        assertEquals(100, distribuicao.quantidade());
+        assertProximo(50, distribuicao.p50());
+        assertProximo(90, distribuicao.p90());
+        assertProximo(99, distribuicao.p99());
+        assertEquals(49.5, distribuicao.percentilValor(), 1.0);
+        assertEquals(100, distribuicao.histograma().stream().mapToLong(DistribuicaoValores.Barra::quantidade).sum());
+        assertTrue(distribuicao.histograma().get(0).de().compareTo(new BigDecimal("1.00")) < 0);
+    }
+
+    @Test
+    @DisplayName("Deve manter as faixas iguais ao recálculo após inclusões, alterações e exclusões")
+    void registrar_ShouldMatchRecalculation() {
+        Transacao feira = transacaoService.save(nova("Feira", "80.00", mes.atDay(1), mercado));
+        Transacao antiga = transacaoService.save(nova("Compra antiga", "300.00", mes.minusMonths(3).atDay(1), mercado));
+        Transacao pizza = transacaoService.save(nova("Pizza", "55.00", mes.atDay(1), mercado));
+
+        pizza.setCategoria(delivery);
+        transacaoService.save(pizza);
+        transacaoService.atualizarParcial(feira.getId(), new AtualizacaoTransacao(
+                feira.getVersao(), null, new BigDecimal("95.50"), null, null, null, null, null, null, null));
+        transacaoService.deleteById(antiga.getId());
+
+        assertEquals(1, distribuicoesCategorias.distribuicao(mercado.getId(), mes.minusMonths(3), mes, null).quantidade());
+        assertEquals(1, distribuicoesCategorias.distribuicao(delivery.getId(), mes, mes, null).quantidade());
+        assertMesmasDoRecalculo();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as faixas nas operações em lote")
+    void operacoesEmLote_ShouldUpdateBuckets() {
+        for (int i = 1; i <= 5; i++) {
+            transacaoService.save(nova("iFood " + i, (10 * i) + ".00", mes.minusMonths(i - 1L).atDay(1), mercado));
+        }
+        transacaoService.save(nova("Feira", "70.00", mes.minusMonths(6).atDay(1), mercado));
+
+        transacaoService.alterarPorFiltro(new FiltroTransacoes(null, null, mercado.getId(), null, "ifood"),
+                new AlteracaoEmLote(delivery.getId(), null, null));
+        transacaoService.excluirPorFiltro(new FiltroTransacoes(null, mes.minusMonths(2).atEndOfMonth(), delivery.getId(), null, null));
+
+        assertEquals(1, distribuicoesCategorias.distribuicao(mercado.getId(), mes.minusMonths(12), mes, null).quantidade());
+        DistribuicaoValores doDelivery = distribuicoesCategorias.distribuicao(delivery.getId(), mes.minusMonths(12), mes, null);
+        assertEquals(2, doDelivery.quantidade());
+        assertProximo(10, doDelivery.p50());
+        assertEquals(2, doDelivery.histograma().size());
+        assertMesmasDoRecalculo();
+    }
+
+    @Test
+    @DisplayName("Deve juntar os meses do período e refazer categorias divergentes")
+    void distribuicao_ShouldMergeMonthsAndRepairDivergences() {
+        transacaoService.save(nova("Feira", "80.00", mes.atDay(1), mercado));
+        transacaoService.save(nova("Feira", "120.00", mes.minusMonths(1).atDay(1), mercado));
+        // Gravada por JDBC, sem passar pelo serviço
+        jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, " +
+                "categoria_id) VALUES ('Feira', 500.00, ?, 'DESPESA', false, 1, 1, ?)",
+                mes.atDay(2), mercado.getId());
+
+        assertEquals(1, distribuicoesCategorias.distribuicao(mercado.getId(), mes.minusMonths(1), mes.minusMonths(1), null).quantidade());
+        assertEquals(2, distribuicoesCategorias.distribuicao(mercado.getId(), mes.minusMonths(1), mes, null).quantidade());
+
+        distribuicoesCategorias.recalcularDivergentes();
+
+        DistribuicaoValores periodo = distribuicoesCategorias.distribuicao(mercado.getId(), mes.minusMonths(1), mes, null);
+        assertEquals(3, periodo.quantidade());
+        assertProximo(120, periodo.p50());
+        assertThrows(IllegalArgumentException.class,
+                () -> distribuicoesCategorias.distribuicao(mercado.getId(), mes, mes.minusMonths(1), null));
+    }
+
+    @Test
+    @DisplayName("Deve estimar qualquer valor com erro relativo de até 1%")
+    void esboco_ShouldBoundRelativeError() {
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal valor = BigDecimal.valueOf(1 + (long) Math.pow(10, aleatorio.nextDouble() * 10), 2);
+            int faixa = EsbocoQuantis.faixa(valor);
+            BigDecimal estimativa = EsbocoQuantis.estimativa(faixa);
+            double erro = Math.abs(estimativa.doubleValue() - valor.doubleValue()) / valor.doubleValue();
+            // Meio centavo de arredondamento da estimativa pesa nos valores pequenos
+            assertTrue(erro <= EsbocoQuantis.ERRO_RELATIVO + 0.005 / valor.doubleValue(), valor + " -> " + estimativa);
+            assertTrue(valor.compareTo(EsbocoQuantis.inicio(faixa)) >= 0 && valor.compareTo(EsbocoQuantis.fim(faixa)) <= 0);
+        }
+    }
+
+    private void assertMesmasDoRecalculo() {
+        Map<String, Long> mantidas = faixas();
+        distribuicoesCategorias.recalcular(List.of(mercado.getId(), delivery.getId()));
+        assertEquals(faixas(), mantidas);
+    }
+
+    private Map<String, Long> faixas() {
+        return faixaDistribuicaoRepository.findAll().stream().collect(Collectors.toMap(
+                f -> f.getCategoriaId() + "/" + f.getMes() + "/" + f.getFaixa(), FaixaDistribuicao::getQuantidade));
+    }
+
+    private static void assertProximo(double esperado, BigDecimal obtido) {
+        assertEquals(esperado, obtido.doubleValue(), esperado * EsbocoQuantis.ERRO_RELATIVO + 0.005);
+    }
+}
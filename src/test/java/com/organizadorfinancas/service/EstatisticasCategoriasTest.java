@@ -0,0 +1,155 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.EstatisticaCategoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "organizador.lote.tamanho=2")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TestServicosConfig.class)
+@DisplayName("Testes do EstatisticasCategorias")
+class EstatisticasCategoriasTest {
+
+    @Autowired
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria delivery;
+    private LocalDate hoje;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        delivery = categoriaRepository.save(new Categoria("Delivery", false, TipoCategoria.DESPESA_SUPERFLUA));
+        hoje = LocalDate.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "estatisticas_categoria", "faixas_distribuicao", "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve manter os contadores iguais ao recálculo após inclusões, alterações e exclusões")
+    void registrar_ShouldMatchRecalculation() {
+        Transacao feira = transacaoService.save(nova("Feira", "80.00", hoje, mercado));
+        Transacao antiga = transacaoService.save(nova("Compra do ano passado", "300.00", hoje.minusYears(1), mercado));
+        Transacao pizza = transacaoService.save(nova("Pizza", "55.00", hoje, mercado));
+
+        // Move a pizza para Delivery pelo PUT, corrige o valor da feira pelo PATCH e exclui a compra antiga
+        pizza.setCategoria(delivery);
+        pizza.setValor(new BigDecimal("60.00"));
+        transacaoService.save(pizza);
+        transacaoService.atualizarParcial(feira.getId(), new AtualizacaoTransacao(
+                feira.getVersao(), null, new BigDecimal("95.50"), null, null, null, null, null, null, null));
+        transacaoService.deleteById(antiga.getId());
+
+        Map<Long, EstatisticaCategoria> mantidas = estatisticasCategorias.porCategoria();
+        EstatisticaCategoria doMercado = mantidas.get(mercado.getId());
+        assertEquals(1L, doMercado.getQuantidade());
+        assertEquals(0, new BigDecimal("95.50").compareTo(doMercado.getTotal()));
+        assertEquals(0, new BigDecimal("95.50").compareTo(doMercado.getTotalMes()));
+        assertEquals(hoje, doMercado.getUltimaTransacao());
+        assertEquals(1L, mantidas.get(delivery.getId()).getQuantidade());
+        assertMesmasDoRecalculo(mantidas);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar os contadores nas operações em lote")
+    void operacoesEmLote_ShouldUpdateCounters() {
+        for (int i = 1; i <= 5; i++) {
+            transacaoService.save(nova("iFood " + i, "10.00", hoje.minusMonths(i - 1L), mercado));
+        }
+        transacaoService.save(nova("Feira", "70.00", hoje.minusMonths(6), mercado));
+
+        transacaoService.alterarPorFiltro(new FiltroTransacoes(null, null, mercado.getId(), null, "ifood"),
+                new AlteracaoEmLote(delivery.getId(), null, null));
+        transacaoService.excluirPorFiltro(new FiltroTransacoes(null, hoje.minusMonths(2), delivery.getId(), null, null));
+
+        Map<Long, EstatisticaCategoria> mantidas = estatisticasCategorias.porCategoria();
+        assertEquals(1L, mantidas.get(mercado.getId()).getQuantidade());
+        assertEquals(hoje.minusMonths(6), mantidas.get(mercado.getId()).getUltimaTransacao());
+        assertEquals(2L, mantidas.get(delivery.getId()).getQuantidade());
+        assertEquals(0, new BigDecimal("10.00").compareTo(mantidas.get(delivery.getId()).getTotalMes()));
+        assertMesmasDoRecalculo(mantidas);
+    }
+
+    @Test
+    @DisplayName("Deve recalcular o total do mês quando o mês virou desde a última escrita")
+    void porCategoria_ShouldRollMonth() {
+        transacaoService.save(nova("Feira", "80.00", hoje, mercado));
+        jdbcTemplate.update("UPDATE estatisticas_categoria SET mes_referencia = 200001, total_mes = 999");
+
+        EstatisticaCategoria estatistica = estatisticasCategorias.porCategoria().get(mercado.getId());
+
+        assertEquals(EstatisticaCategoria.mes(YearMonth.now()), estatistica.getMesReferencia());
+        assertEquals(0, new BigDecimal("80.00").compareTo(estatistica.getTotalMes()));
+    }
+
+    @Test
+    @DisplayName("Deve manter a contagem de categorias em memória até a próxima escrita de categoria")
+    void contarCategorias_ShouldRecountOnlyAfterInvalidation() {
+        assertEquals(1, estatisticasCategorias.contarCategorias(true));
+        assertEquals(1, estatisticasCategorias.contarCategorias(false));
+
+        categoriaRepository.save(new Categoria("Farmácia", true, TipoCategoria.DESPESA_ESSENCIAL));
+        assertEquals(1, estatisticasCategorias.contarCategorias(true));
+
+        estatisticasCategorias.invalidarContagem();
+        assertEquals(2, estatisticasCategorias.contarCategorias(true));
+    }
+
+    private void assertMesmasDoRecalculo(Map<Long, EstatisticaCategoria> mantidas) {
+        estatisticasCategorias.recalcular(List.of(mercado.getId(), delivery.getId()));
+        Map<Long, EstatisticaCategoria> recalculadas = estatisticasCategorias.porCategoria();
+        for (Long categoriaId : List.of(mercado.getId(), delivery.getId())) {
+            EstatisticaCategoria esperada = recalculadas.get(categoriaId);
+            EstatisticaCategoria obtida = mantidas.get(categoriaId);
+            assertEquals(esperada.getQuantidade(), obtida.getQuantidade());
+            assertEquals(0, esperada.getTotal().compareTo(obtida.getTotal()));
+            assertEquals(0, esperada.getTotalMes().compareTo(obtida.getTotalMes()));
+            assertEquals(esperada.getUltimaTransacao(), obtida.getUltimaTransacao());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.EstadoRelatorio;
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Testes da FilaRelatorios")
+class FilaRelatoriosTest {
+
+    private static final PedidoRelatorio MARCO = new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 3, null);
+
+    private RelatorioService relatorioService;
+    private CoalescedorConsultas coalescedor;
+    private FilaRelatorios fila;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final List<PedidoRelatorio> gerados = new ArrayList<>();
+    private final AtomicInteger execucoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        relatorioService = mock(RelatorioService.class);
+        coalescedor = new CoalescedorConsultas(meterRegistry);
+        when(relatorioService.gerar(any())).thenAnswer(invocacao -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            PedidoRelatorio pedido = invocacao.getArgument(0);
+            synchronized (gerados) {
+                gerados.add(pedido);
+            }
+            execucoes.incrementAndGet();
+            return relatorio(pedido);
+        });
+        fila = new FilaRelatorios(relatorioService, coalescedor, meterRegistry, 1, 2, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fila.encerrar();
+    }
+
+    @Test
+    @DisplayName("Deve juntar pedidos iguais e reaproveitar o relatório pronto até a próxima escrita")
+    void enviar_ShouldDeduplicateAndCacheUntilWrite() throws Exception {
+        EstadoRelatorio primeiro = fila.enviar(MARCO);
+        EstadoRelatorio repetido = fila.enviar(new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 3,
+                PedidoRelatorio.Prioridade.BAIXA));
+        assertEquals(primeiro.id(), repetido.id());
+        liberar.countDown();
+        aguardarConclusao(primeiro.id());
+
+        assertEquals(primeiro.id(), fila.enviar(MARCO).id());
+        assertEquals(1, execucoes.get());
+        assertTrue(fila.resultado(primeiro.id()).isPresent());
+
+        coalescedor.invalidar();
+        EstadoRelatorio depoisDaEscrita = fila.enviar(MARCO);
+        assertNotEquals(primeiro.id(), depoisDaEscrita.id());
+        aguardarConclusao(depoisDaEscrita.id());
+        assertEquals(2, execucoes.get());
+        // O trabalho anterior continua disponível pelo id
+        assertTrue(fila.resultado(primeiro.id()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve atender por prioridade e recusar além da capacidade")
+    void enviar_ShouldOrderByPriorityAndRejectWhenFull() throws Exception {
+        // Ocupa o único trabalhador
+        EstadoRelatorio ocupando = fila.enviar(new PedidoRelatorio(PedidoRelatorio.Periodo.ANUAL, 2025, null, null));
+        while (fila.estado(ocupando.id()).orElseThrow().situacao() == EstadoRelatorio.Situacao.PENDENTE) {
+            Thread.sleep(5);
+        }
+        PedidoRelatorio baixa = new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 1, PedidoRelatorio.Prioridade.BAIXA);
+        PedidoRelatorio normal = new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 2, null);
+        EstadoRelatorio aguardandoBaixa = fila.enviar(baixa);
+        EstadoRelatorio aguardandoNormal = fila.enviar(normal);
+        assertThrows(FilaRelatoriosCheiaException.class, () -> fila.enviar(MARCO));
+
+        // Um pedido ALTA do mesmo mês adianta o trabalho que estava em BAIXA
+        EstadoRelatorio adiantado = fila.enviar(new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 1,
+                PedidoRelatorio.Prioridade.ALTA));
+        assertEquals(aguardandoBaixa.id(), adiantado.id());
+        assertEquals(PedidoRelatorio.Prioridade.ALTA, adiantado.pedido().prioridade());
+
+        liberar.countDown();
+        aguardarConclusao(aguardandoBaixa.id());
+        aguardarConclusao(aguardandoNormal.id());
+        synchronized (gerados) {
+            assertEquals(List.of(2025, 2026, 2026), gerados.stream().map(PedidoRelatorio::ano).toList());
+            assertEquals(1, gerados.get(1).mes());
+            assertEquals(2, gerados.get(2).mes());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve registrar a falha e gerar de novo no próximo pedido")
+    void enviar_ShouldReportFailureAndRetry() throws Exception {
+        liberar.countDown();
+        doThrow(new IllegalStateException("banco indisponível"))
+                .doAnswer(invocacao -> relatorio(invocacao.getArgument(0)))
+                .when(relatorioService).gerar(any());
+
+        EstadoRelatorio falhou = fila.enviar(MARCO);
+        EstadoRelatorio estado = aguardarConclusao(falhou.id());
+        assertEquals(EstadoRelatorio.Situacao.FALHOU, estado.situacao());
+        assertEquals("banco indisponível", estado.erro());
+        assertTrue(fila.resultado(falhou.id()).isEmpty());
+
+        EstadoRelatorio novo = fila.enviar(MARCO);
+        assertNotEquals(falhou.id(), novo.id());
+        assertEquals(EstadoRelatorio.Situacao.CONCLUIDO, aguardarConclusao(novo.id()).situacao());
+    }
+
+    @Test
+    @DisplayName("Deve deixar de devolver o trabalho expirado e removê-lo sem pedidos novos")
+    void estado_ShouldHideAndRemoveExpiredJobs() throws Exception {
+        FilaRelatorios semRetencao = new FilaRelatorios(relatorioService, coalescedor, new SimpleMeterRegistry(), 1, 2, 0);
+        try {
+            liberar.countDown();
+            EstadoRelatorio enviado = semRetencao.enviar(MARCO);
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (semRetencao.estado(enviado.id()).isPresent() && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            assertTrue(semRetencao.estado(enviado.id()).isEmpty());
+            assertTrue(semRetencao.resultado(enviado.id()).isEmpty());
+
+            semRetencao.removerExpirados();
+            assertNotEquals(enviado.id(), semRetencao.enviar(MARCO).id());
+        } finally {
+            semRetencao.encerrar();
+        }
+    }
+
+    private EstadoRelatorio aguardarConclusao(String id) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            EstadoRelatorio estado = fila.estado(id).orElseThrow();
+            if (estado.situacao() == EstadoRelatorio.Situacao.CONCLUIDO
+                    || estado.situacao() == EstadoRelatorio.Situacao.FALHOU) {
+                return estado;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Relatório " + id + " não terminou");
+    }
+
+    private static Relatorio relatorio(PedidoRelatorio pedido) {
+        return new Relatorio(pedido.periodo(), pedido.inicio(), pedido.fim(), Instant.now(), BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO, List.of(), List.of(), new Relatorio.ExposicaoParcelas(0, 0,
+                BigDecimal.ZERO, BigDecimal.ZERO));
+    }
+}
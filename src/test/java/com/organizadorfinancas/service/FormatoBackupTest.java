@@ -0,0 +1,148 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do FormatoBackup")
+class FormatoBackupTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static final Instant GERADO_EM = Instant.parse("2026-10-18T12:00:00.123Z");
+
+    private static List<SegmentoFrio.Registro> transacoes(int quantidade) {
+        LocalDate inicio = LocalDate.of(2020, 1, 1);
+        List<SegmentoFrio.Registro> registros = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            // Ids com buracos, como depois de exclusões
+            registros.add(new SegmentoFrio.Registro(1 + i * 3L, "Compra " + i + (i % 11 == 0 ? " – café ☕" : ""),
+                    100 + i * 37L, inicio.plusDays(i % 2000), i % 5 == 0 ? TipoTransacao.RECEITA : TipoTransacao.DESPESA,
+                    i % 7 == 0, 1 + i % 12, 1 + i % 3, 1 + i % 2, i % 2 == 0 ? null : "obs " + i, i % 4));
+        }
+        return registros;
+    }
+
+    private Path gravar(List<FormatoBackup.LinhaCategoria> categorias, List<FormatoBackup.LinhaOrcamento> orcamentos,
+                        List<SegmentoFrio.Registro> transacoes) {
+        Path arquivo = diretorio.resolve("backup.ofb");
+        try (FormatoBackup.Escritor escritor = new FormatoBackup.Escritor(arquivo, GERADO_EM)) {
+            categorias.forEach(escritor::categoria);
+            orcamentos.forEach(escritor::orcamento);
+            transacoes.forEach(escritor::transacao);
+            escritor.concluir();
+        }
+        return arquivo;
+    }
+
+    private static List<SegmentoFrio.Registro> lerTransacoes(Path arquivo) {
+        List<SegmentoFrio.Registro> lidas = new ArrayList<>();
+        FormatoBackup.ler(arquivo, new FormatoBackup.Destino() {
+            @Override
+            public void categorias(List<FormatoBackup.LinhaCategoria> categorias) {
+            }
+
+            @Override
+            public void orcamentos(List<FormatoBackup.LinhaOrcamento> orcamentos) {
+            }
+
+            @Override
+            public void transacoes(List<SegmentoFrio.Registro> transacoes) {
+                lidas.addAll(transacoes);
+            }
+        });
+        return lidas;
+    }
+
+    @Test
+    @DisplayName("Deve devolver categorias, orçamentos e transações gravados, em mais de um bloco")
+    void ler_ShouldRoundTripRows() throws IOException {
+        List<FormatoBackup.LinhaCategoria> categorias = List.of(
+                new FormatoBackup.LinhaCategoria(1, "Alimentação", true, TipoCategoria.DESPESA_ESSENCIAL, 3),
+                new FormatoBackup.LinhaCategoria(2, "Salário", true, TipoCategoria.RENDA_FIXA, 0));
+        List<FormatoBackup.LinhaOrcamento> orcamentos = List.of(
+                new FormatoBackup.LinhaOrcamento(4, 1L, null, 150_000),
+                new FormatoBackup.LinhaOrcamento(7, null, TipoCategoria.DESPESA_SUPERFLUA, 50_000));
+        List<SegmentoFrio.Registro> transacoes = transacoes(2 * FormatoBackup.LINHAS_POR_BLOCO + 100);
+        Path arquivo = gravar(categorias, orcamentos, transacoes);
+
+        List<FormatoBackup.LinhaCategoria> categoriasLidas = new ArrayList<>();
+        List<FormatoBackup.LinhaOrcamento> orcamentosLidos = new ArrayList<>();
+        List<Integer> blocos = new ArrayList<>();
+        FormatoBackup.Conteudo conteudo = FormatoBackup.ler(arquivo, new FormatoBackup.Destino() {
+            @Override
+            public void categorias(List<FormatoBackup.LinhaCategoria> lidas) {
+                categoriasLidas.addAll(lidas);
+            }
+
+            @Override
+            public void orcamentos(List<FormatoBackup.LinhaOrcamento> lidos) {
+                orcamentosLidos.addAll(lidos);
+            }
+
+            @Override
+            public void transacoes(List<SegmentoFrio.Registro> lidas) {
+                blocos.add(lidas.size());
+            }
+        });
+
+        assertEquals(new FormatoBackup.Conteudo(GERADO_EM, 2, 2, transacoes.size(), 2, 7, transacoes.get(transacoes.size() - 1).id()),
+                conteudo);
+        assertEquals(categorias, categoriasLidas);
+        assertEquals(orcamentos, orcamentosLidos);
+        assertEquals(List.of(FormatoBackup.LINHAS_POR_BLOCO, FormatoBackup.LINHAS_POR_BLOCO, 100), blocos);
+        assertEquals(transacoes, lerTransacoes(arquivo));
+        assertTrue(Files.size(arquivo) < transacoes.size() * 40L, "varints e ids em diferença");
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertEquals(List.of(arquivo), arquivos.toList(), "sem temporário");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar arquivos com um byte trocado, truncados ou que não são backups")
+    void ler_ShouldRejectDamagedFiles() throws IOException {
+        Path arquivo = gravar(List.of(new FormatoBackup.LinhaCategoria(1, "Mercado", true, TipoCategoria.DESPESA_ESSENCIAL, 0)),
+                List.of(), transacoes(FormatoBackup.LINHAS_POR_BLOCO + 10));
+        byte[] original = Files.readAllBytes(arquivo);
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer byteDoMeio = ByteBuffer.allocate(1);
+            long posicao = original.length / 2;
+            canal.read(byteDoMeio, posicao);
+            byteDoMeio.put(0, (byte) ~byteDoMeio.get(0));
+            canal.write(byteDoMeio.rewind(), posicao);
+        }
+        IllegalStateException erro = assertThrows(IllegalStateException.class, () -> FormatoBackup.ler(arquivo, null));
+        assertTrue(erro.getMessage().startsWith("Backup corrompido"), erro.getMessage());
+
+        // Sem o bloco final (cabeçalho de 13 bytes e as três quantidades): todos os blocos restantes estão íntegros
+        Files.write(arquivo, Arrays.copyOf(original, original.length - 17));
+        assertThrows(IllegalStateException.class, () -> FormatoBackup.ler(arquivo, null));
+        Files.write(arquivo, Arrays.copyOf(original, original.length / 3));
+        assertThrows(IllegalStateException.class, () -> FormatoBackup.ler(arquivo, null));
+
+        Files.writeString(arquivo, "id,descricao,valor\n1,Feira,10.00\n");
+        assertThrows(IllegalStateException.class, () -> FormatoBackup.ler(arquivo, null));
+
+        Files.write(arquivo, original);
+        assertEquals(FormatoBackup.LINHAS_POR_BLOCO + 10, FormatoBackup.ler(arquivo, null).transacoes());
+    }
+}
@@ -0,0 +1,202 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.TransacaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Testes do IngestaoTransacoes")
+class IngestaoTransacoesTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransacaoRepository transacaoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @TempDir
+    Path diretorio;
+
+    private Categoria categoria;
+    private AtomicInteger lotesAplicados;
+
+    @BeforeEach
+    void setUp() {
+        categoria = categoriaRepository.save(new Categoria("Cartão", false, TipoCategoria.DESPESA_SUPERFLUA));
+        lotesAplicados = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "transacoes", "categorias");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ingestao_estado");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ingestao_rejeitadas");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private IngestaoTransacoes criar(int tamanhoLote, long intervaloMs) {
+        IngestaoTransacoes ingestao = new IngestaoTransacoes(new JournalIngestao(diretorio, 1024 * 1024),
+                jdbcTemplate, new TransactionTemplate(transactionManager), categoriaRepository,
+                lote -> {}, lotesAplicados::incrementAndGet, 100, tamanhoLote, intervaloMs);
+        ingestao.iniciar();
+        return ingestao;
+    }
+
+    private Transacao compra(int i) {
+        return new Transacao("Compra " + i, new BigDecimal("10.00").add(BigDecimal.valueOf(i)),
+                LocalDate.of(2026, 3, 1), TipoTransacao.DESPESA, false, categoria);
+    }
+
+    @Test
+    @DisplayName("Deve gravar as transações aceitas em lotes e liberar a leitura após a aplicação")
+    void aceitar_ShouldGroupCommitAndAllowReadYourWrites() throws Exception {
+        try (IngestaoTransacoes ingestao = criar(4, 60_000)) {
+            long ultima = 0;
+            for (int i = 0; i < 10; i++) {
+                ultima = ingestao.aceitar(compra(i));
+            }
+
+            assertEquals(10, ultima);
+            assertTrue(ingestao.aguardarAplicacao(ultima, 5000));
+            assertEquals(10, transacaoRepository.count());
+            assertTrue(lotesAplicados.get() >= 3 && lotesAplicados.get() < 10);
+            assertEquals(new IngestaoTransacoes.Estado(10, 10, 10, 0, 0), ingestao.getEstado());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve regravar após uma queda as transações confirmadas e não aplicadas, sem duplicar")
+    void iniciar_ShouldReplayAcknowledgedWritesAfterCrash() throws Exception {
+        try (IngestaoTransacoes antesDaQueda = criar(1000, 60_000)) {
+            antesDaQueda.aceitar(compra(1));
+            antesDaQueda.aceitar(compra(2));
+        }
+        // Queda: as sequências 3 e 4 foram confirmadas no journal, mas não chegaram ao banco
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 1024 * 1024)) {
+            journal.recuperar();
+            journal.anexar(3, IngestaoTransacoes.codificar(compra(3)));
+            journal.anexar(4, IngestaoTransacoes.codificar(compra(4)));
+            journal.sincronizar(4);
+        }
+        assertEquals(2, transacaoRepository.count());
+
+        try (IngestaoTransacoes depoisDaQueda = criar(1000, 60_000)) {
+            assertEquals(4, transacaoRepository.count());
+            assertEquals(5, depoisDaQueda.aceitar(compra(5)));
+            assertEquals(4, depoisDaQueda.getEstado().ultimaAplicada());
+        }
+        assertEquals(5, transacaoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transação de categoria inexistente e respeitar a capacidade do buffer")
+    void aceitar_ShouldValidateAndBoundBuffer() {
+        try (IngestaoTransacoes ingestao = criar(1000, 60_000)) {
+            Transacao semCategoria = compra(0);
+            Categoria inexistente = new Categoria();
+            inexistente.setId(-1L);
+            semCategoria.setCategoria(inexistente);
+            assertThrows(IllegalArgumentException.class, () -> ingestao.aceitar(semCategoria));
+
+            for (int i = 0; i < 100; i++) {
+                ingestao.aceitar(compra(i));
+            }
+            assertThrows(IngestaoSaturadaException.class, () -> ingestao.aceitar(compra(100)));
+        }
+        assertEquals(100, transacaoRepository.count());
+    }
+
+    @Test
+    @DisplayName("Deve guardar como rejeitada a transação confirmada cuja categoria foi excluída antes da gravação")
+    void descarregar_ShouldDeadLetterRowsTheDatabaseRefuses() throws Exception {
+        Categoria removida = categoriaRepository.save(new Categoria("Temporária", false, TipoCategoria.DESPESA_SUPERFLUA));
+        try (IngestaoTransacoes ingestao = criar(1000, 60_000)) {
+            ingestao.aceitar(compra(1));
+            Transacao orfa = compra(2);
+            orfa.setCategoria(removida);
+            long sequencia = ingestao.aceitar(orfa);
+            ingestao.aceitar(compra(3));
+            categoriaRepository.deleteById(removida.getId());
+
+            assertTrue(ingestao.aguardarAplicacao(3, 5000));
+            assertEquals(2, transacaoRepository.count());
+            assertEquals(1, ingestao.getEstado().rejeitadas());
+            IngestaoTransacoes.Rejeitada rejeitada = ingestao.rejeitadas().get(0);
+            assertEquals(sequencia, rejeitada.sequencia());
+            assertEquals("Compra 2", rejeitada.transacao().getDescricao());
+            assertEquals(removida.getId(), rejeitada.transacao().getCategoria().getId());
+
+            assertTrue(ingestao.descartarRejeitada(sequencia));
+            assertFalse(ingestao.descartarRejeitada(sequencia));
+            assertTrue(ingestao.rejeitadas().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ler o estado sem esperar pela trava das aceitações")
+    void getEstado_ShouldNotWaitForAcceptLock() throws Exception {
+        try (IngestaoTransacoes ingestao = criar(1000, 60_000)) {
+            ingestao.aceitar(compra(1));
+            CountDownLatch travada = new CountDownLatch(1);
+            CountDownLatch liberar = new CountDownLatch(1);
+            Thread aceitacao = new Thread(() -> {
+                synchronized (ingestao) {
+                    travada.countDown();
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            aceitacao.start();
+            try {
+                travada.await();
+                IngestaoTransacoes.Estado estado = assertTimeoutPreemptively(Duration.ofSeconds(5), ingestao::getEstado);
+                assertEquals(1, estado.ultimaAceita());
+                assertEquals(1, estado.pendentes());
+            } finally {
+                liberar.countDown();
+                aceitacao.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.organizadorfinancas.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do JournalIngestao")
+class JournalIngestaoTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static byte[] dados(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long arquivos() throws IOException {
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            return listagem.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recuperar os registros na ordem em que foram gravados")
+    void recuperar_ShouldReturnRecordsInOrder() {
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 1024)) {
+            assertTrue(journal.recuperar().isEmpty());
+            for (long i = 1; i <= 3; i++) {
+                journal.anexar(i, dados("registro " + i));
+            }
+            journal.sincronizar(3);
+            assertEquals(3, journal.getUltimaDuravel());
+        }
+
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 1024)) {
+            List<JournalIngestao.Registro> registros = journal.recuperar();
+
+            assertEquals(3, registros.size());
+            assertEquals(1, registros.get(0).sequencia());
+            assertEquals("registro 3", new String(registros.get(2).dados(), StandardCharsets.UTF_8));
+            assertEquals(3, journal.getUltimaDuravel());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar um registro incompleto no fim do journal")
+    void recuperar_ShouldTruncateTornTail() throws IOException {
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 1024)) {
+            journal.recuperar();
+            journal.anexar(1, dados("completo"));
+            journal.anexar(2, dados("incompleto"));
+        }
+        Path arquivo;
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            arquivo = listagem.findFirst().orElseThrow();
+        }
+        long tamanho = Files.size(arquivo);
+        try (var canal = Files.newByteChannel(arquivo, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho - 3);
+        }
+
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 1024)) {
+            List<JournalIngestao.Registro> registros = journal.recuperar();
+
+            assertEquals(1, registros.size());
+            assertEquals(1, journal.getUltimaDuravel());
+            assertTrue(Files.size(arquivo) < tamanho - 3);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve trocar de segmento e remover os segmentos já aplicados")
+    void descartarAte_ShouldDeleteAppliedSegments() throws IOException {
+        try (JournalIngestao journal = new JournalIngestao(diretorio, 64)) {
+            journal.recuperar();
+            for (long i = 1; i <= 6; i++) {
+                journal.anexar(i, dados("registro com alguns bytes " + i));
+            }
+            journal.sincronizar(6);
+            long antes = arquivos();
+            assertTrue(antes > 1);
+
+            journal.descartarAte(6);
+
+            assertEquals(1, arquivos());
+        }
+    }
+}
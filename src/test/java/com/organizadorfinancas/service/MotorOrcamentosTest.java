@@ -0,0 +1,229 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AlertaOrcamento;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.StatusOrcamento;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.Orcamento;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.OrcamentoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TestServicosConfig.class)
+@DisplayName("Testes do MotorOrcamentos")
+class MotorOrcamentosTest {
+
+    @Autowired
+    private MotorOrcamentos motorOrcamentos;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private OrcamentoRepository orcamentoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria delivery;
+    private Categoria streaming;
+    private Orcamento doMercado;
+    private Orcamento superfluos;
+    private LocalDate hoje;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        delivery = categoriaRepository.save(new Categoria("Delivery", false, TipoCategoria.DESPESA_SUPERFLUA));
+        streaming = categoriaRepository.save(new Categoria("Streaming", false, TipoCategoria.DESPESA_SUPERFLUA));
+        doMercado = orcamentoRepository.save(new Orcamento(mercado, null, new BigDecimal("500.00")));
+        superfluos = orcamentoRepository.save(new Orcamento(null, TipoCategoria.DESPESA_SUPERFLUA, new BigDecimal("100.00")));
+        hoje = LocalDate.now();
+        motorOrcamentos.reconciliar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "orcamentos", "estatisticas_categoria", "faixas_distribuicao", "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+        motorOrcamentos.reconciliar();
+    }
+
+    @Test
+    @DisplayName("Deve manter o gasto em memória igual à reconciliação após inclusões, alterações e exclusões")
+    void registrar_ShouldMatchReconciliation() {
+        Transacao feira = transacaoService.save(nova("Feira", "180.00", hoje, mercado));
+        transacaoService.save(nova("Salário", "5000.00", hoje, mercado, TipoTransacao.RECEITA));
+        transacaoService.save(nova("Mês passado", "400.00", hoje.minusMonths(1), mercado));
+        Transacao pizza = transacaoService.save(nova("Pizza", "45.50", hoje, mercado));
+        Transacao antiga = transacaoService.save(nova("Série", "30.00", hoje, streaming));
+
+        pizza.setCategoria(delivery);
+        transacaoService.save(pizza);
+        feira.setValor(new BigDecimal("200.00"));
+        transacaoService.save(feira);
+        transacaoService.deleteById(antiga.getId());
+
+        List<StatusOrcamento> mantido = motorOrcamentos.status(YearMonth.now());
+        assertEquals(0, new BigDecimal("200.00").compareTo(status(mantido, doMercado).gasto()));
+        assertEquals(0, new BigDecimal("45.50").compareTo(status(mantido, superfluos).gasto()));
+        assertEquals(0, new BigDecimal("400.00").compareTo(
+                status(motorOrcamentos.status(YearMonth.now().minusMonths(1)), doMercado).gasto()));
+
+        motorOrcamentos.reconciliar();
+        assertEquals(mantido, motorOrcamentos.status(YearMonth.now()));
+    }
+
+    @Test
+    @DisplayName("Deve acompanhar alterações e exclusões em lote sem reconciliar")
+    void operacoesEmLote_ShouldUpdateSpendingIncrementally() {
+        for (int i = 0; i < 3; i++) {
+            transacaoService.save(nova("Feira", "50.00", hoje, mercado));
+        }
+        transacaoService.save(nova("Pizza", "40.00", hoje, delivery));
+
+        transacaoService.alterarPorFiltro(new FiltroTransacoes(null, null, mercado.getId(), null, null),
+                new AlteracaoEmLote(delivery.getId(), null, null));
+        assertEquals(0, BigDecimal.ZERO.compareTo(status(motorOrcamentos.status(YearMonth.now()), doMercado).gasto()));
+        assertEquals(0, new BigDecimal("190.00").compareTo(status(motorOrcamentos.status(YearMonth.now()), superfluos).gasto()));
+
+        transacaoService.alterarPorFiltro(new FiltroTransacoes(null, null, null, null, "Pizza"),
+                new AlteracaoEmLote(null, TipoTransacao.RECEITA, null));
+        assertEquals(0, new BigDecimal("150.00").compareTo(status(motorOrcamentos.status(YearMonth.now()), superfluos).gasto()));
+
+        transacaoService.excluirPorFiltro(new FiltroTransacoes(null, null, delivery.getId(), TipoTransacao.DESPESA, null));
+        List<StatusOrcamento> mantido = motorOrcamentos.status(YearMonth.now());
+        assertEquals(0, BigDecimal.ZERO.compareTo(status(mantido, superfluos).gasto()));
+        motorOrcamentos.reconciliar();
+        assertEquals(mantido, motorOrcamentos.status(YearMonth.now()));
+    }
+
+    @Test
+    @DisplayName("Deve emitir um único alerta por estouro e voltar a alertar depois que o gasto cair abaixo do limite")
+    void registrar_ShouldAlertOncePerOverrun() {
+        transacaoService.save(nova("Pizza", "60.00", hoje, delivery));
+        Transacao serie = transacaoService.save(nova("Série", "50.00", hoje, streaming));
+        transacaoService.save(nova("Outra série", "10.00", hoje, streaming));
+
+        List<AlertaOrcamento> alertas = motorOrcamentos.alertas();
+        assertEquals(1, alertas.size());
+        assertEquals(superfluos.getId(), alertas.get(0).orcamentoId());
+        assertEquals(0, new BigDecimal("110.00").compareTo(alertas.get(0).gasto()));
+        assertTrue(status(motorOrcamentos.status(YearMonth.now()), superfluos).estourado());
+
+        transacaoService.deleteById(serie.getId());
+        transacaoService.save(nova("Filme", "45.00", hoje, streaming));
+
+        assertEquals(2, motorOrcamentos.alertas().size());
+        assertFalse(status(motorOrcamentos.status(YearMonth.now()), doMercado).estourado());
+    }
+
+    @Test
+    @DisplayName("Não deve contar escritas desfeitas e deve recuperar no reconciliar as gravadas fora do serviço")
+    void reconciliar_ShouldIgnoreRollbackAndPickUpJdbcWrites() {
+        transactionTemplate.executeWithoutResult(status -> {
+            motorOrcamentos.registrar(null, new Lancamento(mercado.getId(), new BigDecimal("999.00"), hoje, TipoTransacao.DESPESA, "Atacado"));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, BigDecimal.ZERO.compareTo(status(motorOrcamentos.status(YearMonth.now()), doMercado).gasto()));
+
+        jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id) " +
+                "VALUES ('Atacado', 520.00, ?, 'DESPESA', false, 1, 1, ?)", hoje, mercado.getId());
+        motorOrcamentos.reconciliar();
+
+        StatusOrcamento status = status(motorOrcamentos.status(YearMonth.now()), doMercado);
+        assertEquals(0, new BigDecimal("520.00").compareTo(status.gasto()));
+        assertEquals(0, new BigDecimal("-20.00").compareTo(status.disponivel()));
+        assertTrue(status.estourado());
+    }
+
+    @Test
+    @DisplayName("Não deve contar duas vezes a escrita que a reconciliação lê entre o commit e a aplicação em memória")
+    void reconciliar_BetweenCommitAndApply_ShouldCountWriteOnce() throws Exception {
+        ExecutorService outraThread = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id) " +
+                        "VALUES ('Feira', 180.00, ?, 'DESPESA', false, 1, 1, ?)", hoje, mercado.getId());
+                // Registrada antes do motor: roda depois do commit e antes de a escrita chegar aos contadores
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        Future<?> reconciliacao = outraThread.submit(motorOrcamentos::reconciliar);
+                        try {
+                            reconciliacao.get(200, TimeUnit.MILLISECONDS);
+                        } catch (TimeoutException e) {
+                            // Esperando a escrita sair do portão
+                        } catch (InterruptedException | ExecutionException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                motorOrcamentos.registrar(null, new Lancamento(mercado.getId(), new BigDecimal("180.00"), hoje,
+                        TipoTransacao.DESPESA, "Feira"));
+            });
+            outraThread.shutdown();
+            assertTrue(outraThread.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            outraThread.shutdownNow();
+        }
+
+        assertEquals(0, new BigDecimal("180.00").compareTo(status(motorOrcamentos.status(YearMonth.now()), doMercado).gasto()));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar meses fora da janela mantida em memória")
+    void status_ShouldRejectMonthOutsideWindow() {
+        assertThrows(IllegalArgumentException.class, () -> motorOrcamentos.status(YearMonth.now().minusYears(2)));
+    }
+
+    private static StatusOrcamento status(List<StatusOrcamento> status, Orcamento orcamento) {
+        return status.stream().filter(s -> s.orcamentoId().equals(orcamento.getId())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,82 @@
+package com.organizadorfinancas.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do PortaoReconstrucao")
+class PortaoReconstrucaoTest {
+
+    private final PortaoReconstrucao<List<Integer>> portao = new PortaoReconstrucao<>();
+    private final AtomicInteger isolamento = new AtomicInteger();
+    private volatile List<Integer> estado = new ArrayList<>(List.of(1));
+
+    @Test
+    @DisplayName("Deve ler sem segurar as escritas e aplicar ao estado novo as confirmadas durante a leitura")
+    void reconstruir_ShouldReplayWritesCommittedDuringRead() throws Exception {
+        List<Integer> banco = new ArrayList<>(List.of(1));
+        // Confirmada antes do retrato: já está no banco e não é anotada
+        banco.add(2);
+        escrever(2);
+
+        portao.reconstruir(new TransactionTemplate(gerenciador()), () -> {
+        }, () -> {
+            List<Integer> retrato = new ArrayList<>(banco);
+            // Com o portão aberto, uma escrita de outra thread termina durante a leitura
+            CompletableFuture.runAsync(() -> {
+                banco.add(3);
+                escrever(3);
+            }).orTimeout(5, TimeUnit.SECONDS).join();
+            return retrato;
+        }, novo -> estado = novo);
+
+        assertEquals(List.of(1, 2, 3), estado);
+        assertEquals(TransactionDefinition.ISOLATION_REPEATABLE_READ, isolamento.get());
+
+        // Sem reconstrução em andamento, nada é anotado
+        escrever(4);
+        assertEquals(List.of(1, 2, 3, 4), estado);
+    }
+
+    private void escrever(int valor) {
+        portao.entrar();
+        try {
+            Consumer<List<Integer>> diferenca = alvo -> alvo.add(valor);
+            diferenca.accept(estado);
+            portao.anotar(diferenca);
+        } finally {
+            portao.sair();
+        }
+    }
+
+    private PlatformTransactionManager gerenciador() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definicao) {
+                isolamento.set(definicao.getIsolationLevel());
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+}
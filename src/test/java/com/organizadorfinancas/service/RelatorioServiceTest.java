@@ -0,0 +1,135 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.PedidoRelatorio;
+import com.organizadorfinancas.dto.Relatorio;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do RelatorioService")
+class RelatorioServiceTest {
+
+    @Mock
+    private TransacaoService transacaoService;
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    @InjectMocks
+    private RelatorioService relatorioService;
+
+    private Categoria salario;
+    private Categoria mercado;
+    private Categoria lazer;
+
+    @BeforeEach
+    void setUp() {
+        salario = categoria(1L, "Salário", true, TipoCategoria.RENDA_FIXA);
+        mercado = categoria(2L, "Mercado", true, TipoCategoria.DESPESA_ESSENCIAL);
+        lazer = categoria(3L, "Lazer", false, TipoCategoria.DESPESA_SUPERFLUA);
+    }
+
+    @Test
+    @DisplayName("Deve somar o mês por categoria e trazer a tendência dos meses anteriores")
+    void gerar_Mensal_ShouldAggregateMonthAndTrend() {
+        when(transacaoService.getTotaisPorCategoriaTipoEMes(LocalDate.of(2025, 10, 1), LocalDate.of(2026, 3, 31))).thenReturn(List.of(
+                linha(lazer, TipoTransacao.DESPESA, 2025, 12, 1, "100.00"),
+                linha(salario, TipoTransacao.RECEITA, 2026, 3, 1, "5000.00"),
+                linha(mercado, TipoTransacao.DESPESA, 2026, 3, 2, "500.00"),
+                linha(lazer, TipoTransacao.DESPESA, 2026, 3, 1, "500.00")));
+        when(categoriaRepository.findAllById(any())).thenReturn(List.of(salario, mercado, lazer));
+        when(transacaoService.findParcelasEmAberto(LocalDate.of(2026, 3, 31))).thenReturn(List.of());
+
+        Relatorio relatorio = relatorioService.gerar(new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, 3, null));
+
+        assertEquals(LocalDate.of(2026, 3, 1), relatorio.inicio());
+        assertEquals(new BigDecimal("5000.00"), relatorio.receitas());
+        assertEquals(new BigDecimal("1000.00"), relatorio.despesas());
+        assertEquals(new BigDecimal("4000.00"), relatorio.saldo());
+
+        assertEquals(3, relatorio.porCategoria().size());
+        Relatorio.TotalCategoria primeira = relatorio.porCategoria().get(0);
+        assertEquals(TipoTransacao.RECEITA, primeira.tipo());
+        assertEquals(new BigDecimal("100.00"), primeira.percentual());
+        Relatorio.TotalCategoria mercadoNoMes = relatorio.porCategoria().get(1);
+        assertEquals("Mercado", mercadoNoMes.categoria());
+        assertEquals(2, mercadoNoMes.quantidade());
+        assertEquals(new BigDecimal("500.00"), mercadoNoMes.total());
+        assertEquals(new BigDecimal("50.00"), mercadoNoMes.percentual());
+
+        assertEquals(RelatorioService.MESES_TENDENCIA, relatorio.tendencia().size());
+        assertEquals(new Relatorio.TendenciaMensal("2025-12", new BigDecimal("0.00"), new BigDecimal("100.00"),
+                new BigDecimal("100.00")), relatorio.tendencia().get(2));
+        assertEquals(new Relatorio.TendenciaMensal("2026-03", new BigDecimal("500.00"), new BigDecimal("500.00"),
+                new BigDecimal("50.00")), relatorio.tendencia().get(5));
+    }
+
+    @Test
+    @DisplayName("Deve contar as parcelas que ainda vencem depois do fim do período")
+    void gerar_Anual_ShouldComputeInstallmentExposure() {
+        // A consulta já descartou as compras quitadas e as posteriores ao período
+        when(transacaoService.getTotaisPorCategoriaTipoEMes(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31))).thenReturn(List.<Object[]>of(
+                linha(lazer, TipoTransacao.DESPESA, 2026, 2, 1, "3600.00")));
+        when(categoriaRepository.findAllById(any())).thenReturn(List.of(lazer));
+        when(transacaoService.findParcelasEmAberto(LocalDate.of(2026, 12, 31))).thenReturn(List.<Object[]>of(
+                new Object[]{new BigDecimal("3600.00"), 12, 1, LocalDate.of(2026, 2, 1)}));
+
+        Relatorio relatorio = relatorioService.gerar(new PedidoRelatorio(PedidoRelatorio.Periodo.ANUAL, 2026, null, null));
+
+        assertEquals(12, relatorio.tendencia().size());
+        assertEquals(new BigDecimal("3600.00"), relatorio.despesas());
+        // Parcela 1 em fevereiro, 11 em dezembro: falta uma de 300,00
+        assertEquals(new Relatorio.ExposicaoParcelas(1, 1, new BigDecimal("300.00"), new BigDecimal("300.00")),
+                relatorio.parcelas());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar a categoria excluída entre a soma e a leitura das categorias")
+    void gerar_ShouldSkipCategoriaExcluida() {
+        when(transacaoService.getTotaisPorCategoriaTipoEMes(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31))).thenReturn(List.of(
+                linha(mercado, TipoTransacao.DESPESA, 2026, 2, 1, "200.00"),
+                linha(lazer, TipoTransacao.DESPESA, 2026, 2, 1, "50.00")));
+        when(categoriaRepository.findAllById(any())).thenReturn(List.of(mercado));
+        when(transacaoService.findParcelasEmAberto(LocalDate.of(2026, 12, 31))).thenReturn(List.of());
+
+        Relatorio relatorio = relatorioService.gerar(new PedidoRelatorio(PedidoRelatorio.Periodo.ANUAL, 2026, null, null));
+
+        assertEquals(new BigDecimal("200.00"), relatorio.despesas());
+        assertEquals(List.of("Mercado"), relatorio.porCategoria().stream().map(Relatorio.TotalCategoria::categoria).toList());
+    }
+
+    @Test
+    @DisplayName("Deve recusar relatório mensal sem mês")
+    void gerar_MensalSemMes_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> relatorioService.gerar(new PedidoRelatorio(PedidoRelatorio.Periodo.MENSAL, 2026, null, null)));
+        verifyNoInteractions(transacaoService, categoriaRepository);
+    }
+
+    private static Object[] linha(Categoria categoria, TipoTransacao tipo, int ano, int mes, long quantidade, String total) {
+        return new Object[]{categoria.getId(), tipo, ano, mes, quantidade, new BigDecimal(total)};
+    }
+
+    private static Categoria categoria(Long id, String nome, boolean essencial, TipoCategoria tipo) {
+        Categoria categoria = new Categoria(nome, essencial, tipo);
+        categoria.setId(id);
+        return categoria;
+    }
+}
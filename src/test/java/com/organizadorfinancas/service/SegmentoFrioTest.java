@@ -0,0 +1,95 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.TipoTransacao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do SegmentoFrio")
+class SegmentoFrioTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static List<SegmentoFrio.Registro> ano(int quantidade) {
+        LocalDate inicio = LocalDate.of(2020, 1, 1);
+        List<SegmentoFrio.Registro> registros = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            registros.add(new SegmentoFrio.Registro(i + 1, "Compra " + i, 100 + i, inicio.plusDays(i % 366),
+                    i % 5 == 0 ? TipoTransacao.RECEITA : TipoTransacao.DESPESA, i % 7 == 0, 1 + i % 3, 1,
+                    10 + i % 4, i % 2 == 0 ? null : "obs " + i, i % 3));
+        }
+        return registros;
+    }
+
+    @Test
+    @DisplayName("Deve devolver os registros gravados em ordem de data e id, em mais de um bloco")
+    void abrir_ShouldRoundTripRecords() throws IOException {
+        Path arquivo = diretorio.resolve("transacoes-2020-001.seg");
+        List<SegmentoFrio.Registro> registros = ano(SegmentoFrio.LINHAS_POR_BLOCO + 500);
+        SegmentoFrio.gravar(arquivo, registros);
+
+        SegmentoFrio segmento = SegmentoFrio.abrir(arquivo);
+
+        assertEquals(registros.size(), segmento.quantidade());
+        assertEquals(2, segmento.blocos().size());
+        assertEquals(LocalDate.of(2020, 1, 1), segmento.dataMinima());
+        assertEquals(LocalDate.of(2020, 12, 31), segmento.dataMaxima());
+        List<SegmentoFrio.Registro> lidos = segmento.blocos().stream().flatMap(b -> b.registros().stream()).toList();
+        assertEquals(registros.stream().sorted((a, b) -> a.data().equals(b.data())
+                ? Long.compare(a.id(), b.id()) : a.data().compareTo(b.data())).toList(), lidos);
+        assertTrue(Files.size(arquivo) < registros.size() * 40L, "colunas comprimidas");
+    }
+
+    @Test
+    @DisplayName("Deve pular os blocos fora do período pedido")
+    void blocos_ShouldPruneByDate() {
+        Path arquivo = diretorio.resolve("transacoes-2020-001.seg");
+        SegmentoFrio.gravar(arquivo, ano(SegmentoFrio.LINHAS_POR_BLOCO + 500));
+        SegmentoFrio segmento = SegmentoFrio.abrir(arquivo);
+
+        assertEquals(1, segmento.blocos(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31)).size());
+        assertEquals(1, segmento.blocos(LocalDate.of(2020, 12, 20), null).size());
+        assertEquals(2, segmento.blocos(null, null).size());
+        assertTrue(segmento.blocos(LocalDate.of(2021, 1, 1), LocalDate.of(2021, 12, 31)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve recusar uma coluna com crc inválido")
+    void registros_ShouldRejectCorruptedColumn() throws IOException {
+        Path arquivo = diretorio.resolve("transacoes-2020-001.seg");
+        SegmentoFrio.gravar(arquivo, ano(100));
+
+        // Inverte um byte no fim do arquivo, dentro da última coluna comprimida
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            canal.read(ultimo, canal.size() - 1);
+            ultimo.put(0, (byte) ~ultimo.get(0));
+            canal.write(ultimo.rewind(), canal.size() - 1);
+        }
+        SegmentoFrio segmento = SegmentoFrio.abrir(arquivo);
+
+        assertEquals(100, segmento.blocos().get(0).ids().length);
+        assertThrows(IllegalStateException.class, () -> segmento.blocos().get(0).registros());
+    }
+
+    @Test
+    @DisplayName("Deve recusar um arquivo que não é segmento")
+    void abrir_ShouldRejectForeignFile() throws IOException {
+        Path arquivo = Files.writeString(diretorio.resolve("transacoes-2020-001.seg"), "não é um segmento de transações");
+
+        assertThrows(IllegalStateException.class, () -> SegmentoFrio.abrir(arquivo));
+    }
+}
@@ -0,0 +1,256 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoCategoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import com.organizadorfinancas.repository.TransacaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.organizadorfinancas.service.TransacoesTeste.nova;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "organizador.lote.tamanho=2")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TestServicosConfig.class)
+@DisplayName("Testes do SomasPorData")
+class SomasPorDataTest {
+
+    @Autowired
+    private SomasPorData somasPorData;
+
+    @Autowired
+    private TransacaoService transacaoService;
+
+    @Autowired
+    private TransacaoRepository transacaoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria mercado;
+    private Categoria salario;
+
+    @BeforeEach
+    void setUp() {
+        mercado = categoriaRepository.save(new Categoria("Mercado", true, TipoCategoria.DESPESA_ESSENCIAL));
+        salario = categoriaRepository.save(new Categoria("Salário", true, TipoCategoria.RENDA_FIXA));
+        somasPorData.reconstruir();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "faixas_distribuicao", "estatisticas_categoria", "transacoes", "categorias");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Deve somar qualquer período igual ao banco após inclusões, alterações e exclusões")
+    void somar_ShouldMatchDatabaseAfterWrites() {
+        Random aleatorio = new Random(7);
+        LocalDate base = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < 40; i++) {
+            transacaoService.save(nova(TipoTransacao.DESPESA, (10 + aleatorio.nextInt(500)) + ".90",
+                    base.plusDays(aleatorio.nextInt(120)), mercado));
+        }
+        Transacao bonus = transacaoService.save(nova(TipoTransacao.RECEITA, "5000.00", base.plusDays(4), salario));
+        Transacao feira = transacaoService.save(nova(TipoTransacao.DESPESA, "80.00", base.plusDays(10), mercado));
+        Transacao antiga = transacaoService.save(nova(TipoTransacao.DESPESA, "300.00", base.plusDays(30), mercado));
+
+        // Muda valor e data da feira, move o bônus para outro dia e exclui a compra antiga
+        transacaoService.atualizarParcial(feira.getId(), new AtualizacaoTransacao(feira.getVersao(), null,
+                new BigDecimal("95.50"), base.plusDays(60), null, null, null, null, null, null));
+        bonus.setData(base.plusDays(40));
+        transacaoService.save(bonus);
+        transacaoService.deleteById(antiga.getId());
+
+        for (int i = 0; i < 200; i++) {
+            LocalDate inicio = base.minusDays(10).plusDays(aleatorio.nextInt(140));
+            LocalDate fim = inicio.plusDays(aleatorio.nextInt(60));
+            for (TipoTransacao tipo : TipoTransacao.values()) {
+                assertEquals(0, noBanco(tipo, inicio, fim).compareTo(somasPorData.somar(tipo, inicio, fim).orElseThrow()),
+                        tipo + " " + inicio + " a " + fim);
+            }
+        }
+        assertEquals(0, new BigDecimal("5000.00").compareTo(
+                somasPorData.somar(TipoTransacao.RECEITA, base.plusDays(40), base.plusDays(40)).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Deve deixar para o banco os períodos que alcançam transações fora dos anos indexados")
+    void somar_ShouldFallBackOutsideIndexedYears() {
+        transacaoService.save(nova(TipoTransacao.DESPESA, "100.00", LocalDate.of(1999, 12, 31), mercado));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "50.00", LocalDate.of(2000, 1, 2), mercado));
+
+        assertEquals(Optional.empty(), somasPorData.somar(TipoTransacao.DESPESA, LocalDate.of(1999, 1, 1), LocalDate.of(2000, 1, 31)));
+        assertEquals(0, new BigDecimal("50.00").compareTo(
+                somasPorData.somar(TipoTransacao.DESPESA, LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 31)).orElseThrow()));
+        // Sem receitas fora dos anos indexados, o mesmo período de receitas continua em memória
+        assertEquals(Optional.of(new BigDecimal("0.00")),
+                somasPorData.somar(TipoTransacao.RECEITA, LocalDate.of(1999, 1, 1), LocalDate.of(2000, 1, 31)));
+        assertEquals(0, new BigDecimal("150.00").compareTo(transacaoService.getTotalPorPeriodo(
+                TipoTransacao.DESPESA, LocalDate.of(1999, 1, 1), LocalDate.of(2000, 1, 31))));
+    }
+
+    @Test
+    @DisplayName("Deve servir o saldo acumulado igual ao banco, inclusive após transações retroativas")
+    void getSaldoAcumulado_ShouldMatchDatabaseAfterBackdatedWrites() {
+        LocalDate base = LocalDate.of(2026, 1, 1);
+        transacaoService.save(nova(TipoTransacao.RECEITA, "5000.00", base.plusDays(4), salario));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "1200.00", base.plusDays(9), mercado));
+        transacaoService.save(nova(TipoTransacao.RECEITA, "5000.00", base.plusDays(35), salario));
+        List<PontoSaldo> antes = transacaoService.getSaldoAcumulado(base, base.plusDays(59), PontoSaldo.Granularidade.MES);
+        assertEquals(List.of(new PontoSaldo(base.plusDays(30), new BigDecimal("3800.00")),
+                new PontoSaldo(base.plusDays(58), new BigDecimal("8800.00")),
+                new PontoSaldo(base.plusDays(59), new BigDecimal("8800.00"))), antes);
+
+        // Retroativa: muda todos os pontos seguintes sem refazer os saldos
+        transacaoService.save(nova(TipoTransacao.DESPESA, "300.00", base.minusDays(20), mercado));
+        List<LocalDate> dias = base.minusDays(30).datesUntil(base.plusDays(90)).toList();
+        List<BigDecimal> emMemoria = somasPorData.saldosAcumulados(dias).orElseThrow();
+        BigDecimal saldo = BigDecimal.ZERO;
+        for (int i = 0; i < dias.size(); i++) {
+            saldo = saldo.add(noBanco(TipoTransacao.RECEITA, dias.get(i), dias.get(i)))
+                    .subtract(noBanco(TipoTransacao.DESPESA, dias.get(i), dias.get(i)));
+            assertEquals(0, saldo.compareTo(emMemoria.get(i)), dias.get(i).toString());
+        }
+        assertEquals(0, new BigDecimal("8500.00").compareTo(transacaoService.getSaldoAcumulado(
+                base, base.plusDays(59), PontoSaldo.Granularidade.ANO).get(0).saldo()));
+    }
+
+    @Test
+    @DisplayName("Deve calcular o saldo acumulado no banco quando há transações antes dos anos indexados")
+    void getSaldoAcumulado_ShouldFallBackBeforeIndexedYears() {
+        transacaoService.save(nova(TipoTransacao.RECEITA, "1000.00", LocalDate.of(1999, 6, 1), salario));
+        transacaoService.save(nova(TipoTransacao.DESPESA, "250.00", LocalDate.of(2000, 1, 3), mercado));
+
+        assertEquals(Optional.empty(), somasPorData.saldosAcumulados(List.of(LocalDate.of(1999, 12, 31))));
+        // Depois do início dos anos indexados, o total anterior já está somado
+        assertEquals(Optional.of(List.of(new BigDecimal("750.00"))), somasPorData.saldosAcumulados(List.of(LocalDate.of(2000, 1, 31))));
+        assertEquals(List.of(new PontoSaldo(LocalDate.of(1999, 12, 31), new BigDecimal("1000.00")),
+                        new PontoSaldo(LocalDate.of(2000, 12, 31), new BigDecimal("750.00"))),
+                transacaoService.getSaldoAcumulado(LocalDate.of(1999, 1, 1), LocalDate.of(2000, 12, 31), PontoSaldo.Granularidade.ANO));
+    }
+
+    @Test
+    @DisplayName("Deve refazer as somas do banco após operações em lote e gravações fora da aplicação")
+    void reconstruir_ShouldPickUpBatchesAndJdbcWrites() {
+        LocalDate dia = LocalDate.of(2026, 3, 10);
+        for (int i = 1; i <= 5; i++) {
+            transacaoService.save(nova(TipoTransacao.DESPESA, "10.00", dia, mercado));
+        }
+        transacaoService.excluirPorFiltro(new FiltroTransacoes(dia, dia, mercado.getId(), null, null));
+        assertEquals(0, BigDecimal.ZERO.compareTo(somasPorData.somar(TipoTransacao.DESPESA, dia, dia).orElseThrow()));
+
+        jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id) " +
+                "VALUES ('Atacado', 520.00, ?, 'DESPESA', false, 1, 1, ?)", dia, mercado.getId());
+        somasPorData.reconstruir();
+
+        assertEquals(0, new BigDecimal("520.00").compareTo(somasPorData.somar(TipoTransacao.DESPESA, dia, dia).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Não deve somar duas vezes a escrita que a reconstrução lê entre o commit e a aplicação nas árvores")
+    void reconstruir_BetweenCommitAndApply_ShouldCountWriteOnce() throws Exception {
+        LocalDate dia = LocalDate.of(2026, 3, 10);
+        ExecutorService outraThread = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO transacoes (descricao, valor, data, tipo, recorrente, parcelas, parcela_atual, categoria_id) " +
+                        "VALUES ('Feira', 180.00, ?, 'DESPESA', false, 1, 1, ?)", dia, mercado.getId());
+                // Registrada antes das somas: roda depois do commit e antes de a escrita chegar às árvores
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        Future<?> reconstrucao = outraThread.submit(somasPorData::reconstruir);
+                        try {
+                            reconstrucao.get(200, TimeUnit.MILLISECONDS);
+                        } catch (TimeoutException e) {
+                            // Esperando a escrita sair do portão
+                        } catch (InterruptedException | ExecutionException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+                somasPorData.registrar(null, new Lancamento(mercado.getId(), new BigDecimal("180.00"), dia,
+                        TipoTransacao.DESPESA, "Feira"));
+            });
+            outraThread.shutdown();
+            assertTrue(outraThread.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            outraThread.shutdownNow();
+        }
+
+        assertEquals(0, new BigDecimal("180.00").compareTo(somasPorData.somar(TipoTransacao.DESPESA, dia, dia).orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Deve somar intervalos da árvore de Fenwick igual à soma direta")
+    void arvoreFenwick_ShouldMatchNaiveSums() {
+        Random aleatorio = new Random(11);
+        long[] valores = new long[1000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = aleatorio.nextInt(10_000) - 2_000;
+        }
+        ArvoreFenwick arvore = new ArvoreFenwick(valores.clone());
+        for (int i = 0; i < 5_000; i++) {
+            int posicao = aleatorio.nextInt(valores.length);
+            long valor = aleatorio.nextInt(1_000) - 500;
+            valores[posicao] += valor;
+            arvore.somar(posicao, valor);
+            int inicio = aleatorio.nextInt(valores.length);
+            int fim = inicio + aleatorio.nextInt(valores.length - inicio);
+            long esperado = 0;
+            for (int j = inicio; j <= fim; j++) {
+                esperado += valores[j];
+            }
+            assertEquals(esperado, arvore.somar(inicio, fim));
+        }
+    }
+
+    private BigDecimal noBanco(TipoTransacao tipo, LocalDate inicio, LocalDate fim) {
+        BigDecimal soma = transacaoRepository.sumByTipoAndPeriodo(tipo, inicio, fim);
+        return soma != null ? soma : BigDecimal.ZERO;
+    }
+}
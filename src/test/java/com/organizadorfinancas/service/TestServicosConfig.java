@@ -0,0 +1,19 @@
+package com.organizadorfinancas.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/** O TransacaoService com os ouvintes de escrita, a camada fria e métricas em memória, para os testes com banco. */
+@TestConfiguration
+@Import({TransacaoService.class, CoalescedorConsultas.class, ArquivoFrio.class, EstatisticasCategorias.class,
+        MotorOrcamentos.class, DetectorGastosInvisiveis.class, DistribuicoesCategorias.class, SomasPorData.class})
+public class TestServicosConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
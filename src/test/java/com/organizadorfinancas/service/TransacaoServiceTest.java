@@ -1,17 +1,29 @@
 package com.organizadorfinancas.service;
 
+import com.organizadorfinancas.dto.AgregadoCategoria;
+import com.organizadorfinancas.dto.AlteracaoEmLote;
+import com.organizadorfinancas.dto.AtualizacaoTransacao;
+import com.organizadorfinancas.dto.FiltroTransacoes;
+import com.organizadorfinancas.dto.PontoSaldo;
+import com.organizadorfinancas.dto.ResultadoLote;
 import com.organizadorfinancas.model.*;
-import com.organizadorfinancas.repository.TransacaoRepository;
+import com.organizadorfinancas.repository.ArmazenamentoTransacoes;
+import com.organizadorfinancas.repository.CategoriaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +31,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,7 +39,37 @@ import static org.mockito.Mockito.*;
 class TransacaoServiceTest {
 
     @Mock
-    private TransacaoRepository transacaoRepository;
+    private ArmazenamentoTransacoes transacaoRepository;
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    @Spy
+    private CoalescedorConsultas coalescedorConsultas = new CoalescedorConsultas(new SimpleMeterRegistry());
+
+    @Mock
+    private EstatisticasCategorias estatisticasCategorias;
+
+    @Mock
+    private MotorOrcamentos motorOrcamentos;
+
+    @Mock
+    private DetectorGastosInvisiveis detectorGastosInvisiveis;
+
+    @Mock
+    private DistribuicoesCategorias distribuicoesCategorias;
+
+    @Mock
+    private SomasPorData somasPorData;
+
+    @Spy
+    private List<OuvinteEscritas> ouvintes = new ArrayList<>();
+
+    @Spy
+    private ArquivoFrio arquivoFrio = new ArquivoFrio();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     @InjectMocks
     private TransacaoService transacaoService;
@@ -39,6 +82,9 @@ class TransacaoServiceTest {
 
     @BeforeEach
     void setUp() {
+        ouvintes.addAll(List.of(estatisticasCategorias, motorOrcamentos, detectorGastosInvisiveis,
+                distribuicoesCategorias, somasPorData));
+
         categoriaSalario = new Categoria("Salário", true, TipoCategoria.RENDA_FIXA);
         categoriaSalario.setId(1L);
 
@@ -106,6 +152,7 @@ class TransacaoServiceTest {
                 LocalDate.of(2026, 2, 15), TipoTransacao.RECEITA, false, categoriaSalario);
         savedTransacao.setId(4L);
 
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoriaSalario));
         when(transacaoRepository.save(any(Transacao.class))).thenReturn(savedTransacao);
 
         Transacao resultado = transacaoService.save(novaTransacao);
@@ -114,14 +161,159 @@ class TransacaoServiceTest {
         assertEquals(4L, resultado.getId());
         assertEquals("Freelancer", resultado.getDescricao());
         verify(transacaoRepository, times(1)).save(novaTransacao);
+        for (OuvinteEscritas ouvinte : List.of(estatisticasCategorias, motorOrcamentos, detectorGastosInvisiveis,
+                distribuicoesCategorias, somasPorData)) {
+            verify(ouvinte).registrar(null, Lancamento.de(savedTransacao));
+        }
     }
 
     @Test
     @DisplayName("Deve excluir transação por ID")
     void deleteById_ShouldDeleteTransacao() {
-        transacaoService.deleteById(1L);
+        when(transacaoRepository.findById(1L)).thenReturn(Optional.of(transacaoSalario));
+
+        assertTrue(transacaoService.deleteById(1L));
 
         verify(transacaoRepository, times(1)).deleteById(1L);
+        verify(estatisticasCategorias).registrar(Lancamento.de(transacaoSalario), null);
+    }
+
+    @Test
+    @DisplayName("Deve retornar falso sem excluir quando a transação não existe")
+    void deleteById_ShouldReturnFalse_WhenNotExists() {
+        when(transacaoRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertFalse(transacaoService.deleteById(99L));
+
+        verify(transacaoRepository, never()).deleteById(anyLong());
+        verify(estatisticasCategorias, never()).registrar(any(), any());
+        verify(coalescedorConsultas, never()).invalidar();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar transação com categoria inexistente")
+    void save_ShouldThrow_WhenCategoriaNotFound() {
+        categoriaSalario.setId(99L);
+        when(categoriaRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.save(transacaoSalario));
+        verify(transacaoRepository, never()).save(any(Transacao.class));
+    }
+
+    @Test
+    @DisplayName("Deve recusar transações numa categoria sendo excluída até o fim da exclusão")
+    void save_ShouldThrow_WhenCategoriaBloqueada() {
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(categoriaSalario));
+        transacaoService.bloquearCategoria(1L);
+
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.bloquearCategoria(1L));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.save(transacaoSalario));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.atualizarParcial(2L,
+                new AtualizacaoTransacao(1L, null, null, null, null, null, null, null, 1L, null)));
+        verify(transacaoRepository, never()).save(any(Transacao.class));
+
+        transacaoService.liberarCategoria(1L);
+        when(transacaoRepository.save(any(Transacao.class))).thenReturn(transacaoSalario);
+        assertEquals(transacaoSalario, transacaoService.save(transacaoSalario));
+    }
+
+    @Test
+    @DisplayName("Deve retornar a nova versão após alteração parcial")
+    void atualizarParcial_ShouldReturnNextVersion_WhenUpdated() {
+        AtualizacaoTransacao atualizacao = new AtualizacaoTransacao(
+                2L, null, null, null, null, null, null, null, null, "Salário de março");
+        when(transacaoRepository.atualizarParcial(1L, atualizacao)).thenReturn(1);
+
+        assertEquals(Optional.of(3L), transacaoService.atualizarParcial(1L, atualizacao));
+        verify(transacaoRepository, never()).findById(anyLong());
+        verify(transacaoRepository, never()).existsById(anyLong());
+        verify(coalescedorConsultas).invalidar();
+    }
+
+    @Test
+    @DisplayName("Deve informar a troca de descrição à análise de gastos invisíveis")
+    void atualizarParcial_ShouldRegisterDescriptionChange() {
+        AtualizacaoTransacao atualizacao = new AtualizacaoTransacao(
+                2L, "Salário Março", null, null, null, null, null, null, null, null);
+        transacaoSalario.setVersao(2L);
+        when(transacaoRepository.findById(1L)).thenReturn(Optional.of(transacaoSalario));
+        when(transacaoRepository.atualizarParcial(1L, atualizacao)).thenReturn(1);
+
+        assertEquals(Optional.of(3L), transacaoService.atualizarParcial(1L, atualizacao));
+        Lancamento anterior = Lancamento.de(transacaoSalario);
+        verify(detectorGastosInvisiveis).registrar(anterior, new Lancamento(anterior.categoriaId(), anterior.valor(),
+                anterior.data(), anterior.tipo(), "Salário Março"));
+    }
+
+    @Test
+    @DisplayName("Deve distinguir conflito de versão de transação inexistente")
+    void atualizarParcial_ShouldThrowConflict_WhenVersionIsStale() {
+        AtualizacaoTransacao atualizacao = new AtualizacaoTransacao(
+                2L, null, new BigDecimal("10.00"), null, null, null, null, null, null, null);
+        transacaoSalario.setVersao(2L);
+        when(transacaoRepository.findById(1L)).thenReturn(Optional.of(transacaoSalario));
+        when(transacaoRepository.findById(99L)).thenReturn(Optional.empty());
+        when(transacaoRepository.atualizarParcial(1L, atualizacao)).thenReturn(0);
+        when(transacaoRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ConflitoVersaoException.class, () -> transacaoService.atualizarParcial(1L, atualizacao));
+        assertEquals(Optional.empty(), transacaoService.atualizarParcial(99L, atualizacao));
+        transacaoSalario.setVersao(3L);
+        assertThrows(ConflitoVersaoException.class, () -> transacaoService.atualizarParcial(1L, atualizacao));
+        verify(transacaoRepository, times(1)).atualizarParcial(anyLong(), any());
+        verifyNoInteractions(estatisticasCategorias);
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.atualizarParcial(1L,
+                new AtualizacaoTransacao(2L, null, null, null, null, null, null, null, null, null)));
+        verify(coalescedorConsultas, never()).invalidar();
+    }
+
+    @Test
+    @DisplayName("Deve excluir por filtro em lotes até não restar lote completo")
+    void excluirPorFiltro_ShouldRunOneDeletePerBatch() {
+        FiltroTransacoes filtro = new FiltroTransacoes(null, null, 2L, null, null);
+        when(transacaoRepository.findIdFinalLote(filtro, 0, 1000)).thenReturn(Optional.of(1500L));
+        when(transacaoRepository.findIdFinalLote(filtro, 1501, 1000)).thenReturn(Optional.empty());
+        LocalDate dia = LocalDate.of(2026, 2, 10);
+        when(transacaoRepository.findLancamentosDoLote(filtro, 0, 1500)).thenReturn(List.<Object[]>of(
+                new Object[]{1500L, 2L, new BigDecimal("9000.00"), dia, TipoTransacao.DESPESA, "Mercado"}));
+        when(transacaoRepository.findLancamentosDoLote(filtro, 1501, Long.MAX_VALUE)).thenReturn(List.<Object[]>of(
+                new Object[]{1600L, 2L, new BigDecimal("420.00"), dia, TipoTransacao.DESPESA, "Feira"}));
+        List<AgregadoCategoria> primeiro = List.of(new AgregadoCategoria(2L, 1000L, new BigDecimal("9000.00"), BigDecimal.ZERO, 1500L));
+        List<AgregadoCategoria> ultimo = List.of(new AgregadoCategoria(2L, 42L, new BigDecimal("420.00"), BigDecimal.ZERO, 1600L));
+        when(transacaoRepository.agregarPorCategoria(eq(filtro), eq(0L), eq(1500L), any())).thenReturn(primeiro);
+        when(transacaoRepository.agregarPorCategoria(eq(filtro), eq(1501L), eq(1600L), any())).thenReturn(ultimo);
+        when(transacaoRepository.excluirPorFiltro(filtro, 0, 1500)).thenReturn(1000);
+        // O último lote vai só até o maior id lido
+        when(transacaoRepository.excluirPorFiltro(filtro, 1501, 1600)).thenReturn(42);
+
+        ResultadoLote resultado = transacaoService.excluirPorFiltro(filtro);
+
+        assertEquals(new ResultadoLote(1042, 2), resultado);
+        verify(estatisticasCategorias).registrarExclusoes(eq(primeiro), any());
+        verify(estatisticasCategorias).registrarExclusoes(eq(ultimo), any());
+        // O estado em memória recebe as transações do lote, sem refazer tudo a partir do banco
+        verify(motorOrcamentos).registrarEmLote(List.of(new Lancamento(2L, new BigDecimal("420.00"), dia,
+                TipoTransacao.DESPESA, "Feira")), null);
+        verify(motorOrcamentos, never()).reconciliar();
+        verify(somasPorData, never()).reconstruir();
+        verify(coalescedorConsultas).invalidar();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar operação em lote sem filtro, sem alteração ou com categoria inexistente")
+    void alterarPorFiltro_ShouldValidateInput() {
+        FiltroTransacoes vazio = new FiltroTransacoes(null, null, null, null, " ");
+        FiltroTransacoes filtro = new FiltroTransacoes(null, null, null, null, "uber");
+        when(categoriaRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.excluirPorFiltro(vazio));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.excluirPorFiltro(
+                new FiltroTransacoes(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 2, 1), null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.alterarPorFiltro(
+                filtro, new AlteracaoEmLote(null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.alterarPorFiltro(
+                filtro, new AlteracaoEmLote(99L, null, null)));
+        verify(transacaoRepository, never()).alterarPorFiltro(any(), any(), anyLong(), anyLong());
     }
 
     @Test
@@ -197,6 +389,31 @@ class TransacaoServiceTest {
         verify(transacaoRepository, times(1)).findGastosSuperfluos();
     }
 
+    @Test
+    @DisplayName("Deve limitar as maiores transações às despesas quando o filtro não tem tipo")
+    void findMaiores_ShouldDefaultToDespesa_WhenTipoIsMissing() {
+        FiltroTransacoes filtro = new FiltroTransacoes(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31), null, null, null);
+        FiltroTransacoes esperado = new FiltroTransacoes(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 31), null,
+                TipoTransacao.DESPESA, null);
+        when(transacaoRepository.findMaiores(eq(esperado), eq(10))).thenReturn(List.of(transacaoParcelada));
+
+        List<Transacao> resultado = transacaoService.findMaiores(filtro, 10);
+
+        assertEquals(1, resultado.size());
+        verify(transacaoRepository).findMaiores(esperado, 10);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar quantidade fora do limite nos rankings")
+    void rankings_ShouldRejectInvalidK() {
+        FiltroTransacoes filtro = new FiltroTransacoes(null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.findMaiores(filtro, 0));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.findCategoriasMaisCaras(filtro, 101));
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.findGastosSuperfluos(-1));
+        verifyNoInteractions(transacaoRepository);
+    }
+
     @Test
     @DisplayName("Deve buscar despesas parceladas")
     void findDespesasParceladas_ShouldReturnDespesasParceladas() {
@@ -271,6 +488,38 @@ class TransacaoServiceTest {
                 eq(TipoTransacao.RECEITA), any(LocalDate.class), any(LocalDate.class));
     }
 
+    @Test
+    @DisplayName("Deve somar o período pelas somas em memória, sem ir ao banco")
+    void getTotalPorPeriodo_ShouldUseInMemorySums() {
+        LocalDate inicio = LocalDate.of(2026, 1, 10);
+        LocalDate fim = LocalDate.of(2026, 2, 20);
+        when(somasPorData.somar(TipoTransacao.DESPESA, inicio, fim)).thenReturn(Optional.of(new BigDecimal("730.40")));
+
+        BigDecimal resultado = transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, inicio, fim);
+
+        assertEquals(new BigDecimal("730.40"), resultado);
+        verify(transacaoRepository, never()).sumByTipoAndPeriodo(any(), any(), any());
+        assertThrows(IllegalArgumentException.class,
+                () -> transacaoService.getTotalPorPeriodo(TipoTransacao.DESPESA, fim, inicio));
+    }
+
+    @Test
+    @DisplayName("Deve montar um ponto de saldo por fechamento de mês, terminando na data final")
+    void getSaldoAcumulado_ShouldUseOnePointPerPeriod() {
+        List<LocalDate> fechamentos = List.of(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 10));
+        when(somasPorData.saldosAcumulados(fechamentos)).thenReturn(Optional.of(
+                List.of(new BigDecimal("100.00"), new BigDecimal("250.00"), new BigDecimal("-40.00"))));
+
+        List<PontoSaldo> pontos = transacaoService.getSaldoAcumulado(
+                LocalDate.of(2026, 1, 15), LocalDate.of(2026, 3, 10), PontoSaldo.Granularidade.MES);
+
+        assertEquals(new PontoSaldo(LocalDate.of(2026, 3, 10), new BigDecimal("-40.00")), pontos.get(2));
+        assertEquals(3, pontos.size());
+        verify(transacaoRepository, never()).sumSaldoPorDataAte(any());
+        assertThrows(IllegalArgumentException.class, () -> transacaoService.getSaldoAcumulado(
+                LocalDate.of(2000, 1, 1), LocalDate.of(2026, 1, 1), PontoSaldo.Granularidade.DIA));
+    }
+
     @Test
     @DisplayName("Deve calcular total de gastos recorrentes")
     void getTotalGastosRecorrentes_ShouldReturnTotalGastosRecorrentes() {
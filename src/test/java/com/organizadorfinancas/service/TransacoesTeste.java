@@ -0,0 +1,27 @@
+package com.organizadorfinancas.service;
+
+import com.organizadorfinancas.model.Categoria;
+import com.organizadorfinancas.model.TipoTransacao;
+import com.organizadorfinancas.model.Transacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Transações novas (sem id) para os testes, não recorrentes e à vista. */
+final class TransacoesTeste {
+
+    private TransacoesTeste() {
+    }
+
+    static Transacao nova(TipoTransacao tipo, String valor, LocalDate data, Categoria categoria) {
+        return nova("Lançamento", valor, data, categoria, tipo);
+    }
+
+    static Transacao nova(String descricao, String valor, LocalDate data, Categoria categoria) {
+        return nova(descricao, valor, data, categoria, TipoTransacao.DESPESA);
+    }
+
+    static Transacao nova(String descricao, String valor, LocalDate data, Categoria categoria, TipoTransacao tipo) {
+        return new Transacao(descricao, new BigDecimal(valor), data, tipo, false, categoria);
+    }
+}